@@ -93,6 +93,29 @@ public class ArCameraNode extends CameraNode {
         areMatricesInitialized = true;
     }
 
+    /**
+     * Updates the pose and projection of the camera from the view matrix and pose already read from
+     * ARCore on the AR thread.
+     *
+     * @hide Called internally as part of the integration with ARCore, should not be called directly.
+     */
+    public void updateTrackedPose(
+            com.google.ar.core.Camera camera, float[] viewMatrix, Pose displayOrientedPose) {
+        Preconditions.checkNotNull(camera, "Parameter \"camera\" was null.");
+        Preconditions.checkNotNull(viewMatrix, "Parameter \"viewMatrix\" was null.");
+        Preconditions.checkNotNull(displayOrientedPose, "Parameter \"displayOrientedPose\" was null.");
+
+        // The projection depends on the current near and far planes
+        camera.getProjectionMatrix(projectionMatrix.data, 0, nearPlane, farPlane);
+
+        System.arraycopy(viewMatrix, 0, getViewMatrix().data, 0, 16);
+
+        super.setPosition(PoseKt.getPosition(displayOrientedPose));
+        super.setQuaternion(PoseKt.getQuaternion(displayOrientedPose));
+
+        areMatricesInitialized = true;
+    }
+
     // Only used if this camera is not controlled by ARCore.
     @Override
     public void refreshProjectionMatrix() {
@@ -1,17 +1,19 @@
 package com.google.ar.sceneform.rendering;
 
+import android.util.Log;
+
 import androidx.annotation.Nullable;
 
 import com.google.ar.core.Plane;
 import com.google.ar.core.TrackingState;
 import com.google.ar.sceneform.common.TransformProvider;
 import com.google.ar.sceneform.math.Matrix;
-import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.RenderableDefinition.Submesh;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import io.github.sceneview.Filament;
@@ -19,6 +21,10 @@ import io.github.sceneview.SceneView;
 
 /**
  * Renders a single ARCore Plane.
+ *
+ * <p>The mesh is only rebuilt when the plane polygon changes. A pose only change just moves the
+ * existing mesh. The feathered mesh is generated on a background thread into primitive arrays
+ * sized with some headroom, so a growing plane keeps its GPU buffers most of the time.
  */
 public class PlaneVisualizer implements TransformProvider {
     private static final String TAG = PlaneVisualizer.class.getSimpleName();
@@ -27,6 +33,7 @@ public class PlaneVisualizer implements TransformProvider {
     private final Plane plane;
 
     private final Matrix planeMatrix = new Matrix();
+    private final float[] scratchMatrix = new float[16];
 
     private boolean isPlaneAddedToScene = false;
     private boolean isEnabled = false;
@@ -38,13 +45,23 @@ public class PlaneVisualizer implements TransformProvider {
     @Nullable
     private RenderableInstance planeRenderableInstance;
 
-    private final ArrayList<Vertex> vertices = new ArrayList<>();
-    private final ArrayList<Integer> triangleIndices = new ArrayList<>();
+    private final MeshArrays meshArrays = new MeshArrays();
     private final RenderableDefinition renderableDefinition;
     @Nullable
     private Submesh planeSubmesh;
     @Nullable
     private Submesh shadowSubmesh;
+    private boolean isSubmeshesChanged = false;
+
+    // The polygon the current or building mesh was generated from.
+    private float[] polygon = new float[0];
+    private int polygonLength = -1;
+
+    // The mesh used by the renderable definition and the one filled on the background thread.
+    private PlaneMesh mesh = new PlaneMesh();
+    private PlaneMesh backMesh = new PlaneMesh();
+    private boolean isMeshBuilding = false;
+    private boolean isDestroyed = false;
 
     private static final int VERTS_PER_BOUNDARY_VERT = 2;
 
@@ -64,6 +81,7 @@ public class PlaneVisualizer implements TransformProvider {
     public void setShadowReceiver(boolean shadowReceiver) {
         if (isShadowReceiver != shadowReceiver) {
             isShadowReceiver = shadowReceiver;
+            isSubmeshesChanged = true;
             updatePlane();
         }
     }
@@ -71,6 +89,7 @@ public class PlaneVisualizer implements TransformProvider {
     public void setVisible(boolean visible) {
         if (isVisible != visible) {
             isVisible = visible;
+            isSubmeshesChanged = true;
             updatePlane();
         }
     }
@@ -79,7 +98,7 @@ public class PlaneVisualizer implements TransformProvider {
         this.sceneView = sceneView;
         this.plane = plane;
 
-        renderableDefinition = RenderableDefinition.builder().setVertices(vertices)
+        renderableDefinition = RenderableDefinition.builder().setMesh(meshArrays)
                 .build(sceneView.getLifecycle());
     }
 
@@ -89,11 +108,14 @@ public class PlaneVisualizer implements TransformProvider {
 
     public void setShadowMaterial(Material material) {
         if (shadowSubmesh == null) {
-            shadowSubmesh =
-                    Submesh.builder().setTriangleIndices(triangleIndices).setMaterial(material.filamentMaterialInstance).build();
+            shadowSubmesh = Submesh.builder()
+                    .setTriangleIndexCount(mesh.triangleIndexCount)
+                    .setMaterial(material.filamentMaterialInstance)
+                    .build();
         } else {
             shadowSubmesh.setMaterial(material.filamentMaterialInstance);
         }
+        isSubmeshesChanged = true;
 
         if (planeRenderable != null) {
             updateRenderable();
@@ -102,11 +124,14 @@ public class PlaneVisualizer implements TransformProvider {
 
     public void setPlaneMaterial(Material material) {
         if (planeSubmesh == null) {
-            planeSubmesh =
-                    Submesh.builder().setTriangleIndices(triangleIndices).setMaterial(material.filamentMaterialInstance).build();
+            planeSubmesh = Submesh.builder()
+                    .setTriangleIndexCount(mesh.triangleIndexCount)
+                    .setMaterial(material.filamentMaterialInstance)
+                    .build();
         } else {
             planeSubmesh.setMaterial(material.filamentMaterialInstance);
         }
+        isSubmeshesChanged = true;
 
         if (planeRenderable != null) {
             updateRenderable();
@@ -124,29 +149,45 @@ public class PlaneVisualizer implements TransformProvider {
             return;
         }
 
-        if (plane.getTrackingState() != TrackingState.TRACKING) {
+        if (plane.getTrackingState() != TrackingState.TRACKING || plane.getSubsumedBy() != null) {
             removePlaneFromScene();
             return;
         }
 
         // Set the transformation matrix to the pose of the plane.
-        plane.getCenterPose().toMatrix(planeMatrix.data, 0);
+        plane.getCenterPose().toMatrix(scratchMatrix, 0);
+        if (!Arrays.equals(scratchMatrix, planeMatrix.data)) {
+            planeMatrix.set(scratchMatrix);
+            updateModelMatrix();
+        }
+
+        // Checked again once the current mesh is applied.
+        if (isMeshBuilding) {
+            return;
+        }
 
-        // Calculate the mesh for the plane.
-        boolean success = updateRenderableDefinitionForPlane();
-        if (!success) {
+        FloatBuffer boundary = plane.getPolygon();
+        if (boundary == null || boundary.limit() / 2 == 0) {
             removePlaneFromScene();
             return;
         }
 
-        updateRenderable();
-        addPlaneToScene();
+        if (updatePolygon(boundary)) {
+            buildMeshAsync();
+        } else {
+            // The materials may be loaded after the mesh is built
+            if (planeRenderable == null || isSubmeshesChanged) {
+                updateRenderable();
+            }
+            addPlaneToScene();
+        }
     }
 
     @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
     void updateRenderable() {
         List<Submesh> submeshes = renderableDefinition.getSubmeshes();
         submeshes.clear();
+        isSubmeshesChanged = false;
 
         // the order of the meshes is important here, because we set the blendOrder based on
         // the index below.
@@ -187,12 +228,12 @@ public class PlaneVisualizer implements TransformProvider {
         }
         planeRenderableInstance.prepareForDraw(sceneView);
 
-        planeRenderableInstance.setModelMatrix(Filament.getTransformManager(),
-                planeRenderableInstance.getWorldModelMatrix().data);
+        updateModelMatrix();
     }
 
     public void destroy() {
         removePlaneFromScene();
+        isDestroyed = true;
 
         if (planeRenderableInstance != null) {
             planeRenderableInstance.destroy();
@@ -200,6 +241,14 @@ public class PlaneVisualizer implements TransformProvider {
         planeRenderable = null;
     }
 
+    private void updateModelMatrix() {
+        if (planeRenderableInstance == null) {
+            return;
+        }
+        planeRenderableInstance.setModelMatrix(Filament.getTransformManager(),
+                planeRenderableInstance.getWorldModelMatrix().data);
+    }
+
     private void addPlaneToScene() {
         if (isPlaneAddedToScene || planeRenderableInstance == null) {
             return;
@@ -219,83 +268,162 @@ public class PlaneVisualizer implements TransformProvider {
         isPlaneAddedToScene = false;
     }
 
-    private boolean updateRenderableDefinitionForPlane() {
-        FloatBuffer boundary = plane.getPolygon();
+    /**
+     * Keeps a copy of the plane polygon.
+     *
+     * @return true if it differs from the previous one
+     */
+    private boolean updatePolygon(FloatBuffer boundary) {
+        int length = boundary.limit();
+        if (length == polygonLength) {
+            int i = 0;
+            while (i < length && boundary.get(i) == polygon[i]) {
+                i++;
+            }
+            if (i == length) {
+                return false;
+            }
+        }
+        if (polygon.length < length) {
+            polygon = new float[withHeadroom(length)];
+        }
+        boundary.rewind();
+        boundary.get(polygon, 0, length);
+        polygonLength = length;
+        return true;
+    }
 
-        if (boundary == null) {
-            return false;
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void buildMeshAsync() {
+        isMeshBuilding = true;
+        // The polygon and the back mesh are left untouched on the main thread until it is done.
+        PlaneMesh target = backMesh;
+        float[] source = polygon;
+        int sourceLength = polygonLength;
+        CompletableFuture.runAsync(
+                () -> target.build(source, sourceLength), ThreadPools.getThreadPoolExecutor())
+                .whenCompleteAsync((unused, throwable) -> {
+                    isMeshBuilding = false;
+                    if (throwable != null) {
+                        // The next polygon change starts a new build.
+                        Log.e(TAG, "Unable to build the plane mesh.", throwable);
+                        return;
+                    }
+                    onMeshBuilt();
+                }, ThreadPools.getMainExecutor());
+    }
+
+    private void onMeshBuilt() {
+        if (isDestroyed) {
+            return;
         }
 
-        boundary.rewind();
-        int boundaryVertices = boundary.limit() / 2;
+        PlaneMesh builtMesh = backMesh;
+        backMesh = mesh;
+        mesh = builtMesh;
 
-        if (boundaryVertices == 0) {
-            return false;
+        meshArrays.setPositions(mesh.positions, mesh.vertexCount)
+                .setNormals(mesh.normals)
+                // The plane and the shadow submeshes each use a copy of the triangles.
+                .setTriangleIndices(mesh.triangleIndices, mesh.triangleIndexCount * 2);
+        if (planeSubmesh != null) {
+            planeSubmesh.setTriangleIndexCount(mesh.triangleIndexCount);
+        }
+        if (shadowSubmesh != null) {
+            shadowSubmesh.setTriangleIndexCount(mesh.triangleIndexCount);
         }
 
-        int numVertices = boundaryVertices * VERTS_PER_BOUNDARY_VERT;
-        vertices.clear();
-        vertices.ensureCapacity(numVertices);
+        updateRenderable();
+        // Adds the plane to the scene or starts a new build if the polygon changed meanwhile.
+        updatePlane();
+    }
 
-        int numIndices = (boundaryVertices * 6) + ((boundaryVertices - 2) * 3);
-        triangleIndices.clear();
-        triangleIndices.ensureCapacity(numIndices);
+    private static int withHeadroom(int size) {
+        return size + size / 2;
+    }
 
-        Vector3 normal = Vector3.up();
+    /**
+     * The feathered plane mesh arrays.
+     */
+    private static class PlaneMesh {
+        float[] positions = new float[0];
+        float[] normals = new float[0];
+        int[] triangleIndices = new int[0];
+        int vertexCount;
+        // For one submesh. The array contains it twice.
+        int triangleIndexCount;
+
+        void build(float[] boundary, int boundaryLength) {
+            int boundaryVertices = boundaryLength / 2;
+
+            vertexCount = boundaryVertices * VERTS_PER_BOUNDARY_VERT;
+            triangleIndexCount = (boundaryVertices * 6) + (Math.max(boundaryVertices - 2, 0) * 3);
+
+            if (positions.length < vertexCount * MeshArrays.POSITION_SIZE) {
+                positions = new float[withHeadroom(vertexCount) * MeshArrays.POSITION_SIZE];
+                normals = new float[positions.length];
+                for (int i = 1; i < normals.length; i += MeshArrays.NORMAL_SIZE) {
+                    normals[i] = 1.0f;
+                }
+            }
+            if (triangleIndices.length < triangleIndexCount * 2) {
+                triangleIndices = new int[withHeadroom(triangleIndexCount * 2)];
+            }
 
-        // Copy the perimeter vertices into the vertex buffer and add in the y-coordinate.
-        while (boundary.hasRemaining()) {
-            float x = boundary.get();
-            float z = boundary.get();
-            vertices.add(Vertex.builder().setPosition(new Vector3(x, 0.0f, z)).setNormal(normal).build());
-        }
+            // Copy the perimeter vertices into the vertex buffer and add in the y-coordinate.
+            int position = 0;
+            for (int i = 0; i < boundaryVertices; i++) {
+                positions[position++] = boundary[i * 2];
+                positions[position++] = 0.0f;
+                positions[position++] = boundary[i * 2 + 1];
+            }
 
-        // Generate the interior vertices.
-        boundary.rewind();
-        while (boundary.hasRemaining()) {
-            float x = boundary.get();
-            float z = boundary.get();
-
-            float magnitude = (float) Math.hypot(x, z);
-            float scale = 1.0f - FEATHER_SCALE;
-            if (magnitude != 0.0f) {
-                scale = 1.0f - Math.min(FEATHER_LENGTH / magnitude, FEATHER_SCALE);
+            // Generate the interior vertices.
+            for (int i = 0; i < boundaryVertices; i++) {
+                float x = boundary[i * 2];
+                float z = boundary[i * 2 + 1];
+
+                float magnitude = (float) Math.hypot(x, z);
+                float scale = 1.0f - FEATHER_SCALE;
+                if (magnitude != 0.0f) {
+                    scale = 1.0f - Math.min(FEATHER_LENGTH / magnitude, FEATHER_SCALE);
+                }
+
+                positions[position++] = x * scale;
+                positions[position++] = 1.0f;
+                positions[position++] = z * scale;
             }
 
-            vertices.add(
-                    Vertex.builder()
-                            .setPosition(new Vector3(x * scale, 1.0f, z * scale))
-                            .setNormal(normal)
-                            .build());
-        }
+            int firstOuterVertex = 0;
+            int firstInnerVertex = boundaryVertices;
+            int index = 0;
 
-        int firstOuterVertex = 0;
-        int firstInnerVertex = (short) boundaryVertices;
+            // Generate triangle (4, 5, 6) and (4, 6, 7).
+            for (int i = 0; i < boundaryVertices - 2; ++i) {
+                triangleIndices[index++] = firstInnerVertex;
+                triangleIndices[index++] = firstInnerVertex + i + 1;
+                triangleIndices[index++] = firstInnerVertex + i + 2;
+            }
 
-        // Generate triangle (4, 5, 6) and (4, 6, 7).
-        for (int i = 0; i < boundaryVertices - 2; ++i) {
-            triangleIndices.add(firstInnerVertex);
-            triangleIndices.add(firstInnerVertex + i + 1);
-            triangleIndices.add(firstInnerVertex + i + 2);
-        }
+            // Generate triangle (0, 1, 4), (4, 1, 5), (5, 1, 2), (5, 2, 6), (6, 2, 3), (6, 3, 7)
+            // (7, 3, 0), (7, 0, 4)
+            for (int i = 0; i < boundaryVertices; ++i) {
+                int outerVertex1 = firstOuterVertex + i;
+                int outerVertex2 = firstOuterVertex + ((i + 1) % boundaryVertices);
+                int innerVertex1 = firstInnerVertex + i;
+                int innerVertex2 = firstInnerVertex + ((i + 1) % boundaryVertices);
+
+                triangleIndices[index++] = outerVertex1;
+                triangleIndices[index++] = outerVertex2;
+                triangleIndices[index++] = innerVertex1;
+
+                triangleIndices[index++] = innerVertex1;
+                triangleIndices[index++] = outerVertex2;
+                triangleIndices[index++] = innerVertex2;
+            }
 
-        // Generate triangle (0, 1, 4), (4, 1, 5), (5, 1, 2), (5, 2, 6), (6, 2, 3), (6, 3, 7)
-        // (7, 3, 0), (7, 0, 4)
-        for (int i = 0; i < boundaryVertices; ++i) {
-            int outerVertex1 = firstOuterVertex + i;
-            int outerVertex2 = firstOuterVertex + ((i + 1) % boundaryVertices);
-            int innerVertex1 = firstInnerVertex + i;
-            int innerVertex2 = firstInnerVertex + ((i + 1) % boundaryVertices);
-
-            triangleIndices.add(outerVertex1);
-            triangleIndices.add(outerVertex2);
-            triangleIndices.add(innerVertex1);
-
-            triangleIndices.add(innerVertex1);
-            triangleIndices.add(outerVertex2);
-            triangleIndices.add(innerVertex2);
+            // Second copy for the shadow submesh.
+            System.arraycopy(triangleIndices, 0, triangleIndices, index, index);
         }
-
-        return true;
     }
 }
@@ -25,21 +25,22 @@ import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
 
 import com.google.android.filament.TransformManager;
+import com.google.android.filament.VertexBuffer.VertexAttribute;
 import com.google.ar.core.AugmentedFace;
 import com.google.ar.core.AugmentedFace.RegionType;
 import com.google.ar.core.Pose;
 import com.google.ar.core.TrackingState;
-import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.Material;
+import com.google.ar.sceneform.rendering.MeshArrays;
 import com.google.ar.sceneform.rendering.ModelRenderable;
 import com.google.ar.sceneform.rendering.Renderable;
 import com.google.ar.sceneform.rendering.RenderableDefinition;
 import com.google.ar.sceneform.rendering.RenderableDefinition.Submesh;
 import com.google.ar.sceneform.rendering.RenderableInstance;
 import com.google.ar.sceneform.rendering.Texture;
-import com.google.ar.sceneform.rendering.Vertex;
-import com.google.ar.sceneform.rendering.Vertex.UvCoordinate;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 import java.util.ArrayList;
@@ -71,6 +72,10 @@ import io.github.sceneview.utils.FrameTime;
  *
  * <p>The visual effects will be disabled when the AugmentedFace isn't tracking or the AugmentedFace
  * is set to null.
+ *
+ * <p>The ARCore face mesh topology and texture coordinates never change. The face mesh renderable is
+ * built once, then only the vertex positions and normals are streamed to its vertex buffer on each
+ * frame, without any allocation.
  */
 
 public class AugmentedFaceNode extends ArNode {
@@ -87,10 +92,17 @@ public class AugmentedFaceNode extends ArNode {
     private final ModelNode faceRegionNode;
 
     // Fields for face mesh renderable.
-    private final ArrayList<Vertex> vertices = new ArrayList<>();
-    private final ArrayList<Integer> triangleIndices = new ArrayList<>();
+    private final MeshArrays faceMeshArrays = new MeshArrays();
     private final ArrayList<Submesh> submeshes = new ArrayList<>();
     private final RenderableDefinition faceMeshDefinition;
+    private boolean isFaceMeshDefinitionChanged = false;
+    // For one submesh. The triangle indices array contains them once per submesh.
+    private int faceMeshTriangleIndexCount;
+
+    // Alternated each frame since Filament reads them asynchronously.
+    private final FloatBuffer[] streamPositions = new FloatBuffer[2];
+    private final FloatBuffer[] streamTangents = new FloatBuffer[2];
+    private int streamIndex = 0;
 
     private final HashMap<RegionType, Integer> faceMeshSkeleton = new HashMap<>();
 
@@ -130,7 +142,7 @@ public class AugmentedFaceNode extends ArNode {
         faceMeshNode.setParent(this);
 
         faceMeshDefinition =
-                RenderableDefinition.builder().setVertices(vertices).setSubmeshes(submeshes).build(lifecycle);
+                RenderableDefinition.builder().setMesh(faceMeshArrays).setSubmeshes(submeshes).build(lifecycle);
 
         faceRegionNode = new ModelNode();
         faceRegionNode.setParent(this);
@@ -159,6 +171,7 @@ public class AugmentedFaceNode extends ArNode {
      */
     public void setAugmentedFace(@Nullable AugmentedFace face) {
         augmentedFace = face;
+        requestFrame();
     }
 
     /**
@@ -268,6 +281,12 @@ public class AugmentedFaceNode extends ArNode {
                 });
     }
 
+    // The face tracking is polled on every frame
+    @Override
+    public boolean isFrameActive() {
+        return super.isFrameActive() || augmentedFace != null;
+    }
+
     @Override
     public void onFrame(FrameTime frameTime) {
         super.onFrame(frameTime);
@@ -338,9 +357,8 @@ public class AugmentedFaceNode extends ArNode {
             return;
         }
 
-        updateFaceMeshVerticesAndTriangles();
-
         if (faceMeshRenderable == null) {
+            updateFaceMeshArrays();
             try {
                 faceMeshRenderable =
                         ModelRenderable.builder().setSource(checkNotNull(faceMeshDefinition)).build(lifecycle).get();
@@ -353,13 +371,20 @@ public class AugmentedFaceNode extends ArNode {
             checkNotNull(faceMeshRenderable).setShadowCaster(false);
 
             faceMeshNode.setModel(faceMeshRenderable);
-        } else {
-            // Face mesh renderable already exists, so update it to match the face mesh definition.
+        } else if (isFaceMeshDefinitionChanged) {
+            // The submeshes changed, so rebuild the renderable to match the face mesh definition.
+            updateFaceMeshArrays();
             faceMeshRenderable.updateFromDefinition(checkNotNull(faceMeshDefinition));
+        } else {
+            streamFaceMeshVertices();
         }
+        isFaceMeshDefinitionChanged = false;
     }
 
-    private void updateFaceMeshVerticesAndTriangles() {
+    /**
+     * Fills the face mesh definition arrays from the current ARCore face mesh.
+     */
+    private void updateFaceMeshArrays() {
         AugmentedFace augmentedFace = checkNotNull(this.augmentedFace);
 
         FloatBuffer verticesBuffer = augmentedFace.getMeshVertices();
@@ -382,68 +407,75 @@ public class AugmentedFaceNode extends ArNode {
                     "AugmentedFace must have the same number of vertices, normals, and texture coordinates.");
         }
 
-        vertices.ensureCapacity(numVertices);
-
-        for (int i = 0; i < numVertices; i++) {
-            // position.
-            float vX = verticesBuffer.get();
-            float vY = verticesBuffer.get();
-            float vZ = verticesBuffer.get();
-
-            // Normal.
-            float nX = normalsBuffer.get();
-            float nY = normalsBuffer.get();
-            float nZ = normalsBuffer.get();
-
-            // Uv coordinate.
-            float u = textureCoordsBuffer.get();
-            float v = textureCoordsBuffer.get();
-
-            if (i < vertices.size()) {
-                // Re-use existing vertex.
-                Vertex vertex = vertices.get(i);
-
-                Vector3 vertexPos = checkNotNull(vertex.getPosition());
-                vertexPos.set(vX, vY, vZ);
-
-                Vector3 normal = checkNotNull(vertex.getNormal());
-                normal.set(nX, nY, nZ);
-
-                UvCoordinate uvCoord = checkNotNull(vertex.getUvCoordinate());
-                uvCoord.x = u;
-                uvCoord.y = v;
-            } else {
-                // Create new vertex.
-                Vertex vertex =
-                        Vertex.builder()
-                                .setPosition(new Vector3(vX, vY, vZ))
-                                .setNormal(new Vector3(nX, nY, nZ))
-                                .setUvCoordinate(new UvCoordinate(u, v))
-                                .build();
-
-                vertices.add(vertex);
+        float[] positions = faceMeshArrays.getPositions();
+        float[] normals = faceMeshArrays.getNormals();
+        float[] uvs = faceMeshArrays.getUvs();
+        if (positions.length != numVertices * 3 || normals == null || uvs == null) {
+            positions = new float[numVertices * 3];
+            normals = new float[numVertices * 3];
+            uvs = new float[numVertices * 2];
+            for (int i = 0; i < streamPositions.length; i++) {
+                streamPositions[i] = allocateFloatBuffer(numVertices * 3);
+                streamTangents[i] = allocateFloatBuffer(numVertices * 4);
             }
         }
+        verticesBuffer.get(positions);
+        normalsBuffer.get(normals);
+        textureCoordsBuffer.get(uvs);
+        faceMeshArrays.setPositions(positions, numVertices)
+                .setNormals(normals)
+                .setUvs(uvs);
 
-        // Remove any extra vertices. In practice, this shouldn't happen.
-        // The number of vertices remains the same each frame.
-        while (vertices.size() > numVertices) {
-            vertices.remove(vertices.size() - 1);
-        }
-
+        // The triangle indices of the face mesh don't change from frame to frame.
         ShortBuffer indicesBuffer = augmentedFace.getMeshTriangleIndices();
         indicesBuffer.rewind();
+        int numIndices = indicesBuffer.limit();
+        int[] triangleIndices = faceMeshArrays.getTriangleIndices();
+        if (faceMeshTriangleIndexCount != numIndices) {
+            faceMeshTriangleIndexCount = numIndices;
+            // One copy of the triangles for each submesh.
+            triangleIndices = new int[numIndices * 2];
+            for (int i = 0; i < numIndices; i++) {
+                triangleIndices[i] = indicesBuffer.get(i);
+                triangleIndices[numIndices + i] = triangleIndices[i];
+            }
+        }
+        faceMeshArrays.setTriangleIndices(triangleIndices, numIndices * submeshes.size());
+        for (int i = 0; i < submeshes.size(); i++) {
+            submeshes.get(i).setTriangleIndexCount(faceMeshTriangleIndexCount);
+        }
+    }
 
-        // Only do this if the size doesn't match.
-        // The triangle indices of the face mesh don't change from frame to frame.
-        if (triangleIndices.size() != indicesBuffer.limit()) {
-            triangleIndices.clear();
-            triangleIndices.ensureCapacity(indicesBuffer.limit());
+    /**
+     * Copies the current ARCore face mesh positions and normals to the face mesh vertex buffer.
+     */
+    private void streamFaceMeshVertices() {
+        AugmentedFace augmentedFace = checkNotNull(this.augmentedFace);
+        ModelRenderable renderable = checkNotNull(faceMeshRenderable);
 
-            while (indicesBuffer.hasRemaining()) {
-                triangleIndices.add((int) indicesBuffer.get());
-            }
+        FloatBuffer verticesBuffer = augmentedFace.getMeshVertices();
+        FloatBuffer normalsBuffer = augmentedFace.getMeshNormals();
+        int numVertices = faceMeshArrays.getVertexCount();
+        if (verticesBuffer.limit() != numVertices * 3 || normalsBuffer.limit() != numVertices * 3) {
+            // In practice, this shouldn't happen. The number of vertices remains the same each frame.
+            isFaceMeshDefinitionChanged = true;
+            return;
         }
+
+        streamIndex = (streamIndex + 1) % streamPositions.length;
+
+        FloatBuffer positions = streamPositions[streamIndex];
+        positions.clear();
+        verticesBuffer.rewind();
+        positions.put(verticesBuffer);
+        positions.flip();
+        renderable.setVertexAttributeBuffer(VertexAttribute.POSITION, positions);
+
+        FloatBuffer tangents = streamTangents[streamIndex];
+        tangents.clear();
+        RenderableDefinition.normalsToTangents(normalsBuffer, tangents, numVertices);
+        tangents.flip();
+        renderable.setVertexAttributeBuffer(VertexAttribute.TANGENTS, tangents);
     }
 
     private void updateSubmeshes() {
@@ -456,10 +488,11 @@ public class AugmentedFaceNode extends ArNode {
         Material faceMeshOccluderMaterial = checkNotNull(this.faceMeshOccluderMaterial);
 
         submeshes.clear();
+        isFaceMeshDefinitionChanged = true;
 
         Submesh occluderSubmesh =
                 Submesh.builder()
-                        .setTriangleIndices(triangleIndices)
+                        .setTriangleIndexCount(faceMeshTriangleIndexCount)
                         .setMaterial(faceMeshOccluderMaterial.filamentMaterialInstance)
                         .build();
         submeshes.add(occluderSubmesh);
@@ -471,7 +504,7 @@ public class AugmentedFaceNode extends ArNode {
 
             Submesh faceTextureSubmesh =
                     Submesh.builder()
-                            .setTriangleIndices(triangleIndices)
+                            .setTriangleIndexCount(faceMeshTriangleIndexCount)
                             .setMaterial(faceMeshMaterial.filamentMaterialInstance)
                             .build();
             submeshes.add(faceTextureSubmesh);
@@ -491,6 +524,11 @@ public class AugmentedFaceNode extends ArNode {
         return regionType.name();
     }
 
+    private static FloatBuffer allocateFloatBuffer(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Float.BYTES).order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
     private static <T> T checkNotNull(@Nullable T reference) {
         if (reference == null) {
             throw new NullPointerException();
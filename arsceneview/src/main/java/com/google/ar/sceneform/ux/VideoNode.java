@@ -151,6 +151,11 @@ public class VideoNode extends ModelNode {
     );
   }
 
+  @Override
+  public boolean isFrameActive() {
+    return super.isFrameActive() || rotateAlwaysToCamera;
+  }
+
   @Override
   public void onFrame(@NonNull FrameTime frameTime) {
     super.onFrame(frameTime);
@@ -188,6 +193,7 @@ public class VideoNode extends ModelNode {
    */
   public void setRotateAlwaysToCamera(boolean rotateAlwaysToCamera) {
     this.rotateAlwaysToCamera = rotateAlwaysToCamera;
+    requestFrame();
   }
 
   private void onCreated(VideoNode videoNode) {
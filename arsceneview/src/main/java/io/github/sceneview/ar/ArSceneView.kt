@@ -18,6 +18,7 @@ import io.github.sceneview.environment.Environment
 import io.github.sceneview.light.Light
 import io.github.sceneview.node.Node
 import io.github.sceneview.renderable.Renderable
+import io.github.sceneview.utils.FrameProfiler
 import io.github.sceneview.utils.FrameTime
 import io.github.sceneview.utils.setKeepScreenOn
 
@@ -58,6 +59,23 @@ open class ArSceneView @JvmOverloads constructor(
             arSession?.focusMode = value
         }
 
+    private var _isArPipelined = false
+
+    /**
+     * ### Run the ARCore session update on a dedicated AR thread
+     *
+     * The main thread doesn't wait for the camera frame anymore and renders the latest frame
+     * extracted by the AR thread.
+     *
+     * @see ArSession.isPipelined
+     */
+    var isArPipelined: Boolean
+        get() = arSession?.isPipelined ?: _isArPipelined
+        set(value) {
+            _isArPipelined = value
+            arSession?.isPipelined = value
+        }
+
     private var _planeFindingMode = Config.PlaneFindingMode.HORIZONTAL_AND_VERTICAL
 
     /**
@@ -333,6 +351,7 @@ open class ArSceneView @JvmOverloads constructor(
             config.lightEstimationMode = _sessionLightEstimationMode
             config.geospatialEnabled = _geospatialEnabled
         }
+        session.isPipelined = _isArPipelined
 
         addEntity(arCameraStream.renderable)
 
@@ -375,10 +394,13 @@ open class ArSceneView @JvmOverloads constructor(
      * obtained. Update the scene before rendering.
      */
     override fun doFrame(frameTime: FrameTime) {
+        frameProfiler?.begin(FrameProfiler.Phase.AR_UPDATE)
         arSession?.update(frameTime)?.let { frame ->
             doArFrame(frame)
         }
+        frameProfiler?.end(FrameProfiler.Phase.AR_UPDATE)
         super.doFrame(frameTime)
+        arSession?.releaseFrame()
     }
 
     /**
@@ -387,17 +409,22 @@ open class ArSceneView @JvmOverloads constructor(
      * The listener will be called in the order in which they were added.
      */
     protected open fun doArFrame(arFrame: ArFrame) {
-        if (arFrame.camera.isTracking != currentFrame?.camera?.isTracking) {
+        // Each new frame comes with a new camera stream image to render
+        requestRender()
+
+        if (arFrame.isTracking != currentFrame?.isTracking) {
             // Keep the screen unlocked while tracking, but allow it to lock when tracking stops.
             // You will say thanks when still have battery after a long day debugging an AR app.
             // ...and it's better for your users
-            activity.setKeepScreenOn(arFrame.camera.isTracking)
+            activity.setKeepScreenOn(arFrame.isTracking)
         }
 
         // At the start of the frame, update the tracked pose of the camera
         // to use in any calculations during the frame.
         // TODO : Move to dedicated Lifecycle aware classes when Kotlined them
-        cameraNode.updateTrackedPose(arFrame.camera)
+        arFrame.snapshot?.let { snapshot ->
+            cameraNode.updateTrackedPose(arFrame.camera, snapshot.viewMatrix, snapshot.cameraPose)
+        } ?: cameraNode.updateTrackedPose(arFrame.camera)
 
         if (onAugmentedImageUpdate.isNotEmpty()) {
             arFrame.updatedAugmentedImages.forEach { augmentedImage ->
@@ -15,11 +15,44 @@ data class ArFrame(
 
     val camera: Camera by lazy { frame.camera }
 
+    /**
+     * ### The data extracted on the AR thread when the session [ArSession.isPipelined]
+     *
+     * The frame properties read it instead of calling ARCore from the render thread.
+     */
+    var snapshot: ArFrameSnapshot? = null
+        internal set
+
+    val trackingState: TrackingState
+        get() = snapshot?.trackingState ?: camera.trackingState
+
+    val isTracking: Boolean
+        get() = trackingState == TrackingState.TRACKING
+
+    val trackingFailureReason: TrackingFailureReason
+        get() = snapshot?.trackingFailureReason ?: camera.trackingFailureReason
+
+    /**
+     * ### The camera pose in the display orientation
+     */
+    val cameraPose: Pose
+        get() = snapshot?.cameraPose ?: camera.displayOrientedPose
+
     // TODO : Make a quick test with androidCameraTimestamp
     val updatedTrackables: List<Trackable> by lazy {
-        frame.getUpdatedTrackables(Trackable::class.java).toList()
+        snapshot?.updatedTrackables ?: frame.getUpdatedTrackables(Trackable::class.java).toList()
     }
 
+    val lightEstimate: LightEstimate by lazy { snapshot?.lightEstimate ?: frame.lightEstimate }
+
+    /**
+     * ### The ray casts made on this frame
+     *
+     * Every [hitTests] and [hitTest] call goes through it so identical requests made on the same
+     * frame by different nodes only reach ARCore once.
+     */
+    val hitTestCache: ArHitTestCache by lazy { ArHitTestCache(frame) }
+
     /**
      * ### Performs a ray cast to retrieve the hit trackables
      *
@@ -82,6 +115,9 @@ data class ArFrame(
      * [HitResult][com.google.ar.core.HitResult], otherwise an empty list.
      * The [HitResult][com.google.ar.core.HitResult] will have a trackable
      * of type [InstantPlacementPoint][com.google.ar.core.InstantPlacementPoint]
+     * The list is shared with the other identical requests on this frame and must not be modified.
+     *
+     * @see hitTestCache
      */
     @JvmOverloads
     fun hitTests(
@@ -91,18 +127,10 @@ data class ArFrame(
         plane: Boolean = session.planeFindingEnabled,
         depth: Boolean = session.depthEnabled,
         instantPlacement: Boolean = session.instantPlacementEnabled
-    ): List<HitResult> {
-        if (camera.isTracking) {
-            if (plane || depth) {
-                frame.hitTest(xPx, yPx).takeIf { it.isNotEmpty() }?.let {
-                    return it
-                }
-            }
-            if (instantPlacement) {
-                return frame.hitTestInstantPlacement(xPx, yPx, approximateDistanceMeters)
-            }
-        }
-        return listOf()
+    ): List<HitResult> = if (isTracking) {
+        hitTestCache.hitTests(xPx, yPx, approximateDistanceMeters, plane, depth, instantPlacement)
+    } else {
+        listOf()
     }
 
     /**
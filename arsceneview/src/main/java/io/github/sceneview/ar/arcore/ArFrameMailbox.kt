@@ -0,0 +1,35 @@
+package io.github.sceneview.ar.arcore
+
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * ### Lock-free single slot hand-off between a producer and a consumer thread
+ *
+ * Posting replaces any value not consumed yet: the consumer always gets the latest one and never
+ * waits.
+ */
+class ArFrameMailbox<T : Any> {
+
+    private val slot = AtomicReference<T?>(null)
+
+    /**
+     * ### Publish a value
+     *
+     * @return the previous value if it wasn't consumed
+     */
+    fun post(value: T): T? = slot.getAndSet(value)
+
+    /**
+     * ### Take the latest posted value if any
+     */
+    fun poll(): T? = slot.getAndSet(null)
+
+    /**
+     * ### The latest posted value without consuming it
+     */
+    fun peek(): T? = slot.get()
+
+    fun clear() {
+        slot.set(null)
+    }
+}
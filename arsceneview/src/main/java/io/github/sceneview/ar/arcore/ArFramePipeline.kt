@@ -0,0 +1,129 @@
+package io.github.sceneview.ar.arcore
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * ### Runs a frame source on a dedicated thread and hands its frames to a consumer thread
+ *
+ * The producer thread calls [update] and publishes the result in a single slot [ArFrameMailbox].
+ * The consumer [poll]s it without ever blocking and calls [release] once it doesn't use the polled
+ * frame anymore. The producer doesn't [update] again until then since a new update may invalidate
+ * the frame being consumed. The release can hand the producer an action to run before its next
+ * update, like waiting for the asynchronous work still reading the frame.
+ *
+ * Doesn't depend on Android or ARCore so it can be driven by any frame source.
+ *
+ * @param name the producer thread name
+ * @param onStart called on the producer thread before the first update
+ * @param onStop called on the producer thread after the last update
+ * @param idleNanos time to wait when [update] has no new frame
+ * @param update the frame source. Returns null if there is no new frame.
+ */
+class ArFramePipeline<T : Any>(
+    private val name: String = "ArFramePipeline",
+    private val onStart: () -> Unit = {},
+    private val onStop: () -> Unit = {},
+    private val idleNanos: Long = TimeUnit.MILLISECONDS.toNanos(1),
+    private val update: () -> T?
+) {
+
+    private val mailbox = ArFrameMailbox<T>()
+    private val canUpdate = AtomicBoolean(true)
+    private val error = AtomicReference<Throwable?>(null)
+    private val beforeNextUpdate = AtomicReference<(() -> Unit)?>(null)
+
+    @Volatile
+    private var isRunning = false
+    private var thread: Thread? = null
+
+    val isStarted get() = thread != null
+
+    /**
+     * ### A frame has been polled and not released yet
+     *
+     * Consumer thread only.
+     */
+    var isFramePolled = false
+        private set
+
+    /**
+     * ### Start the producer thread
+     */
+    fun start() {
+        if (thread != null) return
+        mailbox.clear()
+        error.set(null)
+        canUpdate.set(true)
+        beforeNextUpdate.set(null)
+        isFramePolled = false
+        isRunning = true
+        thread = Thread(::run, name).apply { start() }
+    }
+
+    /**
+     * ### Stop and wait for the producer thread
+     *
+     * Returns once the producer won't call [update] anymore.
+     */
+    fun stop() {
+        val thread = thread ?: return
+        isRunning = false
+        LockSupport.unpark(thread)
+        thread.join()
+        this.thread = null
+        mailbox.clear()
+    }
+
+    /**
+     * ### Take the latest produced frame if any
+     *
+     * Never blocks. Rethrows on the consumer thread the error that stopped the producer.
+     */
+    fun poll(): T? {
+        error.getAndSet(null)?.let { throw it }
+        return mailbox.poll()?.also { isFramePolled = true }
+    }
+
+    /**
+     * ### Let the producer update again once the polled frame isn't used anymore
+     *
+     * @param beforeNextUpdate called on the producer thread before its next [update]. It can block
+     * until the frame is really not used anymore.
+     */
+    fun release(beforeNextUpdate: (() -> Unit)? = null) {
+        if (isFramePolled) {
+            isFramePolled = false
+            this.beforeNextUpdate.set(beforeNextUpdate)
+            canUpdate.set(true)
+            thread?.let { LockSupport.unpark(it) }
+        }
+    }
+
+    private fun run() {
+        try {
+            onStart()
+            while (isRunning) {
+                if (!canUpdate.get()) {
+                    LockSupport.park(this)
+                    continue
+                }
+                beforeNextUpdate.getAndSet(null)?.invoke()
+                val frame = update()
+                if (frame != null) {
+                    canUpdate.set(false)
+                    mailbox.post(frame)
+                } else {
+                    LockSupport.parkNanos(this, idleNanos)
+                }
+            }
+        } catch (throwable: Throwable) {
+            error.set(throwable)
+            isRunning = false
+        } finally {
+            onStop()
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.sceneview.ar.arcore
+
+import com.google.ar.core.*
+
+/**
+ * ### Immutable per frame data extracted right after [Session.update]
+ *
+ * In pipelined mode the snapshot is built on the AR thread and attached to its [ArFrame] so that
+ * the [ArFrame.trackingState], [ArFrame.cameraPose], [ArFrame.updatedTrackables],
+ * [ArFrame.lightEstimate] and center [ArFrame.hitTest] read by the frame observers on the render
+ * thread are already computed values.
+ *
+ * @param hitTestCenter compute the [centerHitResult] from the view center
+ */
+class ArFrameSnapshot(val arFrame: ArFrame, hitTestCenter: Boolean = true) {
+
+    val timestamp: Long = arFrame.frame.timestamp
+
+    val trackingState: TrackingState = arFrame.camera.trackingState
+
+    val trackingFailureReason: TrackingFailureReason = arFrame.camera.trackingFailureReason
+
+    /**
+     * ### The camera pose in the display orientation
+     */
+    val cameraPose: Pose = arFrame.camera.displayOrientedPose
+
+    val viewMatrix = FloatArray(16).also { arFrame.camera.getViewMatrix(it, 0) }
+
+    val updatedTrackables: List<Trackable> =
+        arFrame.frame.getUpdatedTrackables(Trackable::class.java).toList()
+
+    val lightEstimate: LightEstimate = arFrame.frame.lightEstimate
+
+    init {
+        arFrame.snapshot = this
+    }
+
+    /**
+     * ### Hit result from the view center
+     *
+     * Kept in the [ArFrame.hitTestCache] so the identical requests made on the render thread don't
+     * reach ARCore.
+     *
+     * @see ArFrame.hitTest
+     */
+    val centerHitResult: HitResult? = if (hitTestCenter) arFrame.hitTest() else null
+}
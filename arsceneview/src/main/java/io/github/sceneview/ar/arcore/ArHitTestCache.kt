@@ -0,0 +1,136 @@
+package io.github.sceneview.ar.arcore
+
+import com.google.ar.core.Frame
+import com.google.ar.core.HitResult
+
+/**
+ * ### Shares the ray casts made on one [Frame] between all its callers
+ *
+ * The unanchored nodes following the screen center, the [io.github.sceneview.ar.scene.PlaneRenderer]
+ * focus point and the [ArFrameSnapshot] all ray cast at the same screen point on the same frame.
+ * Each distinct request only goes to ARCore once per frame and the next identical ones get the
+ * same results list.
+ *
+ * Requests are identified by their screen point for the plane/depth ray cast since ARCore
+ * returns every trackable type from it, and by their screen point plus approximate distance for
+ * the instant placement one. Results for every plane, depth and instant placement flags
+ * combination are then computed from these shared lists.
+ *
+ * The returned lists are shared and must not be modified.
+ *
+ * @param hitTest the plane/depth ray cast. See [Frame.hitTest]
+ * @param hitTestInstantPlacement the instant placement ray cast. See
+ * [Frame.hitTestInstantPlacement]
+ */
+class ArHitTestCache(
+    private val hitTest: (xPx: Float, yPx: Float) -> List<HitResult>,
+    private val hitTestInstantPlacement: (
+        xPx: Float,
+        yPx: Float,
+        approximateDistanceMeters: Float
+    ) -> List<HitResult>
+) {
+
+    private class Request(
+        val xPx: Float,
+        val yPx: Float,
+        val approximateDistanceMeters: Float,
+        val results: List<HitResult>
+    )
+
+    // Only a handful of distinct points are requested per frame so a linear search is enough
+    private val hitTests = ArrayList<Request>(2)
+    private val instantPlacementHitTests = ArrayList<Request>(2)
+
+    /**
+     * ### Number of ray casts actually sent to ARCore
+     */
+    var nativeHitTestCount = 0
+        private set
+
+    /**
+     * ### Number of ray casts answered from the cache
+     */
+    var cachedHitTestCount = 0
+        private set
+
+    constructor(frame: Frame) : this(
+        hitTest = { xPx, yPx -> frame.hitTest(xPx, yPx) },
+        hitTestInstantPlacement = { xPx, yPx, approximateDistanceMeters ->
+            frame.hitTestInstantPlacement(xPx, yPx, approximateDistanceMeters)
+        }
+    )
+
+    /**
+     * ### The plane and depth ray cast results at this screen point
+     *
+     * @see Frame.hitTest
+     */
+    @Synchronized
+    fun hitTest(xPx: Float, yPx: Float): List<HitResult> =
+        find(hitTests, xPx, yPx, 0.0f)
+            ?: hitTest.invoke(xPx, yPx).also { results ->
+                hitTests += Request(xPx, yPx, 0.0f, results)
+                nativeHitTestCount++
+            }
+
+    /**
+     * ### The instant placement ray cast results at this screen point
+     *
+     * @see Frame.hitTestInstantPlacement
+     */
+    @Synchronized
+    fun hitTestInstantPlacement(
+        xPx: Float,
+        yPx: Float,
+        approximateDistanceMeters: Float
+    ): List<HitResult> = find(instantPlacementHitTests, xPx, yPx, approximateDistanceMeters)
+        ?: hitTestInstantPlacement.invoke(xPx, yPx, approximateDistanceMeters).also { results ->
+            instantPlacementHitTests += Request(xPx, yPx, approximateDistanceMeters, results)
+            nativeHitTestCount++
+        }
+
+    /**
+     * ### The results for a combination of trackable types
+     *
+     * Plane and depth results are used first if any. Otherwise the instant placement ones.
+     *
+     * @see ArFrame.hitTests
+     */
+    fun hitTests(
+        xPx: Float,
+        yPx: Float,
+        approximateDistanceMeters: Float,
+        plane: Boolean,
+        depth: Boolean,
+        instantPlacement: Boolean
+    ): List<HitResult> {
+        if (plane || depth) {
+            hitTest(xPx, yPx).takeIf { it.isNotEmpty() }?.let {
+                return it
+            }
+        }
+        if (instantPlacement) {
+            return hitTestInstantPlacement(xPx, yPx, approximateDistanceMeters)
+        }
+        return listOf()
+    }
+
+    private fun find(
+        requests: List<Request>,
+        xPx: Float,
+        yPx: Float,
+        approximateDistanceMeters: Float
+    ): List<HitResult>? {
+        for (i in requests.indices) {
+            val request = requests[i]
+            if (request.xPx == xPx && request.yPx == yPx &&
+                request.approximateDistanceMeters == approximateDistanceMeters
+            ) {
+                cachedHitTestCount++
+                return request.results
+            }
+        }
+        return null
+    }
+}
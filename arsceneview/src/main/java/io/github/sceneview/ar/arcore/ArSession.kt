@@ -1,10 +1,15 @@
 package io.github.sceneview.ar.arcore
 
 import android.content.Context
+import android.opengl.EGLContext
+import android.opengl.GLES30
 import android.view.Display
 import android.view.WindowManager
 import androidx.lifecycle.LifecycleOwner
+import com.google.android.filament.Fence
 import com.google.ar.core.*
+import com.google.ar.sceneform.rendering.GLHelper
+import io.github.sceneview.Filament
 import io.github.sceneview.ar.ArSceneLifecycle
 import io.github.sceneview.ar.ArSceneLifecycleObserver
 import io.github.sceneview.ar.defaultApproximateDistanceMeters
@@ -52,8 +57,54 @@ class ArSession(
     var currentFrame: ArFrame? = null
         private set
 
+    /**
+     * ### The data extracted on the AR thread for the [currentFrame]
+     *
+     * Only available when [isPipelined].
+     */
+    var currentSnapshot: ArFrameSnapshot? = null
+        private set
+
     var allTrackables: List<Trackable> = listOf()
 
+    /**
+     * ### Run [Session.update] on a dedicated AR thread
+     *
+     * [Session.update] blocks until the camera frame is available. When pipelined, it is called
+     * on a dedicated thread and [update] only takes the latest [ArFrameSnapshot] without blocking
+     * the main thread.
+     *
+     * The AR thread doesn't update again until the frame released by [releaseFrame] has been
+     * rendered by the GPU so the [currentFrame] and its camera texture stay valid during the whole
+     * frame callbacks and rendering. ARCore calls made outside of them may run while the AR thread
+     * is updating.
+     *
+     * Default is `false`.
+     */
+    var isPipelined = false
+        set(value) {
+            if (field != value) {
+                field = value
+                if (isResumed) {
+                    if (value) startPipeline() else stopPipeline()
+                }
+            }
+        }
+
+    /**
+     * ### Compute the [ArFrameSnapshot.centerHitResult] on the AR thread
+     */
+    var pipelineHitTestCenter = true
+
+    private var pipeline: ArFramePipeline<ArFrameSnapshot>? = null
+
+    // Signaled once the GPU is done with the released frame. Main thread only.
+    private var releaseFence: Fence? = null
+
+    // Only accessed by the thread calling Session.update()
+    private var lastFrameTimestamp = 0L
+    private var lastUpdateNanos: Long? = null
+
     init {
         lifecycle.addObserver(this)
     }
@@ -71,6 +122,10 @@ class ArSession(
         // If we remove this part, the camera is flickering if returned from the permission Dialog.
         setDisplayGeometry(displayRotation, displayWidth, displayHeight)
         lifecycle.dispatchEvent<ArSceneLifecycleObserver> { onArSessionResumed(this@ArSession) }
+        // Start after the resumed config changes
+        if (isPipelined) {
+            startPipeline()
+        }
     }
 
     override fun onPause(owner: LifecycleOwner) {
@@ -78,6 +133,7 @@ class ArSession(
     }
 
     override fun pause() {
+        stopPipeline()
         isResumed = false
         super.pause()
     }
@@ -89,6 +145,7 @@ class ArSession(
      * more complicated lifecycle requirements: [Session.close]
      */
     override fun onDestroy(owner: LifecycleOwner) {
+        stopPipeline()
         close()
         super.onDestroy(owner)
     }
@@ -102,16 +159,85 @@ class ArSession(
     }
 
     fun update(frameTime: FrameTime): ArFrame? {
+        val pipeline = pipeline
+        return if (pipeline != null) {
+            pipeline.poll()?.let { snapshot ->
+                // The AR thread has waited for the previous release fence before this update
+                destroyReleaseFence()
+                currentSnapshot = snapshot
+                snapshot.arFrame
+            }
+        } else {
+            updateFrame(frameTime)
+        }?.also {
+            currentFrame = it
+        }
+    }
+
+    /**
+     * ### Let the AR thread update the next frame
+     *
+     * Call it once the current frame has been submitted to the renderer. Filament renders
+     * asynchronously so the AR thread waits for the GPU to be done with the frame camera texture
+     * before updating it again.
+     *
+     * Does nothing if not [isPipelined].
+     */
+    fun releaseFrame() {
+        val pipeline = pipeline?.takeIf { it.isFramePolled } ?: return
+        val fence = Filament.engine.createFence().also { releaseFence = it }
+        // Submit the fence now since waiting on it from the AR thread can't flush the engine
+        Filament.engine.flush()
+        pipeline.release {
+            fence.wait(Fence.Mode.DONT_FLUSH, Fence.WAIT_FOR_EVER)
+        }
+    }
+
+    private fun destroyReleaseFence() {
+        releaseFence?.let { Filament.engine.destroyFence(it) }
+        releaseFence = null
+    }
+
+    private fun updateFrame(frameTime: FrameTime): ArFrame? {
         // Check if no frame or same timestamp, no drawing.
         return super.update()?.takeIf {
-            it.timestamp != (currentFrame?.frame?.timestamp ?: 0) && it.camera != null
+            it.timestamp != lastFrameTimestamp && it.camera != null
         }?.let { frame ->
-            ArFrame(this, frameTime, frame).also {
-                currentFrame = it
-            }
+            lastFrameTimestamp = frame.timestamp
+            ArFrame(this, frameTime, frame)
         }
     }
 
+    private fun startPipeline() {
+        if (pipeline != null) return
+        var eglContext: EGLContext? = null
+        pipeline = ArFramePipeline(
+            name = "ArSession",
+            onStart = {
+                // The camera textures are updated by ARCore in the current GL context
+                eglContext = Filament.sharedEglContext?.let { GLHelper.makeContext(it) }
+            },
+            onStop = {
+                eglContext?.let { GLHelper.destroyContext(it) }
+            }
+        ) {
+            val nanoseconds = System.nanoTime()
+            updateFrame(FrameTime(nanoseconds, lastUpdateNanos))?.let { arFrame ->
+                lastUpdateNanos = nanoseconds
+                // Make the camera texture update visible to the render thread context
+                GLES30.glFinish()
+                ArFrameSnapshot(arFrame, pipelineHitTestCenter)
+            }
+        }.also { it.start() }
+    }
+
+    private fun stopPipeline() {
+        pipeline?.stop()
+        pipeline = null
+        destroyReleaseFence()
+        currentSnapshot = null
+    }
+
     override fun setDisplayGeometry(rotation: Int, widthPx: Int, heightPx: Int) {
         displayRotation = rotation
         displayWidth = widthPx
@@ -1,26 +1,34 @@
 package io.github.sceneview.ar.arcore
 
 import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.coroutineScope
 import com.google.android.filament.IndirectLight
 import com.google.android.filament.Texture
+import com.google.ar.core.ArImage
 import com.google.ar.core.Config
 import com.google.ar.core.LightEstimate
 import dev.romainguy.kotlin.math.max
+import io.github.sceneview.Filament
 import io.github.sceneview.SceneView
 import io.github.sceneview.ar.ArSceneLifecycle
 import io.github.sceneview.ar.ArSceneLifecycleObserver
 import io.github.sceneview.environment.Environment
-import io.github.sceneview.environment.HDREnvironment
 import io.github.sceneview.light.*
 import io.github.sceneview.math.Direction
 import io.github.sceneview.math.toLinearSpace
 import io.github.sceneview.scene.exposureFactor
 import io.github.sceneview.texture.build
+import io.github.sceneview.texture.destroy
 import io.github.sceneview.texture.setImage
 import io.github.sceneview.utils.Color
 import io.github.sceneview.utils.colorOf
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import java.nio.ByteBuffer
 import java.nio.ByteOrder
+import java.util.concurrent.atomic.AtomicIntegerArray
 
 /**
  * ### Per frame AR light estimation
@@ -218,15 +226,32 @@ class LightEstimator(
         lifecycle.addObserver(this)
     }
 
-    var cubeMapBuffer: ByteBuffer? = null
+    /**
+     * ### The ARCore HDR cubemap
+     *
+     * The same texture is kept across estimates and its content is updated in place.
+     */
     var cubeMapTexture: Texture? = null
+        private set
+
+    // Faces are copied on a background thread in one buffer while the other one may still be
+    // read by the Filament upload.
+    private val cubeMapBuffers = arrayOfNulls<ByteBuffer>(2)
+    private val cubeMapBuffersUploading = AtomicIntegerArray(2)
+    private var cubeMapBufferIndex = 0
+    private var cubeMapJob: Job? = null
+    private var isCubeMapUploaded = false
+
+    // The reflections used by the current environment indirect light
+    private var environmentCubeMap: Texture? = null
+    private var filteredReflectionsTexture: Texture? = null
 
     override fun onArFrame(arFrame: ArFrame) {
         super.onArFrame(arFrame)
 
         arFrame.takeIf {
             it.precision(lastArFrame) <= precision
-        }?.frame?.lightEstimate?.takeIf {
+        }?.lightEstimate?.takeIf {
             it.state == LightEstimate.State.VALID && it.timestamp != timestamp
         }?.let { lightEstimate ->
             lastArFrame = arFrame
@@ -328,77 +353,33 @@ class LightEstimator(
                         } else colorOf(r = 1.0f, g = 1.0f, b = 1.0f)
 
                     val colorIntensity = colorIntensitiesFactors.toFloatArray().average().toFloat()
-                    environment = HDREnvironment(
-                        lifecycle = lifecycle,
-                        cubemap = when {
-                            environmentalHdrReflections -> {
-                                lightEstimate.acquireEnvironmentalHdrCubeMap()?.let { arImages ->
-                                    val (width, height) = arImages[0].width to arImages[0].height
-                                    val faceOffsets = IntArray(arImages.size)
-                                    // RGB Bytes per pixel : 6 * 2
-                                    val bufferSize = width * height * arImages.size * 6 * 2
-                                    val buffer = cubeMapBuffer?.takeIf {
-                                        it.capacity() == bufferSize
-                                    }?.apply {
-                                        clear()
-                                    } ?: ByteBuffer.allocateDirect(bufferSize).apply {
-                                        // Use the device hardware's native byte order
-                                        order(ByteOrder.nativeOrder())
-                                        cubeMapBuffer = this
-                                    }
-                                    val rgbBytes = ByteArray(6) // RGB Bytes per pixel
-                                    arImages.forEachIndexed { index, image ->
-                                        faceOffsets[index] = buffer.position()
-                                        image.planes[0].buffer.let { imageBuffer ->
-                                            while (imageBuffer.hasRemaining()) {
-                                                // Only take the RGB channels
-                                                imageBuffer.get(rgbBytes)
-                                                buffer.put(rgbBytes)
-                                                // Skip the Alpha channel
-                                                imageBuffer.position(imageBuffer.position() + 2)
-                                            }
-                                            imageBuffer.clear()
-                                        }
-                                    }
-                                    buffer.flip()
-
-                                    // Reuse the previous texture instead of creating a new one for
-                                    // performance and memory reasons
-                                    val texture = cubeMapTexture?.takeIf {
-                                        it.getWidth(0) == width &&
-                                                it.getHeight(0) == height
-                                    } ?: Texture.Builder()
-                                        .width(width)
-                                        .height(height)
-                                        .levels(0xff)
-                                        .sampler(Texture.Sampler.SAMPLER_CUBEMAP)
-                                        .format(Texture.InternalFormat.R11F_G11F_B10F)
-                                        .build(lifecycle)
-                                        .also {
-                                            cubeMapTexture = it
-                                        }
-                                    texture.setImage(
-                                        0,
-                                        Texture.PixelBufferDescriptor(
-                                            buffer,
-                                            Texture.Format.RGB,
-                                            Texture.Type.HALF,
-                                            1, 0, 0, 0, null
-                                        ) {
-                                            arImages.forEach { it.close() }
-                                            buffer.clear()
-                                        },
-                                        faceOffsets
-                                    )
-                                    texture
-                                }
-                            }
-                            defaultEnvironmentReflections -> {
-                                sceneView.indirectLight?.reflectionsTexture
-                            }
-                            else -> null
-                        },
-                        indirectLightIrradiance = if (environmentalHdrSphericalHarmonics) {
+
+                    if (environmentalHdrReflections && cubeMapJob?.isActive != true) {
+                        // The previous upload is still in progress otherwise so keep it
+                        lightEstimate.acquireEnvironmentalHdrCubeMap()?.let { updateCubeMap(it) }
+                    }
+                    val cubemap = when {
+                        environmentalHdrReflections && isCubeMapUploaded -> cubeMapTexture
+                        environmentalHdrReflections || defaultEnvironmentReflections -> {
+                            sceneView.indirectLight?.reflectionsTexture
+                        }
+                        else -> null
+                    }
+                    val specularFilter = cubemap != null && cubemap == cubeMapTexture &&
+                            environmentalHdrSpecularFilter
+                    val indirectLightIntensity = sceneView.environment?.indirectLight?.let {
+                        it.intensity * colorIntensity
+                    }
+
+                    val indirectLight = environment?.indirectLight
+                    if (indirectLight != null && !environmentalHdrSphericalHarmonics &&
+                        !specularFilter && cubemap == environmentCubeMap
+                    ) {
+                        // Nothing else than the intensity changed, reuse the current indirect light.
+                        // The cubemap texture content is updated in place.
+                        indirectLightIntensity?.let { indirectLight.intensity = it }
+                    } else {
+                        val sphericalHarmonics = if (environmentalHdrSphericalHarmonics) {
                             lightEstimate.environmentalHdrAmbientSphericalHarmonics
                                 ?.mapIndexed { index, sphericalHarmonic ->
                                     // Convert Environmental HDR's spherical harmonics to Filament
@@ -407,15 +388,25 @@ class LightEstimator(
                                 }?.toFloatArray()
                         } else {
                             sceneView.environment?.sphericalHarmonics
-                        },
-                        indirectLightSpecularFilter = environmentalHdrReflections &&
-                                environmentalHdrSpecularFilter,
-                        indirectLightIntensity = sceneView.environment?.indirectLight?.let {
-                            it.intensity * colorIntensity
-                        },
-                        createSkybox = false,
-                        sharedCubemap = true
-                    )
+                        }
+                        val reflectionsTexture = cubemap?.let {
+                            if (specularFilter) Filament.iblPrefilter.specularFilter(it) else it
+                        }
+                        val previousFilteredReflections = filteredReflectionsTexture
+                        environment = Environment(
+                            indirectLight = IndirectLight.Builder().apply {
+                                reflectionsTexture?.let { reflections(it) }
+                                sphericalHarmonics?.let { irradiance(3, it) }
+                                indirectLightIntensity?.let { intensity(it) }
+                            }.build(lifecycle),
+                            sphericalHarmonics = sphericalHarmonics
+                        )
+                        environmentCubeMap = cubemap
+                        // The filtered texture can only be destroyed once the indirect light using
+                        // it is.
+                        filteredReflectionsTexture = reflectionsTexture?.takeIf { specularFilter }
+                        previousFilteredReflections?.destroy()
+                    }
 
                     mainLight = sceneView.mainLight?.clone(lifecycle)?.apply {
                         if (environmentalHdrMainLightDirection) {
@@ -439,18 +430,102 @@ class LightEstimator(
         }
     }
 
+    /**
+     * ### Upload the ARCore cubemap faces to the [cubeMapTexture]
+     *
+     * ARCore faces are already RGBA16F so they are uploaded as is without any per pixel repack.
+     * The faces bytes are copied into a direct buffer on a background thread and only the texture
+     * upload is done on the main thread.
+     */
+    private fun updateCubeMap(arImages: Array<ArImage>) {
+        val index = cubeMapBufferIndex
+        if (cubeMapBuffersUploading[index] != 0) {
+            // Filament didn't consume this buffer yet
+            arImages.forEach { it.close() }
+            return
+        }
+        cubeMapBufferIndex = (index + 1) % cubeMapBuffers.size
+
+        val (width, height) = arImages[0].width to arImages[0].height
+        val faceSize = width * height * CUBEMAP_BYTES_PER_PIXEL
+        val bufferSize = faceSize * arImages.size
+        val buffer = cubeMapBuffers[index]?.takeIf {
+            it.capacity() == bufferSize
+        } ?: ByteBuffer.allocateDirect(bufferSize).apply {
+            // Use the device hardware's native byte order
+            order(ByteOrder.nativeOrder())
+            cubeMapBuffers[index] = this
+        }
+        val faceOffsets = IntArray(arImages.size) { it * faceSize }
+
+        // Reuse the previous texture instead of creating a new one for performance and memory
+        // reasons
+        val texture = cubeMapTexture?.takeIf {
+            it.getWidth(0) == width && it.getHeight(0) == height
+        } ?: Texture.Builder()
+            .width(width)
+            .height(height)
+            .levels(0xff)
+            .sampler(Texture.Sampler.SAMPLER_CUBEMAP)
+            .format(Texture.InternalFormat.RGBA16F)
+            .build(lifecycle)
+            .also {
+                cubeMapTexture?.let { previous ->
+                    if (previous != environmentCubeMap) runCatching { previous.destroy() }
+                }
+                cubeMapTexture = it
+                isCubeMapUploaded = false
+            }
+
+        cubeMapJob = lifecycle.coroutineScope.launch(Dispatchers.Default) {
+            try {
+                buffer.clear()
+                arImages.forEach { image ->
+                    // Bulk copy of the whole RGBA16F face
+                    buffer.put(image.planes[0].buffer)
+                }
+                buffer.flip()
+            } finally {
+                arImages.forEach { it.close() }
+            }
+            withContext(Dispatchers.Main) {
+                if (texture == cubeMapTexture) {
+                    cubeMapBuffersUploading[index] = 1
+                    texture.setImage(
+                        0,
+                        Texture.PixelBufferDescriptor(
+                            buffer,
+                            Texture.Format.RGBA,
+                            Texture.Type.HALF,
+                            1, 0, 0, 0, null
+                        ) {
+                            cubeMapBuffersUploading[index] = 0
+                        },
+                        faceOffsets
+                    )
+                    isCubeMapUploaded = true
+                }
+            }
+        }
+    }
+
     open fun onUpdated() {
         onUpdated.forEach { it(this) }
     }
 
     override fun onDestroy(owner: LifecycleOwner) {
+        cubeMapJob?.cancel()
         environment?.destroy()
+        filteredReflectionsTexture?.let { runCatching { it.destroy() } }
         mainLight?.destroy()
         super.onDestroy(owner)
     }
 
     companion object {
 
+        // ARCore cubemap faces are RGBA16F
+        private const val CUBEMAP_BYTES_PER_PIXEL = 4 * 2
+
         /**
          * ### Convert Environmental HDR's spherical harmonics to Filament spherical harmonics.
          *
@@ -42,7 +42,7 @@ open class SearchPlaneInfoNode(context: Context, lifecycle: Lifecycle) :
     }
 
     open var trackingStateText: (frame: ArFrame) -> String = { frame ->
-        when (val reason = frame.camera.trackingFailureReason) {
+        when (val reason = frame.trackingFailureReason) {
             TrackingFailureReason.NONE -> context.getString(R.string.sceneview_searching_planes)
             TrackingFailureReason.BAD_STATE -> context.getString(R.string.sceneview_bad_state_message)
             TrackingFailureReason.INSUFFICIENT_LIGHT -> context.getString(
@@ -143,7 +143,7 @@ class PlaneRenderer(private val lifecycle: ArSceneLifecycle) : ArSceneLifecycleO
 
                     // Calculate the focusPoint. It is used to determine the position of
                     // the visualized grid.
-                    val focusPoint = getFocusPoint(arFrame.frame, hitResult)
+                    val focusPoint = getFocusPoint(arFrame, hitResult)
                     materialInstance?.setParameter(MATERIAL_SPOTLIGHT_FOCUS_POINT, focusPoint)
 
                     if (planeRendererMode == PlaneRendererMode.RENDER_ALL) {
@@ -274,14 +274,14 @@ class PlaneRenderer(private val lifecycle: ArSceneLifecycle) : ArSceneLifecycleO
      * If the [HitResult] is null, we use the last known distance of the camera to the last hit
      * plane.
      */
-    private fun getFocusPoint(frame: Frame, hit: HitResult?): Float3 {
+    private fun getFocusPoint(arFrame: ArFrame, hit: HitResult?): Float3 {
         return if (hit != null) {
             planeHitDistance = hit.distance
             hit.hitPose.position
         } else {
             // If we didn't hit anything, project a point in front of the camera so that the spotlight
             // rolls off the edge smoothly.
-            val cameraPose = frame.camera.pose
+            val cameraPose = arFrame.cameraPose
             // -Z is in front of camera
             cameraPose.position + cameraPose.zDirection * -planeHitDistance
         }
@@ -0,0 +1,170 @@
+package io.github.sceneview.ar.arcore
+
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ArFramePipelineTest {
+
+    /**
+     * A camera that always has a new frame, like ARCore in `LATEST_CAMERA_IMAGE` update mode
+     */
+    private class FakeFrameSource {
+        val updateCount = AtomicInteger()
+        val events = CopyOnWriteArrayList<String>()
+        @Volatile
+        var error: Throwable? = null
+
+        fun update(): Int {
+            error?.let { throw it }
+            val frame = updateCount.incrementAndGet()
+            events += "update $frame"
+            return frame
+        }
+    }
+
+    private val source = FakeFrameSource()
+    private val pipeline = ArFramePipeline(idleNanos = TimeUnit.MICROSECONDS.toNanos(100)) {
+        source.update()
+    }
+
+    @After
+    fun tearDown() {
+        pipeline.stop()
+    }
+
+    @Test
+    fun poll_returnsNothingBeforeTheFirstUpdate() {
+        assertNull(pipeline.poll())
+        assertFalse(pipeline.isFramePolled)
+    }
+
+    @Test
+    fun producer_doesNotUpdateUntilRelease() {
+        pipeline.start()
+
+        assertEquals(1, awaitFrame())
+        assertTrue(pipeline.isFramePolled)
+        Thread.sleep(20)
+        assertEquals(1, source.updateCount.get())
+        assertNull(pipeline.poll())
+
+        pipeline.release()
+        assertFalse(pipeline.isFramePolled)
+        assertEquals(2, awaitFrame())
+    }
+
+    @Test
+    fun producer_doesNotUpdateWhileTheFrameIsNotPolled() {
+        pipeline.start()
+
+        // The posted frame stays in the mailbox and the producer waits for its consumption
+        awaitCondition { source.updateCount.get() == 1 }
+        Thread.sleep(20)
+        assertEquals(1, source.updateCount.get())
+        assertEquals(1, awaitFrame())
+    }
+
+    @Test
+    fun release_withoutPolledFrame_doesNothing() {
+        pipeline.start()
+        val action = AtomicInteger()
+
+        pipeline.release { action.incrementAndGet() }
+        assertEquals(1, awaitFrame())
+        pipeline.release()
+        assertEquals(2, awaitFrame())
+
+        assertEquals(0, action.get())
+    }
+
+    @Test
+    fun release_runsTheActionOnTheProducerBeforeTheNextUpdate() {
+        pipeline.start()
+        val consumerThread = Thread.currentThread()
+        var actionThread: Thread? = null
+
+        assertEquals(1, awaitFrame())
+        pipeline.release {
+            actionThread = Thread.currentThread()
+            // Like waiting for the GPU to be done with the frame
+            Thread.sleep(20)
+            source.events += "released 1"
+        }
+        assertEquals(2, awaitFrame())
+
+        assertEquals(listOf("update 1", "released 1", "update 2"), source.events)
+        assertNotNull(actionThread)
+        assertNotSame(consumerThread, actionThread)
+    }
+
+    @Test
+    fun release_actionRunsOnlyOnce() {
+        pipeline.start()
+        val action = AtomicInteger()
+
+        assertEquals(1, awaitFrame())
+        pipeline.release { action.incrementAndGet() }
+        assertEquals(2, awaitFrame())
+        pipeline.release()
+        assertEquals(3, awaitFrame())
+
+        assertEquals(1, action.get())
+    }
+
+    @Test
+    fun poll_rethrowsTheProducerError() {
+        val error = IllegalStateException("Camera not available")
+        source.error = error
+        pipeline.start()
+
+        val thrown = try {
+            awaitCondition {
+                pipeline.poll()
+                false
+            }
+            null
+        } catch (throwable: IllegalStateException) {
+            throwable
+        }
+
+        assertSame(error, thrown)
+    }
+
+    @Test
+    fun stop_stopsTheUpdatesAndClearsTheMailbox() {
+        var stopped = false
+        val pipeline = ArFramePipeline(onStop = { stopped = true }) { source.update() }
+        pipeline.start()
+        awaitCondition { source.updateCount.get() == 1 }
+
+        pipeline.stop()
+
+        assertTrue(stopped)
+        assertFalse(pipeline.isStarted)
+        assertNull(pipeline.poll())
+        pipeline.release()
+        Thread.sleep(20)
+        assertEquals(1, source.updateCount.get())
+    }
+
+    private fun awaitFrame(): Int {
+        var frame: Int? = null
+        awaitCondition {
+            frame = pipeline.poll()
+            frame != null
+        }
+        return frame!!
+    }
+
+    private fun awaitCondition(condition: () -> Boolean) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition()) {
+            if (System.nanoTime() > deadline) fail("Timed out")
+            Thread.sleep(1)
+        }
+    }
+}
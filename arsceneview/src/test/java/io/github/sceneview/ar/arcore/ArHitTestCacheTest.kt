@@ -0,0 +1,91 @@
+package io.github.sceneview.ar.arcore
+
+import com.google.ar.core.Frame
+import com.google.ar.core.HitResult
+import org.junit.Assert.*
+import org.junit.Test
+import org.mockito.ArgumentMatchers.anyFloat
+import org.mockito.Mockito.*
+
+class ArHitTestCacheTest {
+
+    private val planeHit = mock(HitResult::class.java)
+    private val instantPlacementHit = mock(HitResult::class.java)
+
+    private val frame = mock(Frame::class.java).also { frame ->
+        `when`(frame.hitTest(anyFloat(), anyFloat())).thenAnswer { listOf(planeHit) }
+        `when`(frame.hitTestInstantPlacement(anyFloat(), anyFloat(), anyFloat()))
+            .thenAnswer { listOf(instantPlacementHit) }
+    }
+
+    private val cache = ArHitTestCache(frame)
+
+    @Test
+    fun hitTest_identicalRequests_reachARCoreOnce() {
+        val results = cache.hitTest(100.0f, 200.0f)
+
+        assertSame(results, cache.hitTest(100.0f, 200.0f))
+        assertSame(results, cache.hitTest(100.0f, 200.0f))
+
+        verify(frame, times(1)).hitTest(100.0f, 200.0f)
+        assertEquals(listOf(planeHit), results)
+        assertEquals(1, cache.nativeHitTestCount)
+        assertEquals(2, cache.cachedHitTestCount)
+    }
+
+    @Test
+    fun hitTest_distinctPoints_areEachCastOnce() {
+        cache.hitTest(100.0f, 200.0f)
+        cache.hitTest(300.0f, 200.0f)
+        cache.hitTest(100.0f, 200.0f)
+        cache.hitTest(300.0f, 200.0f)
+
+        verify(frame, times(1)).hitTest(100.0f, 200.0f)
+        verify(frame, times(1)).hitTest(300.0f, 200.0f)
+        assertEquals(2, cache.nativeHitTestCount)
+        assertEquals(2, cache.cachedHitTestCount)
+    }
+
+    @Test
+    fun hitTestInstantPlacement_isKeyedByTheDistance() {
+        cache.hitTestInstantPlacement(100.0f, 200.0f, 2.0f)
+        cache.hitTestInstantPlacement(100.0f, 200.0f, 2.0f)
+        cache.hitTestInstantPlacement(100.0f, 200.0f, 3.0f)
+
+        verify(frame, times(1)).hitTestInstantPlacement(100.0f, 200.0f, 2.0f)
+        verify(frame, times(1)).hitTestInstantPlacement(100.0f, 200.0f, 3.0f)
+        assertEquals(2, cache.nativeHitTestCount)
+    }
+
+    @Test
+    fun hitTests_shareThePlaneAndDepthRayCast() {
+        cache.hitTests(100.0f, 200.0f, 2.0f, plane = true, depth = false, instantPlacement = false)
+        cache.hitTests(100.0f, 200.0f, 2.0f, plane = false, depth = true, instantPlacement = true)
+        cache.hitTest(100.0f, 200.0f)
+
+        verify(frame, times(1)).hitTest(anyFloat(), anyFloat())
+        verify(frame, never()).hitTestInstantPlacement(anyFloat(), anyFloat(), anyFloat())
+    }
+
+    @Test
+    fun hitTests_fallBackToInstantPlacementWithoutPlaneResults() {
+        `when`(frame.hitTest(anyFloat(), anyFloat())).thenAnswer { listOf<HitResult>() }
+
+        val results = cache.hitTests(
+            100.0f, 200.0f, 2.0f, plane = true, depth = true, instantPlacement = true
+        )
+
+        assertEquals(listOf(instantPlacementHit), results)
+        assertEquals(2, cache.nativeHitTestCount)
+    }
+
+    @Test
+    fun hitTests_withoutTrackableTypes_doNotRayCast() {
+        val results = cache.hitTests(
+            100.0f, 200.0f, 2.0f, plane = false, depth = false, instantPlacement = false
+        )
+
+        assertTrue(results.isEmpty())
+        verifyNoInteractions(frame)
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.sceneview.ar.arcore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link LightEstimator} environmental HDR cubemap preparation: the bulk copy of the
+ * ARCore RGBA16F faces with the per pixel RGBA16F to RGB16F repack that it replaced.
+ *
+ * <p>Run with {@code ./gradlew :arsceneview:jmh -Pjmh=CubeMapUploadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CubeMapUploadBenchmark {
+  private static final int FACE_COUNT = 6;
+  private static final int RGBA16F_BYTES_PER_PIXEL = 8;
+  private static final int RGB16F_BYTES_PER_PIXEL = 6;
+
+  /** ARCore returns 16x16 faces but the benchmark also covers larger ones. */
+  @Param({"16", "64"})
+  public int faceSize;
+
+  private final ByteBuffer[] faces = new ByteBuffer[FACE_COUNT];
+  private ByteBuffer rgbaBuffer;
+  private ByteBuffer rgbBuffer;
+  private final byte[] rgbBytes = new byte[RGB16F_BYTES_PER_PIXEL];
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    int facePixels = faceSize * faceSize;
+    for (int i = 0; i < FACE_COUNT; i++) {
+      byte[] bytes = new byte[facePixels * RGBA16F_BYTES_PER_PIXEL];
+      random.nextBytes(bytes);
+      // The ARCore image planes are direct buffers
+      faces[i] = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.nativeOrder());
+      faces[i].put(bytes).clear();
+    }
+    rgbaBuffer =
+        ByteBuffer.allocateDirect(FACE_COUNT * facePixels * RGBA16F_BYTES_PER_PIXEL)
+            .order(ByteOrder.nativeOrder());
+    rgbBuffer =
+        ByteBuffer.allocateDirect(FACE_COUNT * facePixels * RGB16F_BYTES_PER_PIXEL)
+            .order(ByteOrder.nativeOrder());
+  }
+
+  /** The faces upload as RGBA16F: one bulk copy per face into the reused direct buffer. */
+  @Benchmark
+  public ByteBuffer bulkCopyRgba16f() {
+    rgbaBuffer.clear();
+    for (ByteBuffer face : faces) {
+      rgbaBuffer.put(face);
+      face.clear();
+    }
+    rgbaBuffer.flip();
+    return rgbaBuffer;
+  }
+
+  /** The previous RGB16F repack reading 6 bytes and skipping the 2 alpha bytes of each pixel. */
+  @Benchmark
+  public ByteBuffer repackRgb16f() {
+    rgbBuffer.clear();
+    for (ByteBuffer face : faces) {
+      while (face.hasRemaining()) {
+        face.get(rgbBytes);
+        rgbBuffer.put(rgbBytes);
+        face.position(face.position() + 2);
+      }
+      face.clear();
+    }
+    rgbBuffer.flip();
+    return rgbBuffer;
+  }
+}
@@ -0,0 +1,68 @@
+package com.google.ar.sceneform.rendering
+
+import android.net.Uri
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.google.ar.sceneform.common.TransformProvider
+import com.google.ar.sceneform.math.Matrix
+import io.github.sceneview.Filament
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+@RunWith(AndroidJUnit4::class)
+class FilamentInstancePoolTest {
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+    private val transformProvider = TransformProvider { Matrix() }
+
+    @Test
+    fun releasedInstance_getsBackItsInitialState() {
+        val model = loadModel("sceneview/models/cursor.glb")
+        instrumentation.runOnMainSync {
+            // Keeps the shared asset alive
+            val keptInstance = model.createInstance(transformProvider, true)
+            val instance = model.createInstance(transformProvider, true)
+            val filamentInstance = instance.filamentInstance
+            val entity = instance.childEntities.first { Filament.renderableManager.hasComponent(it) }
+            val renderableInstance = Filament.renderableManager.getInstance(entity)
+            val material = Filament.renderableManager.getMaterialInstanceAt(renderableInstance, 0)
+            val isShadowCaster = Filament.renderableManager.isShadowCaster(renderableInstance)
+
+            val overrideMaterial = material.material.createInstance()
+            instance.setMaterialInstance(overrideMaterial)
+            instance.renderPriority = Renderable.RENDER_PRIORITY_LAST
+            instance.isShadowCaster = !isShadowCaster
+            instance.destroy()
+            Filament.engine.destroyMaterialInstance(overrideMaterial)
+
+            val recycledInstance = model.createInstance(transformProvider, true)
+            assertSame(filamentInstance, recycledInstance.filamentInstance)
+            assertSame(
+                material,
+                Filament.renderableManager.getMaterialInstanceAt(renderableInstance, 0)
+            )
+            assertEquals(
+                isShadowCaster,
+                Filament.renderableManager.isShadowCaster(renderableInstance)
+            )
+            recycledInstance.destroy()
+            keptInstance.destroy()
+        }
+    }
+
+    private fun loadModel(location: String): ModelRenderable {
+        lateinit var model: CompletableFuture<ModelRenderable>
+        instrumentation.runOnMainSync {
+            model = ModelRenderable.builder()
+                .setSource(instrumentation.targetContext, Uri.parse(location))
+                .setIsFilamentGltf(true)
+                .setInstancingEnabled(true)
+                .build(null)
+        }
+        return model.get(1, TimeUnit.MINUTES)
+    }
+}
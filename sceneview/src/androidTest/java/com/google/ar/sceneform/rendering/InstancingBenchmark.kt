@@ -0,0 +1,70 @@
+package com.google.ar.sceneform.rendering
+
+import android.net.Uri
+import android.os.Debug
+import android.os.SystemClock
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.google.ar.sceneform.common.TransformProvider
+import com.google.ar.sceneform.math.Matrix
+import io.github.sceneview.reportBenchmark
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * ### Time and native memory needed to create N copies of a model with and without instancing
+ *
+ * Run with `./gradlew :sceneview:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.google.ar.sceneform.rendering.InstancingBenchmark`
+ */
+@RunWith(AndroidJUnit4::class)
+class InstancingBenchmark {
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+    private val transformProvider = TransformProvider { Matrix() }
+
+    @Test
+    fun smallModel() = benchmark("sceneview/models/cursor.glb", intArrayOf(1, 50, 200))
+
+    @Test
+    fun largeModel() = benchmark("models/spiderbot.glb", intArrayOf(1, 4))
+
+    private fun benchmark(location: String, copyCounts: IntArray) {
+        val model = loadModel(location)
+        for (copyCount in copyCounts) {
+            for (isInstanced in booleanArrayOf(false, true)) {
+                instrumentation.runOnMainSync {
+                    Runtime.getRuntime().gc()
+                    val nativeHeapBefore = Debug.getNativeHeapAllocatedSize()
+                    val start = SystemClock.elapsedRealtimeNanos()
+                    val instances = List(copyCount) {
+                        model.createInstance(transformProvider, isInstanced)
+                    }
+                    val elapsedNanos = SystemClock.elapsedRealtimeNanos() - start
+                    val nativeHeap = Debug.getNativeHeapAllocatedSize() - nativeHeapBefore
+                    instances.forEach { it.destroy() }
+                    reportBenchmark(
+                        "InstancingBenchmark $location",
+                        "copies" to copyCount,
+                        "instanced" to isInstanced,
+                        "timeMs" to elapsedNanos / 1_000_000,
+                        "nativeHeapKb" to nativeHeap / 1024
+                    )
+                }
+            }
+        }
+    }
+
+    private fun loadModel(location: String): ModelRenderable {
+        lateinit var model: CompletableFuture<ModelRenderable>
+        instrumentation.runOnMainSync {
+            model = ModelRenderable.builder()
+                .setSource(instrumentation.targetContext, Uri.parse(location))
+                .setIsFilamentGltf(true)
+                .build(null)
+        }
+        return model.get(2, TimeUnit.MINUTES)
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.sceneview
+
+import android.app.Instrumentation
+import android.os.Bundle
+import android.util.Log
+import androidx.test.platform.app.InstrumentationRegistry
+
+/**
+ * ### Print a device benchmark result to logcat and to the `am instrument` output
+ */
+fun reportBenchmark(name: String, vararg metrics: Pair<String, Any>) {
+    val result = "$name: " + metrics.joinToString { (metric, value) -> "$metric=$value" }
+    Log.i("Benchmark", result)
+    InstrumentationRegistry.getInstrumentation().sendStatus(0, Bundle().apply {
+        putString(Instrumentation.REPORT_KEY_STREAMRESULT, "$result\n")
+    })
+}
@@ -0,0 +1,114 @@
+package io.github.sceneview.texture
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.LinearGradient
+import android.graphics.Paint
+import android.graphics.Shader
+import android.os.SystemClock
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.google.android.filament.Texture
+import com.google.android.filament.android.TextureHelper
+import io.github.sceneview.Filament
+import io.github.sceneview.reportBenchmark
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+
+/**
+ * ### Main thread time needed to load a texture
+ *
+ * Compares the previous loading, which decoded the image, uploaded it and generated its mipmaps
+ * on the main thread, with the [TextureLoader.decodeImage] done in the background followed by the
+ * main thread [TextureLoader.createImageTexture] upload.
+ *
+ * Run with `./gradlew :sceneview:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=io.github.sceneview.texture.TextureLoadBenchmark`
+ */
+@RunWith(AndroidJUnit4::class)
+class TextureLoadBenchmark {
+
+    private val instrumentation = InstrumentationRegistry.getInstrumentation()
+
+    @Test
+    fun pngTexture() = benchmark(1024, Bitmap.CompressFormat.PNG)
+
+    @Test
+    fun jpegTexture() = benchmark(4096, Bitmap.CompressFormat.JPEG)
+
+    private fun benchmark(size: Int, format: Bitmap.CompressFormat) {
+        val imageBuffer = encodeImage(size, format)
+        var previousNanos = 0L
+        var backgroundDecodeNanos = 0L
+        var uploadNanos = 0L
+        // The first run warms up the decoder and the engine
+        repeat(REPEAT_COUNT + 1) { run ->
+            instrumentation.runOnMainSync {
+                val start = SystemClock.elapsedRealtimeNanos()
+                val texture = createOnMainThread(imageBuffer.duplicate())
+                if (run > 0) previousNanos += SystemClock.elapsedRealtimeNanos() - start
+                texture.destroy()
+            }
+
+            // The instrumentation thread stands for the decode dispatcher
+            val start = SystemClock.elapsedRealtimeNanos()
+            val image = TextureLoader.decodeImage(
+                imageBuffer.duplicate(), TextureLoader.TextureType.COLOR
+            )
+            if (run > 0) backgroundDecodeNanos += SystemClock.elapsedRealtimeNanos() - start
+            instrumentation.runOnMainSync {
+                val uploadStart = SystemClock.elapsedRealtimeNanos()
+                val texture = TextureLoader.createImageTexture(image = image)
+                if (run > 0) uploadNanos += SystemClock.elapsedRealtimeNanos() - uploadStart
+                texture.destroy()
+            }
+        }
+        reportBenchmark(
+            "TextureLoadBenchmark ${format.name} ${size}x$size",
+            "previousMainThreadMs" to previousNanos / REPEAT_COUNT / 1_000_000.0,
+            "backgroundDecodeMs" to backgroundDecodeNanos / REPEAT_COUNT / 1_000_000.0,
+            "mainThreadMs" to uploadNanos / REPEAT_COUNT / 1_000_000.0
+        )
+    }
+
+    /**
+     * The previous [TextureLoader.createImageTexture]
+     */
+    private fun createOnMainThread(imageBuffer: ByteBuffer): Texture {
+        val bitmap = BitmapFactory.decodeByteArray(
+            imageBuffer.array(), imageBuffer.arrayOffset(), imageBuffer.remaining()
+        )
+        return Texture.Builder()
+            .width(bitmap.width)
+            .height(bitmap.height)
+            .sampler(Texture.Sampler.SAMPLER_2D)
+            .format(Texture.InternalFormat.SRGB8_A8)
+            .levels(0xff)
+            .build(Filament.engine).apply {
+                TextureHelper.setBitmap(Filament.engine, this, 0, bitmap)
+                generateMipmaps(Filament.engine)
+            }
+    }
+
+    private fun encodeImage(size: Int, format: Bitmap.CompressFormat): ByteBuffer {
+        val bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888)
+        Canvas(bitmap).drawPaint(Paint().apply {
+            shader = LinearGradient(
+                0.0f, 0.0f, size.toFloat(), size.toFloat(),
+                intArrayOf(Color.RED, Color.GREEN, Color.BLUE), null, Shader.TileMode.MIRROR
+            )
+        })
+        val output = ByteArrayOutputStream()
+        bitmap.compress(format, 90, output)
+        bitmap.recycle()
+        return ByteBuffer.wrap(output.toByteArray())
+    }
+
+    companion object {
+        private const val REPEAT_COUNT = 5
+    }
+}
@@ -20,6 +20,7 @@ import io.github.sceneview.FilamentKt;
 import io.github.sceneview.SceneView;
 import io.github.sceneview.node.Node;
 import io.github.sceneview.node.NodeParent;
+import io.github.sceneview.scene.CameraKt;
 import io.github.sceneview.utils.FrameTime;
 
 /**
@@ -86,6 +87,12 @@ public class CameraNode extends Node {
 
     private final double[] cameraProjectionMatrix = new double[16];
 
+    // The projection can change with the viewport or the AR camera on any frame
+    @Override
+    public boolean isFrameActive() {
+        return true;
+    }
+
     @Override
     public void onFrame(@NonNull FrameTime frameTime) {
         super.onFrame(frameTime);
@@ -420,13 +427,13 @@ public class CameraNode extends Node {
         nearPlane = near;
         farPlane = far;
         areMatricesInitialized = true;
+        requestRender();
     }
 
     @Override
     public void onDestroy(@NonNull LifecycleOwner owner) {
         super.onDestroy(owner);
 
-        Filament.getEngine().destroyCameraComponent(camera.getEntity());
-        Filament.getEntityManager().destroy(camera.getEntity());
+        CameraKt.destroy(camera);
     }
 }
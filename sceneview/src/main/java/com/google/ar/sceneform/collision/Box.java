@@ -260,6 +260,29 @@ public class Box extends CollisionShape {
     return Intersections.boxBoxIntersection(this, box);
   }
 
+  @Override
+  void getAabb(float[] result) {
+    float[] axes = rotationMatrix.data;
+    float extentX = size.x * 0.5f;
+    float extentY = size.y * 0.5f;
+    float extentZ = size.z * 0.5f;
+
+    // Project the oriented extents onto the world axes.
+    float halfX =
+        Math.abs(axes[0] * extentX) + Math.abs(axes[4] * extentY) + Math.abs(axes[8] * extentZ);
+    float halfY =
+        Math.abs(axes[1] * extentX) + Math.abs(axes[5] * extentY) + Math.abs(axes[9] * extentZ);
+    float halfZ =
+        Math.abs(axes[2] * extentX) + Math.abs(axes[6] * extentY) + Math.abs(axes[10] * extentZ);
+
+    result[0] = center.x - halfX;
+    result[1] = center.y - halfY;
+    result[2] = center.z - halfZ;
+    result[3] = center.x + halfX;
+    result[4] = center.y + halfY;
+    result[5] = center.z + halfZ;
+  }
+
   @Override
   CollisionShape transform(TransformProvider transformProvider) {
     Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
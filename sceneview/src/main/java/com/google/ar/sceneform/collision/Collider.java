@@ -21,6 +21,10 @@ public class Collider {
   private boolean isWorldShapeDirty;
   private int shapeId = ChangeId.EMPTY_ID;
 
+  // Bookkeeping owned by the attached CollisionSystem.
+  int proxyId = DynamicAabbTree.NULL_NODE;
+  boolean isRefitPending;
+
   /** @hide */
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public Collider(TransformProvider transformProvider, CollisionShape localCollisionShape) {
@@ -35,8 +39,14 @@ public class Collider {
   public void setShape(CollisionShape localCollisionShape) {
     Preconditions.checkNotNull(localCollisionShape, "Parameter \"localCollisionShape\" was null.");
 
+    if (attachedCollisionSystem != null && localShape != null) {
+      localShape.removeCollider(this);
+      localCollisionShape.addCollider(this);
+    }
+
     localShape = localCollisionShape;
     cachedWorldShape = null;
+    markWorldShapeDirty();
   }
 
   /** @hide */
@@ -59,11 +69,13 @@ public class Collider {
   public void setAttachedCollisionSystem(@Nullable CollisionSystem collisionSystem) {
     if (attachedCollisionSystem != null) {
       attachedCollisionSystem.removeCollider(this);
+      localShape.removeCollider(this);
     }
 
     attachedCollisionSystem = collisionSystem;
 
     if (attachedCollisionSystem != null) {
+      localShape.addCollider(this);
       attachedCollisionSystem.addCollider(this);
     }
   }
@@ -71,6 +83,10 @@ public class Collider {
   /** @hide */
   public void markWorldShapeDirty() {
     isWorldShapeDirty = true;
+
+    if (attachedCollisionSystem != null) {
+      attachedCollisionSystem.markColliderDirty(this);
+    }
   }
 
   private boolean doesCachedWorldShapeNeedUpdate() {
@@ -95,5 +111,6 @@ public class Collider {
 
     ChangeId changeId = localShape.getId();
     shapeId = changeId.get();
+    isWorldShapeDirty = false;
   }
 }
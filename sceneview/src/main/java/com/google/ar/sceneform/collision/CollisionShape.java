@@ -1,11 +1,15 @@
 package com.google.ar.sceneform.collision;
 
+import androidx.annotation.Nullable;
 import com.google.ar.sceneform.common.TransformProvider;
 import com.google.ar.sceneform.utilities.ChangeId;
+import java.util.ArrayList;
 
 /** Base class for all types of shapes that collision checks can be performed against. */
 public abstract class CollisionShape {
   private final ChangeId changeId = new ChangeId();
+  // Colliders attached to a collision system that use this shape as their local shape.
+  @Nullable private ArrayList<Collider> colliders;
 
   public abstract CollisionShape makeCopy();
 
@@ -16,6 +20,12 @@ public abstract class CollisionShape {
    */
   protected void onChanged() {
     changeId.update();
+
+    if (colliders != null) {
+      for (int i = 0; i < colliders.size(); i++) {
+        colliders.get(i).markWorldShapeDirty();
+      }
+    }
   }
 
   /** @hide */
@@ -39,7 +49,26 @@ public abstract class CollisionShape {
     return changeId;
   }
 
+  void addCollider(Collider collider) {
+    if (colliders == null) {
+      colliders = new ArrayList<>();
+    }
+    colliders.add(collider);
+  }
+
+  void removeCollider(Collider collider) {
+    if (colliders != null) {
+      colliders.remove(collider);
+    }
+  }
+
   abstract CollisionShape transform(TransformProvider transformProvider);
 
   abstract void transform(TransformProvider transformProvider, CollisionShape result);
+
+  /**
+   * Write the axis-aligned bounds enclosing this shape into {@code result} as {minX, minY, minZ,
+   * maxX, maxY, maxZ}.
+   */
+  abstract void getAabb(float[] result);
 }
@@ -3,6 +3,7 @@ package com.google.ar.sceneform.collision;
 import androidx.annotation.Nullable;
 
 import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.Preconditions;
 import io.github.sceneview.node.Node;
 
@@ -14,53 +15,102 @@ import java.util.function.Supplier;
 
 /**
  * Manages all of the colliders within a scene.
+ *
+ * <p>Colliders are stored in a {@link DynamicAabbTree} so that queries only run the exact shape
+ * tests against the colliders whose bounds are reached. Colliders are refitted lazily: {@link
+ * Collider#markWorldShapeDirty()} only queues them and the tree is brought up to date at the
+ * beginning of the next query.
+ *
+ * <p>Queries reuse their visitors and scratch objects so they don't allocate. They must not be
+ * started again from a result callback.
  */
 public class CollisionSystem {
     private static final String TAG = CollisionSystem.class.getSimpleName();
 
-    // TODO: Store things in some spatial partition or another.
-    private final ArrayList<Collider> colliders = new ArrayList<>();
+    private final DynamicAabbTree tree = new DynamicAabbTree();
+    private final ArrayList<Collider> pendingColliders = new ArrayList<>();
+
+    // Query scratch objects, reused to keep picking allocation free.
+    private final float[] aabb = new float[6];
+    private final RayHit tempResult = new RayHit();
+    private final NearestRayVisitor nearestRayVisitor = new NearestRayVisitor();
+    private final AllRayVisitor allRayVisitor = new AllRayVisitor();
+    private final IntersectionVisitor intersectionVisitor = new IntersectionVisitor();
 
     public void addCollider(Collider collider) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
-        colliders.add(collider);
+        markColliderDirty(collider);
     }
 
     public void removeCollider(Collider collider) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
-        colliders.remove(collider);
+        if (collider.proxyId != DynamicAabbTree.NULL_NODE) {
+            tree.destroyProxy(collider.proxyId);
+            collider.proxyId = DynamicAabbTree.NULL_NODE;
+        }
+        if (collider.isRefitPending) {
+            pendingColliders.remove(collider);
+            collider.isRefitPending = false;
+        }
     }
 
-    @Nullable
-    public Collider raycast(Ray ray, RayHit resultHit, boolean selectableOnly) {
-        Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
-        Preconditions.checkNotNull(resultHit, "Parameter \"resultHit\" was null.");
+    /**
+     * Queue a collider so its bounds are refitted before the next query.
+     *
+     * @hide
+     */
+    void markColliderDirty(Collider collider) {
+        if (!collider.isRefitPending) {
+            collider.isRefitPending = true;
+            pendingColliders.add(collider);
+        }
+    }
+
+    private void refitPendingColliders() {
+        for (int i = 0; i < pendingColliders.size(); i++) {
+            Collider collider = pendingColliders.get(i);
+            collider.isRefitPending = false;
 
-        resultHit.reset();
-        Collider result = null;
-        RayHit tempResult = new RayHit();
-        for (Collider collider : colliders) {
             CollisionShape collisionShape = collider.getTransformedShape();
             if (collisionShape == null) {
+                if (collider.proxyId != DynamicAabbTree.NULL_NODE) {
+                    tree.destroyProxy(collider.proxyId);
+                    collider.proxyId = DynamicAabbTree.NULL_NODE;
+                }
                 continue;
             }
-            if (collisionShape.rayIntersection(ray, tempResult)) {
-                TransformProvider transformProvider = collider.getTransformProvider();
-                if(!selectableOnly
-                        || !(transformProvider instanceof Node)
-                        || ((Node) transformProvider).isSelectable()) {
-                    if (tempResult.getDistance() < resultHit.getDistance()) {
-                        resultHit.set(tempResult);
-                        result = collider;
-                    }
-                }
+
+            collisionShape.getAabb(aabb);
+            if (collider.proxyId == DynamicAabbTree.NULL_NODE) {
+                collider.proxyId = tree.createProxy(aabb, collider);
+            } else {
+                tree.moveProxy(collider.proxyId, aabb);
             }
         }
+        pendingColliders.clear();
+    }
+
+    @Nullable
+    public Collider raycast(Ray ray, RayHit resultHit, boolean selectableOnly) {
+        Preconditions.checkNotNull(ray, "Parameter \"ray\" was null.");
+        Preconditions.checkNotNull(resultHit, "Parameter \"resultHit\" was null.");
 
-        return result;
+        refitPendingColliders();
+
+        resultHit.reset();
+        NearestRayVisitor visitor = nearestRayVisitor;
+        visitor.ray = ray;
+        visitor.resultHit = resultHit;
+        visitor.selectableOnly = selectableOnly;
+        try {
+            raycastTree(ray, resultHit.getDistance(), visitor);
+            return visitor.result;
+        } finally {
+            visitor.clear();
+        }
     }
 
-    @SuppressWarnings("AndroidApiChecker")
+    @SuppressWarnings({"AndroidApiChecker", "unchecked"})
     public <T extends RayHit> int raycastAll(
             Ray ray,
             ArrayList<T> resultBuffer,
@@ -70,33 +120,20 @@ public class CollisionSystem {
         Preconditions.checkNotNull(resultBuffer, "Parameter \"resultBuffer\" was null.");
         Preconditions.checkNotNull(allocateResult, "Parameter \"allocateResult\" was null.");
 
-        RayHit tempResult = new RayHit();
-        int hitCount = 0;
-
-        // Check the ray against all the colliders.
-        for (Collider collider : colliders) {
-            CollisionShape collisionShape = collider.getTransformedShape();
-            if (collisionShape == null) {
-                continue;
-            }
-
-            if (collisionShape.rayIntersection(ray, tempResult)) {
-                hitCount++;
-                T result = null;
-                if (resultBuffer.size() >= hitCount) {
-                    result = resultBuffer.get(hitCount - 1);
-                } else {
-                    result = allocateResult.get();
-                    resultBuffer.add(result);
-                }
-
-                result.reset();
-                result.set(tempResult);
+        refitPendingColliders();
 
-                if (processResult != null) {
-                    processResult.accept(result, collider);
-                }
-            }
+        // Check the ray against the colliders whose bounds are crossed.
+        AllRayVisitor visitor = allRayVisitor;
+        visitor.ray = ray;
+        visitor.resultBuffer = (ArrayList<RayHit>) resultBuffer;
+        visitor.processResult = (BiConsumer<RayHit, Collider>) processResult;
+        visitor.allocateResult = (Supplier<RayHit>) allocateResult;
+        int hitCount;
+        try {
+            raycastTree(ray, Float.MAX_VALUE, visitor);
+            hitCount = visitor.hitCount;
+        } finally {
+            visitor.clear();
         }
 
         // Reset extra hits in the buffer.
@@ -114,27 +151,23 @@ public class CollisionSystem {
     public Collider intersects(Collider collider) {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
 
+        refitPendingColliders();
+
         CollisionShape collisionShape = collider.getTransformedShape();
         if (collisionShape == null) {
             return null;
         }
 
-        for (Collider otherCollider : colliders) {
-            if (otherCollider == collider) {
-                continue;
-            }
-
-            CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
-            if (otherCollisionShape == null) {
-                continue;
-            }
-
-            if (collisionShape.shapeIntersection(otherCollisionShape)) {
-                return otherCollider;
-            }
+        IntersectionVisitor visitor = intersectionVisitor;
+        visitor.collider = collider;
+        visitor.collisionShape = collisionShape;
+        try {
+            collisionShape.getAabb(aabb);
+            tree.query(aabb, visitor);
+            return visitor.result;
+        } finally {
+            visitor.clear();
         }
-
-        return null;
     }
 
     @SuppressWarnings("AndroidApiChecker")
@@ -142,24 +175,153 @@ public class CollisionSystem {
         Preconditions.checkNotNull(collider, "Parameter \"collider\" was null.");
         Preconditions.checkNotNull(processResult, "Parameter \"processResult\" was null.");
 
+        refitPendingColliders();
+
         CollisionShape collisionShape = collider.getTransformedShape();
         if (collisionShape == null) {
             return;
         }
 
-        for (Collider otherCollider : colliders) {
+        IntersectionVisitor visitor = intersectionVisitor;
+        visitor.collider = collider;
+        visitor.collisionShape = collisionShape;
+        visitor.processResult = processResult;
+        try {
+            collisionShape.getAabb(aabb);
+            tree.query(aabb, visitor);
+        } finally {
+            visitor.clear();
+        }
+    }
+
+    private void raycastTree(Ray ray, float maxDistance, DynamicAabbTree.RayVisitor visitor) {
+        Vector3 origin = ray.getOrigin();
+        Vector3 direction = ray.getDirection();
+        tree.raycast(
+                origin.x, origin.y, origin.z,
+                direction.x, direction.y, direction.z,
+                maxDistance,
+                visitor);
+    }
+
+    /**
+     * Keeps the closest hit. The query state lives in fields so that the visitor is reused by
+     * every query instead of allocating a capturing lambda.
+     */
+    private final class NearestRayVisitor implements DynamicAabbTree.RayVisitor {
+        @Nullable Ray ray;
+        @Nullable RayHit resultHit;
+        boolean selectableOnly;
+        @Nullable Collider result;
+
+        @Override
+        public float visit(Object userData, float maxDistance) {
+            Collider collider = (Collider) userData;
+            CollisionShape collisionShape = collider.getTransformedShape();
+            if (collisionShape == null || !collisionShape.rayIntersection(ray, tempResult)) {
+                return maxDistance;
+            }
+            TransformProvider transformProvider = collider.getTransformProvider();
+            if (!selectableOnly
+                    || !(transformProvider instanceof Node)
+                    || ((Node) transformProvider).isSelectable()) {
+                if (tempResult.getDistance() < resultHit.getDistance()) {
+                    resultHit.set(tempResult);
+                    result = collider;
+                    // Farther colliders can't be closer than this one.
+                    return tempResult.getDistance();
+                }
+            }
+            return maxDistance;
+        }
+
+        void clear() {
+            ray = null;
+            resultHit = null;
+            result = null;
+        }
+    }
+
+    /** Fills the result buffer with every hit. */
+    private final class AllRayVisitor implements DynamicAabbTree.RayVisitor {
+        @Nullable Ray ray;
+        @Nullable ArrayList<RayHit> resultBuffer;
+        @Nullable BiConsumer<RayHit, Collider> processResult;
+        @Nullable Supplier<RayHit> allocateResult;
+        int hitCount;
+
+        @SuppressWarnings("AndroidApiChecker")
+        @Override
+        public float visit(Object userData, float maxDistance) {
+            Collider collider = (Collider) userData;
+            CollisionShape collisionShape = collider.getTransformedShape();
+            if (collisionShape == null || !collisionShape.rayIntersection(ray, tempResult)) {
+                return maxDistance;
+            }
+
+            hitCount++;
+            RayHit result;
+            if (resultBuffer.size() >= hitCount) {
+                result = resultBuffer.get(hitCount - 1);
+            } else {
+                result = allocateResult.get();
+                resultBuffer.add(result);
+            }
+
+            result.reset();
+            result.set(tempResult);
+
+            if (processResult != null) {
+                processResult.accept(result, collider);
+            }
+            return maxDistance;
+        }
+
+        void clear() {
+            ray = null;
+            resultBuffer = null;
+            processResult = null;
+            allocateResult = null;
+            hitCount = 0;
+        }
+    }
+
+    /**
+     * Keeps the first intersecting collider, or reports all of them when a result consumer is
+     * set.
+     */
+    private static final class IntersectionVisitor implements DynamicAabbTree.Visitor {
+        @Nullable Collider collider;
+        @Nullable CollisionShape collisionShape;
+        @Nullable Consumer<Collider> processResult;
+        @Nullable Collider result;
+
+        @SuppressWarnings("AndroidApiChecker")
+        @Override
+        public boolean visit(Object userData) {
+            Collider otherCollider = (Collider) userData;
             if (otherCollider == collider) {
-                continue;
+                return true;
             }
 
             CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
-            if (otherCollisionShape == null) {
-                continue;
+            if (otherCollisionShape == null
+                    || !collisionShape.shapeIntersection(otherCollisionShape)) {
+                return true;
             }
-
-            if (collisionShape.shapeIntersection(otherCollisionShape)) {
-                processResult.accept(otherCollider);
+            if (processResult == null) {
+                result = otherCollider;
+                return false;
             }
+            processResult.accept(otherCollider);
+            return true;
+        }
+
+        void clear() {
+            collider = null;
+            collisionShape = null;
+            processResult = null;
+            result = null;
         }
     }
 }
@@ -0,0 +1,459 @@
+package com.google.ar.sceneform.collision;
+
+import java.util.Arrays;
+
+/**
+ * Incrementally updated bounding volume hierarchy of axis-aligned boxes used by {@link
+ * CollisionSystem} to cull colliders before running the exact shape tests.
+ *
+ * <p>Leaves store a "fat" box (the real bounds grown by {@link #AABB_MARGIN}) so that small moves
+ * only need a containment check instead of a re-insertion. Nodes are stored in flat arrays and
+ * recycled through a free list so that steady-state updates and queries don't allocate.
+ *
+ * @hide
+ */
+final class DynamicAabbTree {
+  static final int NULL_NODE = -1;
+
+  /** Extra space added around every leaf box to absorb small movements. */
+  private static final float AABB_MARGIN = 0.05f;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  // Each node uses 6 floats: minX, minY, minZ, maxX, maxY, maxZ.
+  private float[] bounds;
+  private int[] parents;
+  private int[] children1;
+  private int[] children2;
+  // Leaf = 0, free node = -1.
+  private int[] heights;
+  private Object[] userData;
+
+  private int capacity;
+  private int freeList;
+  private int root = NULL_NODE;
+
+  private int[] stack = new int[64];
+
+  DynamicAabbTree() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /** Visits the leaves retained by a query. Return false to stop the traversal. */
+  interface Visitor {
+    boolean visit(Object userData);
+  }
+
+  /** Visits the leaves retained by a ray query and returns the new maximum ray distance. */
+  interface RayVisitor {
+    float visit(Object userData, float maxDistance);
+  }
+
+  /**
+   * Insert a leaf for the given bounds.
+   *
+   * @param aabb the tight bounds as {minX, minY, minZ, maxX, maxY, maxZ}
+   * @return the proxy id to use for {@link #moveProxy} and {@link #destroyProxy}
+   */
+  int createProxy(float[] aabb, Object data) {
+    int proxyId = allocateNode();
+    setFatBounds(proxyId, aabb);
+    userData[proxyId] = data;
+    heights[proxyId] = 0;
+    insertLeaf(proxyId);
+    return proxyId;
+  }
+
+  void destroyProxy(int proxyId) {
+    removeLeaf(proxyId);
+    freeNode(proxyId);
+  }
+
+  /**
+   * Update the bounds of a leaf. The leaf is only re-inserted when the new bounds escape its fat
+   * bounds.
+   *
+   * @return true if the leaf was re-inserted
+   */
+  boolean moveProxy(int proxyId, float[] aabb) {
+    int offset = proxyId * 6;
+    if (bounds[offset] <= aabb[0]
+        && bounds[offset + 1] <= aabb[1]
+        && bounds[offset + 2] <= aabb[2]
+        && bounds[offset + 3] >= aabb[3]
+        && bounds[offset + 4] >= aabb[4]
+        && bounds[offset + 5] >= aabb[5]) {
+      return false;
+    }
+
+    removeLeaf(proxyId);
+    setFatBounds(proxyId, aabb);
+    insertLeaf(proxyId);
+    return true;
+  }
+
+  /** Visit every leaf whose fat bounds overlap the given bounds. */
+  void query(float[] aabb, Visitor visitor) {
+    if (root == NULL_NODE) {
+      return;
+    }
+
+    int top = 0;
+    stack[top++] = root;
+    while (top > 0) {
+      int node = stack[--top];
+      if (!overlaps(node, aabb)) {
+        continue;
+      }
+
+      if (heights[node] == 0) {
+        if (!visitor.visit(userData[node])) {
+          return;
+        }
+      } else {
+        top = push(top, children1[node]);
+        top = push(top, children2[node]);
+      }
+    }
+  }
+
+  /**
+   * Visit every leaf whose fat bounds are crossed by the ray between 0 and {@code maxDistance}.
+   * The visitor can shrink the distance to prune the remaining traversal, which is what nearest
+   * hit queries do.
+   *
+   * @param direction a normalized ray direction
+   */
+  void raycast(
+      float originX,
+      float originY,
+      float originZ,
+      float directionX,
+      float directionY,
+      float directionZ,
+      float maxDistance,
+      RayVisitor visitor) {
+    if (root == NULL_NODE) {
+      return;
+    }
+
+    float invX = 1.0f / directionX;
+    float invY = 1.0f / directionY;
+    float invZ = 1.0f / directionZ;
+
+    int top = 0;
+    stack[top++] = root;
+    while (top > 0) {
+      int node = stack[--top];
+      int offset = node * 6;
+
+      float t1 = (bounds[offset] - originX) * invX;
+      float t2 = (bounds[offset + 3] - originX) * invX;
+      float tMin = Math.min(t1, t2);
+      float tMax = Math.max(t1, t2);
+
+      t1 = (bounds[offset + 1] - originY) * invY;
+      t2 = (bounds[offset + 4] - originY) * invY;
+      tMin = Math.max(tMin, Math.min(t1, t2));
+      tMax = Math.min(tMax, Math.max(t1, t2));
+
+      t1 = (bounds[offset + 2] - originZ) * invZ;
+      t2 = (bounds[offset + 5] - originZ) * invZ;
+      tMin = Math.max(tMin, Math.min(t1, t2));
+      tMax = Math.min(tMax, Math.max(t1, t2));
+
+      // NaN comparisons (ray parallel to a slab and starting on its plane) fall through to
+      // "visit", which keeps the culling conservative.
+      if (tMax < 0.0f || tMin > tMax || tMin > maxDistance) {
+        continue;
+      }
+
+      if (heights[node] == 0) {
+        maxDistance = visitor.visit(userData[node], maxDistance);
+      } else {
+        top = push(top, children1[node]);
+        top = push(top, children2[node]);
+      }
+    }
+  }
+
+  private boolean overlaps(int node, float[] aabb) {
+    int offset = node * 6;
+    return bounds[offset] <= aabb[3]
+        && bounds[offset + 3] >= aabb[0]
+        && bounds[offset + 1] <= aabb[4]
+        && bounds[offset + 4] >= aabb[1]
+        && bounds[offset + 2] <= aabb[5]
+        && bounds[offset + 5] >= aabb[2];
+  }
+
+  private int push(int top, int node) {
+    if (top == stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    }
+    stack[top] = node;
+    return top + 1;
+  }
+
+  private void setFatBounds(int node, float[] aabb) {
+    int offset = node * 6;
+    bounds[offset] = aabb[0] - AABB_MARGIN;
+    bounds[offset + 1] = aabb[1] - AABB_MARGIN;
+    bounds[offset + 2] = aabb[2] - AABB_MARGIN;
+    bounds[offset + 3] = aabb[3] + AABB_MARGIN;
+    bounds[offset + 4] = aabb[4] + AABB_MARGIN;
+    bounds[offset + 5] = aabb[5] + AABB_MARGIN;
+  }
+
+  private void allocate(int newCapacity) {
+    bounds = bounds == null ? new float[newCapacity * 6] : Arrays.copyOf(bounds, newCapacity * 6);
+    parents = parents == null ? new int[newCapacity] : Arrays.copyOf(parents, newCapacity);
+    children1 = children1 == null ? new int[newCapacity] : Arrays.copyOf(children1, newCapacity);
+    children2 = children2 == null ? new int[newCapacity] : Arrays.copyOf(children2, newCapacity);
+    heights = heights == null ? new int[newCapacity] : Arrays.copyOf(heights, newCapacity);
+    userData = userData == null ? new Object[newCapacity] : Arrays.copyOf(userData, newCapacity);
+
+    // Chain the new nodes into the free list.
+    for (int i = capacity; i < newCapacity - 1; i++) {
+      parents[i] = i + 1;
+      heights[i] = -1;
+    }
+    parents[newCapacity - 1] = NULL_NODE;
+    heights[newCapacity - 1] = -1;
+    freeList = capacity;
+    capacity = newCapacity;
+  }
+
+  private int allocateNode() {
+    if (freeList == NULL_NODE) {
+      allocate(capacity * 2);
+    }
+
+    int node = freeList;
+    freeList = parents[node];
+    parents[node] = NULL_NODE;
+    children1[node] = NULL_NODE;
+    children2[node] = NULL_NODE;
+    heights[node] = 0;
+    userData[node] = null;
+    return node;
+  }
+
+  private void freeNode(int node) {
+    parents[node] = freeList;
+    heights[node] = -1;
+    userData[node] = null;
+    freeList = node;
+  }
+
+  private void insertLeaf(int leaf) {
+    if (root == NULL_NODE) {
+      root = leaf;
+      parents[root] = NULL_NODE;
+      return;
+    }
+
+    // Find the best sibling using the surface area heuristic.
+    int leafOffset = leaf * 6;
+    int index = root;
+    while (heights[index] != 0) {
+      int child1 = children1[index];
+      int child2 = children2[index];
+
+      float area = area(index);
+      float combinedArea = combinedArea(index, leafOffset);
+
+      // Cost of creating a new parent for this node and the new leaf.
+      float cost = 2.0f * combinedArea;
+      // Minimum cost of pushing the leaf further down the tree.
+      float inheritanceCost = 2.0f * (combinedArea - area);
+
+      float cost1 = descendCost(child1, leafOffset) + inheritanceCost;
+      float cost2 = descendCost(child2, leafOffset) + inheritanceCost;
+
+      if (cost < cost1 && cost < cost2) {
+        break;
+      }
+
+      index = cost1 < cost2 ? child1 : child2;
+    }
+
+    int sibling = index;
+
+    // Create a new parent.
+    int oldParent = parents[sibling];
+    int newParent = allocateNode();
+    parents[newParent] = oldParent;
+    union(newParent, sibling, leaf);
+    heights[newParent] = heights[sibling] + 1;
+
+    if (oldParent != NULL_NODE) {
+      if (children1[oldParent] == sibling) {
+        children1[oldParent] = newParent;
+      } else {
+        children2[oldParent] = newParent;
+      }
+    } else {
+      root = newParent;
+    }
+    children1[newParent] = sibling;
+    children2[newParent] = leaf;
+    parents[sibling] = newParent;
+    parents[leaf] = newParent;
+
+    refitAncestors(parents[leaf]);
+  }
+
+  private void removeLeaf(int leaf) {
+    if (leaf == root) {
+      root = NULL_NODE;
+      return;
+    }
+
+    int parent = parents[leaf];
+    int grandParent = parents[parent];
+    int sibling = children1[parent] == leaf ? children2[parent] : children1[parent];
+
+    if (grandParent != NULL_NODE) {
+      // Destroy the parent and connect the sibling to the grand parent.
+      if (children1[grandParent] == parent) {
+        children1[grandParent] = sibling;
+      } else {
+        children2[grandParent] = sibling;
+      }
+      parents[sibling] = grandParent;
+      freeNode(parent);
+
+      refitAncestors(grandParent);
+    } else {
+      root = sibling;
+      parents[sibling] = NULL_NODE;
+      freeNode(parent);
+    }
+  }
+
+  /** Walk back up the tree fixing heights and bounds and rebalancing along the way. */
+  private void refitAncestors(int index) {
+    while (index != NULL_NODE) {
+      index = balance(index);
+
+      int child1 = children1[index];
+      int child2 = children2[index];
+      heights[index] = 1 + Math.max(heights[child1], heights[child2]);
+      union(index, child1, child2);
+
+      index = parents[index];
+    }
+  }
+
+  /**
+   * Perform a left or right rotation if node A is imbalanced.
+   *
+   * @return the new root of the rotated sub tree
+   */
+  private int balance(int a) {
+    if (heights[a] < 2) {
+      return a;
+    }
+
+    int b = children1[a];
+    int c = children2[a];
+    int balance = heights[c] - heights[b];
+
+    if (balance > 1) {
+      return rotate(a, c, b, true);
+    }
+    if (balance < -1) {
+      return rotate(a, b, c, false);
+    }
+    return a;
+  }
+
+  /**
+   * Promote {@code up} (a child of {@code a}) to replace {@code a}.
+   *
+   * @param other the other child of {@code a}
+   * @param upIsSecond whether {@code up} is the second child of {@code a}
+   */
+  private int rotate(int a, int up, int other, boolean upIsSecond) {
+    int f = children1[up];
+    int g = children2[up];
+
+    // Swap A and its promoted child.
+    children1[up] = a;
+    parents[up] = parents[a];
+    parents[a] = up;
+
+    // A's old parent should point to the promoted child.
+    int upParent = parents[up];
+    if (upParent != NULL_NODE) {
+      if (children1[upParent] == a) {
+        children1[upParent] = up;
+      } else {
+        children2[upParent] = up;
+      }
+    } else {
+      root = up;
+    }
+
+    // Keep the taller grandchild under the promoted node, hand the other one to A.
+    int keep = heights[f] > heights[g] ? f : g;
+    int give = keep == f ? g : f;
+    children2[up] = keep;
+    if (upIsSecond) {
+      children2[a] = give;
+    } else {
+      children1[a] = give;
+    }
+    parents[give] = a;
+
+    union(a, other, give);
+    union(up, a, keep);
+    heights[a] = 1 + Math.max(heights[other], heights[give]);
+    heights[up] = 1 + Math.max(heights[a], heights[keep]);
+
+    return up;
+  }
+
+  private float descendCost(int child, int leafOffset) {
+    if (heights[child] == 0) {
+      return combinedArea(child, leafOffset);
+    }
+    return combinedArea(child, leafOffset) - area(child);
+  }
+
+  private void union(int target, int a, int b) {
+    int t = target * 6;
+    int o1 = a * 6;
+    int o2 = b * 6;
+    bounds[t] = Math.min(bounds[o1], bounds[o2]);
+    bounds[t + 1] = Math.min(bounds[o1 + 1], bounds[o2 + 1]);
+    bounds[t + 2] = Math.min(bounds[o1 + 2], bounds[o2 + 2]);
+    bounds[t + 3] = Math.max(bounds[o1 + 3], bounds[o2 + 3]);
+    bounds[t + 4] = Math.max(bounds[o1 + 4], bounds[o2 + 4]);
+    bounds[t + 5] = Math.max(bounds[o1 + 5], bounds[o2 + 5]);
+  }
+
+  /** Half surface area, which is all the heuristic needs. */
+  private float area(int node) {
+    int o = node * 6;
+    float x = bounds[o + 3] - bounds[o];
+    float y = bounds[o + 4] - bounds[o + 1];
+    float z = bounds[o + 5] - bounds[o + 2];
+    return x * y + y * z + z * x;
+  }
+
+  private float combinedArea(int node, int otherOffset) {
+    int o = node * 6;
+    float x =
+        Math.max(bounds[o + 3], bounds[otherOffset + 3])
+            - Math.min(bounds[o], bounds[otherOffset]);
+    float y =
+        Math.max(bounds[o + 4], bounds[otherOffset + 4])
+            - Math.min(bounds[o + 1], bounds[otherOffset + 1]);
+    float z =
+        Math.max(bounds[o + 5], bounds[otherOffset + 5])
+            - Math.min(bounds[o + 2], bounds[otherOffset + 2]);
+    return x * y + y * z + z * x;
+  }
+}
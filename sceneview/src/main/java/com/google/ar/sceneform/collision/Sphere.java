@@ -146,6 +146,17 @@ public class Sphere extends CollisionShape {
     return Intersections.sphereBoxIntersection(this, box);
   }
 
+  @Override
+  void getAabb(float[] result) {
+    float absRadius = Math.abs(radius);
+    result[0] = center.x - absRadius;
+    result[1] = center.y - absRadius;
+    result[2] = center.z - absRadius;
+    result[3] = center.x + absRadius;
+    result[4] = center.y + absRadius;
+    result[5] = center.z + absRadius;
+  }
+
   @Override
   CollisionShape transform(TransformProvider transformProvider) {
     Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
@@ -0,0 +1,186 @@
+package com.google.ar.sceneform.rendering;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.filament.EntityInstance;
+import com.google.android.filament.MaterialInstance;
+import com.google.android.filament.RenderableManager;
+import com.google.android.filament.TransformManager;
+import com.google.android.filament.gltfio.AssetLoader;
+import com.google.android.filament.gltfio.FilamentAsset;
+import com.google.android.filament.gltfio.FilamentInstance;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import io.github.sceneview.Filament;
+import io.github.sceneview.model.ModelKt;
+
+/**
+ * Pool of {@link FilamentInstance}s sharing a single instanced {@link FilamentAsset}.
+ *
+ * <p>The glTF is parsed and its buffers and textures are uploaded once, when the first instance is
+ * acquired. The pool grows on demand and released instances are recycled, since gltfio can't
+ * destroy a single instance. The shared asset is destroyed when the last instance is released.
+ *
+ * <p>A released instance gets back the state it had when it was created: the asset material
+ * instances, the default priority, shadow flags and frustum culling and the rest pose. The next owner therefore
+ * doesn't inherit the previous one's overrides, which may reference destroyed materials.
+ *
+ * @hide
+ */
+@SuppressWarnings("AndroidJdkLibsChecker")
+class FilamentInstancePool {
+    private final RenderableInternalFilamentAssetData renderableData;
+
+    @Nullable
+    private FilamentAsset asset;
+    private final ArrayList<FilamentInstance> freeInstances = new ArrayList<>();
+    private final IdentityHashMap<FilamentInstance, InitialState> initialStates =
+            new IdentityHashMap<>();
+    private int acquiredCount;
+
+    FilamentInstancePool(RenderableInternalFilamentAssetData renderableData) {
+        this.renderableData = renderableData;
+    }
+
+    /**
+     * Returns the shared asset or null if no instance is currently acquired.
+     */
+    @Nullable
+    FilamentAsset getAsset() {
+        return asset;
+    }
+
+    /**
+     * Get an unused instance, creating the shared asset or growing the pool if needed.
+     *
+     * @param initialCapacity number of instances allocated with the shared asset
+     * @param asyncLoad       load the asset resources asynchronously
+     */
+    FilamentInstance acquire(int initialCapacity, boolean asyncLoad) {
+        AssetLoader loader = Filament.getAssetLoader();
+        if (asset == null) {
+            FilamentInstance[] instances = new FilamentInstance[Math.max(1, initialCapacity)];
+            FilamentAsset createdAsset =
+                    loader.createInstancedAsset(renderableData.gltfByteBuffer, instances);
+            if (createdAsset == null) {
+                throw new IllegalStateException("Failed to load gltf");
+            }
+            renderableData.loadResources(createdAsset, asyncLoad);
+            asset = createdAsset;
+            for (FilamentInstance instance : instances) {
+                initialStates.put(instance, new InitialState(instance));
+                freeInstances.add(instance);
+            }
+        }
+
+        FilamentInstance instance;
+        if (!freeInstances.isEmpty()) {
+            instance = freeInstances.remove(freeInstances.size() - 1);
+        } else {
+            instance = loader.createInstance(asset);
+            if (instance == null) {
+                throw new IllegalStateException("Failed to create gltf instance");
+            }
+            initialStates.put(instance, new InitialState(instance));
+        }
+        acquiredCount++;
+        return instance;
+    }
+
+    /**
+     * Give an instance back to the pool. Its entities must already be removed from the scene.
+     */
+    void release(FilamentInstance instance) {
+        // Detach from the previous owner transform.
+        TransformManager transformManager = Filament.getTransformManager();
+        @EntityInstance int rootInstance = transformManager.getInstance(instance.getRoot());
+        transformManager.setParent(rootInstance, 0);
+
+        acquiredCount--;
+
+        if (acquiredCount == 0 && asset != null) {
+            ModelKt.destroy(asset);
+            asset = null;
+            freeInstances.clear();
+            initialStates.clear();
+            return;
+        }
+
+        InitialState initialState = initialStates.get(instance);
+        if (initialState != null) {
+            initialState.restore(instance);
+        }
+        freeInstances.add(instance);
+    }
+
+    /**
+     * The per entity state that an owner can change, as created by gltfio.
+     */
+    private static final class InitialState {
+        // Per entity, null for the entities without a renderable component
+        private final MaterialInstance[][] materialInstances;
+        private final boolean[] isShadowCaster;
+        private final boolean[] isShadowReceiver;
+        // The rest pose local transforms, 16 floats per entity
+        private final float[] transforms;
+
+        InitialState(FilamentInstance instance) {
+            RenderableManager renderableManager = Filament.getRenderableManager();
+            TransformManager transformManager = Filament.getTransformManager();
+            int[] entities = instance.getEntities();
+            materialInstances = new MaterialInstance[entities.length][];
+            isShadowCaster = new boolean[entities.length];
+            isShadowReceiver = new boolean[entities.length];
+            transforms = new float[entities.length * 16];
+            float[] transform = new float[16];
+            for (int i = 0; i < entities.length; i++) {
+                @EntityInstance int renderableInstance = renderableManager.getInstance(entities[i]);
+                if (renderableInstance != 0) {
+                    int primitiveCount = renderableManager.getPrimitiveCount(renderableInstance);
+                    materialInstances[i] = new MaterialInstance[primitiveCount];
+                    for (int primitive = 0; primitive < primitiveCount; primitive++) {
+                        materialInstances[i][primitive] =
+                                renderableManager.getMaterialInstanceAt(renderableInstance, primitive);
+                    }
+                    isShadowCaster[i] = renderableManager.isShadowCaster(renderableInstance);
+                    isShadowReceiver[i] = renderableManager.isShadowReceiver(renderableInstance);
+                }
+                @EntityInstance int transformInstance = transformManager.getInstance(entities[i]);
+                if (transformInstance != 0) {
+                    transformManager.getTransform(transformInstance, transform);
+                    System.arraycopy(transform, 0, transforms, i * 16, 16);
+                }
+            }
+        }
+
+        void restore(FilamentInstance instance) {
+            RenderableManager renderableManager = Filament.getRenderableManager();
+            TransformManager transformManager = Filament.getTransformManager();
+            int[] entities = instance.getEntities();
+            float[] transform = new float[16];
+            for (int i = 0; i < entities.length; i++) {
+                @EntityInstance int renderableInstance = renderableManager.getInstance(entities[i]);
+                if (renderableInstance != 0 && materialInstances[i] != null) {
+                    for (int primitive = 0; primitive < materialInstances[i].length; primitive++) {
+                        renderableManager.setMaterialInstanceAt(renderableInstance, primitive,
+                                materialInstances[i][primitive]);
+                    }
+                    renderableManager.setPriority(renderableInstance,
+                            Renderable.RENDER_PRIORITY_DEFAULT);
+                    renderableManager.setCastShadows(renderableInstance, isShadowCaster[i]);
+                    renderableManager.setReceiveShadows(renderableInstance, isShadowReceiver[i]);
+                    renderableManager.setCulling(renderableInstance, true);
+                }
+                @EntityInstance int transformInstance = transformManager.getInstance(entities[i]);
+                if (transformInstance != 0) {
+                    System.arraycopy(transforms, i * 16, transform, 0, 16);
+                    transformManager.setTransform(transformInstance, transform);
+                }
+            }
+            // Back to the bind pose
+            instance.getAnimator().updateBoneMatrices();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.RenderableInternalData.MeshData;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -54,6 +55,11 @@ interface IRenderableInternalData {
   @Nullable
   IntBuffer getRawIndexBuffer();
 
+  void setRawShortIndexBuffer(@Nullable ShortBuffer rawShortIndexBuffer);
+
+  @Nullable
+  ShortBuffer getRawShortIndexBuffer();
+
   void setRawPositionBuffer(@Nullable FloatBuffer rawPositionBuffer);
 
   @Nullable
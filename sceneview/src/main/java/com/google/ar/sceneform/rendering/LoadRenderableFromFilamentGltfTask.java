@@ -6,6 +6,7 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.ar.sceneform.utilities.LoadHelper;
 import com.google.ar.sceneform.utilities.Preconditions;
 import com.google.ar.sceneform.utilities.SceneformBufferUtils;
 
@@ -23,6 +24,8 @@ public class LoadRenderableFromFilamentGltfTask<T extends Renderable> {
   private static final String TAG = LoadRenderableFromFilamentGltfTask.class.getSimpleName();
   private final T renderable;
   private final RenderableInternalFilamentAssetData renderableData;
+  private final Context context;
+  private final Uri sourceUri;
 
   LoadRenderableFromFilamentGltfTask(
       T renderable, Context context, Uri sourceUri, @Nullable Function<String, Uri> urlResolver) {
@@ -37,6 +40,8 @@ public class LoadRenderableFromFilamentGltfTask<T extends Renderable> {
     this.renderableData.urlResolver =
         missingPath -> getUriFromMissingResource(sourceUri, missingPath, urlResolver);
     this.renderableData.context = context.getApplicationContext();
+    this.context = context.getApplicationContext();
+    this.sourceUri = sourceUri;
     this.renderable.getId().update();
   }
 
@@ -46,10 +51,13 @@ public class LoadRenderableFromFilamentGltfTask<T extends Renderable> {
       Callable<InputStream> inputStreamCreator) {
 
     return CompletableFuture.supplyAsync(
-            // Download byte buffer via thread pool
+            // Map or download byte buffer via thread pool
             () -> {
               try {
-                return SceneformBufferUtils.inputStreamCallableToByteArray(inputStreamCreator);
+                ByteBuffer mappedBuffer = LoadHelper.mapUri(context, sourceUri);
+                return mappedBuffer != null
+                    ? mappedBuffer
+                    : SceneformBufferUtils.inputStreamCallableToDirectBuffer(inputStreamCreator);
               } catch (Exception e) {
                 throw new CompletionException(e);
               }
@@ -58,11 +66,12 @@ public class LoadRenderableFromFilamentGltfTask<T extends Renderable> {
         .thenApplyAsync(
             gltfByteBuffer -> {
               // Check for glb header
-              this.renderableData.isGltfBinary = gltfByteBuffer[0] == 0x67
-                      && gltfByteBuffer[1] == 0x6C
-                      && gltfByteBuffer[2] == 0x54
-                      && gltfByteBuffer[3] == 0x46;
-              this.renderableData.gltfByteBuffer = ByteBuffer.wrap(gltfByteBuffer);
+              this.renderableData.isGltfBinary = gltfByteBuffer.remaining() >= 4
+                      && gltfByteBuffer.get(0) == 0x67
+                      && gltfByteBuffer.get(1) == 0x6C
+                      && gltfByteBuffer.get(2) == 0x54
+                      && gltfByteBuffer.get(3) == 0x46;
+              this.renderableData.gltfByteBuffer = gltfByteBuffer;
               return renderable;
             },
             ThreadPools.getMainExecutor());
@@ -0,0 +1,189 @@
+package com.google.ar.sceneform.rendering;
+
+import androidx.annotation.Nullable;
+
+import com.google.ar.sceneform.utilities.Preconditions;
+
+/**
+ * Represents the vertices and triangle indices of a {@link RenderableDefinition} as one primitive
+ * array per attribute.
+ *
+ * <p>Unlike a list of {@link Vertex}, the arrays can be kept and refilled between updates. They are
+ * written straight into the renderable direct buffers without any per vertex allocation. 16 bits
+ * indices are used when the vertex count allows it.
+ *
+ * <p>The triangle indices are shared by the definition submeshes in order. Use {@link
+ * RenderableDefinition.Submesh.Builder#setTriangleIndexCount(int)} to split them between several
+ * submeshes.
+ *
+ * @see RenderableDefinition.Builder#setMesh(MeshArrays)
+ */
+public class MeshArrays {
+    static final int POSITION_SIZE = 3; // x, y, z
+    static final int NORMAL_SIZE = 3; // x, y, z
+    static final int TANGENTS_SIZE = 4; // quaternion
+    static final int UV_SIZE = 2;
+    static final int COLOR_SIZE = 4; // RGBA
+
+    private float[] positions = new float[0];
+    private int vertexCount;
+
+    // Optional.
+    @Nullable
+    private float[] normals;
+    @Nullable
+    private float[] tangents;
+    @Nullable
+    private float[] uvs;
+    @Nullable
+    private float[] colors;
+
+    private int[] triangleIndices = new int[0];
+    private int triangleIndexCount;
+
+    /**
+     * Sets the vertex positions.
+     *
+     * @param positions   x, y, z for each vertex. Can be larger than needed to leave room for
+     *                    later updates. See {@link #getVertexCapacity()}.
+     * @param vertexCount the number of vertices to use from the arrays
+     */
+    public MeshArrays setPositions(float[] positions, int vertexCount) {
+        Preconditions.checkNotNull(positions, "Parameter \"positions\" was null.");
+        checkSize("positions", positions, vertexCount * POSITION_SIZE);
+        this.positions = positions;
+        this.vertexCount = vertexCount;
+        return this;
+    }
+
+    /**
+     * Sets the vertex normals, x, y, z for each vertex.
+     *
+     * <p>Converted to tangent frames. Ignored if tangents are set.
+     */
+    public MeshArrays setNormals(@Nullable float[] normals) {
+        this.normals = normals;
+        return this;
+    }
+
+    /**
+     * Sets the vertex tangent frames, one quaternion x, y, z, w for each vertex.
+     */
+    public MeshArrays setTangents(@Nullable float[] tangents) {
+        this.tangents = tangents;
+        return this;
+    }
+
+    /**
+     * Sets the vertex texture coordinates, u, v for each vertex.
+     */
+    public MeshArrays setUvs(@Nullable float[] uvs) {
+        this.uvs = uvs;
+        return this;
+    }
+
+    /**
+     * Sets the vertex colors, r, g, b, a for each vertex.
+     */
+    public MeshArrays setColors(@Nullable float[] colors) {
+        this.colors = colors;
+        return this;
+    }
+
+    /**
+     * Sets the triangle indices.
+     *
+     * @param triangleIndices    three vertex indices for each triangle. Can be larger than needed.
+     * @param triangleIndexCount the number of indices to use from the array
+     */
+    public MeshArrays setTriangleIndices(int[] triangleIndices, int triangleIndexCount) {
+        Preconditions.checkNotNull(triangleIndices, "Parameter \"triangleIndices\" was null.");
+        checkSize("triangleIndices", triangleIndices.length, triangleIndexCount);
+        this.triangleIndices = triangleIndices;
+        this.triangleIndexCount = triangleIndexCount;
+        return this;
+    }
+
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * The number of vertices the positions array can hold.
+     *
+     * <p>Renderable buffers are allocated for this capacity so the mesh can be refilled with more
+     * vertices, up to it, without new GPU buffers.
+     */
+    public int getVertexCapacity() {
+        return positions.length / POSITION_SIZE;
+    }
+
+    @Nullable
+    public float[] getNormals() {
+        return normals;
+    }
+
+    @Nullable
+    public float[] getTangents() {
+        return tangents;
+    }
+
+    @Nullable
+    public float[] getUvs() {
+        return uvs;
+    }
+
+    @Nullable
+    public float[] getColors() {
+        return colors;
+    }
+
+    public int[] getTriangleIndices() {
+        return triangleIndices;
+    }
+
+    public int getTriangleIndexCount() {
+        return triangleIndexCount;
+    }
+
+    /**
+     * The number of indices the triangle indices array can hold.
+     *
+     * @see #getVertexCapacity()
+     */
+    public int getTriangleIndexCapacity() {
+        return triangleIndices.length;
+    }
+
+    /**
+     * Throws if an optional attribute is set but is too small for the vertex count.
+     */
+    void checkAttributes() {
+        if (tangents != null) {
+            checkSize("tangents", tangents, vertexCount * TANGENTS_SIZE);
+        } else if (normals != null) {
+            checkSize("normals", normals, vertexCount * NORMAL_SIZE);
+        }
+        if (uvs != null) {
+            checkSize("uvs", uvs, vertexCount * UV_SIZE);
+        }
+        if (colors != null) {
+            checkSize("colors", colors, vertexCount * COLOR_SIZE);
+        }
+    }
+
+    private static void checkSize(String name, float[] array, int size) {
+        checkSize(name, array.length, size);
+    }
+
+    private static void checkSize(String name, int length, int size) {
+        if (size < 0 || length < size) {
+            throw new IllegalArgumentException(
+                    "Parameter \"" + name + "\" must contain at least " + size + " values.");
+        }
+    }
+}
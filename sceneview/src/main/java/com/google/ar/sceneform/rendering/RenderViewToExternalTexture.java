@@ -5,12 +5,17 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Picture;
 import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.SystemClock;
 import android.view.Surface;
 import android.view.View;
+import android.view.ViewParent;
 import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.lifecycle.DefaultLifecycleObserver;
 import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleOwner;
@@ -31,10 +36,14 @@ import java.util.ArrayList;
  *   <li>Override dispatchDraw.
  *   <li>Call super.dispatchDraw with the real DisplayListCanvas
  *   <li>Draw the clear color the DisplayListCanvas so that it isn't visible on screen.
- *   <li>Draw the view to the SurfaceTexture every frame. This must be done every frame, because the
- *       view will not be marked as dirty when child views are animating when hardware accelerated.
+ *   <li>Draw the view to the SurfaceTexture each time the view or one of its descendants is
+ *       invalidated. When hardware accelerated, a child view invalidation doesn't redraw its parent
+ *       so the descendants invalidations are forwarded to this view.
  * </ul>
  *
+ * <p>Before Android O, hardware accelerated property animations of child views don't reach their
+ * parents so the view is drawn every frame instead. See {@link ViewRenderable.RedrawMode}.
+ *
  * @hide
  */
 
@@ -48,6 +57,14 @@ public class RenderViewToExternalTexture extends FrameLayout {
   private final ExternalTexture externalTexture;
   private final Picture picture = new Picture();
   private boolean hasDrawnToSurfaceTexture = false;
+  private int drawCount = 0;
+
+  private ViewRenderable.RedrawMode redrawMode = ViewRenderable.RedrawMode.getDefault();
+  private boolean isHardwareCanvasEnabled = false;
+  private long minRedrawIntervalMillis = 0;
+  private long lastDrawTimeMillis = 0;
+  // A redraw has been skipped because of the max refresh rate and is planned.
+  private boolean isRedrawDelayed = false;
 
   @Nullable private ViewAttachmentManager viewAttachmentManager;
   private final ArrayList<OnViewSizeChangedListener> onViewSizeChangedListeners = new ArrayList<>();
@@ -105,6 +122,43 @@ public class RenderViewToExternalTexture extends FrameLayout {
     return hasDrawnToSurfaceTexture;
   }
 
+  /** Incremented each time the view is drawn to the surface texture. */
+  int getDrawCount() {
+    return drawCount;
+  }
+
+  void setRedrawMode(ViewRenderable.RedrawMode redrawMode) {
+    this.redrawMode = redrawMode;
+    invalidate();
+  }
+
+  ViewRenderable.RedrawMode getRedrawMode() {
+    return redrawMode;
+  }
+
+  void setHardwareCanvasEnabled(boolean hardwareCanvasEnabled) {
+    isHardwareCanvasEnabled = hardwareCanvasEnabled;
+  }
+
+  boolean isHardwareCanvasEnabled() {
+    return isHardwareCanvasEnabled;
+  }
+
+  /**
+   * @param maxRefreshRate the maximum number of times per second the view is drawn to its texture.
+   *     0 for no limit.
+   */
+  void setMaxRefreshRate(float maxRefreshRate) {
+    if (maxRefreshRate < 0.0f) {
+      throw new IllegalArgumentException("Parameter \"maxRefreshRate\" was negative.");
+    }
+    minRedrawIntervalMillis = maxRefreshRate > 0.0f ? (long) (1000.0f / maxRefreshRate) : 0;
+  }
+
+  float getMaxRefreshRate() {
+    return minRedrawIntervalMillis > 0 ? 1000.0f / minRedrawIntervalMillis : 0.0f;
+  }
+
   @Override
   public void onAttachedToWindow() {
     super.onAttachedToWindow();
@@ -123,6 +177,22 @@ public class RenderViewToExternalTexture extends FrameLayout {
     }
   }
 
+  @RequiresApi(api = Build.VERSION_CODES.O)
+  @Override
+  public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
+    super.onDescendantInvalidated(child, target);
+    // The hardware accelerated invalidation stops at the child display list. Make sure this view is
+    // drawn again to update the texture.
+    invalidate();
+  }
+
+  @Override
+  public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+    // Software or pre Android O invalidation path.
+    invalidate();
+    return super.invalidateChildInParent(location, dirty);
+  }
+
   @Override
   public void dispatchDraw(Canvas canvas) {
     // Sanity that the surface is valid.
@@ -131,20 +201,43 @@ public class RenderViewToExternalTexture extends FrameLayout {
       return;
     }
 
-    if (view.isDirty()) {
-        Canvas pictureCanvas = picture.beginRecording(view.getWidth(), view.getHeight());
-        pictureCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-        super.dispatchDraw(pictureCanvas);
-        picture.endRecording();
-
-        Canvas surfaceCanvas = targetSurface.lockCanvas(null);
-        picture.draw(surfaceCanvas);
-        targetSurface.unlockCanvasAndPost(surfaceCanvas);
+    if (view.isDirty() || isRedrawDelayed || !hasDrawnToSurfaceTexture) {
+      long now = SystemClock.uptimeMillis();
+      long remainingMillis = lastDrawTimeMillis + minRedrawIntervalMillis - now;
+      if (remainingMillis > 0) {
+        // Too early: the view stays dirty until the next allowed draw.
+        if (!isRedrawDelayed) {
+          isRedrawDelayed = true;
+          postInvalidateDelayed(remainingMillis);
+        }
+        return;
+      }
+      isRedrawDelayed = false;
+      lastDrawTimeMillis = now;
+      drawToSurface(targetSurface);
+    }
 
-        hasDrawnToSurfaceTexture = true;
+    if (redrawMode == ViewRenderable.RedrawMode.CONTINUOUS) {
+      invalidate();
     }
+  }
 
-    invalidate();
+  private void drawToSurface(Surface targetSurface) {
+    Canvas pictureCanvas = picture.beginRecording(view.getWidth(), view.getHeight());
+    pictureCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+    super.dispatchDraw(pictureCanvas);
+    picture.endRecording();
+
+    // With a hardware canvas, the recorded picture is replayed on the GPU instead of being
+    // rasterized on the CPU.
+    Canvas surfaceCanvas = isHardwareCanvasEnabled
+        ? targetSurface.lockHardwareCanvas()
+        : targetSurface.lockCanvas(null);
+    picture.draw(surfaceCanvas);
+    targetSurface.unlockCanvasAndPost(surfaceCanvas);
+
+    hasDrawnToSurfaceTexture = true;
+    drawCount++;
   }
 
   public void attachView(ViewAttachmentManager viewAttachmentManager) {
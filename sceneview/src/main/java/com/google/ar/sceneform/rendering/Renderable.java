@@ -9,6 +9,8 @@ import androidx.annotation.Nullable;
 import androidx.lifecycle.Lifecycle;
 
 import com.google.android.filament.MaterialInstance;
+import com.google.android.filament.VertexBuffer;
+import com.google.android.filament.VertexBuffer.VertexAttribute;
 import com.google.ar.sceneform.collision.Box;
 import com.google.ar.sceneform.collision.CollisionShape;
 import com.google.ar.sceneform.common.TransformProvider;
@@ -20,8 +22,11 @@ import com.google.ar.sceneform.utilities.LoadHelper;
 import com.google.ar.sceneform.utilities.Preconditions;
 
 import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
@@ -30,6 +35,7 @@ import java.util.function.Function;
 
 import io.github.sceneview.Filament;
 import io.github.sceneview.SceneView;
+import io.github.sceneview.renderable.VertexBufferKt;
 
 /*###########!!!!!!!!!!!!!!!!################
 /*###########!!!!!!!!!!!!!!!!################
@@ -66,6 +72,9 @@ public abstract class Renderable {
 
     protected boolean asyncLoadEnabled;
 
+    private boolean isInstancingEnabled;
+    private int instancePoolSize = DEFAULT_INSTANCE_POOL_SIZE;
+
     // Data that is unique per-Renderable.
     private final ArrayList<MaterialInstance> materialBindings = new ArrayList<>();
     private final ArrayList<String> materialNames = new ArrayList<>();
@@ -78,6 +87,8 @@ public abstract class Renderable {
     protected CollisionShape collisionShape;
 
     private final ChangeId changeId = new ChangeId();
+    // The instances to notify of the changes
+    private final ArrayList<RenderableInstance> instances = new ArrayList<>();
 
     public static final int RENDER_PRIORITY_DEFAULT = 4;
     public static final int RENDER_PRIORITY_FIRST = 0;
@@ -86,6 +97,8 @@ public abstract class Renderable {
     private static final long DEFAULT_MAX_STALE_CACHE = TimeUnit.DAYS.toSeconds(14);
     // The default number of frames per seconds for this renderable animation
     public static final int DEFAULT_ANIMATION_FRAME_RATE = 24;
+    // The default number of glTF instances allocated when the instanced asset is first loaded
+    public static final int DEFAULT_INSTANCE_POOL_SIZE = 1;
 
     /**
      * @hide
@@ -106,6 +119,8 @@ public abstract class Renderable {
         }
         asyncLoadEnabled = builder.asyncLoadEnabled;
         animationFrameRate = builder.animationFrameRate;
+        isInstancingEnabled = builder.isInstancingEnabled;
+        instancePoolSize = builder.instancePoolSize;
     }
 
     @SuppressWarnings("initialization")
@@ -138,8 +153,10 @@ public abstract class Renderable {
 
         asyncLoadEnabled = other.asyncLoadEnabled;
         animationFrameRate = other.animationFrameRate;
+        isInstancingEnabled = other.isInstancingEnabled;
+        instancePoolSize = other.instancePoolSize;
 
-        changeId.update();
+        updateId();
     }
 
     /**
@@ -155,7 +172,7 @@ public abstract class Renderable {
      */
     public void setCollisionShape(@Nullable CollisionShape collisionShape) {
         this.collisionShape = collisionShape;
-        changeId.update();
+        updateId();
     }
 
     /**
@@ -189,7 +206,7 @@ public abstract class Renderable {
     public void setMaterial(int submeshIndex, MaterialInstance material) {
         if (submeshIndex < materialBindings.size()) {
             materialBindings.set(submeshIndex, material);
-            changeId.update();
+            updateId();
         } else {
             throw makeSubmeshOutOfRangeException(submeshIndex);
         }
@@ -225,7 +242,7 @@ public abstract class Renderable {
             @IntRange(from = RENDER_PRIORITY_FIRST, to = RENDER_PRIORITY_LAST) int renderPriority) {
         this.renderPriority =
                 Math.min(RENDER_PRIORITY_LAST, Math.max(RENDER_PRIORITY_FIRST, renderPriority));
-        changeId.update();
+        updateId();
     }
 
     /**
@@ -240,7 +257,7 @@ public abstract class Renderable {
      */
     public void setShadowCaster(boolean isShadowCaster) {
         this.isShadowCaster = isShadowCaster;
-        changeId.update();
+        updateId();
     }
 
     /**
@@ -255,7 +272,7 @@ public abstract class Renderable {
      */
     public void setShadowReceiver(boolean isShadowReceiver) {
         this.isShadowReceiver = isShadowReceiver;
-        changeId.update();
+        updateId();
     }
 
     /**
@@ -265,6 +282,38 @@ public abstract class Renderable {
         return animationFrameRate;
     }
 
+    /**
+     * Returns true if the instances created from this renderable share their glTF data.
+     */
+    public boolean isInstancingEnabled() {
+        return isInstancingEnabled;
+    }
+
+    /**
+     * Share the parsed glTF buffers, textures and materials between the instances created from
+     * this renderable and all its copies instead of loading a new asset for each of them.
+     *
+     * <p>Only applies to the instances created after the call and to glTF renderables.
+     */
+    public void setInstancingEnabled(boolean isInstancingEnabled) {
+        this.isInstancingEnabled = isInstancingEnabled;
+    }
+
+    /**
+     * Gets the number of glTF instances allocated when the shared asset is first loaded.
+     */
+    public int getInstancePoolSize() {
+        return instancePoolSize;
+    }
+
+    /**
+     * Sets the number of glTF instances allocated when the shared asset is first loaded.
+     * <p>The pool grows on demand when more instances are needed.</p>
+     */
+    public void setInstancePoolSize(@IntRange(from = 1) int instancePoolSize) {
+        this.instancePoolSize = Math.max(1, instancePoolSize);
+    }
+
     /**
      * Returns the number of submeshes that this renderable has. All Renderables have at least one.
      */
@@ -272,6 +321,20 @@ public abstract class Renderable {
         return renderableData.getMeshes().size();
     }
 
+    /**
+     * Returns the size in bytes of the glTF source data kept to create the instances, or 0 if the
+     * renderable is not a glTF one.
+     *
+     * <p>Each instance uploads roughly this amount of buffers and textures data to the GPU.</p>
+     */
+    public int getSourceDataSize() {
+        if (renderableData instanceof RenderableInternalFilamentAssetData) {
+            Buffer buffer = ((RenderableInternalFilamentAssetData) renderableData).gltfByteBuffer;
+            return buffer != null ? buffer.capacity() : 0;
+        }
+        return 0;
+    }
+
     /**
      * @hide
      */
@@ -279,23 +342,102 @@ public abstract class Renderable {
         return changeId;
     }
 
+    void addInstance(RenderableInstance instance) {
+        instances.add(instance);
+    }
+
+    void removeInstance(RenderableInstance instance) {
+        instances.remove(instance);
+    }
+
+    private void updateId() {
+        changeId.update();
+        for (int i = 0; i < instances.size(); i++) {
+            instances.get(i).onRenderableChanged();
+        }
+    }
+
     /**
      * @hide
      */
     public RenderableInstance createInstance(TransformProvider transformProvider) {
-        return new RenderableInstance(lifecycle, transformProvider, this);
+        return createInstance(transformProvider, isInstancingEnabled);
+    }
+
+    /**
+     * @param isInstanced share the glTF data with the other instanced instances of this renderable
+     *                    and its copies. Ignored if the renderable isn't a glTF one.
+     * @hide
+     */
+    public RenderableInstance createInstance(TransformProvider transformProvider, boolean isInstanced) {
+        return new RenderableInstance(lifecycle, transformProvider, this,
+                isInstanced && renderableData instanceof RenderableInternalFilamentAssetData);
     }
 
     public void updateFromDefinition(RenderableDefinition definition) {
         Preconditions.checkState(!definition.getSubmeshes().isEmpty());
 
-        changeId.update();
+        updateId();
 
         definition.applyDefinitionToData(renderableData, materialBindings, materialNames);
 
         collisionShape = new Box(renderableData.getSizeAabb(), renderableData.getCenterAabb());
     }
 
+    /**
+     * Uploads new values for one attribute of the vertices of a renderable built from a {@link
+     * RenderableDefinition}.
+     *
+     * <p>Unlike {@link #updateFromDefinition(RenderableDefinition)}, the triangles and the other
+     * attributes are kept, the instances aren't rebuilt and nothing is allocated. Use it to stream
+     * vertices whose count and topology never change. The bounding box isn't updated.
+     *
+     * <p>Filament reads the buffer asynchronously: don't write into it again before the next frame
+     * is rendered. Alternate between two buffers when streaming values each frame.
+     *
+     * @param attribute {@link VertexAttribute#POSITION}, {@link VertexAttribute#TANGENTS}, {@link
+     *                  VertexAttribute#UV0} or {@link VertexAttribute#COLOR}. It must be defined
+     *                  by the {@link RenderableDefinition}.
+     * @param buffer    a direct buffer with the values from its position to its limit
+     */
+    public void setVertexAttributeBuffer(VertexAttribute attribute, FloatBuffer buffer) {
+        AndroidPreconditions.checkUiThread();
+
+        VertexBuffer vertexBuffer = renderableData.getVertexBuffer();
+        if (vertexBuffer == null) {
+            throw new IllegalStateException(
+                    "Vertex attributes can only be set on a renderable built from a RenderableDefinition.");
+        }
+
+        boolean hasTangents = renderableData.getRawTangentsBuffer() != null;
+        boolean hasUvs = renderableData.getRawUvBuffer() != null;
+        boolean hasColors = renderableData.getRawColorBuffer() != null;
+
+        // Same buffer order as the RenderableDefinition vertex buffer.
+        int bufferIndex;
+        switch (attribute) {
+            case POSITION:
+                bufferIndex = 0;
+                break;
+            case TANGENTS:
+                Preconditions.checkState(hasTangents, "The renderable has no tangents.");
+                bufferIndex = 1;
+                break;
+            case UV0:
+                Preconditions.checkState(hasUvs, "The renderable has no uvs.");
+                bufferIndex = hasTangents ? 2 : 1;
+                break;
+            case COLOR:
+                Preconditions.checkState(hasColors, "The renderable has no colors.");
+                bufferIndex = 1 + (hasTangents ? 1 : 0) + (hasUvs ? 1 : 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported vertex attribute: " + attribute);
+        }
+
+        VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, buffer, 0, buffer.remaining());
+    }
+
     /**
      * Creates a new instance of this Renderable.
      *
@@ -388,6 +530,8 @@ public abstract class Renderable {
         private byte[] materialsBytes = null;
 
         private int animationFrameRate = DEFAULT_ANIMATION_FRAME_RATE;
+        private boolean isInstancingEnabled = false;
+        private int instancePoolSize = DEFAULT_INSTANCE_POOL_SIZE;
 
         /**
          * Used to programmatically construct a {@link Renderable}.
@@ -439,6 +583,18 @@ public abstract class Renderable {
             return getSelf();
         }
 
+        /**
+         * Build a {@link Renderable} from primitive {@link MeshArrays}.
+         *
+         * @param submeshes the materials of the mesh triangle indices ranges
+         */
+        public B setSource(MeshArrays mesh, List<RenderableDefinition.Submesh> submeshes) {
+            return setSource(RenderableDefinition.builder()
+                    .setMesh(mesh)
+                    .setSubmeshes(submeshes)
+                    .build(lifecycle));
+        }
+
         public B setRegistryId(@Nullable Object registryId) {
             this.registryId = registryId;
             return getSelf();
@@ -468,6 +624,29 @@ public abstract class Renderable {
             return getSelf();
         }
 
+        /**
+         * Share the parsed glTF buffers, textures and materials between every instance of the built
+         * renderable instead of loading a new asset for each of them.
+         * Default is false.
+         *
+         * @param poolSize The number of instances allocated when the asset is first loaded. The
+         *                 pool grows on demand.
+         */
+        public B setInstancingEnabled(boolean isInstancingEnabled, @IntRange(from = 1) int poolSize) {
+            this.isInstancingEnabled = isInstancingEnabled;
+            this.instancePoolSize = Math.max(1, poolSize);
+            return getSelf();
+        }
+
+        /**
+         * Share the parsed glTF buffers, textures and materials between every instance of the built
+         * renderable instead of loading a new asset for each of them.
+         * Default is false.
+         */
+        public B setInstancingEnabled(boolean isInstancingEnabled) {
+            return setInstancingEnabled(isInstancingEnabled, DEFAULT_INSTANCE_POOL_SIZE);
+        }
+
         /**
          * True if a source function will be called during build
          *
@@ -504,7 +683,7 @@ public abstract class Renderable {
                 CompletableFuture<T> renderableFuture = registry.get(registryId);
                 if (renderableFuture != null) {
                     return renderableFuture.thenApply(
-                            renderable -> getRenderableClass().cast(renderable.makeCopy()));
+                            renderable -> getRenderableClass().cast(makeInstancingCopy(renderable)));
                 }
             }
 
@@ -551,7 +730,15 @@ public abstract class Renderable {
                     result,
                     "Unable to load Renderable registryId='" + registryId + "'");
             return result.thenApply(
-                    resultRenderable -> getRenderableClass().cast(resultRenderable.makeCopy()));
+                    resultRenderable -> getRenderableClass().cast(makeInstancingCopy(resultRenderable)));
+        }
+
+        private Renderable makeInstancingCopy(Renderable renderable) {
+            Renderable copy = renderable.makeCopy();
+            // A registered renderable may have been built with other instancing parameters.
+            copy.isInstancingEnabled = isInstancingEnabled;
+            copy.instancePoolSize = instancePoolSize;
+            return copy;
         }
 
         protected void checkPreconditions() {
@@ -567,10 +754,6 @@ public abstract class Renderable {
             this.sourceUri = sourceUri;
             this.context = context;
             this.registryId = sourceUri;
-            // Configure caching.
-            if (enableCaching) {
-                this.setCachingEnabled(context);
-            }
 
             Map<String, String> connectionProperties = new HashMap<>();
             if (!enableCaching) {
@@ -597,10 +780,6 @@ public abstract class Renderable {
             return loader.downloadAndProcessRenderable(Preconditions.checkNotNull(inputStreamCreator));
         }
 
-        private void setCachingEnabled(Context context) {
-            return;
-        }
-
         protected abstract T makeRenderable();
 
         protected abstract Class<T> getRenderableClass();
@@ -1,6 +1,7 @@
 package com.google.ar.sceneform.rendering;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.Lifecycle;
 
 import com.google.android.filament.IndexBuffer;
@@ -16,8 +17,12 @@ import com.google.ar.sceneform.rendering.Vertex.UvCoordinate;
 import com.google.ar.sceneform.utilities.AndroidPreconditions;
 import com.google.ar.sceneform.utilities.Preconditions;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -41,7 +46,9 @@ public class RenderableDefinition {
      * Submeshes.
      */
     public static class Submesh {
+        @Nullable
         private List<Integer> triangleIndices;
+        private int triangleIndexCount;
         private MaterialInstance material;
         @Nullable
         private String name;
@@ -50,10 +57,23 @@ public class RenderableDefinition {
             this.triangleIndices = triangleIndices;
         }
 
+        @Nullable
         public List<Integer> getTriangleIndices() {
             return triangleIndices;
         }
 
+        /**
+         * Sets the number of {@link MeshArrays} triangle indices used by this submesh, starting after
+         * the ones of the previous submeshes. A negative count uses all the remaining indices.
+         */
+        public void setTriangleIndexCount(int triangleIndexCount) {
+            this.triangleIndexCount = triangleIndexCount;
+        }
+
+        public int getTriangleIndexCount() {
+            return triangleIndexCount;
+        }
+
         public void setMaterial(MaterialInstance material) {
             this.material = material;
         }
@@ -72,7 +92,8 @@ public class RenderableDefinition {
         }
 
         private Submesh(Builder builder) {
-            triangleIndices = Preconditions.checkNotNull(builder.triangleIndices);
+            triangleIndices = builder.triangleIndices;
+            triangleIndexCount = builder.triangleIndexCount;
             material = Preconditions.checkNotNull(builder.material);
             name = builder.name;
         }
@@ -87,6 +108,7 @@ public class RenderableDefinition {
         public static final class Builder {
             @Nullable
             private List<Integer> triangleIndices;
+            private int triangleIndexCount = -1;
             @Nullable
             private MaterialInstance material;
             @Nullable
@@ -97,6 +119,16 @@ public class RenderableDefinition {
                 return this;
             }
 
+            /**
+             * Sets the number of {@link MeshArrays} triangle indices used by this submesh, starting
+             * after the ones of the previous submeshes.
+             * Default uses all the remaining indices.
+             */
+            public Builder setTriangleIndexCount(int triangleIndexCount) {
+                this.triangleIndexCount = triangleIndexCount;
+                return this;
+            }
+
             public Builder setName(String name) {
                 this.name = name;
                 return this;
@@ -114,23 +146,53 @@ public class RenderableDefinition {
     }
 
     protected Lifecycle lifecycle;
+    @Nullable
     private List<Vertex> vertices;
+    @Nullable
+    private MeshArrays mesh;
     private List<Submesh> submeshes;
 
     private static final int BYTES_PER_FLOAT = Float.SIZE / 8;
-    private static final int POSITION_SIZE = 3; // x, y, z
-    private static final int UV_SIZE = 2;
-    private static final int TANGENTS_SIZE = 4; // quaternion
-    private static final int COLOR_SIZE = 4; // RGBA
+    private static final int BYTES_PER_SHORT = Short.SIZE / 8;
+    private static final int BYTES_PER_INT = Integer.SIZE / 8;
+    private static final int POSITION_SIZE = MeshArrays.POSITION_SIZE;
+    private static final int UV_SIZE = MeshArrays.UV_SIZE;
+    private static final int TANGENTS_SIZE = MeshArrays.TANGENTS_SIZE;
+    private static final int COLOR_SIZE = MeshArrays.COLOR_SIZE;
+    // USHORT indices can address up to 65536 vertices.
+    private static final int MAX_USHORT_INDEX_VERTEX_COUNT = 0xFFFF + 1;
+
+    // Scratch objects for the tangents computation.
+    private static final float[] scratchBasis = new float[3];
+    private static final Quaternion scratchTangent = new Quaternion();
 
     public void setVertices(List<Vertex> vertices) {
         this.vertices = vertices;
+        this.mesh = null;
     }
 
+    @Nullable
     List<Vertex> getVertices() {
         return vertices;
     }
 
+    /**
+     * Sets the vertices and triangle indices from primitive arrays instead of {@link Vertex} and
+     * {@link Submesh#getTriangleIndices()} lists.
+     *
+     * <p>The arrays are read each time the definition is applied to a renderable so the same
+     * {@link MeshArrays} can be refilled and applied again without new allocations.
+     */
+    public void setMesh(MeshArrays mesh) {
+        this.mesh = mesh;
+        this.vertices = null;
+    }
+
+    @Nullable
+    MeshArrays getMesh() {
+        return mesh;
+    }
+
     public void setSubmeshes(List<Submesh> submeshes) {
         this.submeshes = submeshes;
     }
@@ -150,6 +212,7 @@ public class RenderableDefinition {
         applyDefinitionToDataVertexBuffer(data);
 
         // Update/Add mesh data.
+        int numIndices = getIndexCount();
         int indexStart = 0;
         materialBindings.clear();
         materialNames.clear();
@@ -165,7 +228,7 @@ public class RenderableDefinition {
             }
 
             meshData.indexStart = indexStart;
-            meshData.indexEnd = indexStart + submesh.getTriangleIndices().size();
+            meshData.indexEnd = indexStart + getSubmeshIndexCount(submesh, numIndices - indexStart);
             indexStart = meshData.indexEnd;
             materialBindings.add(submesh.getMaterial());
             final String name = submesh.getName();
@@ -178,71 +241,216 @@ public class RenderableDefinition {
         }
     }
 
-    private void applyDefinitionToDataIndexBuffer(IRenderableInternalData data) {
-        // Determine how many indices there are.
-        int numIndices = 0;
-        for (int i = 0; i < submeshes.size(); i++) {
-            Submesh submesh = submeshes.get(i);
-            numIndices += submesh.getTriangleIndices().size();
+    /**
+     * Writes the definition into the raw index and vertex buffers of the data without uploading
+     * them to Filament.
+     */
+    @VisibleForTesting
+    void applyDefinitionToRawBuffers(IRenderableInternalData data) {
+        if (getVertexCount() == 0) {
+            throw new IllegalArgumentException("RenderableDescription must have at least one vertex.");
         }
+        if (mesh != null) {
+            mesh.checkAttributes();
+        }
+        fillRawIndexBuffer(data);
+        fillRawVertexBuffers(data, getVertexAttributes());
+    }
 
-        // Create the raw index buffer if needed.
-        IntBuffer rawIndexBuffer = data.getRawIndexBuffer();
-        if (rawIndexBuffer == null || rawIndexBuffer.capacity() < numIndices) {
-            rawIndexBuffer = IntBuffer.allocate(numIndices);
-            data.setRawIndexBuffer(rawIndexBuffer);
-        } else {
-            rawIndexBuffer.rewind();
+    private int getVertexCount() {
+        if (mesh != null) {
+            return mesh.getVertexCount();
         }
+        return Preconditions.checkNotNull(vertices).size();
+    }
 
-        // Fill the index buffer with the data.
+    /**
+     * The buffers are allocated for the {@link MeshArrays} arrays length so a mesh refilled with
+     * more vertices, up to that length, keeps its GPU buffers.
+     */
+    private int getVertexCapacity() {
+        if (mesh != null) {
+            return Math.max(mesh.getVertexCount(), mesh.getVertexCapacity());
+        }
+        return getVertexCount();
+    }
+
+    private int getIndexCapacity() {
+        if (mesh != null) {
+            return Math.max(mesh.getTriangleIndexCount(), mesh.getTriangleIndexCapacity());
+        }
+        return getIndexCount();
+    }
+
+    private int getIndexCount() {
+        if (mesh != null) {
+            return mesh.getTriangleIndexCount();
+        }
+        int numIndices = 0;
         for (int i = 0; i < submeshes.size(); i++) {
-            Submesh submesh = submeshes.get(i);
+            numIndices += getSubmeshIndexCount(submeshes.get(i), 0);
+        }
+        return numIndices;
+    }
+
+    private int getSubmeshIndexCount(Submesh submesh, int remainingIndices) {
+        if (mesh == null) {
             List<Integer> triangleIndices = submesh.getTriangleIndices();
-            for (int j = 0; j < triangleIndices.size(); j++) {
-                rawIndexBuffer.put(triangleIndices.get(j));
+            if (triangleIndices == null) {
+                throw new IllegalArgumentException(
+                        "Missing triangle indices: Submeshes must have triangle indices when the "
+                                + "RenderableDefinition isn't defined from MeshArrays.");
             }
+            return triangleIndices.size();
         }
-        rawIndexBuffer.rewind();
+        int triangleIndexCount = submesh.getTriangleIndexCount();
+        if (triangleIndexCount < 0) {
+            return remainingIndices;
+        }
+        if (triangleIndexCount > remainingIndices) {
+            throw new IllegalArgumentException(
+                    "Submesh triangle index count exceeds the MeshArrays triangle indices.");
+        }
+        return triangleIndexCount;
+    }
+
+    private void applyDefinitionToDataIndexBuffer(IRenderableInternalData data) {
+        // Determine how many indices there are.
+        int numIndices = getIndexCount();
+        int indexCapacity = getIndexCapacity();
+        boolean isShortIndices = isShortIndices();
+        boolean isIndexTypeChanged = isShortIndices
+                ? data.getRawShortIndexBuffer() == null
+                : data.getRawIndexBuffer() == null;
+
+        Buffer rawBuffer = fillRawIndexBuffer(data);
 
         // Create the filament index buffer if needed.
         IndexBuffer indexBuffer = data.getIndexBuffer();
-        if (indexBuffer == null || indexBuffer.getIndexCount() < numIndices) {
+        if (indexBuffer == null || indexBuffer.getIndexCount() < numIndices || isIndexTypeChanged) {
             if (indexBuffer != null) {
                 IndexBufferKt.destroy(indexBuffer);
             }
 
             indexBuffer = IndexBufferKt.build(
                     new IndexBuffer.Builder()
-                            .indexCount(numIndices)
-                            .bufferType(IndexType.UINT),
+                            .indexCount(indexCapacity)
+                            .bufferType(isShortIndices ? IndexType.USHORT : IndexType.UINT),
                     // IndexBuffer destroy manually handled (not lifecycle aware)
                     null);
             data.setIndexBuffer(indexBuffer);
         }
 
-        IndexBufferKt.setBuffer(indexBuffer, rawIndexBuffer, 0, numIndices);
+        IndexBufferKt.setBuffer(indexBuffer, rawBuffer, 0, numIndices);
+    }
+
+    private boolean isShortIndices() {
+        return getVertexCount() <= MAX_USHORT_INDEX_VERTEX_COUNT;
+    }
+
+    /**
+     * Writes the triangle indices into the reused raw index buffer of the matching type.
+     *
+     * @return the rewound raw index buffer
+     */
+    private Buffer fillRawIndexBuffer(IRenderableInternalData data) {
+        int numIndices = getIndexCount();
+        int indexCapacity = getIndexCapacity();
+        Buffer rawBuffer;
+        if (isShortIndices()) {
+            // Create the raw index buffer if needed.
+            ShortBuffer rawIndexBuffer = data.getRawShortIndexBuffer();
+            if (rawIndexBuffer == null || rawIndexBuffer.capacity() < numIndices) {
+                rawIndexBuffer = allocateDirect(indexCapacity * BYTES_PER_SHORT).asShortBuffer();
+                data.setRawShortIndexBuffer(rawIndexBuffer);
+            } else {
+                rawIndexBuffer.rewind();
+            }
+            data.setRawIndexBuffer(null);
+
+            // Fill the index buffer with the data.
+            if (mesh != null) {
+                int[] triangleIndices = mesh.getTriangleIndices();
+                for (int i = 0; i < numIndices; i++) {
+                    rawIndexBuffer.put((short) triangleIndices[i]);
+                }
+            } else {
+                for (int i = 0; i < submeshes.size(); i++) {
+                    List<Integer> triangleIndices = submeshes.get(i).getTriangleIndices();
+                    for (int j = 0; j < triangleIndices.size(); j++) {
+                        rawIndexBuffer.put((short) (int) triangleIndices.get(j));
+                    }
+                }
+            }
+            rawBuffer = rawIndexBuffer;
+        } else {
+            // Create the raw index buffer if needed.
+            IntBuffer rawIndexBuffer = data.getRawIndexBuffer();
+            if (rawIndexBuffer == null || rawIndexBuffer.capacity() < numIndices) {
+                rawIndexBuffer = allocateDirect(indexCapacity * BYTES_PER_INT).asIntBuffer();
+                data.setRawIndexBuffer(rawIndexBuffer);
+            } else {
+                rawIndexBuffer.rewind();
+            }
+            data.setRawShortIndexBuffer(null);
+
+            // Fill the index buffer with the data.
+            if (mesh != null) {
+                rawIndexBuffer.put(mesh.getTriangleIndices(), 0, numIndices);
+            } else {
+                for (int i = 0; i < submeshes.size(); i++) {
+                    List<Integer> triangleIndices = submeshes.get(i).getTriangleIndices();
+                    for (int j = 0; j < triangleIndices.size(); j++) {
+                        rawIndexBuffer.put(triangleIndices.get(j));
+                    }
+                }
+            }
+            rawBuffer = rawIndexBuffer;
+        }
+        rawBuffer.rewind();
+        return rawBuffer;
+    }
+
+    private EnumSet<VertexAttribute> getVertexAttributes() {
+        EnumSet<VertexAttribute> attributes = EnumSet.of(VertexAttribute.POSITION);
+        if (mesh != null) {
+            if (mesh.getTangents() != null || mesh.getNormals() != null) {
+                attributes.add(VertexAttribute.TANGENTS);
+            }
+            if (mesh.getUvs() != null) {
+                attributes.add(VertexAttribute.UV0);
+            }
+            if (mesh.getColors() != null) {
+                attributes.add(VertexAttribute.COLOR);
+            }
+        } else {
+            Vertex firstVertex = Preconditions.checkNotNull(vertices).get(0);
+            if (firstVertex.getNormal() != null) {
+                attributes.add(VertexAttribute.TANGENTS);
+            }
+            if (firstVertex.getUvCoordinate() != null) {
+                attributes.add(VertexAttribute.UV0);
+            }
+            if (firstVertex.getColor() != null) {
+                attributes.add(VertexAttribute.COLOR);
+            }
+        }
+        return attributes;
     }
 
     private void applyDefinitionToDataVertexBuffer(IRenderableInternalData data) {
-        if (vertices.isEmpty()) {
+        int numVertices = getVertexCount();
+        if (numVertices == 0) {
             throw new IllegalArgumentException("RenderableDescription must have at least one vertex.");
         }
+        if (mesh != null) {
+            mesh.checkAttributes();
+        }
 
-        int numVertices = vertices.size();
-        Vertex firstVertex = vertices.get(0);
+        int vertexCapacity = getVertexCapacity();
 
         // Determine which attributes this VertexBuffer needs.
-        EnumSet<VertexAttribute> descriptionAttributes = EnumSet.of(VertexAttribute.POSITION);
-        if (firstVertex.getNormal() != null) {
-            descriptionAttributes.add(VertexAttribute.TANGENTS);
-        }
-        if (firstVertex.getUvCoordinate() != null) {
-            descriptionAttributes.add(VertexAttribute.UV0);
-        }
-        if (firstVertex.getColor() != null) {
-            descriptionAttributes.add(VertexAttribute.COLOR);
-        }
+        EnumSet<VertexAttribute> descriptionAttributes = getVertexAttributes();
 
         // Determine if the filament vertex buffer needs to be re-created.
         VertexBuffer vertexBuffer = data.getVertexBuffer();
@@ -269,14 +477,55 @@ public class RenderableDefinition {
         }
 
         if (createVertexBuffer) {
-            vertexBuffer = createVertexBuffer(lifecycle, numVertices, descriptionAttributes);
+            vertexBuffer = createVertexBuffer(lifecycle, vertexCapacity, descriptionAttributes);
             data.setVertexBuffer(vertexBuffer);
         }
 
+        fillRawVertexBuffers(data, descriptionAttributes);
+
+        if (vertexBuffer == null) {
+            throw new AssertionError("VertexBuffer is null.");
+        }
+
+        FloatBuffer positionBuffer = Preconditions.checkNotNull(data.getRawPositionBuffer());
+        positionBuffer.rewind();
+        int bufferIndex = 0;
+        VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, positionBuffer, 0, numVertices * POSITION_SIZE);
+
+        FloatBuffer tangentsBuffer = data.getRawTangentsBuffer();
+        if (tangentsBuffer != null) {
+            tangentsBuffer.rewind();
+            bufferIndex++;
+            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, tangentsBuffer, 0, numVertices * TANGENTS_SIZE);
+        }
+
+        FloatBuffer uvBuffer = data.getRawUvBuffer();
+        if (uvBuffer != null) {
+            uvBuffer.rewind();
+            bufferIndex++;
+            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, uvBuffer, 0, numVertices * UV_SIZE);
+        }
+
+        FloatBuffer colorBuffer = data.getRawColorBuffer();
+        if (colorBuffer != null) {
+            colorBuffer.rewind();
+            bufferIndex++;
+            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, colorBuffer, 0, numVertices * COLOR_SIZE);
+        }
+    }
+
+    /**
+     * Writes the vertex attributes into the reused raw buffers and updates the data Aabb.
+     */
+    private void fillRawVertexBuffers(
+            IRenderableInternalData data, EnumSet<VertexAttribute> descriptionAttributes) {
+        int numVertices = getVertexCount();
+        int vertexCapacity = getVertexCapacity();
+
         // Create position Buffer if needed.
         FloatBuffer positionBuffer = data.getRawPositionBuffer();
         if (positionBuffer == null || positionBuffer.capacity() < numVertices * POSITION_SIZE) {
-            positionBuffer = FloatBuffer.allocate(numVertices * POSITION_SIZE);
+            positionBuffer = allocateFloatBuffer(vertexCapacity * POSITION_SIZE);
             data.setRawPositionBuffer(positionBuffer);
         } else {
             positionBuffer.rewind();
@@ -286,7 +535,7 @@ public class RenderableDefinition {
         FloatBuffer tangentsBuffer = data.getRawTangentsBuffer();
         if (descriptionAttributes.contains(VertexAttribute.TANGENTS)
                 && (tangentsBuffer == null || tangentsBuffer.capacity() < numVertices * TANGENTS_SIZE)) {
-            tangentsBuffer = FloatBuffer.allocate(numVertices * TANGENTS_SIZE);
+            tangentsBuffer = allocateFloatBuffer(vertexCapacity * TANGENTS_SIZE);
             data.setRawTangentsBuffer(tangentsBuffer);
         } else if (tangentsBuffer != null) {
             tangentsBuffer.rewind();
@@ -296,7 +545,7 @@ public class RenderableDefinition {
         FloatBuffer uvBuffer = data.getRawUvBuffer();
         if (descriptionAttributes.contains(VertexAttribute.UV0)
                 && (uvBuffer == null || uvBuffer.capacity() < numVertices * UV_SIZE)) {
-            uvBuffer = FloatBuffer.allocate(numVertices * UV_SIZE);
+            uvBuffer = allocateFloatBuffer(vertexCapacity * UV_SIZE);
             data.setRawUvBuffer(uvBuffer);
         } else if (uvBuffer != null) {
             uvBuffer.rewind();
@@ -306,16 +555,31 @@ public class RenderableDefinition {
         FloatBuffer colorBuffer = data.getRawColorBuffer();
         if (descriptionAttributes.contains(VertexAttribute.COLOR)
                 && (colorBuffer == null || colorBuffer.capacity() < numVertices * COLOR_SIZE)) {
-            colorBuffer = FloatBuffer.allocate(numVertices * COLOR_SIZE);
+            colorBuffer = allocateFloatBuffer(vertexCapacity * COLOR_SIZE);
             data.setRawColorBuffer(colorBuffer);
         } else if (colorBuffer != null) {
             colorBuffer.rewind();
         }
 
+        if (mesh != null) {
+            fillMeshBuffers(data, mesh, positionBuffer, tangentsBuffer, uvBuffer, colorBuffer);
+        } else {
+            fillVerticesBuffers(data, Preconditions.checkNotNull(vertices), positionBuffer,
+                    tangentsBuffer, uvBuffer, colorBuffer);
+        }
+    }
+
+    private static void fillVerticesBuffers(
+            IRenderableInternalData data,
+            List<Vertex> vertices,
+            FloatBuffer positionBuffer,
+            @Nullable FloatBuffer tangentsBuffer,
+            @Nullable FloatBuffer uvBuffer,
+            @Nullable FloatBuffer colorBuffer) {
         // Variables for calculating the Aabb of the renderable.
         Vector3 minAabb = new Vector3();
         Vector3 maxAabb = new Vector3();
-        Vector3 firstPosition = firstVertex.getPosition();
+        Vector3 firstPosition = vertices.get(0).getPosition();
         minAabb.set(firstPosition);
         maxAabb.set(firstPosition);
 
@@ -340,8 +604,8 @@ public class RenderableDefinition {
                                     + "RenderableDescription has a normal, all vertices must have one.");
                 }
 
-                Quaternion tangent = normalToTangent(normal);
-                addQuaternionToBuffer(tangent, tangentsBuffer);
+                normalToTangent(normal.x, normal.y, normal.z, scratchTangent);
+                addQuaternionToBuffer(scratchTangent, tangentsBuffer);
             }
 
             // Uv attribute.
@@ -374,37 +638,94 @@ public class RenderableDefinition {
         Vector3 centerAabb = Vector3.add(minAabb, extentsAabb);
         data.setExtentsAabb(extentsAabb);
         data.setCenterAabb(centerAabb);
+    }
 
-        if (vertexBuffer == null) {
-            throw new AssertionError("VertexBuffer is null.");
-        }
-
-        positionBuffer.rewind();
-        int bufferIndex = 0;
-        VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, positionBuffer, 0, numVertices * POSITION_SIZE);
-
+    private static void fillMeshBuffers(
+            IRenderableInternalData data,
+            MeshArrays mesh,
+            FloatBuffer positionBuffer,
+            @Nullable FloatBuffer tangentsBuffer,
+            @Nullable FloatBuffer uvBuffer,
+            @Nullable FloatBuffer colorBuffer) {
+        int numVertices = mesh.getVertexCount();
+        float[] positions = mesh.getPositions();
+
+        // Position attribute.
+        positionBuffer.put(positions, 0, numVertices * POSITION_SIZE);
+
+        // Aabb.
+        float minX = positions[0], minY = positions[1], minZ = positions[2];
+        float maxX = minX, maxY = minY, maxZ = minZ;
+        for (int i = POSITION_SIZE; i < numVertices * POSITION_SIZE; i += POSITION_SIZE) {
+            float x = positions[i];
+            float y = positions[i + 1];
+            float z = positions[i + 2];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        // Tangents attribute.
         if (tangentsBuffer != null) {
-            tangentsBuffer.rewind();
-            bufferIndex++;
-            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, tangentsBuffer, 0, numVertices * TANGENTS_SIZE);
+            float[] tangents = mesh.getTangents();
+            if (tangents != null) {
+                tangentsBuffer.put(tangents, 0, numVertices * TANGENTS_SIZE);
+            } else {
+                float[] normals = Preconditions.checkNotNull(mesh.getNormals());
+                for (int i = 0; i < numVertices * MeshArrays.NORMAL_SIZE; i += MeshArrays.NORMAL_SIZE) {
+                    normalToTangent(normals[i], normals[i + 1], normals[i + 2], scratchTangent);
+                    addQuaternionToBuffer(scratchTangent, tangentsBuffer);
+                }
+            }
         }
 
+        // Uv attribute.
         if (uvBuffer != null) {
-            uvBuffer.rewind();
-            bufferIndex++;
-            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, uvBuffer, 0, numVertices * UV_SIZE);
+            uvBuffer.put(Preconditions.checkNotNull(mesh.getUvs()), 0, numVertices * UV_SIZE);
         }
 
+        // Color attribute.
         if (colorBuffer != null) {
-            colorBuffer.rewind();
-            bufferIndex++;
-            VertexBufferKt.setBufferAt(vertexBuffer, bufferIndex, colorBuffer, 0, numVertices * COLOR_SIZE);
+            colorBuffer.put(Preconditions.checkNotNull(mesh.getColors()), 0, numVertices * COLOR_SIZE);
+        }
+
+        // Set the Aabb in the renderable data.
+        data.setExtentsAabb(new Vector3((maxX - minX) * 0.5f, (maxY - minY) * 0.5f, (maxZ - minZ) * 0.5f));
+        data.setCenterAabb(new Vector3((maxX + minX) * 0.5f, (maxY + minY) * 0.5f, (maxZ + minZ) * 0.5f));
+    }
+
+    /**
+     * Converts vertex normals to the tangent frames expected by the {@link VertexAttribute#TANGENTS}
+     * attribute, without allocating.
+     *
+     * @param normals  x, y, z for each vertex, read from index 0
+     * @param tangents one quaternion x, y, z, w for each vertex, written from its position
+     * @see Renderable#setVertexAttributeBuffer(VertexAttribute, FloatBuffer)
+     */
+    public static void normalsToTangents(FloatBuffer normals, FloatBuffer tangents, int vertexCount) {
+        AndroidPreconditions.checkUiThread();
+
+        for (int i = 0; i < vertexCount * MeshArrays.NORMAL_SIZE; i += MeshArrays.NORMAL_SIZE) {
+            normalToTangent(normals.get(i), normals.get(i + 1), normals.get(i + 2), scratchTangent);
+            addQuaternionToBuffer(scratchTangent, tangents);
         }
     }
 
+    private static ByteBuffer allocateDirect(int capacityInBytes) {
+        return ByteBuffer.allocateDirect(capacityInBytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static FloatBuffer allocateFloatBuffer(int capacity) {
+        return allocateDirect(capacity * BYTES_PER_FLOAT).asFloatBuffer();
+    }
+
     private RenderableDefinition(Builder builder, @Nullable Lifecycle lifecycle) {
         this.lifecycle = lifecycle;
-        vertices = Preconditions.checkNotNull(builder.vertices);
+        mesh = builder.mesh;
+        vertices = mesh == null ? Preconditions.checkNotNull(builder.vertices) : null;
         submeshes = Preconditions.checkNotNull(builder.submeshes);
     }
 
@@ -489,41 +810,80 @@ public class RenderableDefinition {
         buffer.put(color.a);
     }
 
-    private static Quaternion normalToTangent(Vector3 normal) {
-        Vector3 tangent;
-        Vector3 bitangent;
+    /**
+     * Allocation free computation of the tangent frame quaternion of a normal.
+     */
+    private static void normalToTangent(float nx, float ny, float nz, Quaternion orientationQuaternion) {
+        float[] basis = scratchBasis;
 
         // Calculate basis vectors (+x = tangent, +y = bitangent, +z = normal).
-        tangent = Vector3.cross(Vector3.up(), normal);
+        // tangent = up x normal
+        float tx = nz;
+        float ty = 0.0f;
+        float tz = -nx;
+        float bx;
+        float by;
+        float bz;
 
         // Uses almostEqualRelativeAndAbs for equality checks that account for float inaccuracy.
-        if (MathHelper.almostEqualRelativeAndAbs(Vector3.dot(tangent, tangent), 0.0f)) {
-            bitangent = Vector3.cross(normal, Vector3.right()).normalized();
-            tangent = Vector3.cross(bitangent, normal).normalized();
+        if (MathHelper.almostEqualRelativeAndAbs(tx * tx + ty * ty + tz * tz, 0.0f)) {
+            // bitangent = normalize(normal x right)
+            normalize(0.0f, nz, -ny, basis);
+            bx = basis[0];
+            by = basis[1];
+            bz = basis[2];
+            // tangent = normalize(bitangent x normal)
+            normalize(by * nz - bz * ny, bz * nx - bx * nz, bx * ny - by * nx, basis);
+            tx = basis[0];
+            ty = basis[1];
+            tz = basis[2];
         } else {
-            tangent.set(tangent.normalized());
-            bitangent = Vector3.cross(normal, tangent).normalized();
+            normalize(tx, ty, tz, basis);
+            tx = basis[0];
+            ty = basis[1];
+            tz = basis[2];
+            // bitangent = normalize(normal x tangent)
+            normalize(ny * tz - nz * ty, nz * tx - nx * tz, nx * ty - ny * tx, basis);
+            bx = basis[0];
+            by = basis[1];
+            bz = basis[2];
         }
 
         // Rotation of a 4x4 Transformation Matrix is represented by the top-left 3x3 elements.
         final int rowOne = 0;
-        scratchMatrix.data[rowOne] = tangent.x;
-        scratchMatrix.data[rowOne + 1] = tangent.y;
-        scratchMatrix.data[rowOne + 2] = tangent.z;
+        scratchMatrix.data[rowOne] = tx;
+        scratchMatrix.data[rowOne + 1] = ty;
+        scratchMatrix.data[rowOne + 2] = tz;
 
         final int rowTwo = 4;
-        scratchMatrix.data[rowTwo] = bitangent.x;
-        scratchMatrix.data[rowTwo + 1] = bitangent.y;
-        scratchMatrix.data[rowTwo + 2] = bitangent.z;
+        scratchMatrix.data[rowTwo] = bx;
+        scratchMatrix.data[rowTwo + 1] = by;
+        scratchMatrix.data[rowTwo + 2] = bz;
 
         final int rowThree = 8;
-        scratchMatrix.data[rowThree] = normal.x;
-        scratchMatrix.data[rowThree + 1] = normal.y;
-        scratchMatrix.data[rowThree + 2] = normal.z;
+        scratchMatrix.data[rowThree] = nx;
+        scratchMatrix.data[rowThree + 1] = ny;
+        scratchMatrix.data[rowThree + 2] = nz;
 
-        Quaternion orientationQuaternion = new Quaternion();
         scratchMatrix.extractQuaternion(orientationQuaternion);
-        return orientationQuaternion;
+    }
+
+    /**
+     * Same as {@link Vector3#normalized()} writing into the first 3 values of result.
+     */
+    private static void normalize(float x, float y, float z, float[] result) {
+        float normSquared = x * x + y * y + z * z;
+        if (MathHelper.almostEqualRelativeAndAbs(normSquared, 0.0f)) {
+            x = y = z = 0.0f;
+        } else if (normSquared != 1) {
+            float norm = (float) (1.0 / Math.sqrt(normSquared));
+            x *= norm;
+            y *= norm;
+            z *= norm;
+        }
+        result[0] = x;
+        result[1] = y;
+        result[2] = z;
     }
 
     /**
@@ -533,10 +893,22 @@ public class RenderableDefinition {
         @Nullable
         private List<Vertex> vertices;
         @Nullable
+        private MeshArrays mesh;
+        @Nullable
         private List<Submesh> submeshes = new ArrayList<>();
 
         public Builder setVertices(List<Vertex> vertices) {
             this.vertices = vertices;
+            this.mesh = null;
+            return this;
+        }
+
+        /**
+         * @see RenderableDefinition#setMesh(MeshArrays)
+         */
+        public Builder setMesh(MeshArrays mesh) {
+            this.mesh = mesh;
+            this.vertices = null;
             return this;
         }
 
@@ -1,8 +1,6 @@
 package com.google.ar.sceneform.rendering;
 
-import android.net.Uri;
 import android.text.TextUtils;
-import android.util.Log;
 
 import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
@@ -20,6 +18,7 @@ import com.google.android.filament.TransformManager;
 import com.google.android.filament.gltfio.Animator;
 import com.google.android.filament.gltfio.AssetLoader;
 import com.google.android.filament.gltfio.FilamentAsset;
+import com.google.android.filament.gltfio.FilamentInstance;
 import com.google.ar.sceneform.animation.AnimatableModel;
 import com.google.ar.sceneform.animation.ModelAnimation;
 import com.google.ar.sceneform.collision.Box;
@@ -27,20 +26,17 @@ import com.google.ar.sceneform.common.TransformProvider;
 import com.google.ar.sceneform.math.Matrix;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.ChangeId;
-import com.google.ar.sceneform.utilities.LoadHelper;
 import com.google.ar.sceneform.utilities.Preconditions;
-import com.google.ar.sceneform.utilities.SceneformBufferUtils;
 
-import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.concurrent.Callable;
-import java.util.function.Function;
 
 import io.github.sceneview.Filament;
 import io.github.sceneview.SceneView;
+import io.github.sceneview.animation.AnimationBlender;
+import io.github.sceneview.animation.AnimationMixer;
 import io.github.sceneview.model.ModelKt;
+import io.github.sceneview.node.Node;
 
 /**
  * Controls how a {@link Renderable} is displayed. There can be multiple RenderableInstances
@@ -81,10 +77,21 @@ public class RenderableInstance implements AnimatableModel {
 
     @Nullable
     FilamentAsset filamentAsset;
+    /**
+     * Set when the Renderable glTF data is shared with other instances through the
+     * {@link FilamentInstancePool}. The {@link #filamentAsset} is then owned by the pool.
+     */
+    @Nullable
+    FilamentInstance filamentInstance;
+    private final boolean isInstanced;
     @Nullable
     Animator filamentAnimator;
 
     private ArrayList<ModelAnimation> animations = new ArrayList<>();
+    @Nullable
+    private AnimationMixer animationMixer;
+    @Nullable
+    private AnimationBlender animationBlender;
 
     @Nullable
     private SkinningModifier skinningModifier;
@@ -101,8 +108,16 @@ public class RenderableInstance implements AnimatableModel {
     @Nullable
     private Matrix cachedRelativeTransformInverse;
 
-    @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
     public RenderableInstance(@Nullable Lifecycle lifecycle, TransformProvider transformProvider, Renderable renderable) {
+        this(lifecycle, transformProvider, renderable, false);
+    }
+
+    /**
+     * @param isInstanced share the glTF buffers, textures and materials with the other instanced
+     *                    RenderableInstances of the same Renderable instead of loading a new asset.
+     */
+    @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
+    public RenderableInstance(@Nullable Lifecycle lifecycle, TransformProvider transformProvider, Renderable renderable, boolean isInstanced) {
         Preconditions.checkNotNull(transformProvider, "Parameter \"transformProvider\" was null.");
         Preconditions.checkNotNull(renderable, "Parameter \"renderable\" was null.");
         if(lifecycle != null) {
@@ -116,6 +131,7 @@ public class RenderableInstance implements AnimatableModel {
         }
         this.transformProvider = transformProvider;
         this.renderable = renderable;
+        this.isInstanced = isInstanced;
         this.materialBindings = new ArrayList<>(renderable.getMaterialBindings());
         this.materialNames = new ArrayList<>(renderable.getMaterialNames());
         entity = createFilamentEntity();
@@ -132,6 +148,8 @@ public class RenderableInstance implements AnimatableModel {
         createGltfModelInstance();
 
         createFilamentAssetModelInstance(lifecycle);
+
+        renderable.addInstance(this);
     }
 
     void createFilamentAssetModelInstance(@Nullable Lifecycle lifecycle) {
@@ -139,13 +157,20 @@ public class RenderableInstance implements AnimatableModel {
             RenderableInternalFilamentAssetData renderableData =
                     (RenderableInternalFilamentAssetData) renderable.getRenderableData();
 
-            AssetLoader loader = Filament.getAssetLoader();
-
-            FilamentAsset createdAsset = renderableData.isGltfBinary ? loader.createAssetFromBinary(renderableData.gltfByteBuffer)
-                    : loader.createAssetFromJson(renderableData.gltfByteBuffer);
+            FilamentAsset createdAsset;
+            if (isInstanced) {
+                filamentInstance = renderableData.getInstancePool().acquire(
+                        renderable.getInstancePoolSize(), renderable.asyncLoadEnabled);
+                createdAsset = renderableData.getInstancePool().getAsset();
+            } else {
+                AssetLoader loader = Filament.getAssetLoader();
+                createdAsset = renderableData.isGltfBinary ? loader.createAssetFromBinary(renderableData.gltfByteBuffer)
+                        : loader.createAssetFromJson(renderableData.gltfByteBuffer);
 
-            if (createdAsset == null) {
-                throw new IllegalStateException("Failed to load gltf");
+                if (createdAsset == null) {
+                    throw new IllegalStateException("Failed to load gltf");
+                }
+                renderableData.loadResources(createdAsset, renderable.asyncLoadEnabled);
             }
 
             if (renderable.collisionShape == null) {
@@ -158,33 +183,13 @@ public class RenderableInstance implements AnimatableModel {
                                 new Vector3(center[0], center[1], center[2]));
             }
 
-            Function<String, Uri> urlResolver = renderableData.urlResolver;
-            for (String uri : createdAsset.getResourceUris()) {
-                if (urlResolver == null) {
-                    Log.e(TAG, "Failed to download uri " + uri + " no url resolver.");
-                    continue;
-                }
-                Uri dataUri = urlResolver.apply(uri);
-                try {
-                    Callable<InputStream> callable = LoadHelper.fromUri(renderableData.context, dataUri);
-                    Filament.getResourceLoader().addResourceData(
-                            uri, ByteBuffer.wrap(SceneformBufferUtils.inputStreamCallableToByteArray(callable)));
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to download data uri " + dataUri, e);
-                }
-            }
-
-            if(renderable.asyncLoadEnabled) {
-                Filament.getResourceLoader().asyncBeginLoad(createdAsset);
-            } else {
-                Filament.getResourceLoader().loadResources(createdAsset);
-            }
+            filamentAsset = createdAsset;
 
             RenderableManager renderableManager = Filament.getRenderableManager();
 
             this.materialBindings.clear();
             this.materialNames.clear();
-            for (int entity : createdAsset.getEntities()) {
+            for (int entity : getChildEntities()) {
                 @EntityInstance int renderableInstance = renderableManager.getInstance(entity);
                 if (renderableInstance == 0) {
                     continue;
@@ -199,25 +204,29 @@ public class RenderableInstance implements AnimatableModel {
 
             TransformManager transformManager = Filament.getTransformManager();
 
-            @EntityInstance int rootInstance = transformManager.getInstance(createdAsset.getRoot());
+            @EntityInstance int rootInstance = transformManager.getInstance(getRootEntity());
             @EntityInstance
             int parentInstance = transformManager.getInstance(childEntity == 0 ? entity : childEntity);
 
             transformManager.setParent(rootInstance, parentInstance);
 
-            filamentAsset = createdAsset;
-
             setRenderPriority(renderable.getRenderPriority());
             setShadowCaster(renderable.isShadowCaster());
             setShadowReceiver(renderable.isShadowReceiver());
 
-            filamentAnimator = createdAsset != null ? createdAsset.getAnimator() : null;
+            filamentAnimator = filamentInstance != null ? filamentInstance.getAnimator()
+                    : createdAsset.getAnimator();
             animations = new ArrayList<>();
+            float[] animationDurations = new float[filamentAnimator.getAnimationCount()];
             for (int i = 0; i < filamentAnimator.getAnimationCount(); i++) {
                 animations.add(new ModelAnimation(this, filamentAnimator.getAnimationName(i), i,
                         filamentAnimator.getAnimationDuration(i),
                         getRenderable().getAnimationFrameRate()));
+                animationDurations[i] = filamentAnimator.getAnimationDuration(i);
             }
+            animationMixer = new AnimationMixer(animationDurations);
+            animationMixer.setOnChanged(this::requestNodeFrame);
+            animationBlender = new AnimationBlender(filamentAnimator, getChildEntities());
         }
     }
 
@@ -225,11 +234,32 @@ public class RenderableInstance implements AnimatableModel {
         return;
     }
 
+    /**
+     * Returns the loaded asset.
+     * <p>When instanced, the asset is shared with the other instances of the Renderable and its
+     * entities are the ones of every instance. Use {@link #getChildEntities()} and
+     * {@link #getRootEntity()} to only access this instance ones.</p>
+     */
     @Nullable
     public FilamentAsset getFilamentAsset() {
         return filamentAsset;
     }
 
+    /**
+     * Returns the instance of the shared asset or null if this RenderableInstance isn't instanced.
+     */
+    @Nullable
+    public FilamentInstance getFilamentInstance() {
+        return filamentInstance;
+    }
+
+    /**
+     * Returns true if the glTF data is shared with the other instanced RenderableInstances.
+     */
+    public boolean isInstanced() {
+        return isInstanced;
+    }
+
     /**
      * <p>Animator is owned by <code>FilamentAsset</code> and can be used for two things:
      * <ul>
@@ -258,9 +288,22 @@ public class RenderableInstance implements AnimatableModel {
     }
 
     public @Entity int[] getChildEntities() {
+        if (filamentInstance != null) {
+            return filamentInstance.getEntities();
+        }
         return filamentAsset!=null ? filamentAsset.getEntities() : new int[0];
     }
 
+    /**
+     * Returns the glTF root entity or 0 if no asset is loaded.
+     */
+    public @Entity int getRootEntity() {
+        if (filamentInstance != null) {
+            return filamentInstance.getRoot();
+        }
+        return filamentAsset != null ? filamentAsset.getRoot() : 0;
+    }
+
     public @Entity
     int getRenderedEntity() {
         return (childEntity == 0) ? entity : childEntity;
@@ -288,7 +331,7 @@ public class RenderableInstance implements AnimatableModel {
     public void setRenderPriority(@IntRange(from = Renderable.RENDER_PRIORITY_FIRST, to = Renderable.RENDER_PRIORITY_LAST) int renderPriority) {
         this.renderPriority = Math.min(Renderable.RENDER_PRIORITY_LAST, Math.max(Renderable.RENDER_PRIORITY_FIRST, renderPriority));
         RenderableManager renderableManager = Filament.getRenderableManager();
-        int[] entities = getFilamentAsset().getEntities();
+        int[] entities = getChildEntities();
         for (int i = 0; i < entities.length; i++) {
             @EntityInstance int renderableInstance = renderableManager.getInstance(entities[i]);
             if (renderableInstance != 0) {
@@ -324,7 +367,7 @@ public class RenderableInstance implements AnimatableModel {
         if (renderableInstance != 0 && renderableManager.hasComponent(renderableInstance)) {
             renderableManager.setCulling(renderableInstance, isShadowCaster);
         }
-        int[] entities = getFilamentAsset().getEntities();
+        int[] entities = getChildEntities();
         for (int i = 0; i < entities.length; i++) {
             renderableInstance = renderableManager.getInstance(entities[i]);
             if (renderableInstance != 0) {
@@ -351,9 +394,7 @@ public class RenderableInstance implements AnimatableModel {
             renderableManager.setCastShadows(renderableInstance, isShadowCaster);
         }
 
-        final FilamentAsset asset = getFilamentAsset();
-        if (asset == null) return;
-        int[] entities = asset.getEntities();
+        int[] entities = getChildEntities();
         for (int i = 0; i < entities.length; i++) {
             renderableInstance = renderableManager.getInstance(entities[i]);
             if (renderableInstance != 0) {
@@ -380,9 +421,7 @@ public class RenderableInstance implements AnimatableModel {
             renderableManager.setReceiveShadows(renderableInstance, isShadowReceiver);
         }
 
-        final FilamentAsset asset = getFilamentAsset();
-        if (asset == null) return;
-        int[] entities = asset.getEntities();
+        int[] entities = getChildEntities();
         for (int i = 0; i < entities.length; i++) {
             renderableInstance = renderableManager.getInstance(entities[i]);
             if (renderableInstance != 0) {
@@ -453,7 +492,8 @@ public class RenderableInstance implements AnimatableModel {
      * Sets the material bound to the specified index.
      */
     public void setMaterialInstance(@IntRange(from = 0) int primitiveIndex, MaterialInstance materialInstance) {
-        for (int i = 0; i < getFilamentAsset().getEntities().length; i++) {
+        int entitiesCount = getChildEntities().length;
+        for (int i = 0; i < entitiesCount; i++) {
             setMaterialInstance(i, primitiveIndex, materialInstance);
         }
     }
@@ -469,7 +509,7 @@ public class RenderableInstance implements AnimatableModel {
      * Sets the material bound to the specified index and entityIndex
      */
     public void setMaterialInstance(int entityIndex, @IntRange(from = 0) int primitiveIndex, MaterialInstance materialInstance) {
-        int[] entities = getFilamentAsset().getEntities();
+        int[] entities = getChildEntities();
         Preconditions.checkElementIndex(entityIndex, entities.length, "No entity found at the given index");
         materialBindings.set(entityIndex, materialInstance);
         RenderableManager renderableManager = Filament.getRenderableManager();
@@ -522,12 +562,60 @@ public class RenderableInstance implements AnimatableModel {
     }
 
     // We use our own {@link android.view.Choreographer} to update the animations so just return
-    // false (not applied)
+    // false (not applied) and make sure that the node prepares the next draw
     @Override
     public boolean applyAnimationChange(ModelAnimation animation) {
+        requestNodeFrame();
         return false;
     }
 
+    // The node must prepare the next draw with the changed renderable
+    void onRenderableChanged() {
+        requestNodeFrame();
+    }
+
+    private void requestNodeFrame() {
+        if (transformProvider instanceof Node) {
+            ((Node) transformProvider).requestFrame();
+        }
+    }
+
+    /**
+     * Returns the mixer playing and blending the animations from the frame time, or null if the
+     * model has no glTF asset.
+     * <p>Its clips are advanced by the node on each frame and applied together before the draw.
+     * While any of them has a weight, the {@link ModelAnimation} time positions are not applied.</p>
+     */
+    @Nullable
+    public AnimationMixer getAnimationMixer() {
+        return animationMixer;
+    }
+
+    /**
+     * Returns true while the {@link #getAnimationMixer()} clips are playing or fading.
+     */
+    public boolean isAnimating() {
+        return animationMixer != null && animationMixer.isActive();
+    }
+
+    /**
+     * Returns true if the next {@link #prepareForDraw(SceneView)} has changes to apply: a changed
+     * renderable, a dirty animation or mixer clips to apply.
+     *
+     * @hide
+     */
+    public boolean isDrawPending() {
+        if (renderable.getId().checkChanged(renderableId)) {
+            return true;
+        }
+        for (int i = 0; i < animations.size(); i++) {
+            if (animations.get(i).isDirty()) {
+                return true;
+            }
+        }
+        return animationMixer != null && animationMixer.isApplyPending();
+    }
+
     private void setupSkeleton(IRenderableInternalData renderableInternalData) {
         return;
     }
@@ -560,20 +648,35 @@ public class RenderableInstance implements AnimatableModel {
      * Detach and destroy the instance
      */
     public void destroy() {
-        if(filamentAsset != null) {
+        renderable.removeInstance(this);
+
+        if (filamentInstance != null) {
+            // The asset is shared, give the instance back to the pool which owns the asset.
+            ((RenderableInternalFilamentAssetData) renderable.getRenderableData())
+                    .getInstancePool().release(filamentInstance);
+            filamentInstance = null;
+            filamentAsset = null;
+        } else if(filamentAsset != null) {
             ModelKt.destroy(filamentAsset);
             filamentAsset = null;
         }
 
         RenderableManager renderableManager = Filament.getRenderableManager();
+        TransformManager transformManager = Filament.getTransformManager();
         if (childEntity != 0) {
             renderableManager.destroy(childEntity);
+            transformManager.destroy(childEntity);
+            Filament.getEntityManager().destroy(childEntity);
             childEntity = 0;
         }
         if (entity != 0) {
             renderableManager.destroy(entity);
+            transformManager.destroy(entity);
+            Filament.getEntityManager().destroy(entity);
             entity = 0;
         }
+        // The transform components are gone so the cached instances must be looked up again
+        Filament.invalidateTransformInstances();
     }
 
     /**
@@ -631,14 +734,22 @@ public class RenderableInstance implements AnimatableModel {
      */
     public boolean updateAnimations(boolean force) {
         boolean hasUpdate = false;
+        // All the mixer clips are applied together, before the single bone matrices update
+        if (animationMixer != null && animationBlender != null
+                && (animationMixer.isApplyPending() || force)) {
+            hasUpdate = animationBlender.apply(animationMixer);
+            animationMixer.onApplied();
+        }
+        // The mixer owns the animator while it has weighted clips
+        boolean isMixing = animationMixer != null && animationMixer.getEvaluatedClipCount() > 0;
         for (int i = 0; i < getAnimationCount(); i++) {
             ModelAnimation animation = getAnimation(i);
             if (force || animation.isDirty()) {
-                if (getFilamentAnimator() != null) {
+                if (!isMixing && getFilamentAnimator() != null) {
                     getFilamentAnimator().applyAnimation(i, animation.getTimePosition());
+                    hasUpdate = true;
                 }
                 animation.setDirty(false);
-                hasUpdate = true;
             }
         }
         return hasUpdate;
@@ -14,6 +14,7 @@ import com.google.ar.sceneform.math.Vector3;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -46,6 +47,7 @@ class RenderableInternalData implements IRenderableInternalData {
 
   // Raw buffers.
   @Nullable private IntBuffer rawIndexBuffer;
+  @Nullable private ShortBuffer rawShortIndexBuffer;
   @Nullable private FloatBuffer rawPositionBuffer;
   @Nullable private FloatBuffer rawTangentsBuffer;
   @Nullable private FloatBuffer rawUvBuffer;
@@ -145,6 +147,17 @@ class RenderableInternalData implements IRenderableInternalData {
     return rawIndexBuffer;
   }
 
+  @Override
+  public void setRawShortIndexBuffer(@Nullable ShortBuffer rawShortIndexBuffer) {
+    this.rawShortIndexBuffer = rawShortIndexBuffer;
+  }
+
+  @Override
+  @Nullable
+  public ShortBuffer getRawShortIndexBuffer() {
+    return rawShortIndexBuffer;
+  }
+
   @Override
   public void setRawPositionBuffer(@Nullable FloatBuffer rawPositionBuffer) {
     this.rawPositionBuffer = rawPositionBuffer;
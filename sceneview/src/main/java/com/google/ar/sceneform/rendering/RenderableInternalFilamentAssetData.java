@@ -2,30 +2,78 @@ package com.google.ar.sceneform.rendering;
 
 import android.content.Context;
 import android.net.Uri;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.android.filament.IndexBuffer;
 import com.google.android.filament.VertexBuffer;
+import com.google.android.filament.gltfio.FilamentAsset;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.RenderableInternalData.MeshData;
+import com.google.ar.sceneform.utilities.LoadHelper;
+import com.google.ar.sceneform.utilities.SceneformBufferUtils;
 
+import java.io.InputStream;
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Function;
 
+import io.github.sceneview.Filament;
+
 /** Represents the data used by a {@link Renderable} for rendering natively loaded glTF data. */
 @SuppressWarnings("AndroidJdkLibsChecker")
 public class RenderableInternalFilamentAssetData implements IRenderableInternalData {
 
+  private static final String TAG = RenderableInternalFilamentAssetData.class.getSimpleName();
+
   Context context;
   Buffer gltfByteBuffer;
   boolean isGltfBinary;
   @Nullable Function<String, Uri> urlResolver;
+  // Shared by every copy of the Renderable since they share this data.
+  @Nullable private FilamentInstancePool instancePool;
+
+  FilamentInstancePool getInstancePool() {
+    if (instancePool == null) {
+      instancePool = new FilamentInstancePool(this);
+    }
+    return instancePool;
+  }
+
+  /** Fetch the external resources referenced by the asset and upload them. */
+  void loadResources(FilamentAsset asset, boolean async) {
+    for (String uri : asset.getResourceUris()) {
+      if (urlResolver == null) {
+        Log.e(TAG, "Failed to download uri " + uri + " no url resolver.");
+        continue;
+      }
+      Uri dataUri = urlResolver.apply(uri);
+      try {
+        ByteBuffer buffer = LoadHelper.mapUri(context, dataUri);
+        if (buffer == null) {
+          Callable<InputStream> callable = LoadHelper.fromUri(context, dataUri);
+          buffer = SceneformBufferUtils.inputStreamCallableToDirectBuffer(callable);
+        }
+        Filament.getResourceLoader().addResourceData(uri, buffer);
+      } catch (Exception e) {
+        Log.e(TAG, "Failed to download data uri " + dataUri, e);
+      }
+    }
+
+    if (async) {
+      Filament.asyncBeginLoad(asset);
+    } else {
+      Filament.getResourceLoader().loadResources(asset);
+    }
+  }
 
   @Override
   public void setCenterAabb(Vector3 center) {
@@ -123,6 +171,18 @@ public class RenderableInternalFilamentAssetData implements IRenderableInternalD
     return null;
   }
 
+  @Override
+  public void setRawShortIndexBuffer(@Nullable ShortBuffer rawShortIndexBuffer) {
+    // Not Implemented
+  }
+
+  @Nullable
+  @Override
+  public ShortBuffer getRawShortIndexBuffer() {
+    // Not Implemented
+    return null;
+  }
+
   @Override
   public void setRawPositionBuffer(@Nullable FloatBuffer rawPositionBuffer) {
     // Not Implemented
@@ -16,13 +16,19 @@ import com.google.ar.sceneform.resources.ResourceRegistry;
 import com.google.ar.sceneform.utilities.AndroidPreconditions;
 import com.google.ar.sceneform.utilities.LoadHelper;
 import com.google.ar.sceneform.utilities.Preconditions;
+import com.google.ar.sceneform.utilities.SceneformBufferUtils;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import io.github.sceneview.Filament;
 import io.github.sceneview.texture.TextureKt;
+import io.github.sceneview.texture.TextureLoader;
+import io.github.sceneview.texture.TextureLoader.TextureType;
+import io.github.sceneview.utils.ResourceLoaderKt;
 
 /** Represents a reference to a texture. */
 @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"}) // CompletableFuture
@@ -286,23 +292,33 @@ public class Texture {
       if (this.textureInternalData != null) {
         result = CompletableFuture.completedFuture(new Texture(this.textureInternalData));
       } else {
-        CompletableFuture<Bitmap> bitmapFuture;
         if (inputStreamCreator != null) {
-          bitmapFuture = makeBitmap(inputStreamCreator, inPremultiplied);
+          result =
+                  readSource(inputStreamCreator)
+                          .thenCompose(
+                                  sourceBuffer -> {
+                                    if (TextureLoader.isKtx(sourceBuffer)) {
+                                      // Compressed textures are uploaded as is.
+                                      return CompletableFuture.supplyAsync(
+                                              () -> new Texture(makeKtxTextureData(
+                                                      lifecycle, sourceBuffer, sampler, usage)),
+                                              ThreadPools.getMainExecutor());
+                                    }
+                                    return makeBitmap(
+                                            () -> ResourceLoaderKt.inputStream(sourceBuffer),
+                                            inPremultiplied)
+                                            .thenApplyAsync(
+                                                    loadedBitmap -> makeTexture(lifecycle, loadedBitmap),
+                                                    ThreadPools.getMainExecutor());
+                                  });
         } else if (bitmap != null) {
-          bitmapFuture = CompletableFuture.completedFuture(bitmap);
+          result = CompletableFuture.completedFuture(bitmap)
+                  .thenApplyAsync(
+                          loadedBitmap -> makeTexture(lifecycle, loadedBitmap),
+                          ThreadPools.getMainExecutor());
         } else {
           throw new IllegalStateException("Texture must have a source.");
         }
-
-        result =
-                bitmapFuture.thenApplyAsync(
-                        loadedBitmap -> {
-                          TextureInternalData textureData =
-                                  makeTextureData(lifecycle, loadedBitmap, sampler, usage, MIP_LEVELS_TO_GENERATE);
-                          return new Texture(textureData);
-                        },
-                        ThreadPools.getMainExecutor());
       }
 
       if (registryId != null) {
@@ -315,6 +331,25 @@ public class Texture {
       return result;
     }
 
+    private Texture makeTexture(Lifecycle lifecycle, Bitmap bitmap) {
+      TextureInternalData textureData =
+              makeTextureData(lifecycle, bitmap, sampler, usage, MIP_LEVELS_TO_GENERATE);
+      return new Texture(textureData);
+    }
+
+    private static CompletableFuture<ByteBuffer> readSource(
+            Callable<InputStream> inputStreamCreator) {
+      return CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return SceneformBufferUtils.inputStreamCallableToDirectBuffer(inputStreamCreator);
+                } catch (Exception e) {
+                  throw new CompletionException(e);
+                }
+              },
+              ThreadPools.getThreadPoolExecutor());
+    }
+
     private static CompletableFuture<Bitmap> makeBitmap(
             Callable<InputStream> inputStreamCreator, boolean inPremultiplied) {
       return CompletableFuture.supplyAsync(
@@ -323,6 +358,7 @@ public class Texture {
                 final BitmapFactory.Options options = new BitmapFactory.Options();
                 options.inScaled = false;
                 options.inPremultiplied = inPremultiplied;
+                options.inPreferredConfig = Bitmap.Config.ARGB_8888;
                 Bitmap bitmap;
 
                 // Open and read the texture file.
@@ -338,7 +374,13 @@ public class Texture {
                 }
 
                 if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-                  throw new IllegalStateException("Texture must use ARGB8 format.");
+                  // Some images, like 16 bits PNGs, are decoded to other configurations.
+                  Bitmap argbBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+                  bitmap.recycle();
+                  if (argbBitmap == null) {
+                    throw new IllegalStateException("Texture must use ARGB8 format.");
+                  }
+                  bitmap = argbBitmap;
                 }
 
                 return bitmap;
@@ -374,6 +416,16 @@ public class Texture {
 
       return new TextureInternalData(filamentTexture, sampler);
     }
+
+    private static TextureInternalData makeKtxTextureData(
+            Lifecycle lifecycle, ByteBuffer buffer, Sampler sampler, Usage usage) {
+      com.google.android.filament.Texture filamentTexture =
+              TextureLoader.createKtxTexture(
+                      lifecycle,
+                      buffer,
+                      usage == Usage.COLOR_MAP ? TextureType.COLOR : TextureType.DATA);
+      return new TextureInternalData(filamentTexture, sampler);
+    }
   }
 
   // LINT.IfChange(api)
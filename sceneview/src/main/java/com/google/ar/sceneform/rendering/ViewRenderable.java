@@ -77,6 +77,25 @@ public class ViewRenderable extends Renderable {
     TOP
   }
 
+  /**
+   * Controls when the view is drawn again to its texture.
+   */
+  public enum RedrawMode {
+    /**
+     * Only when the view or one of its descendants is invalidated. Default from Android O.
+     */
+    ON_INVALIDATE,
+    /**
+     * On every frame where the view is dirty. Default before Android O, where the hardware
+     * accelerated property animations of child views don't invalidate their parents.
+     */
+    CONTINUOUS;
+
+    static RedrawMode getDefault() {
+      return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? ON_INVALIDATE : CONTINUOUS;
+    }
+  }
+
   @Nullable public ViewRenderableInternalData viewRenderableData;
   private final View view;
 
@@ -90,6 +109,7 @@ public class ViewRenderable extends Renderable {
 
 //  @Nullable private SceneView sceneView;
   private boolean isInitialized;
+  private int lastDrawCount;
 
   @SuppressWarnings({"initialization"})
   private final RenderViewToExternalTexture.OnViewSizeChangedListener onViewSizeChangedListener =
@@ -131,6 +151,9 @@ public class ViewRenderable extends Renderable {
     verticalAlignment = builder.verticalAlignment;
     RenderViewToExternalTexture renderView =
         new RenderViewToExternalTexture(view.getContext(), view, lifecycle);
+    renderView.setRedrawMode(builder.redrawMode);
+    renderView.setHardwareCanvasEnabled(builder.isHardwareCanvasEnabled);
+    renderView.setMaxRefreshRate(builder.maxRefreshRate);
     renderView.addOnViewSizeChangedListener(onViewSizeChangedListener);
     viewRenderableData = new ViewRenderableInternalData(renderView);
 
@@ -206,6 +229,58 @@ public class ViewRenderable extends Renderable {
     updateSuggestedCollisionShape();
   }
 
+  /**
+   * Gets the {@link RedrawMode} that controls when the view is drawn again to its texture.
+   */
+  public RedrawMode getRedrawMode() {
+    return getRenderView().getRedrawMode();
+  }
+
+  /**
+   * Sets the {@link RedrawMode} that controls when the view is drawn again to its texture. The
+   * default is {@link RedrawMode#ON_INVALIDATE} from Android O and {@link RedrawMode#CONTINUOUS}
+   * before.
+   */
+  public void setRedrawMode(RedrawMode redrawMode) {
+    Preconditions.checkNotNull(redrawMode, "Parameter \"redrawMode\" was null.");
+    getRenderView().setRedrawMode(redrawMode);
+  }
+
+  /**
+   * Returns true if the view is drawn to its texture with a hardware accelerated canvas.
+   */
+  public boolean isHardwareCanvasEnabled() {
+    return getRenderView().isHardwareCanvasEnabled();
+  }
+
+  /**
+   * Draws the view to its texture with a hardware accelerated canvas instead of rasterizing it on
+   * the CPU. Some drawing operations aren't supported by hardware canvases. The default is false.
+   */
+  public void setHardwareCanvasEnabled(boolean hardwareCanvasEnabled) {
+    getRenderView().setHardwareCanvasEnabled(hardwareCanvasEnabled);
+  }
+
+  /**
+   * Gets the maximum number of times per second the view is drawn to its texture. 0 means no
+   * limit.
+   */
+  public float getMaxRefreshRate() {
+    return getRenderView().getMaxRefreshRate();
+  }
+
+  /**
+   * Sets the maximum number of times per second the view is drawn to its texture. Invalidations
+   * coming faster are grouped in the next allowed draw. The default 0 means no limit.
+   */
+  public void setMaxRefreshRate(float maxRefreshRate) {
+    getRenderView().setMaxRefreshRate(maxRefreshRate);
+  }
+
+  private RenderViewToExternalTexture getRenderView() {
+    return Preconditions.checkNotNull(viewRenderableData).getRenderView();
+  }
+
   /**
    * Takes the model matrix from the {@link TransformProvider} for rendering this {@link
    * Node} and scales it to size it appropriately based on the meters to
@@ -270,6 +345,15 @@ public class ViewRenderable extends Renderable {
       isInitialized = true;
     }
 
+    // The new view texture content must be rendered in the on demand render mode.
+    int drawCount = renderViewToExternalTexture.getDrawCount();
+    if (drawCount != lastDrawCount) {
+      lastDrawCount = drawCount;
+      if (sceneView != null) {
+        sceneView.requestRender();
+      }
+    }
+
     if (sceneView != null && sceneView.isFrontFaceWindingInverted()) {
       MaterialInstanceKt.setParameter(getMaterial(), "offsetUv", new Float2(1.0f, 0.0f));
     }
@@ -545,6 +629,9 @@ public class ViewRenderable extends Renderable {
     private ViewSizer viewSizer = new DpToMetersViewSizer(DEFAULT_DP_TO_METERS);
     private VerticalAlignment verticalAlignment = VerticalAlignment.BOTTOM;
     private HorizontalAlignment horizontalAlignment = HorizontalAlignment.CENTER;
+    private RedrawMode redrawMode = RedrawMode.getDefault();
+    private boolean isHardwareCanvasEnabled = false;
+    private float maxRefreshRate = 0.0f;
 
     @SuppressWarnings("AndroidApiChecker")
     private OptionalInt resourceId = OptionalInt.empty();
@@ -596,6 +683,37 @@ public class ViewRenderable extends Renderable {
       return this;
     }
 
+    /**
+     * Sets the {@link RedrawMode} that controls when the view is drawn again to its texture.
+     *
+     * @see ViewRenderable#setRedrawMode(RedrawMode)
+     */
+    public Builder setRedrawMode(RedrawMode redrawMode) {
+      Preconditions.checkNotNull(redrawMode, "Parameter \"redrawMode\" was null.");
+      this.redrawMode = redrawMode;
+      return this;
+    }
+
+    /**
+     * Draws the view to its texture with a hardware accelerated canvas.
+     *
+     * @see ViewRenderable#setHardwareCanvasEnabled(boolean)
+     */
+    public Builder setHardwareCanvasEnabled(boolean hardwareCanvasEnabled) {
+      this.isHardwareCanvasEnabled = hardwareCanvasEnabled;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of times per second the view is drawn to its texture.
+     *
+     * @see ViewRenderable#setMaxRefreshRate(float)
+     */
+    public Builder setMaxRefreshRate(float maxRefreshRate) {
+      this.maxRefreshRate = maxRefreshRate;
+      return this;
+    }
+
     @Override
     @SuppressWarnings("AndroidApiChecker") // java.util.concurrent.CompletableFuture
     public CompletableFuture<ViewRenderable> build(Lifecycle lifecycle) {
@@ -2,12 +2,11 @@ package com.google.ar.sceneform.utilities;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.content.res.Resources;
 import android.net.Uri;
 import android.net.http.HttpResponseCache;
-import android.os.Build.VERSION;
-import android.os.Build.VERSION_CODES;
 import androidx.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Base64;
@@ -15,6 +14,7 @@ import android.util.Log;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -22,9 +22,15 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.github.sceneview.utils.DiskCache;
+import io.github.sceneview.utils.ResourceLoader;
 
 /**
  * Convenience class to parse Uri's.
@@ -42,6 +48,9 @@ public class LoadHelper {
   private static final String ANDROID_ASSET = SLASH_DELIMETER + "android_asset" + SLASH_DELIMETER;
   // Default cache size of 512MB.
   private static final long DEFAULT_CACHE_SIZE_BYTES = 512 << 20;
+  private static final String CACHE_CONTROL = "Cache-Control";
+  private static final String NO_CACHE = "no-cache";
+  private static final String MAX_STALE = "max-stale=";
 
   /** Static utility class */
   private LoadHelper() {}
@@ -161,26 +170,27 @@ public class LoadHelper {
   }
 
   /**
-   * Enables HTTP caching with default settings, remote Uri requests responses are cached to
-   * cacheBaseDir/cacheFolderName
+   * Enables caching with default settings, remote Uri requests responses are cached in the same
+   * folder as {@link ResourceLoader#enableDiskCache(Context)}
+   *
+   * @see ResourceLoader#getDiskCache()
    */
   public static void enableCaching(Context context) {
-    enableCaching(DEFAULT_CACHE_SIZE_BYTES, context.getCacheDir(), "http_cache");
+    ResourceLoader.enableDiskCache(context, DEFAULT_CACHE_SIZE_BYTES);
   }
 
   /**
-   * Enables HTTP caching, remote Uri requests responses are cached to cacheBaseDir/cacheFolderName
+   * Enables caching, remote Uri requests responses are cached to cacheBaseDir/cacheFolderName
+   *
+   * <p>Does nothing if a disk cache is already set.
+   *
+   * @see ResourceLoader#getDiskCache()
    */
   public static void enableCaching(long cacheByteSize, File cacheBaseDir, String cacheFolderName) {
-    // Define the default response cache if it has been previously defined.
-    if (HttpResponseCache.getInstalled() == null) {
-      try {
-        File httpCacheDir = new File(cacheBaseDir, cacheFolderName);
-        if (VERSION.SDK_INT >= VERSION_CODES.ICE_CREAM_SANDWICH) {
-          HttpResponseCache.install(httpCacheDir, cacheByteSize);
-        }
-      } catch (IOException e) {
-        Log.i(TAG, "HTTP response cache installation failed:" + e);
+    synchronized (ResourceLoader.INSTANCE) {
+      if (ResourceLoader.getDiskCache() == null) {
+        ResourceLoader.setDiskCache(
+            new DiskCache(new File(cacheBaseDir, cacheFolderName), cacheByteSize));
       }
     }
   }
@@ -192,20 +202,60 @@ public class LoadHelper {
     }
   }
 
-  /** Creates an inputStream to read from asset file */
+  /**
+   * Maps the content of a local Uri in memory as a read-only direct buffer.
+   *
+   * <p>Avoids any Java heap copy of files, uncompressed assets and raw resources.
+   *
+   * @return null if the Uri content can't be mapped, like remote, data or compressed content. Use
+   *     {@link #fromUri(Context, Uri)} for those.
+   */
+  @Nullable
+  public static ByteBuffer mapUri(Context context, Uri sourceUri) throws IOException {
+    Preconditions.checkNotNull(sourceUri, "Parameter \"sourceUri\" was null.");
+    Preconditions.checkNotNull(context, "Parameter \"context\" was null.");
+    try {
+      if (isFileAsset(sourceUri)) {
+        AssetManager assetManager = context.getAssets();
+        String filename = fileUriToFilename(sourceUri);
+        String scrubbedFilename = removeAndroidAssetPath(filename);
+        if (assetExists(assetManager, scrubbedFilename)) {
+          return SceneformBufferUtils.mapFileDescriptor(assetManager.openFd(scrubbedFilename));
+        } else {
+          return SceneformBufferUtils.mapFile(new File(filename));
+        }
+      } else if (isAndroidResource(sourceUri) || isContentResource(sourceUri)) {
+        @Nullable
+        AssetFileDescriptor fileDescriptor =
+            context.getContentResolver().openAssetFileDescriptor(sourceUri, "r");
+        return fileDescriptor != null
+            ? SceneformBufferUtils.mapFileDescriptor(fileDescriptor)
+            : null;
+      }
+    } catch (FileNotFoundException e) {
+      // Compressed content can't be opened as a file descriptor.
+      // Missing files fail the same way when read as a stream.
+    }
+    return null;
+  }
+
   // TODO: Fix nullness violation: dereference of possibly-null reference
   // sourceUri.getPath()
   @SuppressWarnings("nullness:dereference.of.nullable")
-  private static Callable<InputStream> fileUriToInputStreamCreator(Context context, Uri sourceUri) {
-    AssetManager assetManager = context.getAssets();
-    String filename;
+  private static String fileUriToFilename(Uri sourceUri) {
     if (sourceUri.getAuthority() == null) {
-      filename = sourceUri.getPath();
+      return sourceUri.getPath();
     } else if (sourceUri.getPath().isEmpty()) {
-      filename = sourceUri.getAuthority();
+      return sourceUri.getAuthority();
     } else {
-      filename = sourceUri.getAuthority() + sourceUri.getPath();
+      return sourceUri.getAuthority() + sourceUri.getPath();
     }
+  }
+
+  /** Creates an inputStream to read from asset file */
+  private static Callable<InputStream> fileUriToInputStreamCreator(Context context, Uri sourceUri) {
+    AssetManager assetManager = context.getAssets();
+    String filename = fileUriToFilename(sourceUri);
 
     // Remove "android_asset/" from URI paths like "file:///android_asset/...".
     // TODO: Fix nullness violation: incompatible types in argument.
@@ -280,6 +330,10 @@ public class LoadHelper {
    */
   private static Callable<InputStream> remoteUriToInputStreamCreator(
       Uri sourceUri, @Nullable Map<String, String> requestProperty) {
+    @Nullable DiskCache diskCache = ResourceLoader.getDiskCache();
+    if (diskCache != null) {
+      return diskCacheInputStreamCreator(diskCache, sourceUri, requestProperty);
+    }
     try {
       URL sourceURL = new URL(sourceUri.toString());
       URLConnection conn = sourceURL.openConnection();
@@ -298,6 +352,45 @@ public class LoadHelper {
     }
   }
 
+  /**
+   * Creates an inputStream to read a remote URL through the disk cache.
+   *
+   * <p>The Cache-Control request property is applied to the cache: "no-cache" always revalidates
+   * the cached file and "max-stale" sets how long it is used without revalidation.
+   */
+  private static Callable<InputStream> diskCacheInputStreamCreator(
+      DiskCache diskCache, Uri sourceUri, @Nullable Map<String, String> requestProperty) {
+    String url = sourceUri.toString();
+    long maxStaleMillis = diskCache.getMaxStaleMillis();
+    Map<String, String> properties = new HashMap<>();
+    if (requestProperty != null) {
+      properties.putAll(requestProperty);
+      @Nullable String cacheControl = properties.remove(CACHE_CONTROL);
+      if (cacheControl != null) {
+        maxStaleMillis = cacheControlMaxStaleMillis(cacheControl, maxStaleMillis);
+      }
+    }
+    long finalMaxStaleMillis = maxStaleMillis;
+    return () -> diskCache.open(url, properties, finalMaxStaleMillis);
+  }
+
+  private static long cacheControlMaxStaleMillis(String cacheControl, long defaultMillis) {
+    for (String directive : cacheControl.split(",")) {
+      directive = directive.trim();
+      if (directive.equals(NO_CACHE)) {
+        return 0;
+      } else if (directive.startsWith(MAX_STALE)) {
+        try {
+          return TimeUnit.SECONDS.toMillis(
+              Long.parseLong(directive.substring(MAX_STALE.length())));
+        } catch (NumberFormatException e) {
+          Log.w(TAG, "Invalid Cache-Control directive: " + directive);
+        }
+      }
+    }
+    return defaultMillis;
+  }
+
   private static Uri resolve(Uri parent, Uri child) {
     try {
       URI javaParentUri = new URI(parent.toString());
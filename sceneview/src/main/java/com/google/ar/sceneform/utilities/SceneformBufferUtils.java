@@ -1,13 +1,21 @@
 package com.google.ar.sceneform.utilities;
 
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import androidx.annotation.Nullable;
 import android.util.Log;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionException;
 
@@ -127,4 +135,91 @@ public final class SceneformBufferUtils {
     copy(input, output);
     return output.toByteArray();
   }
+
+  /**
+   * Maps a whole file in memory as a read-only buffer.
+   *
+   * <p>The content is paged in by the OS on access, without any Java heap copy. The mapping stays
+   * valid after the file is closed or deleted.
+   */
+  public static MappedByteBuffer mapFile(File file) throws IOException {
+    return mapFile(new FileInputStream(file));
+  }
+
+  /**
+   * Maps the content of an opened file as a read-only buffer and closes it.
+   *
+   * <p>The mapping stays valid even if the file is deleted afterwards.
+   */
+  public static MappedByteBuffer mapFile(FileInputStream inputStream) throws IOException {
+    try (FileInputStream stream = inputStream;
+        FileChannel channel = stream.getChannel()) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /**
+   * Maps the content of an asset file descriptor as a read-only buffer and closes it.
+   *
+   * @return null if the descriptor length is unknown. Compressed assets can't be opened as file
+   *     descriptors in the first place.
+   */
+  @Nullable
+  public static MappedByteBuffer mapFileDescriptor(AssetFileDescriptor fileDescriptor)
+      throws IOException {
+    try (AssetFileDescriptor afd = fileDescriptor) {
+      long length = afd.getDeclaredLength();
+      if (length == AssetFileDescriptor.UNKNOWN_LENGTH) {
+        return null;
+      }
+      // Not closed here, the stream doesn't own the descriptor.
+      FileChannel channel = new FileInputStream(afd.getFileDescriptor()).getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), length);
+    }
+  }
+
+  /**
+   * Reads a stream into a direct buffer with a single copy.
+   *
+   * <p>Used when the content can't be mapped.
+   *
+   * @param sizeHint the expected content size or 0 if unknown. The buffer grows if it is too small.
+   */
+  public static ByteBuffer readStreamToDirectBuffer(InputStream inputStream, int sizeHint)
+      throws IOException {
+    ByteBuffer buffer = allocateDirect(sizeHint > 0 ? sizeHint : DEFAULT_BLOCK_SIZE);
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        // Probe for the end before growing so an exact hint never reallocates.
+        int next = inputStream.read();
+        if (next < 0) {
+          break;
+        }
+        // The hint was wrong or missing.
+        ByteBuffer grown = allocateDirect(buffer.capacity() * 2);
+        buffer.flip();
+        grown.put(buffer);
+        grown.put((byte) next);
+        buffer = grown;
+      }
+      if (channel.read(buffer) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /** Reads the content of a stream creator into a direct buffer with a single copy. */
+  public static ByteBuffer inputStreamCallableToDirectBuffer(
+      Callable<InputStream> inputStreamCreator) throws Exception {
+    try (InputStream input = inputStreamCreator.call()) {
+      return readStreamToDirectBuffer(input, input.available());
+    }
+  }
+
+  private static ByteBuffer allocateDirect(int capacity) {
+    return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+  }
 }
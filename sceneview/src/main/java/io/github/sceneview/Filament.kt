@@ -3,6 +3,7 @@ package io.github.sceneview
 import android.opengl.EGLContext
 import com.google.android.filament.*
 import com.google.android.filament.gltfio.AssetLoader
+import com.google.android.filament.gltfio.FilamentAsset
 import com.google.android.filament.gltfio.Gltfio
 import com.google.android.filament.gltfio.ResourceLoader
 import com.google.android.filament.gltfio.UbershaderProvider
@@ -26,6 +27,15 @@ object Filament {
 
     private var _engine: WeakReference<Engine>? = null
 
+    /**
+     * ### The engine EGL context
+     *
+     * Used to create shared contexts on other GL threads.
+     */
+    @JvmStatic
+    val sharedEglContext: EGLContext?
+        get() = eglContext?.get()
+
     @JvmStatic
     val engine: Engine
         get() = _engine?.get() ?: (eglContext?.get() ?: GLHelper.makeContext())
@@ -44,6 +54,23 @@ object Filament {
     val transformManager
         get() = engine.transformManager
 
+    /**
+     * ### Incremented each time transform components are destroyed
+     *
+     * Destroying a component can move the [EntityInstance] of the other ones so the instances cached
+     * by the nodes are looked up again when it changes.
+     *
+     * Call [invalidateTransformInstances] after destroying entities directly through the [engine].
+     */
+    @JvmStatic
+    var transformInstancesVersion = 0
+        private set
+
+    @JvmStatic
+    fun invalidateTransformInstances() {
+        transformInstancesVersion++
+    }
+
     @JvmStatic
     val renderableManager
         get() = engine.renderableManager
@@ -63,6 +90,41 @@ object Filament {
             false
         ).also { _resourceLoader = it }
 
+    /**
+     * ### Whether resources started with [asyncBeginLoad] are still being finalized
+     */
+    @JvmStatic
+    var isAsyncLoading = false
+        private set
+
+    /**
+     * ### Start the asynchronous resources loading of an asset
+     *
+     * @see ResourceLoader.asyncBeginLoad
+     */
+    @JvmStatic
+    fun asyncBeginLoad(asset: FilamentAsset): Boolean =
+        resourceLoader.asyncBeginLoad(asset).also { started ->
+            isAsyncLoading = isAsyncLoading || started
+        }
+
+    /**
+     * ### Finalize the asynchronously loaded resources that have become ready
+     *
+     * @return true if resources were loading so that the newly finalized ones must be drawn
+     *
+     * @see ResourceLoader.asyncUpdateLoad
+     */
+    @JvmStatic
+    fun asyncUpdateLoad(): Boolean {
+        resourceLoader.asyncUpdateLoad()
+        if (!isAsyncLoading) {
+            return false
+        }
+        isAsyncLoading = resourceLoader.asyncGetLoadProgress() < 1.0f
+        return true
+    }
+
     private var _materialProvider: UbershaderProvider? = null
 
     @JvmStatic
@@ -104,6 +166,7 @@ object Filament {
 //        _assetLoader?.destroy()
         _assetLoader = null
 
+        isAsyncLoading = false
         _resourceLoader?.apply {
             asyncCancelLoad()
             evictResourceData()
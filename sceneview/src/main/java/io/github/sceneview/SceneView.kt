@@ -10,7 +10,6 @@ import android.media.MediaRecorder
 import android.os.Handler
 import android.os.Looper
 import android.util.AttributeSet
-import android.util.Log
 import android.view.Choreographer
 import android.view.MotionEvent
 import android.view.Surface
@@ -32,7 +31,6 @@ import com.google.ar.sceneform.rendering.ResourceManager
 import com.google.ar.sceneform.rendering.ViewAttachmentManager
 import com.gorisse.thomas.lifecycle.getActivity
 import io.github.sceneview.Filament.engine
-import io.github.sceneview.Filament.resourceLoader
 import io.github.sceneview.Filament.transformManager
 import io.github.sceneview.environment.Environment
 import io.github.sceneview.environment.loadEnvironment
@@ -44,9 +42,12 @@ import io.github.sceneview.gesture.transform
 import io.github.sceneview.light.Light
 import io.github.sceneview.light.build
 import io.github.sceneview.light.destroy
+import io.github.sceneview.math.nearlyEquals
 import io.github.sceneview.node.ModelNode
 import io.github.sceneview.node.Node
+import io.github.sceneview.node.NodeFrameScheduler
 import io.github.sceneview.node.NodeParent
+import io.github.sceneview.node.SelectionVisualizerPool
 import io.github.sceneview.renderable.Renderable
 import io.github.sceneview.scene.build
 import io.github.sceneview.scene.destroy
@@ -76,6 +77,14 @@ open class SceneView @JvmOverloads constructor(
     NodeParent,
     GestureDetector.OnGestureListener by GestureDetector.SimpleOnGestureListener() {
 
+    enum class RenderMode {
+        /** Render every display frame */
+        CONTINUOUS,
+
+        /** Only render the display frames following a visible change */
+        ON_DEMAND
+    }
+
     enum class SelectionMode {
         NONE, SINGLE, MULTIPLE;
 
@@ -98,6 +107,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.renderQuality
         set(value) {
             view.renderQuality = value
+            requestRender()
         }
 
     /** @see View.setDynamicResolutionOptions **/
@@ -105,6 +115,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.dynamicResolutionOptions
         set(value) {
             view.dynamicResolutionOptions = value
+            requestRender()
         }
 
     /** @see View.setMultiSampleAntiAliasingOptions **/
@@ -112,6 +123,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.multiSampleAntiAliasingOptions
         set(value) {
             view.multiSampleAntiAliasingOptions = value
+            requestRender()
         }
 
     /** @see View.setAntiAliasing **/
@@ -119,6 +131,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.antiAliasing
         set(value) {
             view.antiAliasing = value
+            requestRender()
         }
 
     /** @see View.setAmbientOcclusionOptions **/
@@ -126,6 +139,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.ambientOcclusionOptions
         set(value) {
             view.ambientOcclusionOptions = value
+            requestRender()
         }
 
     /** @see View.setBloomOptions **/
@@ -133,6 +147,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.bloomOptions
         set(value) {
             view.bloomOptions = value
+            requestRender()
         }
 
     /** @see View.setDithering **/
@@ -140,6 +155,7 @@ open class SceneView @JvmOverloads constructor(
         get() = view.dithering
         set(value) {
             view.dithering = value
+            requestRender()
         }
 
 
@@ -154,6 +170,7 @@ open class SceneView @JvmOverloads constructor(
             field?.let { removeLight(it) }
             field = value
             value?.let { addLight(value) }
+            requestRender()
         }
 
 
@@ -196,6 +213,7 @@ open class SceneView @JvmOverloads constructor(
         set(value) {
             field = value
             scene.indirectLight = value
+            requestRender()
         }
 
     /**
@@ -212,6 +230,7 @@ open class SceneView @JvmOverloads constructor(
         get() = scene.skybox
         set(value) {
             scene.skybox = value
+            requestRender()
         }
 
     var backgroundColor: Color?
@@ -224,6 +243,7 @@ open class SceneView @JvmOverloads constructor(
                     clearColor = value.toFloatArray()
                 }
             }
+            requestRender()
         }
 
     /**
@@ -258,10 +278,77 @@ open class SceneView @JvmOverloads constructor(
         get() = view.isFrontFaceWindingInverted
         set(value) {
             view.isFrontFaceWindingInverted = value
+            requestRender()
         }
 
     val collisionSystem = CollisionSystem()
 
+    /**
+     * ### Opt-in per frame phase timings and counters
+     *
+     * Null by default so nothing is measured.
+     *
+     * @see FrameProfiler
+     */
+    var frameProfiler: FrameProfiler? = null
+
+    // Only fed the rendered frames once it is used
+    private val adaptiveQualityDelegate = lazy { AdaptiveQuality(lifecycle) }
+
+    /**
+     * ### Opt-in rendering quality adaptation to the device performances and temperature
+     *
+     * The post processing set up by default (bloom, ambient occlusion, MSAA,...) is stepped down
+     * when the frame rate drops or the device heats up and back up when it recovers.
+     *
+     * Disabled by default. Enable it with `adaptiveQuality.isEnabled = true`.
+     *
+     * @see AdaptiveQuality
+     */
+    val adaptiveQuality by adaptiveQualityDelegate
+
+    /**
+     * ### When the frames are rendered
+     *
+     * - [RenderMode.CONTINUOUS] renders every display frame.
+     * - [RenderMode.ON_DEMAND] only renders the frames following a visible change: node transform,
+     * visibility or entities changes, running animations and smoothing, resources loading,
+     * gestures, environment and lights changes,...
+     *
+     * In [RenderMode.ON_DEMAND], call [requestRender] after changes that are not made through the
+     * nodes or the scene properties. For example after changing a material parameter or a light
+     * intensity.
+     *
+     * The scene is still updated on every display frame: only the rendering is skipped.
+     */
+    var renderMode = RenderMode.CONTINUOUS
+        set(value) {
+            field = value
+            requestRender()
+        }
+
+    /**
+     * ### The frames to render in [RenderMode.ON_DEMAND]
+     *
+     * @see RenderRequests
+     */
+    val renderRequests = RenderRequests()
+
+    /**
+     * ### Number of idle display frames that were not rendered in [RenderMode.ON_DEMAND]
+     */
+    val skippedFrameCount get() = renderRequests.skippedFrameCount
+
+    // Reverse index of the attached nodes scene entities
+    private val entityNodes = IntObjectMap<Node>()
+
+    // Only the nodes that are changing receive onFrame
+    internal val frameScheduler = NodeFrameScheduler(renderRequests)
+    // World transforms pushed by the nodes during the frame
+    internal val transformBatch = TransformBatch()
+    // Selection visualizers shared by the selected nodes
+    internal val selectionVisualizers = SelectionVisualizerPool { selectionVisualizer?.invoke() }
+
     val cameraManipulatorTarget: Node? = null
         get() = field ?: selectedNode ?: allChildren.lastOrNull { it is ModelNode }
 
@@ -269,7 +356,11 @@ open class SceneView @JvmOverloads constructor(
 
     var selectedNodes: List<Node>
         get() = allChildren.filter { it.isSelected }
-        set(value) = allChildren.forEach { it.isSelected = value.contains(it) }
+        set(value) {
+            val selectedNodes = value.toHashSet()
+            // Iterate a snapshot since selecting a node adds its selection visualizer child
+            allChildren.forEach { it.isSelected = it in selectedNodes }
+        }
 
     var selectedNode: Node?
         get() = selectedNodes.firstOrNull()
@@ -277,6 +368,14 @@ open class SceneView @JvmOverloads constructor(
             selectedNodes = listOfNotNull(value)
         }
 
+    /**
+     * ### Creates the node displayed on the selected nodes
+     *
+     * Visualizers are only created when nodes get selected and are shared: a deselected node gives
+     * its visualizer back to be reparented to the next selected one. At most one per simultaneously
+     * selected node is created.
+     * A node can still use its own [Node.selectionVisualizer].
+     */
     open val selectionVisualizer: (() -> Node)? = {
         ModelNode(context, lifecycle, "sceneview/models/node_selector.glb").apply {
             isSelectable = false
@@ -329,7 +428,9 @@ open class SceneView @JvmOverloads constructor(
         lifecycle.currentState = event.targetState
     }
 
-    override var _children = listOf<Node>()
+    override val _children = ArrayList<Node>()
+    override var _childrenSnapshot: List<Node>? = null
+    override var _allChildren: List<Node>? = null
 
     // TODO: Move to internal when ViewRenderable is kotlined
     val viewAttachmentManager by lazy { ViewAttachmentManager(context, this) }
@@ -477,7 +578,10 @@ open class SceneView @JvmOverloads constructor(
         Choreographer.getInstance().postFrameCallback(this)
 
         currentFrameTime = FrameTime(frameTimeNanos, currentFrameTime.nanoseconds)
+        val frameProfiler = frameProfiler
+        frameProfiler?.beginFrame()
         doFrame(currentFrameTime)
+        frameProfiler?.endFrame()
     }
 
     open fun doFrame(frameTime: FrameTime) {
@@ -485,51 +589,112 @@ open class SceneView @JvmOverloads constructor(
             return
         }
 
+        val frameProfiler = frameProfiler
+
         // Allow the resource loader to finalize textures that have become ready.
-        resourceLoader.asyncUpdateLoad()
+        frameProfiler?.begin(FrameProfiler.Phase.RESOURCES)
+        if (Filament.asyncUpdateLoad()) {
+            requestRender()
+        }
+        frameProfiler?.end(FrameProfiler.Phase.RESOURCES)
 
         transformManager.openLocalTransformTransaction()
 
         // Only update the camera manipulator if a touch has been made
         if (lastTouchEvent != null) {
+            frameProfiler?.begin(FrameProfiler.Phase.CAMERA)
             cameraManipulator?.let { manipulator ->
                 manipulator.update(frameTime.intervalSeconds.toFloat())
                 // Extract the camera basis from the helper and push it to the Filament camera.
-                cameraNode.transform = manipulator.transform
+                val transform = manipulator.transform
+                if (nearlyEquals(transform, cameraNode.transform)) {
+                    // The gesture has settled until the next touch event
+                    lastTouchEvent = null
+                } else {
+                    cameraNode.transform = transform
+                }
             }
+            frameProfiler?.end(FrameProfiler.Phase.CAMERA)
         }
 
-        lifecycle.dispatchEvent<SceneLifecycleObserver> {
-            onFrame(frameTime)
-        }
+        frameProfiler?.begin(FrameProfiler.Phase.NODES)
+        frameScheduler.dispatchFrame(frameTime)
+        lifecycle.dispatchFrame(frameTime)
         onFrame?.invoke(frameTime)
+        frameProfiler?.end(FrameProfiler.Phase.NODES)
 
+        frameProfiler?.begin(FrameProfiler.Phase.TRANSFORMS)
+        transformBatch.flush(transformManager)
         transformManager.commitLocalTransformTransaction()
-
-        // Render the scene, unless the renderer wants to skip the frame.
-        if (renderer.beginFrame(swapChain!!, frameTime.nanoseconds)) {
+        frameProfiler?.end(FrameProfiler.Phase.TRANSFORMS)
+
+        // Render the scene if anything changed, unless the renderer wants to skip the frame.
+        frameProfiler?.begin(FrameProfiler.Phase.RENDER)
+        val adaptiveQuality = if (adaptiveQualityDelegate.isInitialized()) adaptiveQuality else null
+        if (!renderRequests.onFrame(isContinuous = renderMode == RenderMode.CONTINUOUS)) {
+            frameProfiler?.count(FrameProfiler.Counter.IDLE_FRAMES)
+            adaptiveQuality?.onFrameIdle()
+        } else if (renderer.beginFrame(swapChain!!, frameTime.nanoseconds)) {
             renderer.render(view)
             renderer.endFrame()
+            adaptiveQuality?.onFrameRendered(frameTime.nanoseconds)
+        } else {
+            frameProfiler?.count(FrameProfiler.Counter.SKIPPED_FRAMES)
+            // Try again on the next frame
+            requestRender()
         }
+        frameProfiler?.end(FrameProfiler.Phase.RENDER)
+    }
+
+    /**
+     * ### Render the next frames in [RenderMode.ON_DEMAND]
+     *
+     * Call it after a visible change that the [SceneView] can't detect by itself, like a material
+     * parameter or a light property change.
+     */
+    fun requestRender() {
+        renderRequests.requestRender()
     }
 
     /** @see Scene.addEntity */
-    fun addEntity(@Entity entity: Int) = scene.addEntity(entity)
+    fun addEntity(@Entity entity: Int) {
+        scene.addEntity(entity)
+        requestRender()
+        FrameProfiler.current?.count(FrameProfiler.Counter.ENTITIES_ADDED)
+    }
 
     /** @see Scene.removeEntity */
-    fun removeEntity(@Entity entity: Int) = scene.removeEntity(entity)
+    fun removeEntity(@Entity entity: Int) {
+        scene.removeEntity(entity)
+        requestRender()
+        FrameProfiler.current?.count(FrameProfiler.Counter.ENTITIES_REMOVED)
+    }
 
     /** @see Scene.addEntities */
-    fun addEntities(@Entity entities: IntArray) = scene.addEntities(entities)
+    fun addEntities(@Entity entities: IntArray) {
+        scene.addEntities(entities)
+        requestRender()
+        FrameProfiler.current?.count(FrameProfiler.Counter.ENTITIES_ADDED, entities.size)
+    }
 
     /** @see Scene.removeEntities */
-    fun removeEntities(@Entity entities: IntArray) = scene.removeEntities(entities)
+    fun removeEntities(@Entity entities: IntArray) {
+        scene.removeEntities(entities)
+        requestRender()
+        FrameProfiler.current?.count(FrameProfiler.Counter.ENTITIES_REMOVED, entities.size)
+    }
 
     /** @see Scene.addEntity */
-    fun addLight(@Entity light: Light) = scene.addEntity(light)
+    fun addLight(@Entity light: Light) {
+        scene.addEntity(light)
+        requestRender()
+    }
 
     /** @see Scene.removeEntity */
-    fun removeLight(@Entity light: Light) = scene.removeEntity(light)
+    fun removeLight(@Entity light: Light) {
+        scene.removeEntity(light)
+        requestRender()
+    }
 
     override fun setBackgroundDrawable(background: Drawable?) {
         super.setBackgroundDrawable(background)
@@ -544,6 +709,7 @@ open class SceneView @JvmOverloads constructor(
         // This makes sure that the view's onTouchListener is called.
         if (!super.onTouchEvent(motionEvent)) {
             lastTouchEvent = motionEvent
+            requestRender()
             gestureDetector.onTouchEvent(motionEvent)
             cameraGestureDetector?.onTouchEvent(motionEvent)
             return true
@@ -590,6 +756,23 @@ open class SceneView @JvmOverloads constructor(
         onTap?.invoke(motionEvent, node, renderable)
     }
 
+    /**
+     * ### Get the attached node owning a Filament entity
+     *
+     * Constant time lookup of the nodes [Node.sceneEntities].
+     *
+     * @return null if the entity doesn't belong to any node attached to this scene
+     */
+    fun getNodeByEntity(@Entity entity: Int): Node? = entityNodes[entity]
+
+    internal fun addEntityNode(node: Node, @Entity entities: IntArray) {
+        entities.forEach { entityNodes[it] = node }
+    }
+
+    internal fun removeEntityNode(node: Node, @Entity entities: IntArray) {
+        entities.forEach { entityNodes.remove(it, node) }
+    }
+
     /**
      * ### Picks a node at given coordinates
      *
@@ -608,24 +791,9 @@ open class SceneView @JvmOverloads constructor(
         // Invert the y coordinate since its origin is at the bottom
         val invertedY = height - 1 - y
 
-        val start = System.currentTimeMillis()
-
         view.pick(x, invertedY, pickingHandler) { pickResult ->
-            val end = System.currentTimeMillis()
-
-            Log.d("Test", "Picking took ${end - start} ms")
-
             val pickedRenderable = pickResult.renderable
-            val pickedNode = allChildren
-                .mapNotNull { it as? ModelNode }
-                .firstOrNull { modelNode ->
-                    modelNode.modelInstance?.let { modelInstance ->
-                        modelInstance.entity == pickedRenderable ||
-                                modelInstance.childEntities.contains(
-                                    pickedRenderable
-                                )
-                    } ?: false
-                }
+            val pickedNode = getNodeByEntity(pickedRenderable) as? ModelNode
             onPickingCompleted.invoke(pickedNode, pickedRenderable)
         }
     }
@@ -698,6 +866,7 @@ open class SceneView @JvmOverloads constructor(
             swapChain?.let { engine.destroySwapChain(it) }
             swapChain = engine.createSwapChain(surface)
             displayHelper.attach(renderer, display)
+            requestRender()
         }
 
         override fun onDetachedFromSurface() {
@@ -713,6 +882,7 @@ open class SceneView @JvmOverloads constructor(
             view.viewport = Viewport(0, 0, width, height)
             cameraManipulator?.setViewport(width, height)
             cameraNode.refreshProjectionMatrix()
+            requestRender()
         }
     }
 
@@ -743,6 +913,37 @@ interface SceneLifecycleOwner : LifecycleOwner {
 }
 
 open class SceneLifecycle(open val sceneView: SceneView) : DefaultLifecycle(sceneView) {
+
+    // The nodes are ticked by the SceneView frame scheduler.
+    // Copied on change only so that the observers can be added or removed while dispatching.
+    private var frameObservers = emptyArray<SceneLifecycleObserver>()
+
+    override fun addObserver(observer: LifecycleObserver) {
+        super.addObserver(observer)
+
+        if (observer is SceneLifecycleObserver && observer !is Node &&
+            observer !in frameObservers
+        ) {
+            frameObservers += observer
+        }
+    }
+
+    override fun removeObserver(observer: LifecycleObserver) {
+        super.removeObserver(observer)
+
+        if (observer in frameObservers) {
+            frameObservers = frameObservers.filter { it !== observer }.toTypedArray()
+        }
+    }
+
+    /**
+     * ### Dispatch the frame to the observers that are not nodes
+     */
+    fun dispatchFrame(frameTime: FrameTime) {
+        for (observer in frameObservers) {
+            observer.onFrame(frameTime)
+        }
+    }
 }
 
 interface SceneLifecycleObserver : DefaultLifecycleObserver {
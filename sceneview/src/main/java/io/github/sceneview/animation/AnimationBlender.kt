@@ -0,0 +1,175 @@
+package io.github.sceneview.animation
+
+import com.google.android.filament.Entity
+import com.google.android.filament.TransformManager
+import com.google.android.filament.gltfio.Animator
+import dev.romainguy.kotlin.math.Float4
+import dev.romainguy.kotlin.math.Mat4
+import io.github.sceneview.Filament
+import io.github.sceneview.math.slerpInto
+
+/**
+ * ### Applies the [AnimationMixer] evaluated clips to a glTF [Animator]
+ *
+ * The most weighted clip is applied by the animator. Each next clip is then applied and blended
+ * over the previous result by interpolating the local transforms of the [entities] with its share
+ * of the accumulated weights. When the mixer [AnimationMixer.isAdditive], each clip is applied over
+ * the previous ones and only interpolated with them by its own weight when it is not full.
+ *
+ * Entities that a clip doesn't animate are in their rest pose for that clip: the local transforms
+ * they had when the blender was created. The rest pose is also restored once every clip is stopped.
+ *
+ * Nothing is allocated per frame once the first blend is done.
+ *
+ * @param entities the glTF instance entities
+ */
+class AnimationBlender(private val animator: Animator, @Entity private val entities: IntArray) {
+
+    private val instances = IntArray(entities.size)
+    private var instancesVersion = -1
+
+    private val restTransforms = Array(entities.size) { Mat4() }
+    private var blendedTransforms: Array<Mat4>? = null
+    private val clipTransform = Mat4()
+    private val matrix = FloatArray(16)
+
+    // The model is not in its rest pose
+    private var isPosed = false
+
+    init {
+        val transformManager = Filament.transformManager
+        updateInstances(transformManager)
+        readTransforms(transformManager, restTransforms)
+    }
+
+    /**
+     * ### Apply the evaluated clips
+     *
+     * The bone matrices still have to be updated afterwards.
+     *
+     * @return true if any clip or the rest pose was applied
+     */
+    fun apply(mixer: AnimationMixer): Boolean {
+        val clipCount = mixer.evaluatedClipCount
+        val transformManager = Filament.transformManager
+        updateInstances(transformManager)
+        if (clipCount == 0) {
+            if (!isPosed) {
+                return false
+            }
+            isPosed = false
+            writeTransforms(transformManager, restTransforms)
+            return true
+        }
+        isPosed = true
+        writeTransforms(transformManager, restTransforms)
+        if (mixer.isAdditive) {
+            applyAdditive(transformManager, mixer)
+            return true
+        }
+        animator.applyAnimation(mixer.getEvaluatedClip(0), mixer.getEvaluatedTime(0))
+        if (clipCount == 1) {
+            return true
+        }
+
+        val blendedTransforms = getBlendedTransforms()
+        readTransforms(transformManager, blendedTransforms)
+
+        var accumulatedWeight = mixer.getEvaluatedWeight(0)
+        for (clip in 1 until clipCount) {
+            writeTransforms(transformManager, restTransforms)
+            animator.applyAnimation(mixer.getEvaluatedClip(clip), mixer.getEvaluatedTime(clip))
+            val weight = mixer.getEvaluatedWeight(clip)
+            accumulatedWeight += weight
+            val t = weight / accumulatedWeight
+            for (i in entities.indices) {
+                if (instances[i] != 0) {
+                    readTransform(transformManager, instances[i], clipTransform)
+                    slerpInto(blendedTransforms[i], clipTransform, t, blendedTransforms[i])
+                }
+            }
+        }
+
+        writeTransforms(transformManager, blendedTransforms)
+        return true
+    }
+
+    private fun applyAdditive(transformManager: TransformManager, mixer: AnimationMixer) {
+        for (clip in 0 until mixer.evaluatedClipCount) {
+            val weight = mixer.getEvaluatedWeight(clip)
+            if (weight >= 1.0f) {
+                animator.applyAnimation(mixer.getEvaluatedClip(clip), mixer.getEvaluatedTime(clip))
+                continue
+            }
+            val blendedTransforms = getBlendedTransforms()
+            readTransforms(transformManager, blendedTransforms)
+            animator.applyAnimation(mixer.getEvaluatedClip(clip), mixer.getEvaluatedTime(clip))
+            for (i in entities.indices) {
+                if (instances[i] != 0) {
+                    readTransform(transformManager, instances[i], clipTransform)
+                    slerpInto(blendedTransforms[i], clipTransform, weight, blendedTransforms[i])
+                }
+            }
+            writeTransforms(transformManager, blendedTransforms)
+        }
+    }
+
+    private fun getBlendedTransforms() = blendedTransforms
+        ?: Array(entities.size) { Mat4() }.also { blendedTransforms = it }
+
+    // Destroying transform components can move the other instances
+    private fun updateInstances(transformManager: TransformManager) {
+        if (instancesVersion != Filament.transformInstancesVersion) {
+            instancesVersion = Filament.transformInstancesVersion
+            for (i in entities.indices) {
+                instances[i] = transformManager.getInstance(entities[i])
+            }
+        }
+    }
+
+    private fun readTransforms(transformManager: TransformManager, out: Array<Mat4>) {
+        for (i in entities.indices) {
+            if (instances[i] != 0) {
+                readTransform(transformManager, instances[i], out[i])
+            }
+        }
+    }
+
+    private fun writeTransforms(transformManager: TransformManager, transforms: Array<Mat4>) {
+        for (i in entities.indices) {
+            if (instances[i] != 0) {
+                writeTransform(transformManager, instances[i], transforms[i])
+            }
+        }
+    }
+
+    private fun readTransform(transformManager: TransformManager, instance: Int, out: Mat4) {
+        transformManager.getTransform(instance, matrix)
+        put(out.x, 0)
+        put(out.y, 4)
+        put(out.z, 8)
+        put(out.w, 12)
+    }
+
+    private fun writeTransform(transformManager: TransformManager, instance: Int, transform: Mat4) {
+        get(transform.x, 0)
+        get(transform.y, 4)
+        get(transform.z, 8)
+        get(transform.w, 12)
+        transformManager.setTransform(instance, matrix)
+    }
+
+    private fun put(column: Float4, offset: Int) {
+        column.x = matrix[offset]
+        column.y = matrix[offset + 1]
+        column.z = matrix[offset + 2]
+        column.w = matrix[offset + 3]
+    }
+
+    private fun get(column: Float4, offset: Int) {
+        matrix[offset] = column.x
+        matrix[offset + 1] = column.y
+        matrix[offset + 2] = column.z
+        matrix[offset + 3] = column.w
+    }
+}
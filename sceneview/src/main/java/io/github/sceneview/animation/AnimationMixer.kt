@@ -0,0 +1,376 @@
+package io.github.sceneview.animation
+
+/**
+ * ### Plays and blends the animation clips of a model from the frame time
+ *
+ * Each clip has its own time position, speed, looping and weight. Weights move towards their target
+ * over the fade durations so that clips can be faded in, faded out or cross-faded.
+ *
+ * [advance] is called once per frame with the frame interval. When a clip changed and the
+ * [minApplyInterval] is elapsed, it evaluates the clips to apply: the [maxBlendedClipCount] most
+ * weighted ones, from the most to the least weighted, with their normalized weights. When
+ * [isAdditive], every weighted clip is evaluated instead, in the clips order and with its own
+ * weight. The owner then applies them and calls [onApplied].
+ *
+ * Free of any Android or Filament dependency so that the clips scheduling can be driven by
+ * synthetic frame times. Nothing is allocated per frame.
+ *
+ * Must only be used from the main thread.
+ *
+ * @param clipDurations the duration in seconds of each clip
+ */
+class AnimationMixer(private val clipDurations: FloatArray) {
+
+    /**
+     * ### Number of clips
+     */
+    val clipCount get() = clipDurations.size
+
+    /**
+     * ### Speed multiplier applied to every clip
+     */
+    var timeScale = 1.0f
+
+    /**
+     * ### Minimum time between two applications of the clips
+     *
+     * 0 applies the changes on every frame. Use it to throttle distant or secondary models.
+     */
+    var minApplyInterval = 0.0f
+
+    /**
+     * ### Apply every weighted clip over the previous ones instead of blending them
+     *
+     * Each clip moves the entities it animates towards its pose by its own weight, so clips
+     * animating different entities all play fully. Used to play every clip of a model together.
+     * [maxBlendedClipCount] doesn't apply.
+     */
+    var isAdditive = false
+        set(value) {
+            if (field != value) {
+                field = value
+                onChange()
+            }
+        }
+
+    /**
+     * ### Highest number of clips applied together
+     *
+     * Each blended clip costs one more animator application and a blend of the animated entities.
+     */
+    var maxBlendedClipCount = DEFAULT_MAX_BLENDED_CLIP_COUNT
+        set(value) {
+            require(value > 0) { "At least one clip must be blended" }
+            field = value
+        }
+
+    private val times = FloatArray(clipCount)
+    private val speeds = FloatArray(clipCount) { 1.0f }
+    private val isLooping = BooleanArray(clipCount)
+    private val isPlaying = BooleanArray(clipCount)
+    private val weights = FloatArray(clipCount)
+    private val targetWeights = FloatArray(clipCount)
+
+    // Weight change per second towards the target, 0 for an immediate change
+    private val fadeRates = FloatArray(clipCount)
+
+    private val evaluatedClips = IntArray(clipCount)
+    private val evaluatedTimes = FloatArray(clipCount)
+    private val evaluatedWeights = FloatArray(clipCount)
+
+    /**
+     * ### Number of clips evaluated by the last [advance]
+     */
+    var evaluatedClipCount = 0
+        private set
+
+    /**
+     * ### The evaluated clips are waiting to be applied
+     */
+    var isApplyPending = false
+        private set
+
+    /**
+     * ### Called when a clip is played, stopped, faded or seeked
+     *
+     * Lets the owner make sure that [advance] is called on the next frames.
+     */
+    var onChanged: Runnable? = null
+
+    private var isChanged = false
+    private var timeSinceApply = Float.POSITIVE_INFINITY
+
+    /**
+     * ### Whether the next [advance] calls can change the applied clips
+     *
+     * False when the clips are stopped or holding their last pose.
+     */
+    val isActive: Boolean
+        get() {
+            for (clip in 0 until clipCount) {
+                if (isPlaying[clip] || weights[clip] != targetWeights[clip]) {
+                    return true
+                }
+            }
+            return isChanged || isApplyPending
+        }
+
+    /**
+     * ### Start playing a clip
+     *
+     * @param loop restart from the beginning when the end is reached. Otherwise the last pose is
+     * held until the clip is stopped.
+     * @param weight the blending weight to reach
+     * @param fadeDuration seconds to reach the weight from the current one
+     * @param restart play from the beginning instead of the current time position
+     */
+    @JvmOverloads
+    fun play(
+        clip: Int,
+        loop: Boolean = true,
+        weight: Float = 1.0f,
+        fadeDuration: Float = 0.0f,
+        restart: Boolean = true
+    ) {
+        checkClip(clip)
+        if (restart) {
+            times[clip] = 0.0f
+        }
+        isLooping[clip] = loop
+        isPlaying[clip] = true
+        fadeTo(clip, weight, fadeDuration)
+    }
+
+    /**
+     * ### Fade a clip out and stop it
+     *
+     * @param fadeDuration seconds to reach a zero weight
+     */
+    @JvmOverloads
+    fun stop(clip: Int, fadeDuration: Float = 0.0f) {
+        checkClip(clip)
+        fadeTo(clip, 0.0f, fadeDuration)
+    }
+
+    /**
+     * ### Fade every clip out and stop them
+     */
+    @JvmOverloads
+    fun stopAll(fadeDuration: Float = 0.0f) {
+        for (clip in 0 until clipCount) {
+            fadeTo(clip, 0.0f, fadeDuration)
+        }
+    }
+
+    /**
+     * ### Play a clip while fading out all the other ones
+     */
+    @JvmOverloads
+    fun crossFade(clip: Int, fadeDuration: Float, loop: Boolean = true, restart: Boolean = true) {
+        checkClip(clip)
+        for (other in 0 until clipCount) {
+            if (other != clip) {
+                fadeTo(other, 0.0f, fadeDuration)
+            }
+        }
+        play(clip, loop, 1.0f, fadeDuration, restart)
+    }
+
+    /**
+     * ### Play every clip together
+     *
+     * Set [isAdditive] for clips animating different entities to all play fully.
+     */
+    @JvmOverloads
+    fun playAll(loop: Boolean = true) {
+        for (clip in 0 until clipCount) {
+            play(clip, loop)
+        }
+    }
+
+    /**
+     * ### Change a clip blending weight
+     *
+     * @param fadeDuration seconds to reach the weight from the current one
+     */
+    @JvmOverloads
+    fun fadeTo(clip: Int, weight: Float, fadeDuration: Float = 0.0f) {
+        checkClip(clip)
+        val target = weight.coerceIn(0.0f, 1.0f)
+        targetWeights[clip] = target
+        if (fadeDuration > 0.0f) {
+            fadeRates[clip] = 1.0f / fadeDuration
+        } else {
+            fadeRates[clip] = 0.0f
+            weights[clip] = target
+            if (target == 0.0f) {
+                isPlaying[clip] = false
+            }
+        }
+        onChange()
+    }
+
+    fun getWeight(clip: Int) = weights[checkClip(clip)]
+
+    fun getTime(clip: Int) = times[checkClip(clip)]
+
+    /**
+     * ### Seek a clip to a time position in seconds
+     */
+    fun setTime(clip: Int, time: Float) {
+        checkClip(clip)
+        times[clip] = wrapTime(clip, time)
+        onChange()
+    }
+
+    fun getSpeed(clip: Int) = speeds[checkClip(clip)]
+
+    fun setSpeed(clip: Int, speed: Float) {
+        speeds[checkClip(clip)] = speed
+    }
+
+    fun isPlaying(clip: Int) = isPlaying[checkClip(clip)]
+
+    /**
+     * ### Advance the playing clips and the fades
+     *
+     * @param deltaSeconds the time elapsed since the last frame
+     *
+     * @return true if clips must be applied. See [evaluatedClipCount]
+     */
+    fun advance(deltaSeconds: Float): Boolean {
+        for (clip in 0 until clipCount) {
+            if (isPlaying[clip]) {
+                val time = wrapTime(clip, times[clip] + deltaSeconds * speeds[clip] * timeScale)
+                if (time != times[clip]) {
+                    times[clip] = time
+                    isChanged = true
+                } else if (!isLooping[clip] && time >= clipDurations[clip]) {
+                    // Hold the last pose
+                    isPlaying[clip] = false
+                }
+            }
+            val weight = weights[clip]
+            val target = targetWeights[clip]
+            if (weight != target) {
+                val step = deltaSeconds * fadeRates[clip]
+                weights[clip] = if (weight < target) {
+                    minOf(weight + step, target)
+                } else {
+                    maxOf(weight - step, target)
+                }
+                if (weights[clip] == 0.0f) {
+                    isPlaying[clip] = false
+                }
+                isChanged = true
+            }
+        }
+        timeSinceApply += deltaSeconds
+        if (isChanged && timeSinceApply >= minApplyInterval) {
+            isChanged = false
+            timeSinceApply = 0.0f
+            evaluate()
+            isApplyPending = true
+        }
+        return isApplyPending
+    }
+
+    /**
+     * ### The evaluated clips have been applied
+     */
+    fun onApplied() {
+        isApplyPending = false
+    }
+
+    /**
+     * ### Index of an evaluated clip, from the most to the least weighted
+     */
+    fun getEvaluatedClip(index: Int) = evaluatedClips[index]
+
+    /**
+     * ### Time position in seconds of an evaluated clip
+     */
+    fun getEvaluatedTime(index: Int) = evaluatedTimes[index]
+
+    /**
+     * ### Normalized weight of an evaluated clip
+     *
+     * The evaluated weights sum to 1 unless [isAdditive].
+     */
+    fun getEvaluatedWeight(index: Int) = evaluatedWeights[index]
+
+    private fun evaluate() {
+        if (isAdditive) {
+            evaluateAdditive()
+            return
+        }
+        var count = 0
+        var totalWeight = 0.0f
+        for (clip in 0 until clipCount) {
+            val weight = weights[clip]
+            if (weight <= 0.0f) {
+                continue
+            }
+            // Insertion sort by decreasing weight, only keeping the most weighted clips
+            var i = minOf(count, maxBlendedClipCount - 1)
+            if (i == count || weight > evaluatedWeights[i]) {
+                if (i < count) {
+                    totalWeight -= evaluatedWeights[i]
+                }
+                while (i > 0 && evaluatedWeights[i - 1] < weight) {
+                    evaluatedClips[i] = evaluatedClips[i - 1]
+                    evaluatedTimes[i] = evaluatedTimes[i - 1]
+                    evaluatedWeights[i] = evaluatedWeights[i - 1]
+                    i--
+                }
+                evaluatedClips[i] = clip
+                evaluatedTimes[i] = times[clip]
+                evaluatedWeights[i] = weight
+                totalWeight += weight
+                count = minOf(count + 1, maxBlendedClipCount)
+            }
+        }
+        for (i in 0 until count) {
+            evaluatedWeights[i] /= totalWeight
+        }
+        evaluatedClipCount = count
+    }
+
+    private fun evaluateAdditive() {
+        var count = 0
+        for (clip in 0 until clipCount) {
+            if (weights[clip] > 0.0f) {
+                evaluatedClips[count] = clip
+                evaluatedTimes[count] = times[clip]
+                evaluatedWeights[count] = weights[clip]
+                count++
+            }
+        }
+        evaluatedClipCount = count
+    }
+
+    private fun onChange() {
+        isChanged = true
+        onChanged?.run()
+    }
+
+    private fun wrapTime(clip: Int, time: Float): Float {
+        val duration = clipDurations[clip]
+        return when {
+            duration <= 0.0f -> 0.0f
+            isLooping[clip] -> (time % duration).let { if (it < 0.0f) it + duration else it }
+            else -> time.coerceIn(0.0f, duration)
+        }
+    }
+
+    private fun checkClip(clip: Int): Int {
+        if (clip !in 0 until clipCount) {
+            throw IndexOutOfBoundsException("No animation clip at index $clip")
+        }
+        return clip
+    }
+
+    companion object {
+        const val DEFAULT_MAX_BLENDED_CLIP_COUNT = 4
+    }
+}
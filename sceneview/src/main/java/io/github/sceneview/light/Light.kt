@@ -150,5 +150,6 @@ fun Light.clone(lifecycle: Lifecycle) = LightManager.Builder(type)
 fun Light.destroy() {
     Filament.engine.destroyEntity(this)
     Filament.engine.entityManager.destroy(this)
+    Filament.invalidateTransformInstances()
 //    Filament.lightManager.destroy(this)
 }
\ No newline at end of file
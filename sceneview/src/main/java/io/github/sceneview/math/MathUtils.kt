@@ -15,10 +15,10 @@ typealias Axis = VectorComponent
 typealias Transform = Mat4
 
 fun Transform(position: Position, quaternion: Quaternion, scale: Scale) =
-    translation(position) * rotation(quaternion) * scale(scale)
+    compose(position, quaternion, scale, Mat4())
 
 fun Transform(position: Position, rotation: Rotation, scale: Scale) =
-    translation(position) * rotation(rotation.toQuaternion()) * scale(scale)
+    compose(position, rotation.toQuaternion(), scale, Mat4())
 
 fun FloatArray.toFloat3() = this.let { (x, y, z) -> Float3(x, y, z) }
 fun FloatArray.toFloat4() = this.let { (x, y, z, w) -> Float4(x, y, z, w) }
@@ -105,13 +105,9 @@ fun slerp(
     speed: Float,
     epsilon: Float = DEFAULT_EPSILON
 ): Transform {
-    return if (!equals(start, end, epsilon)) {
+    return if (!nearlyEquals(start, end, epsilon)) {
         val lerpFactor = MathHelper.clamp((deltaSeconds * speed).toFloat(), 0.0f, 1.0f)
-        Transform(
-            position = lerp(start.position, end.position, lerpFactor, epsilon),
-            quaternion = slerp(start.quaternion, end.quaternion, lerpFactor, epsilon),
-            scale = lerp(start.scale, end.scale, lerpFactor, epsilon)
-        )
+        slerpInto(start, end, lerpFactor, Mat4(), epsilon)
     } else end
 }
 
@@ -0,0 +1,413 @@
+package io.github.sceneview.math
+
+import dev.romainguy.kotlin.math.*
+import kotlin.math.abs
+import kotlin.math.acos
+import kotlin.math.sin
+import kotlin.math.sqrt
+
+/*
+ * Allocation free variants of the math functions used on every frame.
+ *
+ * Each function writes its result into the `out` parameter and returns it. `out` can be one of the
+ * inputs.
+ */
+
+/**
+ * ### Build a translation * rotation * scale matrix
+ *
+ * Same result as `translation(position) * rotation(quaternion) * scale(scale)` without the
+ * intermediate matrices.
+ */
+fun compose(position: Float3, quaternion: Quaternion, scale: Float3, out: Mat4): Mat4 {
+    val l = 1.0f / sqrt(
+        quaternion.x * quaternion.x + quaternion.y * quaternion.y +
+                quaternion.z * quaternion.z + quaternion.w * quaternion.w
+    )
+    val qx = quaternion.x * l
+    val qy = quaternion.y * l
+    val qz = quaternion.z * l
+    val qw = quaternion.w * l
+    val sx = scale.x
+    val sy = scale.y
+    val sz = scale.z
+    out.x.x = (1.0f - 2.0f * (qy * qy + qz * qz)) * sx
+    out.x.y = 2.0f * (qx * qy + qz * qw) * sx
+    out.x.z = 2.0f * (qx * qz - qy * qw) * sx
+    out.x.w = 0.0f
+    out.y.x = 2.0f * (qx * qy - qz * qw) * sy
+    out.y.y = (1.0f - 2.0f * (qx * qx + qz * qz)) * sy
+    out.y.z = 2.0f * (qy * qz + qx * qw) * sy
+    out.y.w = 0.0f
+    out.z.x = 2.0f * (qx * qz + qy * qw) * sz
+    out.z.y = 2.0f * (qy * qz - qx * qw) * sz
+    out.z.z = (1.0f - 2.0f * (qx * qx + qy * qy)) * sz
+    out.z.w = 0.0f
+    out.w.x = position.x
+    out.w.y = position.y
+    out.w.z = position.z
+    out.w.w = 1.0f
+    return out
+}
+
+/**
+ * ### Extract the position, rotation and scale of a translation * rotation * scale matrix
+ *
+ * Same results as `m.position`, `m.quaternion` and `m.scale`.
+ * Pass null for the components that aren't needed.
+ */
+fun decompose(m: Mat4, outPosition: Float3?, outQuaternion: Quaternion?, outScale: Float3?) {
+    val sx = sqrt(m.x.x * m.x.x + m.x.y * m.x.y + m.x.z * m.x.z)
+    val sy = sqrt(m.y.x * m.y.x + m.y.y * m.y.y + m.y.z * m.y.z)
+    val sz = sqrt(m.z.x * m.z.x + m.z.y * m.z.y + m.z.z * m.z.z)
+    outPosition?.apply {
+        x = m.w.x
+        y = m.w.y
+        z = m.w.z
+    }
+    outQuaternion?.let { q ->
+        // Normalized rotation columns
+        val xx = m.x.x / sx
+        val xy = m.x.y / sx
+        val xz = m.x.z / sx
+        val yx = m.y.x / sy
+        val yy = m.y.y / sy
+        val yz = m.y.z / sy
+        val zx = m.z.x / sz
+        val zy = m.z.y / sz
+        val zz = m.z.z / sz
+        val trace = xx + yy + zz
+        when {
+            trace > 0.0f -> {
+                val s = 2.0f * sqrt(trace + 1.0f)
+                q.x = (yz - zy) / s
+                q.y = (zx - xz) / s
+                q.z = (xy - yx) / s
+                q.w = 0.25f * s
+            }
+            xx > yy && xx > zz -> {
+                val s = 2.0f * sqrt(1.0f + xx - yy - zz)
+                q.x = 0.25f * s
+                q.y = (yx + xy) / s
+                q.z = (zx + xz) / s
+                q.w = (yz - zy) / s
+            }
+            yy > zz -> {
+                val s = 2.0f * sqrt(1.0f + yy - xx - zz)
+                q.x = (yx + xy) / s
+                q.y = 0.25f * s
+                q.z = (zy + yz) / s
+                q.w = (zx - xz) / s
+            }
+            else -> {
+                val s = 2.0f * sqrt(1.0f + zz - xx - yy)
+                q.x = (zx + xz) / s
+                q.y = (zy + yz) / s
+                q.z = 0.25f * s
+                q.w = (xy - yx) / s
+            }
+        }
+        normalize(q, q)
+    }
+    outScale?.apply {
+        x = sx
+        y = sy
+        z = sz
+    }
+}
+
+/**
+ * ### Multiply two matrices
+ */
+fun mul(a: Mat4, b: Mat4, out: Mat4): Mat4 {
+    val xx = a.x.x * b.x.x + a.y.x * b.x.y + a.z.x * b.x.z + a.w.x * b.x.w
+    val xy = a.x.y * b.x.x + a.y.y * b.x.y + a.z.y * b.x.z + a.w.y * b.x.w
+    val xz = a.x.z * b.x.x + a.y.z * b.x.y + a.z.z * b.x.z + a.w.z * b.x.w
+    val xw = a.x.w * b.x.x + a.y.w * b.x.y + a.z.w * b.x.z + a.w.w * b.x.w
+    val yx = a.x.x * b.y.x + a.y.x * b.y.y + a.z.x * b.y.z + a.w.x * b.y.w
+    val yy = a.x.y * b.y.x + a.y.y * b.y.y + a.z.y * b.y.z + a.w.y * b.y.w
+    val yz = a.x.z * b.y.x + a.y.z * b.y.y + a.z.z * b.y.z + a.w.z * b.y.w
+    val yw = a.x.w * b.y.x + a.y.w * b.y.y + a.z.w * b.y.z + a.w.w * b.y.w
+    val zx = a.x.x * b.z.x + a.y.x * b.z.y + a.z.x * b.z.z + a.w.x * b.z.w
+    val zy = a.x.y * b.z.x + a.y.y * b.z.y + a.z.y * b.z.z + a.w.y * b.z.w
+    val zz = a.x.z * b.z.x + a.y.z * b.z.y + a.z.z * b.z.z + a.w.z * b.z.w
+    val zw = a.x.w * b.z.x + a.y.w * b.z.y + a.z.w * b.z.z + a.w.w * b.z.w
+    val wx = a.x.x * b.w.x + a.y.x * b.w.y + a.z.x * b.w.z + a.w.x * b.w.w
+    val wy = a.x.y * b.w.x + a.y.y * b.w.y + a.z.y * b.w.z + a.w.y * b.w.w
+    val wz = a.x.z * b.w.x + a.y.z * b.w.y + a.z.z * b.w.z + a.w.z * b.w.w
+    val ww = a.x.w * b.w.x + a.y.w * b.w.y + a.z.w * b.w.z + a.w.w * b.w.w
+    out.x.x = xx; out.x.y = xy; out.x.z = xz; out.x.w = xw
+    out.y.x = yx; out.y.y = yy; out.y.z = yz; out.y.w = yw
+    out.z.x = zx; out.z.y = zy; out.z.z = zz; out.z.w = zw
+    out.w.x = wx; out.w.y = wy; out.w.z = wz; out.w.w = ww
+    return out
+}
+
+/**
+ * ### Multiply two quaternions
+ */
+fun mul(a: Quaternion, b: Quaternion, out: Quaternion): Quaternion {
+    val x = a.y * b.z - a.z * b.y + a.w * b.x + a.x * b.w
+    val y = a.z * b.x - a.x * b.z + a.w * b.y + a.y * b.w
+    val z = a.x * b.y - a.y * b.x + a.w * b.z + a.z * b.w
+    val w = a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z
+    out.x = x
+    out.y = y
+    out.z = z
+    out.w = w
+    return out
+}
+
+/**
+ * ### Invert an affine matrix
+ *
+ * Only valid for matrices without projection, like the node transforms.
+ */
+fun inverseAffine(m: Mat4, out: Mat4): Mat4 {
+    // Inverse of the upper 3x3 by its cofactors
+    val a = m.x.x; val b = m.y.x; val c = m.z.x
+    val d = m.x.y; val e = m.y.y; val f = m.z.y
+    val g = m.x.z; val h = m.y.z; val i = m.z.z
+    val ca = e * i - f * h
+    val cb = f * g - d * i
+    val cc = d * h - e * g
+    val invDet = 1.0f / (a * ca + b * cb + c * cc)
+    val xx = ca * invDet
+    val xy = cb * invDet
+    val xz = cc * invDet
+    val yx = (c * h - b * i) * invDet
+    val yy = (a * i - c * g) * invDet
+    val yz = (b * g - a * h) * invDet
+    val zx = (b * f - c * e) * invDet
+    val zy = (c * d - a * f) * invDet
+    val zz = (a * e - b * d) * invDet
+    val tx = m.w.x
+    val ty = m.w.y
+    val tz = m.w.z
+    out.x.x = xx; out.x.y = xy; out.x.z = xz; out.x.w = 0.0f
+    out.y.x = yx; out.y.y = yy; out.y.z = yz; out.y.w = 0.0f
+    out.z.x = zx; out.z.y = zy; out.z.z = zz; out.z.w = 0.0f
+    out.w.x = -(xx * tx + yx * ty + zx * tz)
+    out.w.y = -(xy * tx + yy * ty + zy * tz)
+    out.w.z = -(xz * tx + yz * ty + zz * tz)
+    out.w.w = 1.0f
+    return out
+}
+
+fun copy(m: Mat4, out: Mat4): Mat4 {
+    out.x.x = m.x.x; out.x.y = m.x.y; out.x.z = m.x.z; out.x.w = m.x.w
+    out.y.x = m.y.x; out.y.y = m.y.y; out.y.z = m.y.z; out.y.w = m.y.w
+    out.z.x = m.z.x; out.z.y = m.z.y; out.z.z = m.z.z; out.z.w = m.z.w
+    out.w.x = m.w.x; out.w.y = m.w.y; out.w.z = m.w.z; out.w.w = m.w.w
+    return out
+}
+
+fun normalize(q: Quaternion, out: Quaternion): Quaternion {
+    val l = 1.0f / sqrt(q.x * q.x + q.y * q.y + q.z * q.z + q.w * q.w)
+    out.x = q.x * l
+    out.y = q.y * l
+    out.z = q.z * l
+    out.w = q.w * l
+    return out
+}
+
+/**
+ * ### Whether all the components of two matrices are within [epsilon]
+ */
+fun nearlyEquals(a: Mat4, b: Mat4, epsilon: Float = DEFAULT_EPSILON) =
+    nearlyEquals(a.x, b.x, epsilon) && nearlyEquals(a.y, b.y, epsilon) &&
+            nearlyEquals(a.z, b.z, epsilon) && nearlyEquals(a.w, b.w, epsilon)
+
+fun nearlyEquals(a: Float4, b: Float4, epsilon: Float = DEFAULT_EPSILON) =
+    abs(a.x - b.x) < epsilon && abs(a.y - b.y) < epsilon &&
+            abs(a.z - b.z) < epsilon && abs(a.w - b.w) < epsilon
+
+fun nearlyEquals(a: Float3, b: Float3, epsilon: Float = DEFAULT_EPSILON) =
+    abs(a.x - b.x) < epsilon && abs(a.y - b.y) < epsilon && abs(a.z - b.z) < epsilon
+
+/**
+ * Compare normalized quaternions
+ */
+fun nearlyEquals(a: Quaternion, b: Quaternion, epsilon: Float = DEFAULT_EPSILON) =
+    abs(a.x - b.x) < epsilon && abs(a.y - b.y) < epsilon &&
+            abs(a.z - b.z) < epsilon && abs(a.w - b.w) < epsilon
+
+/**
+ * ### Linear interpolation snapping to [end] when nearly reached
+ *
+ * @see lerp
+ */
+fun lerpInto(
+    start: Float3,
+    end: Float3,
+    t: Float,
+    out: Float3,
+    epsilon: Float = DEFAULT_EPSILON
+): Float3 {
+    if (nearlyEquals(start, end, epsilon)) {
+        out.x = end.x
+        out.y = end.y
+        out.z = end.z
+    } else {
+        out.x = start.x + (end.x - start.x) * t
+        out.y = start.y + (end.y - start.y) * t
+        out.z = start.z + (end.z - start.z) * t
+    }
+    return out
+}
+
+/**
+ * ### Spherical interpolation of normalized quaternions snapping to [end] when nearly reached
+ *
+ * @see slerp
+ */
+fun slerpInto(
+    start: Quaternion,
+    end: Quaternion,
+    t: Float,
+    out: Quaternion,
+    epsilon: Float = DEFAULT_EPSILON,
+    dotThreshold: Float = 0.9995f
+): Quaternion {
+    if (nearlyEquals(start, end, epsilon)) {
+        out.x = end.x
+        out.y = end.y
+        out.z = end.z
+        out.w = end.w
+        return out
+    }
+    var dot = start.x * end.x + start.y * end.y + start.z * end.z + start.w * end.w
+    // Follow the shortest path
+    val sign = if (dot < 0.0f) -1.0f else 1.0f
+    dot *= sign
+    val startFactor: Float
+    val endFactor: Float
+    if (dot < dotThreshold) {
+        val angle = acos(dot)
+        val s = sin(angle)
+        startFactor = sin((1.0f - t) * angle) / s
+        endFactor = sin(t * angle) / s * sign
+    } else {
+        // Too close for a stable angle, use the normalized linear interpolation
+        startFactor = 1.0f - t
+        endFactor = t * sign
+    }
+    out.x = start.x * startFactor + end.x * endFactor
+    out.y = start.y * startFactor + end.y * endFactor
+    out.z = start.z * startFactor + end.z * endFactor
+    out.w = start.w * startFactor + end.w * endFactor
+    return normalize(out, out)
+}
+
+/**
+ * ### Spherical interpolation of a transform components
+ *
+ * Allocation free version of [slerp].
+ */
+fun slerpInto(
+    start: Transform,
+    end: Transform,
+    t: Float,
+    out: Transform,
+    epsilon: Float = DEFAULT_EPSILON
+): Transform {
+    if (nearlyEquals(start, end, epsilon)) {
+        return copy(end, out)
+    }
+    return MathPool.current.use {
+        val startPosition = float3()
+        val startQuaternion = quaternion()
+        val startScale = float3()
+        val endPosition = float3()
+        val endQuaternion = quaternion()
+        val endScale = float3()
+        decompose(start, startPosition, startQuaternion, startScale)
+        decompose(end, endPosition, endQuaternion, endScale)
+        compose(
+            position = lerpInto(startPosition, endPosition, t, startPosition, epsilon),
+            quaternion = slerpInto(startQuaternion, endQuaternion, t, startQuaternion, epsilon),
+            scale = lerpInto(startScale, endScale, t, startScale, epsilon),
+            out = out
+        )
+    }
+}
+
+/**
+ * ### Reusable math objects for temporary values
+ *
+ * Borrow objects inside [use]. They are given back when it returns so nested calls never share
+ * them. Don't keep a reference to a borrowed object outside of its [use] block.
+ *
+ * Each thread has its own pool, see [current].
+ */
+class MathPool {
+
+    private val float3s = ArrayList<Float3>()
+    private val quaternions = ArrayList<Quaternion>()
+    private val mat4s = ArrayList<Mat4>()
+
+    @PublishedApi
+    internal var float3Count = 0
+
+    @PublishedApi
+    internal var quaternionCount = 0
+
+    @PublishedApi
+    internal var mat4Count = 0
+
+    inline fun <R> use(block: MathPool.() -> R): R {
+        val float3Count = float3Count
+        val quaternionCount = quaternionCount
+        val mat4Count = mat4Count
+        try {
+            return block()
+        } finally {
+            this.float3Count = float3Count
+            this.quaternionCount = quaternionCount
+            this.mat4Count = mat4Count
+        }
+    }
+
+    /**
+     * ### Borrow a Float3 with undefined values
+     */
+    fun float3(): Float3 {
+        if (float3Count == float3s.size) {
+            float3s.add(Float3())
+        }
+        return float3s[float3Count++]
+    }
+
+    /**
+     * ### Borrow a Quaternion with undefined values
+     */
+    fun quaternion(): Quaternion {
+        if (quaternionCount == quaternions.size) {
+            quaternions.add(Quaternion())
+        }
+        return quaternions[quaternionCount++]
+    }
+
+    /**
+     * ### Borrow a Mat4 with undefined values
+     */
+    fun mat4(): Mat4 {
+        if (mat4Count == mat4s.size) {
+            mat4s.add(Mat4())
+        }
+        return mat4s[mat4Count++]
+    }
+
+    companion object {
+        private val pools = object : ThreadLocal<MathPool>() {
+            override fun initialValue() = MathPool()
+        }
+
+        /**
+         * ### The pool of the calling thread
+         */
+        @JvmStatic
+        val current: MathPool
+            get() = pools.get()!!
+    }
+}
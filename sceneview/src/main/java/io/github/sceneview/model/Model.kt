@@ -24,4 +24,5 @@ fun Model.applyAnimation(animationIndex: Int, time: Float) =
 fun Model.destroy() {
     releaseSourceData()
     Filament.assetLoader.destroyAsset(this)
+    Filament.invalidateTransformInstances()
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package io.github.sceneview.node
+
+import android.content.Context
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.coroutineScope
+import com.google.ar.sceneform.CameraNode
+import com.google.ar.sceneform.rendering.Renderable
+import com.google.ar.sceneform.rendering.RenderableInstance
+import dev.romainguy.kotlin.math.Float3
+import dev.romainguy.kotlin.math.Float4
+import dev.romainguy.kotlin.math.distance
+import dev.romainguy.kotlin.math.length
+import io.github.sceneview.SceneView
+import io.github.sceneview.model.GLBLoader
+import kotlin.math.sqrt
+
+/**
+ * ### A [ModelNode] level of detail
+ *
+ * @param glbFileLocation the level model location. See [ModelNode.loadModel]
+ * @param minScreenCoverage the level is displayed while the model bounding sphere diameter covers
+ * at least this fraction of the viewport height. The last level should use 0.
+ */
+data class LodLevel(val glbFileLocation: String, val minScreenCoverage: Float)
+
+/**
+ * ### Switches a [ModelNode] model between levels of detail depending on its size on screen
+ *
+ * Each time the node or the camera moves, the displayed model bounding sphere is projected with
+ * the [CameraNode] projection to get its [screenCoverage]. A change of the projection alone is
+ * picked up on the next move. The most detailed level whose [LodLevel.minScreenCoverage] is
+ * reached is then displayed. A level only changes when the coverage crosses its threshold by more than the
+ * [hysteresis] ratio so that a model at the limit doesn't flicker between two levels.
+ *
+ * Levels are loaded the first time they are needed, starting with the least detailed one, and the
+ * current level stays displayed until the new one is ready.
+ * Once replaced, a level instance is kept for the next switches until the total estimated size of
+ * the inactive levels of all the nodes exceeds [inactiveLevelsBudgetBytes]. The least recently
+ * used ones are then destroyed and will be loaded again if needed. The levels kept by a node are
+ * forgotten when it is destroyed or when its lifecycle is destroyed with their instances.
+ *
+ * Must only be used from the main thread.
+ *
+ * @see ModelNode.setLodLevels
+ */
+class ModelLod internal constructor(
+    private val node: ModelNode,
+    private val context: Context,
+    private val lifecycle: Lifecycle,
+    val levels: List<LodLevel>,
+    private val autoAnimate: Boolean,
+    private val onError: ((error: Exception) -> Unit)?
+) {
+
+    /**
+     * ### Relative margin around the level thresholds
+     */
+    var hysteresis = DEFAULT_HYSTERESIS
+
+    /**
+     * ### The displayed level index, -1 until one is loaded
+     */
+    var currentLevel = -1
+        private set
+
+    /**
+     * ### The level index that should be displayed
+     */
+    var targetLevel = levels.lastIndex
+        private set
+
+    /**
+     * ### The last computed fraction of the viewport height covered by the model
+     */
+    var screenCoverage = 0.0f
+        private set
+
+    private val instances = arrayOfNulls<RenderableInstance>(levels.size)
+    private val isLoading = BooleanArray(levels.size)
+    private var isDestroyed = false
+
+    // Set when the node, the camera or the displayed model changed since the last coverage
+    private var isCoverageDirty = true
+    private var projectionScaleY = 0.0f
+    private var cameraNode: CameraNode? = null
+    private val onCameraTransformChanged: (node: Node) -> Unit = { invalidate() }
+
+    // The level instances are destroyed with the lifecycle
+    private val lifecycleObserver = object : DefaultLifecycleObserver {
+        override fun onDestroy(owner: LifecycleOwner) {
+            forget()
+        }
+    }
+
+    /**
+     * ### Whether the level must be evaluated or a loaded level is waiting to be displayed
+     */
+    internal val isFrameActive
+        get() = isCoverageDirty || (targetLevel != currentLevel && instances[targetLevel] != null)
+
+    init {
+        require(levels.isNotEmpty()) { "At least one level is needed" }
+        lifecycle.addObserver(lifecycleObserver)
+    }
+
+    internal fun onFrame(sceneView: SceneView?) {
+        val cameraNode = sceneView?.cameraNode
+        if (cameraNode !== this.cameraNode) {
+            this.cameraNode?.onTransformChanged?.remove(onCameraTransformChanged)
+            cameraNode?.onTransformChanged?.add(onCameraTransformChanged)
+            this.cameraNode = cameraNode
+            isCoverageDirty = true
+        }
+        if (sceneView != null && (isCoverageDirty ||
+                    sceneView.cameraNode.projectionMatrix.data[5] != projectionScaleY)
+        ) {
+            isCoverageDirty = false
+            computeScreenCoverage(sceneView)?.let { coverage ->
+                screenCoverage = coverage
+                targetLevel = selectLevel(levels, coverage, targetLevel, hysteresis)
+            }
+        }
+        val instance = instances[targetLevel]
+        when {
+            instance == null -> load(targetLevel)
+            targetLevel != currentLevel -> show(targetLevel, instance)
+        }
+    }
+
+    /**
+     * ### Evaluate the level again on the next frame
+     */
+    internal fun invalidate() {
+        isCoverageDirty = true
+        node.requestFrame()
+    }
+
+    internal fun isLevelInstance(instance: RenderableInstance) = instances.contains(instance)
+
+    internal fun destroy() {
+        if (isDestroyed) {
+            return
+        }
+        for (level in instances.indices) {
+            // The displayed one is destroyed with the node model
+            if (level != currentLevel) {
+                instances[level]?.let { unload(it) }
+            }
+        }
+        forget()
+    }
+
+    // Drops the levels without destroying them
+    private fun forget() {
+        isDestroyed = true
+        lifecycle.removeObserver(lifecycleObserver)
+        cameraNode?.onTransformChanged?.remove(onCameraTransformChanged)
+        cameraNode = null
+        for (level in instances.indices) {
+            instances[level]?.let { instance ->
+                inactiveLevels.remove(instance)?.let {
+                    inactiveLevelsBytes -= instance.renderable.sourceDataSize
+                }
+            }
+            instances[level] = null
+        }
+    }
+
+    private fun computeScreenCoverage(sceneView: SceneView): Float? {
+        val boundingBox = node.modelInstance?.filamentAsset?.boundingBox ?: return null
+        val worldTransform = node.worldTransform
+        val center = boundingBox.center.let { v -> worldTransform * Float4(v[0], v[1], v[2], 1.0f) }
+        val radius = boundingBox.halfExtent.let { v ->
+            length(Float3(v[0], v[1], v[2]) * worldTransform.scale)
+        }
+        val cameraNode = sceneView.cameraNode
+        projectionScaleY = cameraNode.projectionMatrix.data[5]
+        return screenCoverage(
+            radius = radius,
+            distance = distance(center.xyz, cameraNode.worldPosition),
+            projectionScaleY = projectionScaleY
+        )
+    }
+
+    private fun show(level: Int, instance: RenderableInstance) {
+        inactiveLevels.remove(instance)?.let {
+            inactiveLevelsBytes -= instance.renderable.sourceDataSize
+        }
+        instances.getOrNull(currentLevel)?.let { release(it) }
+        currentLevel = level
+        node.modelInstance = instance
+        // The new model bounding box
+        isCoverageDirty = true
+    }
+
+    private fun load(level: Int) {
+        if (isLoading[level]) {
+            return
+        }
+        isLoading[level] = true
+        lifecycle.coroutineScope.launchWhenCreated {
+            try {
+                GLBLoader.loadModel(context, lifecycle, levels[level].glbFileLocation)
+                    ?.let { model ->
+                        if (!isDestroyed) {
+                            instances[level] = createInstance(model).also { release(it) }
+                            node.requestFrame()
+                        }
+                    }
+            } catch (error: Exception) {
+                node.onModelError(error)
+                onError?.invoke(error)
+            } finally {
+                isLoading[level] = false
+            }
+        }
+    }
+
+    private fun createInstance(model: Renderable) = model.createInstance(
+        node,
+        node.isInstanced || model.isInstancingEnabled
+    ).apply {
+        if (autoAnimate) {
+            animationMixer?.apply {
+                isAdditive = true
+                playAll()
+            }
+        }
+    }
+
+    // Keep an inactive level for the next switches within the budget
+    private fun release(instance: RenderableInstance) {
+        val size = instance.renderable.sourceDataSize
+        val iterator = inactiveLevels.entries.iterator()
+        while (inactiveLevelsBytes + size > inactiveLevelsBudgetBytes && iterator.hasNext()) {
+            val (evicted, lod) = iterator.next()
+            iterator.remove()
+            inactiveLevelsBytes -= evicted.renderable.sourceDataSize
+            lod.instances.indexOf(evicted).takeIf { it >= 0 }?.let { lod.instances[it] = null }
+            evicted.destroy()
+        }
+        inactiveLevels[instance] = this
+        inactiveLevelsBytes += size
+    }
+
+    private fun unload(instance: RenderableInstance) {
+        inactiveLevels.remove(instance)?.let {
+            inactiveLevelsBytes -= instance.renderable.sourceDataSize
+        }
+        instance.destroy()
+    }
+
+    companion object {
+        const val DEFAULT_HYSTERESIS = 0.15f
+        const val DEFAULT_INACTIVE_LEVELS_BUDGET_BYTES = 64L * 1024 * 1024
+
+        /**
+         * ### Estimated size of the inactive levels kept by all the nodes
+         *
+         * Based on the levels glTF source data size.
+         *
+         * @see Renderable.getSourceDataSize
+         */
+        @JvmStatic
+        var inactiveLevelsBudgetBytes = DEFAULT_INACTIVE_LEVELS_BUDGET_BYTES
+
+        /**
+         * ### Estimated size of the currently kept inactive levels
+         */
+        @JvmStatic
+        var inactiveLevelsBytes = 0L
+            private set
+
+        // Least recently used first
+        private val inactiveLevels = LinkedHashMap<RenderableInstance, ModelLod>()
+
+        /**
+         * ### Fraction of the viewport height covered by a bounding sphere
+         *
+         * @param radius the sphere radius
+         * @param distance the distance from the camera to the sphere center
+         * @param projectionScaleY the camera projection matrix vertical scale:
+         * `1 / tan(verticalFov / 2)`
+         */
+        fun screenCoverage(radius: Float, distance: Float, projectionScaleY: Float): Float =
+            if (distance <= radius) {
+                Float.POSITIVE_INFINITY
+            } else {
+                radius * projectionScaleY / sqrt(distance * distance - radius * radius)
+            }
+
+        /**
+         * ### The level to display for a screen coverage
+         *
+         * @param currentLevel the currently selected level
+         * @param hysteresis relative margin that the coverage must cross around a level threshold
+         * to change the level
+         */
+        fun selectLevel(
+            levels: List<LodLevel>,
+            screenCoverage: Float,
+            currentLevel: Int,
+            hysteresis: Float = DEFAULT_HYSTERESIS
+        ): Int {
+            var level = currentLevel.coerceIn(0, levels.lastIndex)
+            while (level > 0 &&
+                screenCoverage >= levels[level - 1].minScreenCoverage * (1.0f + hysteresis)
+            ) {
+                level--
+            }
+            while (level < levels.lastIndex &&
+                screenCoverage < levels[level].minScreenCoverage * (1.0f - hysteresis)
+            ) {
+                level++
+            }
+            return level
+        }
+    }
+}
@@ -32,6 +32,9 @@ open class ModelNode : Node {
         val DEFAULT_MODEL_QUATERNION = Quaternion()
         val DEFAULT_MODEL_ROTATION = DEFAULT_MODEL_QUATERNION.toEulerAngles()
         val DEFAULT_MODEL_SCALE = Scale(1.0f)
+
+        // Longest animation step so that the animations don't jump after a pause
+        private const val MAX_ANIMATION_INTERVAL_SECONDS = 0.1f
     }
 
     /**
@@ -48,11 +51,23 @@ open class ModelNode : Node {
      * relative to its center.
      */
     open var modelPosition = DEFAULT_MODEL_POSITION
+        set(value) {
+            if (field != value) {
+                field = value
+                onModelTransformChanged()
+            }
+        }
 
     /**
      * TODO: Doc
      */
     var modelQuaternion: Quaternion = DEFAULT_MODEL_QUATERNION
+        set(value) {
+            if (field != value) {
+                field = value
+                onModelTransformChanged()
+            }
+        }
 
     /**
      * ### The node model orientation
@@ -79,20 +94,45 @@ open class ModelNode : Node {
      * ### The node model scale
      */
     open var modelScale = DEFAULT_MODEL_SCALE
-
-    open var modelTransform: Transform = Transform(modelPosition, modelQuaternion, modelScale)
-        get() = field.takeIf {
-            it.position == modelPosition && it.quaternion == modelQuaternion && it.scale == modelScale
-        } ?: Transform(modelPosition, modelQuaternion, modelScale)
         set(value) {
             if (field != value) {
                 field = value
+                onModelTransformChanged()
+            }
+        }
+
+    open var modelTransform: Transform
+        get() = cachedModelTransform?.takeIf {
+            cachedModelPosition == modelPosition && cachedModelQuaternion == modelQuaternion &&
+                    cachedModelScale == modelScale
+        } ?: Transform(modelPosition, modelQuaternion, modelScale).also {
+            val isEditedInPlace = cachedModelTransform != null
+            cacheModelTransform(it)
+            if (isEditedInPlace) {
+                onTransformChanged()
+            }
+        }
+        set(value) {
+            if (modelTransform != value) {
+                allowDispatchTransformChanged = false
                 modelPosition = value.position
                 modelQuaternion = value.quaternion
                 modelScale = value.scale
+                allowDispatchTransformChanged = true
+                cacheModelTransform(value)
+                onTransformChanged()
             }
         }
 
+    // Cached model transform, invalidated by the model components setters. The copies of the
+    // components it was made from catch their in place edits.
+    private var cachedModelTransform: Transform? = null
+    private val cachedModelPosition = Position()
+    private val cachedModelQuaternion = Quaternion()
+    private val cachedModelScale = Scale()
+
+    private var allowDispatchTransformChanged = true
+
     /**
      * ### The [RenderableInstance] to display.
      *
@@ -105,9 +145,13 @@ open class ModelNode : Node {
     var modelInstance: RenderableInstance? = null
         set(value) {
             if (field != value) {
-                field?.destroy()
+                // The levels of detail instances are kept for the next switches
+                field?.takeIf { lod?.isLevelInstance(it) != true }?.destroy()
                 field = value
-                sceneEntities = value?.filamentAsset?.entities ?: intArrayOf()
+                sceneEntities = value?.childEntities ?: intArrayOf()
+                // The new root entity needs the world transform
+                isWorldTransformPending = true
+                requestFrame()
                 onModelChanged(value)
             }
         }
@@ -115,15 +159,43 @@ open class ModelNode : Node {
     val model: Renderable?
         get() = modelInstance?.renderable
 
+    /**
+     * ### Share the model glTF data with the other instanced nodes using the same model
+     *
+     * Buffers, textures and materials are parsed and uploaded once and each node only gets its own
+     * entities from a pool of Filament instances.
+     * Use it when displaying many copies of the same model.
+     *
+     * Must be set before the model. Also enabled by [Renderable.isInstancingEnabled].
+     */
+    var isInstanced = false
+
+    /**
+     * ### The levels of detail switching the model depending on its size on screen
+     *
+     * @see setLodLevels
+     */
+    var lod: ModelLod? = null
+        private set
+
     var onModelLoaded = mutableListOf<OnModelLoaded>()
     var onModelChanged = mutableListOf<(modelInstance: RenderableInstance?) -> Unit>()
     var onModelError: ((exception: Exception) -> Unit)? = null
 
     override val transformEntity: Int?
-        get() = modelInstance?.filamentAsset?.root
+        get() = modelInstance?.rootEntity
+
+    // Cached world transform including the model transform, invalidated by onTransformChanged()
+    private var cachedModelWorldTransform: Transform? = null
 
     override val worldTransform: Transform
-        get() = super.worldTransform * modelTransform
+        get() {
+            // Catch the node and model components in place edits before using the cache
+            val nodeWorldTransform = super.worldTransform
+            val modelTransform = modelTransform
+            return cachedModelWorldTransform
+                ?: (nodeWorldTransform * modelTransform).also { cachedModelWorldTransform = it }
+        }
 
     // Rendering fields.
     private var renderableId: Int = ChangeId.EMPTY_ID
@@ -208,10 +280,26 @@ open class ModelNode : Node {
         this.modelInstance = modelInstance
     }
 
+    override val isFrameActive: Boolean
+        get() = super.isFrameActive || modelInstance?.isDrawPending == true ||
+                model?.id?.checkChanged(renderableId) == true || lod?.isFrameActive == true ||
+                modelInstance?.isAnimating == true
+
     override fun onFrame(frameTime: FrameTime) {
         super.onFrame(frameTime)
 
-        modelInstance?.prepareForDraw(sceneView)
+        lod?.onFrame(sceneView)
+
+        modelInstance?.let { modelInstance ->
+            modelInstance.animationMixer?.advance(
+                frameTime.intervalSeconds.toFloat().coerceAtMost(MAX_ANIMATION_INTERVAL_SECONDS)
+            )
+            // Running animations change the model every frame
+            if (modelInstance.isDrawPending) {
+                requestRender()
+            }
+            modelInstance.prepareForDraw(sceneView)
+        }
 
         // TODO : Remove the renderable.id thing when Renderable is kotlined
         // Update state when the renderable has changed.
@@ -222,6 +310,27 @@ open class ModelNode : Node {
         }
     }
 
+    override fun onTransformChanged() {
+        cachedModelWorldTransform = null
+        // The screen coverage changes with the node world transform
+        lod?.invalidate()
+        super.onTransformChanged()
+    }
+
+    private fun cacheModelTransform(transform: Transform) {
+        cachedModelTransform = transform
+        cachedModelPosition.xyz = modelPosition
+        cachedModelQuaternion.xyzw = modelQuaternion.xyzw
+        cachedModelScale.xyz = modelScale
+    }
+
+    private fun onModelTransformChanged() {
+        cachedModelTransform = null
+        if (allowDispatchTransformChanged) {
+            onTransformChanged()
+        }
+    }
+
     open fun onModelLoaded(modelInstance: RenderableInstance) {
         onModelLoaded.forEach { it(modelInstance) }
     }
@@ -378,7 +487,8 @@ open class ModelNode : Node {
     /**
      * ### Set the node model
      *
-     * @param autoAnimate Plays the animations automatically if the model has one
+     * @param autoAnimate Plays the animations automatically if the model has one. See
+     * [RenderableInstance.getAnimationMixer]
      * @param scaleToUnits Scale the model to fit a unit cube. Default `null` to keep model original
      * size
      * @param centerOrigin Center the model origin to this unit cube position
@@ -395,9 +505,17 @@ open class ModelNode : Node {
         scaleToUnits: Float? = null,
         centerOrigin: Position? = null,
     ): RenderableInstance? {
-        modelInstance = renderable?.createInstance(this)?.apply {
-            if (autoAnimate && animationCount > 0) {
-                animate(true)?.start()
+        clearLod()
+        modelInstance = renderable?.createInstance(
+            this,
+            isInstanced || renderable.isInstancingEnabled
+        )?.apply {
+            if (autoAnimate) {
+                animationMixer?.apply {
+                    // Like the ObjectAnimator playback, each clip plays fully
+                    isAdditive = true
+                    playAll()
+                }
             }
         }
         scaleToUnits?.let { scaleModel(it) }
@@ -405,6 +523,47 @@ open class ModelNode : Node {
         return modelInstance
     }
 
+    /**
+     * ### Display the model level of detail matching its size on screen
+     *
+     * The levels are loaded when first needed, starting with the least detailed one.
+     *
+     * @param lifecycle Provide your lifecycle in order to load the levels and to destroy them when
+     * the lifecycle goes to destroy state. Passing null means the levels will be loaded within the
+     * [SceneView] lifecycle once the node is attached.
+     * @param levels the levels from the most detailed to the least detailed one, with decreasing
+     * [LodLevel.minScreenCoverage]
+     * @param autoAnimate Plays the animations automatically if the levels models have some
+     *
+     * @see ModelLod
+     */
+    fun setLodLevels(
+        context: Context,
+        lifecycle: Lifecycle? = null,
+        levels: List<LodLevel>,
+        autoAnimate: Boolean = true,
+        onError: ((error: Exception) -> Unit)? = null
+    ): ModelNode {
+        if (lifecycle != null) {
+            clearLod()
+            lod = ModelLod(this, context, lifecycle, levels, autoAnimate, onError)
+            requestFrame()
+        } else {
+            doOnAttachedToScene { sceneView ->
+                setLodLevels(context, sceneView.lifecycle, levels, autoAnimate, onError)
+            }
+        }
+        return this
+    }
+
+    // The displayed level instance is then owned by the node like a regular model
+    private fun clearLod() {
+        lod?.let { lod ->
+            this.lod = null
+            lod.destroy()
+        }
+    }
+
     /**
      * ### Sets up a root transform on the current model to make it fit into a unit cube
      *
@@ -439,6 +598,7 @@ open class ModelNode : Node {
 
     /** ### Detach and destroy the node */
     override fun destroy() {
+        clearLod()
         modelInstance?.destroy()
         super.destroy()
     }
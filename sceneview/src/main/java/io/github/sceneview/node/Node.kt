@@ -14,6 +14,7 @@ import com.google.ar.sceneform.math.Matrix
 import com.google.ar.sceneform.math.Vector3
 import com.google.ar.sceneform.rendering.*
 import dev.romainguy.kotlin.math.*
+import io.github.sceneview.Filament
 import io.github.sceneview.Filament.transformManager
 import io.github.sceneview.SceneLifecycle
 import io.github.sceneview.SceneLifecycleObserver
@@ -22,8 +23,9 @@ import io.github.sceneview.animation.NodeAnimator
 import io.github.sceneview.gesture.*
 import io.github.sceneview.math.*
 import io.github.sceneview.renderable.Renderable
-import io.github.sceneview.setTransform
+import io.github.sceneview.utils.FrameProfiler
 import io.github.sceneview.utils.FrameTime
+import io.github.sceneview.utils.TransformBatch
 import kotlin.reflect.KProperty
 
 // This is the default from the ViewConfiguration class.
@@ -85,16 +87,24 @@ open class Node(
     open val transformEntity: Int? = null
     val transformInstance: Int?
         @EntityInstance
-        get() = transformEntity?.let { transformManager.getInstance(it) }
+        get() = transformEntity?.let { getTransformInstance(it) }
 
+    // Cached TransformManager instance of the transform entity
+    @Entity
+    private var cachedTransformEntity = 0
+    @EntityInstance
+    private var cachedTransformInstance = 0
+    private var cachedTransformInstancesVersion = 0
 
     @Entity
     open var sceneEntities: IntArray = intArrayOf()
         set(value) {
-            field.takeIf { it.isNotEmpty() }?.let { sceneView?.scene?.removeEntities(it) }
+            field.takeIf { it.isNotEmpty() }?.let { sceneView?.removeEntities(it) }
+            sceneView?.removeEntityNode(this, field)
             field = value
+            sceneView?.addEntityNode(this, value)
             if (isVisibleInHierarchy) {
-                sceneView?.scene?.addEntities(sceneEntities)
+                sceneView?.addEntities(sceneEntities)
             }
         }
 
@@ -139,13 +149,28 @@ open class Node(
      * ----/----|---------
      *
      * +z ---- -y --------
+     *
+     * Assign a new value rather than editing the components in place: in place edits are only
+     * picked up on the next frame.
      */
     var position: Position = position
+        set(value) {
+            if (field != value) {
+                field = value
+                onLocalTransformChanged()
+            }
+        }
 
     /**
      * TODO: Doc
      */
     var quaternion: Quaternion = quaternion
+        set(value) {
+            if (field != value) {
+                field = value
+                onLocalTransformChanged()
+            }
+        }
 
     /**
      * ### The node orientation in Euler Angles Degrees per axis from `0.0f` to `360.0f`
@@ -182,17 +207,55 @@ open class Node(
      * Reduce (`scale < 1.0f`) / Increase (`scale > 1.0f`)
      */
     var scale: Scale = scale
-
-    open var transform: Transform = Transform(position, quaternion, scale)
-        get() = field.takeIf {
-            it.position == position && it.quaternion == quaternion && it.scale == scale
-        } ?: Transform(position, quaternion, scale)
         set(value) {
             if (field != value) {
                 field = value
-                position = value.position
-                quaternion = value.quaternion
-                scale = value.scale
+                onLocalTransformChanged()
+            }
+        }
+
+    // Cached local and world matrices. They are only rebuilt after a transform change has been
+    // dispatched through onTransformChanged() so an unchanged subtree costs no matrix math.
+    private var cachedTransform: Transform? = null
+    private var cachedWorldTransform: Transform? = null
+
+    // Copies of the components used to build cachedTransform, used to catch in place edits
+    private val cachedPosition = Position()
+    private val cachedQuaternion = Quaternion()
+    private val cachedScale = Scale()
+
+    // The world transform changed and has not been pushed to the TransformManager yet
+    protected var isWorldTransformPending = true
+
+    // The components were edited in place since the transform was cached
+    internal val isTransformEditedInPlace
+        get() = cachedTransform != null &&
+                (cachedPosition != position || cachedQuaternion != quaternion || cachedScale != scale)
+
+    open var transform: Transform
+        get() = cachedTransform?.takeIf {
+            cachedPosition == position && cachedQuaternion == quaternion && cachedScale == scale
+        } ?: Transform(position, quaternion, scale).also {
+            val isEditedInPlace = cachedTransform != null
+            cacheTransform(it)
+            if (isEditedInPlace) {
+                onTransformChanged()
+            }
+        }
+        set(value) {
+            if (transform != value) {
+                allowDispatchTransformChanged = false
+                // Only the new components are allocated
+                val position = Position()
+                val quaternion = Quaternion()
+                val scale = Scale()
+                decompose(value, position, quaternion, scale)
+                this.position = position
+                this.quaternion = quaternion
+                this.scale = scale
+                allowDispatchTransformChanged = true
+                cacheTransform(value)
+                onTransformChanged()
             }
         }
 
@@ -257,13 +320,21 @@ open class Node(
         }
 
     open val worldTransform: Mat4
-        get() = parentNode?.let { it.worldTransform * transform } ?: transform
+        get() {
+            // Reading the parents and local transforms first catches their components in place
+            // edits, which invalidate the cached world transform
+            val parentWorldTransform = parentNode?.worldTransform
+            val transform = transform
+            return cachedWorldTransform
+                ?: (parentWorldTransform?.let { it * transform } ?: transform)
+                    .also { cachedWorldTransform = it }
+        }
 
     /**
      * ### The transform from the world coordinate system to the coordinate system of the parent node
      */
     private val worldToParent: Transform
-        get() = parentNode?.let { inverse(it.worldTransform) } ?: Transform()
+        get() = parentNode?.let { inverseAffine(it.worldTransform, Mat4()) } ?: Transform()
 
     /**
      * ## The smooth position, rotation and scale speed
@@ -273,9 +344,32 @@ open class Node(
     var smoothSpeed = 5.0f
 
     var smoothTransform: Transform = Transform(transform)
+        set(value) {
+            field = value
+            requestFrame()
+        }
 
     private var lastFrameTransform: Transform? = null
-    private var lastFrameWorldTransform: Transform? = null
+
+    // The SceneView scheduler and transforms batch while attached
+    internal var frameScheduler: NodeFrameScheduler? = null
+    internal var transformBatch: TransformBatch? = null
+    internal var isFrameScheduled = false
+    internal var lastFrameNumber = 0L
+    internal var attachedIndex = -1
+
+    /**
+     * ### Whether the node needs to receive the next [onFrame] call
+     *
+     * Static nodes are skipped by the [SceneView] frame dispatch. A node is active while it is
+     * smoothing, while its world transform has not been pushed to Filament or while it has [onFrame]
+     * listeners.
+     *
+     * Override it if a subclass [onFrame] has work to do on other conditions and call [requestFrame]
+     * when one of them starts.
+     */
+    open val isFrameActive: Boolean
+        get() = isWorldTransformPending || smoothTransform != transform || onFrame.isNotEmpty()
 
     /**
      * ### The node can be selected when a touch event happened
@@ -297,9 +391,9 @@ open class Node(
             if (field != value) {
                 field = value
                 if (isVisibleInHierarchy) {
-                    sceneView?.scene?.addEntities(sceneEntities)
+                    sceneView?.addEntities(sceneEntities)
                 } else {
-                    sceneView?.scene?.removeEntities(sceneEntities)
+                    sceneView?.removeEntities(sceneEntities)
                 }
             }
         }
@@ -352,15 +446,18 @@ open class Node(
     var parent: NodeParent? = null
         set(value) {
             if (field != value) {
-                // Remove from old parent if not already removed
-                field?.takeIf { this in it.children }?.removeChild(this)
+                val oldParent = field
                 // Find the old parent SceneView
-                ((field as? SceneView) ?: (field as? Node)?.sceneView)?.let { detachFromScene(it) }
+                ((oldParent as? SceneView) ?: (oldParent as? Node)?.sceneView)?.let {
+                    detachFromScene(it)
+                }
                 field = value
-                // Add to new parent if not already added
-                value?.takeIf { this !in it.children }?.addChild(this)
+                oldParent?._removeChild(this)
+                value?._addChild(this)
                 // Find the new parent SceneView
                 ((value as? SceneView) ?: (value as? Node)?.sceneView)?.let { attachToScene(it) }
+                // The world transform is relative to the new parent
+                onTransformChanged()
             }
         }
 
@@ -372,7 +469,12 @@ open class Node(
         private set
 
     /** ### Listener for [onFrame] call */
-    val onFrame = mutableListOf<((frameTime: FrameTime, node: Node) -> Unit)>()
+    val onFrame: MutableList<(frameTime: FrameTime, node: Node) -> Unit> =
+        object : ArrayList<(frameTime: FrameTime, node: Node) -> Unit>() {
+            // The node must be ticked as long as it has listeners
+            override fun add(element: (frameTime: FrameTime, node: Node) -> Unit) =
+                super.add(element).also { requestFrame() }
+        }
 
     /** ### Listener for [onAttachToScene] call */
     val onAttachedToScene = mutableListOf<((scene: SceneView) -> Unit)>()
@@ -400,7 +502,9 @@ open class Node(
      */
     var onTap: ((motionEvent: MotionEvent, renderable: Renderable?) -> Unit)? = null
 
-    override var _children = listOf<Node>()
+    override val _children = ArrayList<Node>()
+    override var _childrenSnapshot: List<Node>? = null
+    override var _allChildren: List<Node>? = null
 
     private var allowDispatchTransformChanged = true
 
@@ -429,22 +533,32 @@ open class Node(
 
     open fun attachToScene(sceneView: SceneView) {
         sceneView.lifecycle.addObserver(this)
+        sceneView.frameScheduler.attach(this)
+        transformBatch = sceneView.transformBatch
         if (isVisibleInHierarchy) {
-            sceneView.scene.addEntities(sceneEntities)
+            sceneView.addEntities(sceneEntities)
         }
+        sceneView.addEntityNode(this, sceneEntities)
         sceneView.collisionSystem.let { collider?.setAttachedCollisionSystem(it) }
-        if (selectionVisualizer == null) {
-            selectionVisualizer = sceneView.selectionVisualizer?.invoke()
-        }
         children.forEach { it.attachToScene(sceneView) }
+        if (isSelected) {
+            updateSelectionVisualizer()
+        }
         onAttachedToScene(sceneView)
     }
 
     open fun detachFromScene(sceneView: SceneView) {
         sceneView.lifecycle.removeObserver(this)
-        sceneView.scene.removeEntities(sceneEntities)
+        frameScheduler?.detach(this)
+        transformBatch = null
+        sceneView.removeEntities(sceneEntities)
+        sceneView.removeEntityNode(this, sceneEntities)
         collider?.setAttachedCollisionSystem(null)
-        children.forEach { it.attachToScene(sceneView) }
+        sharedSelectionVisualizer?.let {
+            sharedSelectionVisualizer = null
+            sceneView.selectionVisualizers.release(it)
+        }
+        children.forEach { it.detachFromScene(sceneView) }
         onDetachedFromScene(sceneView)
     }
 
@@ -456,8 +570,30 @@ open class Node(
         onDetachedFromScene.toList().forEach { it(sceneView) }
     }
 
+    /**
+     * ### Make sure that the node receives the next [onFrame] call
+     *
+     * Call it when a state checked by [isFrameActive] starts changing. Transform changes, including
+     * the in place edits of the components, smoothing, renderable changes and [onFrame] listeners
+     * already request it.
+     */
+    fun requestFrame() {
+        frameScheduler?.schedule(this)
+    }
+
+    /**
+     * ### Make sure that the next frame is rendered
+     *
+     * Only needed with [SceneView.RenderMode.ON_DEMAND] when a visual change is not made through
+     * the node transform, visibility or entities. For example after changing a material parameter.
+     */
+    fun requestRender() {
+        frameScheduler?.renderRequests?.requestRender()
+    }
+
     override fun onFrame(frameTime: FrameTime) {
         super.onFrame(frameTime)
+        FrameProfiler.current?.count(FrameProfiler.Counter.NODES_VISITED)
 
         if (smoothTransform != transform) {
             if (transform != lastFrameTransform) {
@@ -475,10 +611,14 @@ open class Node(
         }
         lastFrameTransform = transform
 
-        transformInstance?.takeIf { worldTransform != lastFrameWorldTransform }?.let {
-            transformManager.setTransform(it, worldTransform)
+        if (isWorldTransformPending) {
+            requestRender()
+            transformEntity?.let { entity ->
+                transformBatch?.setTransform(entity, getTransformInstance(entity), worldTransform)
+            }
+            // Set again by the subclasses when their transform entity changes
+            isWorldTransformPending = false
         }
-        lastFrameWorldTransform = worldTransform
 
         onFrame.forEach { it(frameTime, this) }
     }
@@ -569,22 +709,40 @@ open class Node(
      * called for all of it's descendants.
      */
     open fun onTransformChanged() {
+        cachedWorldTransform = null
+        isWorldTransformPending = true
+        requestFrame()
+        isTransformationMatrixDirty = true
         // TODO : Kotlin Collider for more comprehension
         collider?.markWorldShapeDirty()
         children.forEach { it.onTransformChanged() }
         onTransformChanged.forEach { it(this) }
     }
 
-    override fun onChildAdded(child: Node) {
-        super.onChildAdded(child)
-
-        onTransformChanged()
+    private fun onLocalTransformChanged() {
+        cachedTransform = null
+        if (allowDispatchTransformChanged) {
+            onTransformChanged()
+        }
     }
 
-    override fun onChildRemoved(child: Node) {
-        super.removeChild(child)
+    @EntityInstance
+    private fun getTransformInstance(@Entity entity: Int): Int {
+        if (entity != cachedTransformEntity ||
+            cachedTransformInstancesVersion != Filament.transformInstancesVersion
+        ) {
+            cachedTransformInstance = transformManager.getInstance(entity)
+            cachedTransformEntity = entity
+            cachedTransformInstancesVersion = Filament.transformInstancesVersion
+        }
+        return cachedTransformInstance
+    }
 
-        onTransformChanged()
+    private fun cacheTransform(transform: Transform) {
+        cachedTransform = transform
+        cachedPosition.xyz = position
+        cachedQuaternion.xyzw = quaternion.xyzw
+        cachedScale.xyz = scale
     }
 
     override fun onDestroy(owner: LifecycleOwner) {
@@ -600,7 +758,7 @@ open class Node(
      * - increase size: scale > 1.0f
      */
     fun setScale(scale: Float) {
-        this.scale.xyz = Scale(scale)
+        this.scale = Scale(scale)
     }
 
     /**
@@ -678,7 +836,7 @@ open class Node(
      */
     fun smooth(transform: Transform, speed: Float = this.smoothSpeed) {
         smoothSpeed = speed
-        if (!equals(this.transform, transform, DEFAULT_EPSILON)) {
+        if (!nearlyEquals(this.transform, transform, DEFAULT_EPSILON)) {
             this.smoothTransform = transform
         } else {
             this.transform = transform
@@ -772,20 +930,46 @@ open class Node(
     fun isDescendantOf(ancestor: NodeParent): Boolean =
         parent == ancestor || parentNode?.isDescendantOf(ancestor) == true
 
+    /**
+     * ### The node displayed as a child while this node is selected
+     *
+     * Default `null` uses one of the [SceneView.selectionVisualizer] shared between the selected
+     * nodes.
+     */
     open var selectionVisualizer: Node? = null
         set(value) {
             field?.let { it.parent = null }
             field = value
-            value?.let { it.parent = if (isSelected) this else null }
+            updateSelectionVisualizer()
         }
 
+    // Borrowed from the SceneView while selected without its own selectionVisualizer
+    private var sharedSelectionVisualizer: Node? = null
+
     var isSelected = false
         set(value) {
             if (field != value) {
                 field = value
-                selectionVisualizer?.parent = if (value) this else null
+                updateSelectionVisualizer()
+            }
+        }
+
+    private fun updateSelectionVisualizer() {
+        val selectionVisualizer = selectionVisualizer
+        val sceneView = sceneView
+        val isSharedVisualizerNeeded = isSelected && selectionVisualizer == null
+        if (!isSharedVisualizerNeeded || sceneView == null) {
+            sharedSelectionVisualizer?.let {
+                sharedSelectionVisualizer = null
+                sceneView?.selectionVisualizers?.release(it)
+            }
+        } else if (sharedSelectionVisualizer == null) {
+            sharedSelectionVisualizer = sceneView.selectionVisualizers.acquire()?.also {
+                it.parent = this
             }
         }
+        selectionVisualizer?.parent = if (isSelected) this else null
+    }
 
     /**
      * ### Finds the first enclosing node with the given type
@@ -805,16 +989,33 @@ open class Node(
         return currentNode as? T
     }
 
+    // Reuse these to limit frame instantiations
+    private val _transformationMatrix = Matrix()
+    private val _transformationMatrixInverted = Matrix()
+    private var isTransformationMatrixDirty = true
+    private var isTransformationMatrixInvertedDirty = true
+
     // TODO : Remove this to full Kotlin Math
+    /**
+     * The returned matrix is cached until the next transform change. Do not modify it.
+     */
     override fun getTransformationMatrix(): Matrix {
-        return Matrix(worldTransform.toColumnsFloatArray())
+        if (isTransformationMatrixDirty) {
+            _transformationMatrix.set(worldTransform.toColumnsFloatArray())
+            isTransformationMatrixDirty = false
+            isTransformationMatrixInvertedDirty = true
+        }
+        return _transformationMatrix
     }
 
-    // Reuse this to limit frame instantiations
-    private val _transformationMatrixInverted = Matrix()
     open val transformationMatrixInverted: Matrix
-        get() = _transformationMatrixInverted.apply {
-            Matrix.invert(transformationMatrix, this)
+        get() {
+            val transformationMatrix = transformationMatrix
+            if (isTransformationMatrixInvertedDirty) {
+                Matrix.invert(transformationMatrix, _transformationMatrixInverted)
+                isTransformationMatrixInvertedDirty = false
+            }
+            return _transformationMatrixInverted
         }
 
     /**
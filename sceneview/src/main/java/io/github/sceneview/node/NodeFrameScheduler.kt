@@ -0,0 +1,126 @@
+package io.github.sceneview.node
+
+import io.github.sceneview.utils.FrameTime
+import io.github.sceneview.utils.RenderRequests
+
+/**
+ * ### Dispatches [Node.onFrame] to the active nodes only
+ *
+ * A node is scheduled when it is attached and each time its state starts changing (see
+ * [Node.requestFrame]). After its [Node.onFrame] call, it stays scheduled for the next frame only
+ * while [Node.isFrameActive]. A static node only costs the comparison of its transform components
+ * with the cached ones per frame, which catches their in place edits.
+ *
+ * Nodes scheduled during the dispatch, like the children of a smoothly moving node, are ticked in
+ * the same frame. A node is never ticked twice in a frame: if it is scheduled again after its
+ * call, it is ticked on the next frame. The requests made by a node during its own call are left
+ * to its [Node.isFrameActive].
+ *
+ * Nothing is allocated per frame.
+ *
+ * @param renderRequests the frames to render requested by the nodes visual changes
+ */
+internal class NodeFrameScheduler(val renderRequests: RenderRequests? = null) {
+
+    private var scheduled = ArrayList<Node>()
+    private var ticking = ArrayList<Node>()
+    private val ticked = ArrayList<Node>()
+    private val deferred = ArrayList<Node>()
+
+    // Every attached node, checked for in place edits of its transform components
+    private val attached = ArrayList<Node>()
+
+    private var frameNumber = 0L
+
+    /**
+     * ### Number of nodes waiting for their next [Node.onFrame]
+     */
+    val scheduledCount get() = scheduled.size
+
+    /**
+     * ### Number of attached nodes
+     */
+    val attachedCount get() = attached.size
+
+    /**
+     * ### Start dispatching the frames to a node
+     *
+     * The node is ticked on the next frame.
+     */
+    fun attach(node: Node) {
+        if (node.frameScheduler !== this) {
+            node.frameScheduler?.detach(node)
+            node.frameScheduler = this
+            node.attachedIndex = attached.size
+            attached.add(node)
+        }
+        schedule(node)
+    }
+
+    fun detach(node: Node) {
+        if (node.frameScheduler === this) {
+            // Swap with the last node so that the removal doesn't shift the list
+            val last = attached.removeAt(attached.lastIndex)
+            if (last !== node) {
+                attached[node.attachedIndex] = last
+                last.attachedIndex = node.attachedIndex
+            }
+            node.attachedIndex = -1
+            node.frameScheduler = null
+        }
+    }
+
+    fun schedule(node: Node) {
+        if (!node.isFrameScheduled) {
+            node.isFrameScheduled = true
+            scheduled.add(node)
+        }
+    }
+
+    /**
+     * ### Call [Node.onFrame] on the scheduled nodes
+     */
+    fun dispatchFrame(frameTime: FrameTime) {
+        val frame = ++frameNumber
+        for (i in attached.indices) {
+            val node = attached[i]
+            if (!node.isFrameScheduled && node.isTransformEditedInPlace) {
+                schedule(node)
+            }
+        }
+        while (scheduled.isNotEmpty()) {
+            val batch = scheduled
+            scheduled = ticking
+            ticking = batch
+            for (i in batch.indices) {
+                val node = batch[i]
+                when {
+                    // Detached since it was scheduled
+                    node.frameScheduler !== this -> node.isFrameScheduled = false
+                    node.lastFrameNumber == frame -> {
+                        node.isFrameScheduled = false
+                        deferred.add(node)
+                    }
+                    else -> {
+                        node.lastFrameNumber = frame
+                        node.onFrame(frameTime)
+                        node.isFrameScheduled = false
+                        ticked.add(node)
+                    }
+                }
+            }
+            batch.clear()
+        }
+        for (i in ticked.indices) {
+            val node = ticked[i]
+            if (node.frameScheduler === this && node.isFrameActive) {
+                schedule(node)
+            }
+        }
+        ticked.clear()
+        for (i in deferred.indices) {
+            schedule(deferred[i])
+        }
+        deferred.clear()
+    }
+}
@@ -11,28 +11,50 @@ import java.util.*
 interface NodeParent {
 
     /**
-     * ### An immutable list of this parent's children
+     * ### The children of this parent, changed in place by [Node.parent]
+     */
+    val _children: MutableList<Node>
+
+    /**
+     * ### The immutable copy of the children returned by [children]
+     *
+     * Null when the children changed since it was last made.
      */
-    var _children: List<Node>
+    var _childrenSnapshot: List<Node>?
+
+    /**
+     * ### The cached depth first list of all descendants
+     *
+     * Null when the hierarchy changed since it was last built.
+     */
+    var _allChildren: List<Node>?
     val onChildAdded: ((Node) -> Unit)? get() = null
     val onChildRemoved: ((Node) -> Unit)? get() = null
 
+    /**
+     * ### An immutable list of this parent's children
+     *
+     * The copy is made once and shared until a child is added or removed.
+     */
     var children: List<Node>
-        get() = _children
+        get() = _childrenSnapshot ?: _children.toList().also { _childrenSnapshot = it }
         set(value) {
-            val oldChildren = _children
-            _children = value
-            oldChildren.filter { it !in value }.forEach { oldChild ->
-                oldChild.parent = null
-                onChildRemoved(oldChild)
+            val newChildren = LinkedHashSet(value)
+            children.forEach { oldChild ->
+                if (oldChild !in newChildren) {
+                    removeChild(oldChild)
+                }
             }
-            value.filter { it !in oldChildren }.forEach { newChild ->
-                newChild.parent = this
-                onChildAdded(newChild)
+            newChildren.forEach { addChild(it) }
+            // Keep the given order
+            if (_children != newChildren.toList()) {
+                _children.clear()
+                _children.addAll(newChildren)
+                _childrenSnapshot = null
+                onHierarchyChanged()
             }
         }
 
-
     /**
      * Adds a node as a child of this NodeParent. If the node already has a parent, it is removed from
      * its old parent. If the node is already a direct child of this NodeParent, no change is made.
@@ -43,8 +65,8 @@ interface NodeParent {
      */
     fun addChild(child: Node): Node {
         // Return early if the parent hasn't changed.
-        if (child !in children) {
-            children = children + child
+        if (child.parent !== this) {
+            child.parent = this
         }
         return child
     }
@@ -56,12 +78,32 @@ interface NodeParent {
      * @param child the node to remove from the children
      */
     fun removeChild(child: Node): Node {
-        if (child in children) {
-            children = children - child
+        if (child.parent === this) {
+            child.parent = null
         }
         return child
     }
 
+    /**
+     * ### Append a child whose [Node.parent] was set to this parent
+     */
+    fun _addChild(child: Node) {
+        _children.add(child)
+        _childrenSnapshot = null
+        onHierarchyChanged()
+        onChildAdded(child)
+    }
+
+    /**
+     * ### Remove a child whose [Node.parent] was changed from this parent
+     */
+    fun _removeChild(child: Node) {
+        _children.remove(child)
+        _childrenSnapshot = null
+        onHierarchyChanged()
+        onChildRemoved(child)
+    }
+
     fun onChildAdded(child: Node) {
         onChildAdded?.invoke(child)
     }
@@ -70,15 +112,32 @@ interface NodeParent {
         onChildRemoved?.invoke(child)
     }
 
+    /**
+     * ### Invalidate the cached descendants of this parent and its ancestors
+     *
+     * Called when the children of this parent or of any of its descendants change.
+     */
+    fun onHierarchyChanged() {
+        if (_allChildren != null) {
+            _allChildren = null
+        }
+        (this as? Node)?.parent?.onHierarchyChanged()
+    }
+
     /**
      * ### Traverse the hierarchy
      *
      * Traversal is depth first. If this NodeParent is a Node, traversal starts with this
      * NodeParent, otherwise traversal starts with its children.
+     *
+     * The list is built once and shared until a node is added or removed below this parent.
+     * Prefer [forEachDescendant] when the list itself isn't needed.
      */
     val allChildren: List<Node>
-        get() = children + children.flatMap { it.allChildren }
-
+        get() = _allChildren ?: ArrayList<Node>().also { allChildren ->
+            forEachDescendant { allChildren.add(it) }
+            _allChildren = allChildren
+        }
 
     /**
      * ### Traverse the hierarchy
@@ -89,6 +148,20 @@ interface NodeParent {
     val hierarchy: List<Node>
         get() = listOfNotNull(this as? Node) + allChildren
 
+    /**
+     * ### Call an action on every descendant without allocating any list
+     *
+     * Traversal is depth first, each node is visited before its children.
+     */
+    fun forEachDescendant(action: (Node) -> Unit) {
+        val children = _children
+        for (i in children.indices) {
+            val child = children[i]
+            action(child)
+            child.forEachDescendant(action)
+        }
+    }
+
     /**
      * ### Traverse the hierarchy and call a method on each node.
      *
@@ -98,6 +171,7 @@ interface NodeParent {
      * @param action The method to call on each node.
      */
     fun callOnHierarchy(action: (Node) -> Unit) {
-        hierarchy.forEach { it.callOnHierarchy(action) }
+        (this as? Node)?.let(action)
+        forEachDescendant(action)
     }
-}
\ No newline at end of file
+}
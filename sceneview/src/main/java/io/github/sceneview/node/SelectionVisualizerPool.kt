@@ -0,0 +1,22 @@
+package io.github.sceneview.node
+
+/**
+ * ### Shares the selection visualizers between the nodes of a [io.github.sceneview.SceneView]
+ *
+ * A visualizer is only created the first time a node is selected. It goes back to the pool when
+ * its node is deselected or detached and is then reparented to the next selected node. The pool
+ * grows to the number of simultaneously selected nodes and attaching nodes costs nothing.
+ *
+ * @param create creates a new visualizer or returns null for none
+ */
+internal class SelectionVisualizerPool(private val create: () -> Node?) {
+
+    private val available = ArrayList<Node>()
+
+    fun acquire(): Node? = available.removeLastOrNull() ?: create()
+
+    fun release(visualizer: Node) {
+        visualizer.parent = null
+        available += visualizer
+    }
+}
@@ -55,6 +55,7 @@ open class ViewNode : Node {
                 field = value
                 sceneEntities = value?.let { intArrayOf(it.renderedEntity) } ?: intArrayOf()
                 sceneView?.let { renderable?.attachView(it.viewAttachmentManager) }
+                requestFrame()
                 onRenderableChanged()
             }
         }
@@ -89,6 +90,10 @@ open class ViewNode : Node {
         this.renderableInstance = renderableInstance
     }
 
+    // The view renderable size follows its view layout so its model matrix is refreshed each frame
+    override val isFrameActive: Boolean
+        get() = super.isFrameActive || renderableInstance != null
+
     override fun onFrame(frameTime: FrameTime) {
         if (isAttached) {
             renderableInstance?.prepareForDraw(sceneView)
@@ -57,4 +57,5 @@ fun Camera.luminance(ev100: Float) = pow(2.0f, ev100 - 3.0f)
 fun Camera.destroy() {
     Filament.engine.destroyCameraComponent(entity)
     Filament.entityManager.destroy(entity)
+    Filament.invalidateTransformInstances()
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package io.github.sceneview.texture
+
+import com.google.android.filament.Engine
+import com.google.android.filament.Texture
+import com.google.android.filament.Texture.CompressedFormat
+import com.google.android.filament.Texture.InternalFormat
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/**
+ * ### Header information of a KTX or KTX2 texture container
+ *
+ * Only the formats that can be uploaded without any transcoding are recognized: ETC2/EAC, ASTC
+ * and RGBA8.
+ *
+ * @property format the Filament format or null if not recognized
+ * @property compressedFormat the upload format of compressed textures
+ * @property levels KTX2 level images from the full size one. Empty for KTX1 containers which are
+ * uploaded by [com.google.android.filament.utils.KTX1Loader].
+ */
+internal class KTXContainer private constructor(
+    val isKtx2: Boolean,
+    val width: Int,
+    val height: Int,
+    val format: InternalFormat?,
+    val compressedFormat: CompressedFormat?,
+    val levels: List<ByteBuffer>
+) {
+
+    companion object {
+        private val KTX1_IDENTIFIER = byteArrayOf(
+            0xAB.toByte(), 0x4B, 0x54, 0x58, 0x20, 0x31, 0x31, 0xBB.toByte(), 0x0D, 0x0A, 0x1A, 0x0A
+        )
+        private val KTX2_IDENTIFIER = byteArrayOf(
+            0xAB.toByte(), 0x4B, 0x54, 0x58, 0x20, 0x32, 0x30, 0xBB.toByte(), 0x0D, 0x0A, 0x1A, 0x0A
+        )
+        private const val KTX1_ENDIANNESS = 0x04030201
+
+        private const val KTX2_HEADER_SIZE = 80
+        private const val KTX2_LEVEL_INDEX_SIZE = 24
+
+        private const val VK_FORMAT_R8G8B8A8_UNORM = 37
+        private const val VK_FORMAT_R8G8B8A8_SRGB = 43
+        private const val GL_RGBA8 = 0x8058
+        private const val GL_SRGB8_ALPHA8 = 0x8C43
+
+        private class Format(
+            val vkFormat: Int,
+            val glInternalFormat: Int,
+            val internalFormat: InternalFormat,
+            val compressedFormat: CompressedFormat?
+        )
+
+        private val formats = listOf(
+            Format(VK_FORMAT_R8G8B8A8_UNORM, GL_RGBA8, InternalFormat.RGBA8, null),
+            Format(VK_FORMAT_R8G8B8A8_SRGB, GL_SRGB8_ALPHA8, InternalFormat.SRGB8_A8, null),
+            Format(147, 0x9274, InternalFormat.ETC2_RGB8, CompressedFormat.ETC2_RGB8),
+            Format(148, 0x9275, InternalFormat.ETC2_SRGB8, CompressedFormat.ETC2_SRGB8),
+            Format(149, 0x9276, InternalFormat.ETC2_RGB8_A1, CompressedFormat.ETC2_RGB8_A1),
+            Format(150, 0x9277, InternalFormat.ETC2_SRGB8_A1, CompressedFormat.ETC2_SRGB8_A1),
+            Format(151, 0x9278, InternalFormat.ETC2_EAC_RGBA8, CompressedFormat.ETC2_EAC_RGBA8),
+            Format(152, 0x9279, InternalFormat.ETC2_EAC_SRGBA8, CompressedFormat.ETC2_EAC_SRGBA8),
+            Format(153, 0x9270, InternalFormat.EAC_R11, CompressedFormat.EAC_R11),
+            Format(154, 0x9271, InternalFormat.EAC_R11_SIGNED, CompressedFormat.EAC_R11_SIGNED),
+            Format(155, 0x9272, InternalFormat.EAC_RG11, CompressedFormat.EAC_RG11),
+            Format(156, 0x9273, InternalFormat.EAC_RG11_SIGNED, CompressedFormat.EAC_RG11_SIGNED)
+        ) + listOf(
+            InternalFormat.RGBA_ASTC_4x4 to InternalFormat.SRGB8_ALPHA8_ASTC_4x4,
+            InternalFormat.RGBA_ASTC_5x4 to InternalFormat.SRGB8_ALPHA8_ASTC_5x4,
+            InternalFormat.RGBA_ASTC_5x5 to InternalFormat.SRGB8_ALPHA8_ASTC_5x5,
+            InternalFormat.RGBA_ASTC_6x5 to InternalFormat.SRGB8_ALPHA8_ASTC_6x5,
+            InternalFormat.RGBA_ASTC_6x6 to InternalFormat.SRGB8_ALPHA8_ASTC_6x6,
+            InternalFormat.RGBA_ASTC_8x5 to InternalFormat.SRGB8_ALPHA8_ASTC_8x5,
+            InternalFormat.RGBA_ASTC_8x6 to InternalFormat.SRGB8_ALPHA8_ASTC_8x6,
+            InternalFormat.RGBA_ASTC_8x8 to InternalFormat.SRGB8_ALPHA8_ASTC_8x8,
+            InternalFormat.RGBA_ASTC_10x5 to InternalFormat.SRGB8_ALPHA8_ASTC_10x5,
+            InternalFormat.RGBA_ASTC_10x6 to InternalFormat.SRGB8_ALPHA8_ASTC_10x6,
+            InternalFormat.RGBA_ASTC_10x8 to InternalFormat.SRGB8_ALPHA8_ASTC_10x8,
+            InternalFormat.RGBA_ASTC_10x10 to InternalFormat.SRGB8_ALPHA8_ASTC_10x10,
+            InternalFormat.RGBA_ASTC_12x10 to InternalFormat.SRGB8_ALPHA8_ASTC_12x10,
+            InternalFormat.RGBA_ASTC_12x12 to InternalFormat.SRGB8_ALPHA8_ASTC_12x12
+        ).flatMapIndexed { index, (unorm, srgb) ->
+            // The Vulkan ASTC formats alternate unorm and sRGB, the GL ones are in two ranges
+            listOf(
+                Format(157 + index * 2, 0x93B0 + index, unorm, CompressedFormat.valueOf(unorm.name)),
+                Format(158 + index * 2, 0x93D0 + index, srgb, CompressedFormat.valueOf(srgb.name))
+            )
+        }
+
+        fun isKtx(buffer: ByteBuffer) = isKtx1(buffer) || isKtx2(buffer)
+
+        fun isKtx1(buffer: ByteBuffer) = buffer.startsWith(KTX1_IDENTIFIER)
+
+        fun isKtx2(buffer: ByteBuffer) = buffer.startsWith(KTX2_IDENTIFIER)
+
+        /**
+         * Read the container header and, for KTX2, slice its levels without copying them.
+         *
+         * @throws IllegalArgumentException if the container isn't supported
+         */
+        fun read(buffer: ByteBuffer): KTXContainer {
+            val data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN)
+            return when {
+                isKtx1(buffer) -> readKtx1(data)
+                isKtx2(buffer) -> readKtx2(data)
+                else -> throw IllegalArgumentException("Not a KTX container")
+            }
+        }
+
+        private fun readKtx1(data: ByteBuffer): KTXContainer {
+            if (data.getInt(12) != KTX1_ENDIANNESS) {
+                data.order(ByteOrder.BIG_ENDIAN)
+            }
+            val format = formats.firstOrNull { it.glInternalFormat == data.getInt(28) }
+            return KTXContainer(
+                isKtx2 = false,
+                width = data.getInt(36),
+                height = data.getInt(40),
+                format = format?.internalFormat,
+                compressedFormat = format?.compressedFormat,
+                levels = listOf()
+            )
+        }
+
+        private fun readKtx2(data: ByteBuffer): KTXContainer {
+            val vkFormat = data.getInt(12)
+            val width = data.getInt(20)
+            val height = data.getInt(24)
+            val depth = data.getInt(28)
+            val layerCount = data.getInt(32)
+            val faceCount = data.getInt(36)
+            val levelCount = maxOf(1, data.getInt(40))
+            val supercompressionScheme = data.getInt(44)
+            require(supercompressionScheme == 0 && vkFormat != 0) {
+                "Supercompressed and Basis Universal KTX2 textures are not supported. " +
+                        "Transcode them to ETC2 or ASTC."
+            }
+            require(depth <= 1 && layerCount <= 1 && faceCount == 1) {
+                "Only 2D KTX2 textures are supported"
+            }
+            val format = formats.firstOrNull { it.vkFormat == vkFormat }
+                ?: throw IllegalArgumentException("Unsupported KTX2 format: $vkFormat")
+            val levels = (0 until levelCount).map { level ->
+                val index = KTX2_HEADER_SIZE + level * KTX2_LEVEL_INDEX_SIZE
+                val offset = data.getLong(index).toInt()
+                val length = data.getLong(index + 8).toInt()
+                (data.duplicate().position(offset).limit(offset + length) as ByteBuffer).slice()
+            }
+            return KTXContainer(
+                isKtx2 = true,
+                width = width,
+                height = height,
+                format = format.internalFormat,
+                compressedFormat = format.compressedFormat,
+                levels = levels
+            )
+        }
+
+        private fun ByteBuffer.startsWith(identifier: ByteArray) =
+            remaining() >= identifier.size && identifier.indices.all { index ->
+                get(position() + index) == identifier[index]
+            }
+    }
+
+    /**
+     * Whether the device can sample this texture format
+     */
+    fun isSupported(engine: Engine) =
+        format == null || Texture.isTextureFormatSupported(engine, format)
+
+    /**
+     * The upload descriptor of a KTX2 level
+     */
+    fun levelDescriptor(level: Int): Texture.PixelBufferDescriptor {
+        val buffer = levels[level]
+        return compressedFormat?.let {
+            Texture.PixelBufferDescriptor(buffer, it, buffer.remaining())
+        } ?: Texture.PixelBufferDescriptor(buffer, Texture.Format.RGBA, Texture.Type.UBYTE)
+    }
+}
@@ -1,31 +1,97 @@
 package io.github.sceneview.texture
 
 import android.content.Context
+import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.coroutineScope
 import com.google.android.filament.Texture
-import com.google.android.filament.android.TextureHelper
+import com.google.android.filament.utils.KTX1Loader
+import com.gorisse.thomas.lifecycle.observe
 import io.github.sceneview.Filament
+import io.github.sceneview.utils.inputStream
 import io.github.sceneview.utils.useFileBufferNotNull
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.coroutines.withContext
 import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.concurrent.Executors
+import kotlin.math.pow
+import kotlin.math.roundToInt
 
 /**
  * Based on the [com.google.android.filament.textured.loadTexture]
  */
 object TextureLoader {
 
+    // Bounds the decoded images held in memory at the same time
+    private const val DECODE_THREAD_COUNT = 2
+
+    private val decodeDispatcher by lazy {
+        Executors.newFixedThreadPool(DECODE_THREAD_COUNT) { runnable ->
+            Thread(runnable, "TextureLoader").apply { isDaemon = true }
+        }.asCoroutineDispatcher()
+    }
+
+    // sRGB transfer function lookup tables for the color textures mip chain filtering
+    private val srgbToLinear by lazy {
+        FloatArray(256) { srgb ->
+            val c = srgb / 255.0f
+            if (c <= 0.04045f) c / 12.92f else ((c + 0.055f) / 1.055f).pow(2.4f)
+        }
+    }
+    private const val LINEAR_TO_SRGB_SIZE = 4096
+    private val linearToSrgb by lazy {
+        ByteArray(LINEAR_TO_SRGB_SIZE) { index ->
+            val c = index / (LINEAR_TO_SRGB_SIZE - 1).toFloat()
+            val srgb = if (c <= 0.0031308f) c * 12.92f else 1.055f * c.pow(1.0f / 2.4f) - 0.055f
+            (srgb * 255.0f).roundToInt().toByte()
+        }
+    }
+
+    /**
+     * ### A decoded image and its mip chain ready to be uploaded
+     *
+     * @property levels RGBA pixels of each mip level, from the full size image to 1x1
+     */
+    class Image(
+        val width: Int,
+        val height: Int,
+        val type: TextureType,
+        val levels: List<ByteBuffer>
+    )
+
+    /**
+     * ### Load an image texture
+     *
+     * The image is decoded and its mip chain is generated on a bounded background dispatcher.
+     * Only the upload of each level runs on the main thread.
+     *
+     * KTX and KTX2 containers are recognized and uploaded as is with their own mip levels.
+     * See [createKtxTexture].
+     *
+     * @param maxSize downsample the image until its largest dimension fits. 0 keeps the original
+     * size. Ignored for KTX containers.
+     */
     suspend fun loadImageTexture(
         context: Context,
         lifecycle: Lifecycle,
         imageFileLocation: String,
-        type: TextureType = TextureType.COLOR
+        type: TextureType = TextureType.COLOR,
+        maxSize: Int = 0
     ): Texture? =
         context.useFileBufferNotNull(imageFileLocation) { buffer ->
+            if (isKtx(buffer)) {
+                return@useFileBufferNotNull withContext(Dispatchers.Main) {
+                    createKtxTexture(lifecycle, buffer, type)
+                }
+            }
+            val image = withContext(decodeDispatcher) {
+                decodeImage(buffer, type, maxSize)
+            }
             withContext(Dispatchers.Main) {
-                createImageTexture(lifecycle, buffer, type)
+                createImageTexture(lifecycle, image)
             }
         }
 
@@ -34,41 +100,207 @@ object TextureLoader {
         lifecycle: Lifecycle,
         imageFileLocation: String,
         type: TextureType = TextureType.COLOR,
+        maxSize: Int = 0,
         result: (Texture?) -> Unit
     ) = lifecycle.coroutineScope.launchWhenCreated {
-        result(loadImageTexture(context, lifecycle, imageFileLocation, type))
+        result(loadImageTexture(context, lifecycle, imageFileLocation, type, maxSize))
     }
 
+    /**
+     * ### Decode and upload an image synchronously
+     *
+     * Prefer [loadImageTexture] which keeps the decoding away from the calling thread.
+     */
     fun createImageTexture(
         lifecycle: Lifecycle? = null,
         imageBuffer: ByteBuffer,
         type: TextureType = TextureType.COLOR,
+    ): Texture = createImageTexture(lifecycle, decodeImage(imageBuffer, type))
+
+    /**
+     * ### Upload a decoded image and its mip chain
+     *
+     * Must be called from the main thread.
+     */
+    fun createImageTexture(lifecycle: Lifecycle? = null, image: Image): Texture =
+        Texture.Builder()
+            .width(image.width)
+            .height(image.height)
+            .sampler(Texture.Sampler.SAMPLER_2D)
+            .format(internalFormat(image.type))
+            .levels(image.levels.size)
+            .build(lifecycle).apply {
+                image.levels.forEachIndexed { level, buffer ->
+                    setImage(
+                        level,
+                        Texture.PixelBufferDescriptor(buffer, Texture.Format.RGBA, Texture.Type.UBYTE)
+                    )
+                }
+            }
+
+    /**
+     * ### Whether the buffer holds a KTX or KTX2 container
+     */
+    @JvmStatic
+    fun isKtx(buffer: ByteBuffer) = KTXContainer.isKtx(buffer)
+
+    /**
+     * ### Upload a KTX or KTX2 texture without decoding it
+     *
+     * Pre-compressed ETC2/EAC and ASTC levels are uploaded directly, taking 4 to 8 times less GPU
+     * memory than decoded images and without any mip generation at load time.
+     * KTX containers are read by [KTX1Loader]. KTX2 containers must not be supercompressed:
+     * transcode Basis Universal textures to ETC2 or ASTC beforehand.
+     *
+     * Must be called from the main thread.
+     *
+     * @param type sets the sRGB encoding of uncompressed KTX containers
+     *
+     * @throws IllegalArgumentException if the container or its format isn't supported by the
+     * device
+     */
+    @JvmStatic
+    fun createKtxTexture(
+        lifecycle: Lifecycle? = null,
+        buffer: ByteBuffer,
+        type: TextureType = TextureType.COLOR
     ): Texture {
-        val bitmap = BitmapFactory.decodeByteArray(
-            imageBuffer.array(),
-            0,
-            imageBuffer.capacity(),
-            BitmapFactory.Options().apply {
-                // Color is the only type of texture we want to pre-multiply with the alpha
-                // channel. Pre-multiplication is the default behavior, so we need to turn it
-                // off here
-                inPremultiplied = type == TextureType.COLOR
-            })
+        val container = KTXContainer.read(buffer)
+        require(container.isSupported(Filament.engine)) {
+            "Texture format ${container.format} is not supported by this device"
+        }
+        if (!container.isKtx2) {
+            return KTX1Loader.createTexture(
+                Filament.engine,
+                buffer,
+                KTX1Loader.Options().apply { srgb = type == TextureType.COLOR }
+            ).also { texture ->
+                lifecycle?.observe(onDestroy = {
+                    // Prevent double destroy in case of manually destroyed
+                    runCatching { texture.destroy() }
+                })
+            }
+        }
         return Texture.Builder()
-            .width(bitmap.width)
-            .height(bitmap.height)
+            .width(container.width)
+            .height(container.height)
             .sampler(Texture.Sampler.SAMPLER_2D)
-            .format(internalFormat(type))
-            // This tells Filament to figure out the number of mip levels
-            .levels(0xff)
+            .format(container.format!!)
+            .levels(container.levels.size)
             .build(lifecycle).apply {
-                // TextureHelper offers a method that skips the copy of the bitmap into a
-                // ByteBuffer
-                TextureHelper.setBitmap(Filament.engine, this, 0, bitmap)
-                generateMipmaps(Filament.engine)
+                container.levels.indices.forEach { level ->
+                    setImage(level, container.levelDescriptor(level))
+                }
+            }
+    }
+
+    /**
+     * ### Decode an image and generate its mip chain on the CPU
+     *
+     * Doesn't use the engine so it can run on any thread.
+     *
+     * @param maxSize downsample the image until its largest dimension fits. 0 keeps the original
+     * size.
+     */
+    fun decodeImage(imageBuffer: ByteBuffer, type: TextureType, maxSize: Int = 0): Image {
+        val options = BitmapFactory.Options()
+        if (maxSize > 0) {
+            options.inJustDecodeBounds = true
+            decodeBitmap(imageBuffer, options)
+            var sampleSize = 1
+            while (maxOf(options.outWidth, options.outHeight) / sampleSize > maxSize) {
+                sampleSize *= 2
+            }
+            options.inJustDecodeBounds = false
+            options.inSampleSize = sampleSize
+        }
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888
+        // Color is the only type of texture we want to pre-multiply with the alpha
+        // channel. Pre-multiplication is the default behavior, so we need to turn it
+        // off here
+        options.inPremultiplied = type == TextureType.COLOR
+        val bitmap = decodeBitmap(imageBuffer, options)
+            ?: throw IllegalArgumentException("Unable to decode the image")
+
+        val width = bitmap.width
+        val height = bitmap.height
+        val levels = mutableListOf(
+            allocateDirect(width * height * 4).also { buffer ->
+                bitmap.copyPixelsToBuffer(buffer)
+                buffer.rewind()
+            })
+        bitmap.recycle()
+
+        var levelWidth = width
+        var levelHeight = height
+        while (levelWidth > 1 || levelHeight > 1) {
+            levels += downsample(
+                levels.last(), levelWidth, levelHeight, type == TextureType.COLOR
+            )
+            levelWidth = maxOf(1, levelWidth / 2)
+            levelHeight = maxOf(1, levelHeight / 2)
+        }
+        return Image(width, height, type, levels)
+    }
+
+    private fun decodeBitmap(imageBuffer: ByteBuffer, options: BitmapFactory.Options) =
+        if (imageBuffer.hasArray()) {
+            BitmapFactory.decodeByteArray(
+                imageBuffer.array(),
+                imageBuffer.arrayOffset() + imageBuffer.position(),
+                imageBuffer.remaining(),
+                options
+            )
+        } else {
+            // Direct and memory mapped buffers have no backing array
+            BitmapFactory.decodeStream(imageBuffer.inputStream(), null, options)
+        }
+
+    /**
+     * 2x2 box filter of a RGBA level. Color channels are averaged in linear space when [isSrgb].
+     */
+    private fun downsample(
+        source: ByteBuffer,
+        width: Int,
+        height: Int,
+        isSrgb: Boolean
+    ): ByteBuffer {
+        val levelWidth = maxOf(1, width / 2)
+        val levelHeight = maxOf(1, height / 2)
+        val level = allocateDirect(levelWidth * levelHeight * 4)
+        for (y in 0 until levelHeight) {
+            val row0 = minOf(y * 2, height - 1) * width
+            val row1 = minOf(y * 2 + 1, height - 1) * width
+            for (x in 0 until levelWidth) {
+                val x0 = minOf(x * 2, width - 1)
+                val x1 = minOf(x * 2 + 1, width - 1)
+                val p00 = (row0 + x0) * 4
+                val p01 = (row0 + x1) * 4
+                val p10 = (row1 + x0) * 4
+                val p11 = (row1 + x1) * 4
+                val destination = (y * levelWidth + x) * 4
+                for (channel in 0 until 4) {
+                    val c00 = source.get(p00 + channel).toInt() and 0xFF
+                    val c01 = source.get(p01 + channel).toInt() and 0xFF
+                    val c10 = source.get(p10 + channel).toInt() and 0xFF
+                    val c11 = source.get(p11 + channel).toInt() and 0xFF
+                    val value = if (isSrgb && channel < 3) {
+                        val linear = (srgbToLinear[c00] + srgbToLinear[c01] +
+                                srgbToLinear[c10] + srgbToLinear[c11]) * 0.25f
+                        linearToSrgb[(linear * (LINEAR_TO_SRGB_SIZE - 1)).roundToInt()]
+                    } else {
+                        ((c00 + c01 + c10 + c11 + 2) / 4).toByte()
+                    }
+                    level.put(destination + channel, value)
+                }
             }
+        }
+        return level
     }
 
+    private fun allocateDirect(capacity: Int) =
+        ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder())
+
     private fun internalFormat(type: TextureType) = when (type) {
         TextureType.COLOR -> Texture.InternalFormat.SRGB8_A8
         TextureType.NORMAL -> Texture.InternalFormat.RGBA8
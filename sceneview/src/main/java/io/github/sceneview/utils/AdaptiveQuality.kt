@@ -0,0 +1,140 @@
+package io.github.sceneview.utils
+
+import android.content.Context
+import android.os.Build
+import android.os.PowerManager
+import io.github.sceneview.SceneLifecycle
+import io.github.sceneview.SceneLifecycleObserver
+
+/**
+ * ### Steps the rendering quality down when the device can't keep up and back up when it can
+ *
+ * The interval between each rendered frame and, where available, the [PowerManager] thermal
+ * status and headroom are fed to the [governor]. Display frames skipped by the renderer because
+ * the GPU is behind lengthen the interval while the idle frames of the on demand render mode
+ * restart it. Its level is then applied by degrading or restoring the
+ * [steps] in order: level 1 degrades the first step, level 2 the two first ones,...
+ *
+ * Disabled by default. Disabling it restores every degraded step.
+ *
+ * @see QualityGovernor
+ * @see QualityStep
+ */
+class AdaptiveQuality @JvmOverloads constructor(
+    private val lifecycle: SceneLifecycle,
+    steps: List<QualityStep> = QualityStep.defaultLadder(),
+    val governor: QualityGovernor = QualityGovernor(steps.size + 1)
+) : SceneLifecycleObserver {
+
+    // 0 when the previous display frame was not rendered because nothing changed
+    private var lastRenderedNanos = 0L
+
+    private val sceneView get() = lifecycle.sceneView
+
+    private val powerManager by lazy {
+        sceneView.context.getSystemService(Context.POWER_SERVICE) as? PowerManager
+    }
+
+    var isEnabled = false
+        set(value) {
+            if (field != value) {
+                field = value
+                lastRenderedNanos = 0L
+                governor.reset()
+                applyLevel(governor.level)
+            }
+        }
+
+    /**
+     * ### The quality steps, from the first one to degrade to the last one
+     *
+     * Changing them restarts from the full quality.
+     */
+    var steps = steps
+        set(value) {
+            applyLevel(0)
+            field = value
+            governor.levelCount = value.size + 1
+        }
+
+    /**
+     * ### The number of currently degraded steps
+     */
+    var appliedLevel = 0
+        private set
+
+    private var lastSystemPollNanos = 0L
+
+    init {
+        governor.levelCount = steps.size + 1
+        lifecycle.addObserver(this)
+    }
+
+    override fun onFrame(frameTime: FrameTime) {
+        if (!isEnabled) {
+            return
+        }
+        if (frameTime.nanoseconds - lastSystemPollNanos >= SYSTEM_POLL_INTERVAL_NANOS) {
+            lastSystemPollNanos = frameTime.nanoseconds
+            pollSystem()
+        }
+    }
+
+    /**
+     * ### A display frame was rendered
+     *
+     * Called by the [io.github.sceneview.SceneView] after the renderer end of frame.
+     */
+    internal fun onFrameRendered(frameTimeNanos: Long) {
+        if (!isEnabled) {
+            return
+        }
+        val frameIntervalNanos = frameTimeNanos - lastRenderedNanos
+        // Ignore the first frame and the pauses
+        if (lastRenderedNanos != 0L && frameIntervalNanos in 1 until MAX_FRAME_TIME_NANOS &&
+            governor.onFrame(frameIntervalNanos)
+        ) {
+            applyLevel(governor.level)
+        }
+        lastRenderedNanos = frameTimeNanos
+    }
+
+    /**
+     * ### A display frame was not rendered because nothing changed
+     */
+    internal fun onFrameIdle() {
+        lastRenderedNanos = 0L
+    }
+
+    private fun pollSystem() {
+        sceneView.display?.refreshRate?.takeIf { it > 0.0f }?.let { refreshRate ->
+            governor.targetFrameTimeNanos = (1_000_000_000.0 / refreshRate).toLong()
+        }
+        val powerManager = powerManager ?: return
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            governor.thermalStatus = powerManager.currentThermalStatus
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // Rate limited by the system so only polled once per second
+            governor.thermalHeadroom = powerManager.getThermalHeadroom(THERMAL_FORECAST_SECONDS)
+        }
+    }
+
+    private fun applyLevel(level: Int) {
+        val sceneView = sceneView
+        while (appliedLevel < level) {
+            steps[appliedLevel].degrade(sceneView)
+            appliedLevel++
+        }
+        while (appliedLevel > level) {
+            appliedLevel--
+            steps[appliedLevel].restore(sceneView)
+        }
+    }
+
+    companion object {
+        private const val SYSTEM_POLL_INTERVAL_NANOS = 1_000_000_000L
+        private const val MAX_FRAME_TIME_NANOS = 250_000_000L
+        private const val THERMAL_FORECAST_SECONDS = 10
+    }
+}
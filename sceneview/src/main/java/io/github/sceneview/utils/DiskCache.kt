@@ -0,0 +1,404 @@
+package io.github.sceneview.utils
+
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.net.URL
+import java.security.MessageDigest
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * ### Persistent cache of remote files with a size bounded LRU eviction
+ *
+ * Each url is stored under the SHA-256 of the url with the `ETag` and `Last-Modified` validators
+ * received with it. Outdated entries are revalidated with a conditional request and only
+ * downloaded again if the server content changed. If the server can't be reached, the stale entry
+ * is used.
+ *
+ * Files are downloaded to a temporary file and renamed once complete so a killed process never
+ * leaves a truncated entry. The entries are returned as opened streams so an eviction made by
+ * another thread can't remove a file before it is read.
+ *
+ * Nothing is read from the disk until the first access: creating the cache is cheap on the main
+ * thread and the index is loaded by the first, blocking, call made from a background thread.
+ *
+ * The cache doesn't depend on Android and can be pointed at any local HTTP server.
+ *
+ * @param directory the cache folder. Created on the first access if needed.
+ * @param maxSizeBytes the least recently used entries are removed above this size
+ * @param maxStaleMillis how long an entry is used without revalidating it.
+ * 0 revalidates on every access.
+ * @param connectionFactory opens the connection for an url. Use it to configure timeouts or
+ * headers.
+ */
+class DiskCache @JvmOverloads constructor(
+    val directory: File,
+    val maxSizeBytes: Long = DEFAULT_MAX_SIZE_BYTES,
+    var maxStaleMillis: Long = 0,
+    var connectionFactory: (URL) -> HttpURLConnection = { it.openConnection() as HttpURLConnection }
+) {
+
+    /**
+     * ### Cache usage counters since the cache creation or the last [resetStats]
+     *
+     * @property hitCount requests served from disk, including the ones revalidated with a
+     * `304 Not Modified` response
+     * @property missCount requests that downloaded the file content
+     * @property revalidationCount conditional requests sent to the server
+     * @property notModifiedCount conditional requests answered by `304 Not Modified`
+     * @property evictionCount entries removed to stay under [maxSizeBytes]
+     * @property hitBytes bytes served from disk
+     * @property downloadedBytes bytes downloaded and written to disk
+     */
+    data class Stats(
+        val hitCount: Long,
+        val missCount: Long,
+        val revalidationCount: Long,
+        val notModifiedCount: Long,
+        val evictionCount: Long,
+        val hitBytes: Long,
+        val downloadedBytes: Long
+    )
+
+    private class Entry(
+        val key: String,
+        val url: String,
+        var size: Long,
+        var eTag: String?,
+        var lastModified: String?,
+        var validatedAt: Long
+    ) {
+        // The requests currently using the entry. Eviction skips it until they are done.
+        var pinCount = 0
+    }
+
+    // Access ordered so the first entry is the least recently used one.
+    private val entries = LinkedHashMap<String, Entry>(0, 0.75f, true)
+    private val keyLocks = ConcurrentHashMap<String, Any>()
+
+    @Volatile
+    private var isOpened = false
+
+    /**
+     * ### Total size of the cached files in bytes
+     *
+     * 0 until the cache is opened by its first access.
+     */
+    var size = 0L
+        private set
+
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+    private val revalidationCount = AtomicLong()
+    private val notModifiedCount = AtomicLong()
+    private val evictionCount = AtomicLong()
+    private val hitBytes = AtomicLong()
+    private val downloadedBytes = AtomicLong()
+
+    val stats: Stats
+        get() = Stats(
+            hitCount.get(),
+            missCount.get(),
+            revalidationCount.get(),
+            notModifiedCount.get(),
+            evictionCount.get(),
+            hitBytes.get(),
+            downloadedBytes.get()
+        )
+
+    /**
+     * ### Open the content of an url
+     *
+     * The file is opened before any other request can evict it. Once opened, its content stays
+     * readable even if it is removed from the cache.
+     *
+     * Blocking. Call it from a background thread.
+     *
+     * @param requestProperties additional request headers
+     * @param maxStaleMillis how long the entry can be used without revalidating it.
+     * Defaults to the cache [maxStaleMillis].
+     *
+     * @throws IOException if the url can't be downloaded and isn't cached
+     */
+    @JvmOverloads
+    @Throws(IOException::class)
+    fun open(
+        url: String,
+        requestProperties: Map<String, String>? = null,
+        maxStaleMillis: Long = this.maxStaleMillis
+    ): FileInputStream {
+        openIfNeeded()
+        val key = keyOf(url)
+        synchronized(keyLock(key)) {
+            val entry = synchronized(this) { entries[key]?.also { it.pinCount++ } }
+            try {
+                if (entry != null && entryFile(key).exists()) {
+                    if (System.currentTimeMillis() - entry.validatedAt <= maxStaleMillis) {
+                        return hit(entry)
+                    }
+                    return try {
+                        revalidate(entry, requestProperties)
+                    } catch (e: IOException) {
+                        // Offline or server error: the stale content is better than nothing.
+                        hit(entry)
+                    }
+                }
+                return download(key, url, requestProperties, null)
+            } finally {
+                entry?.let { synchronized(this) { it.pinCount-- } }
+            }
+        }
+    }
+
+    /**
+     * ### Whether an url content is currently stored, whatever its validity
+     *
+     * Blocking on the first access.
+     */
+    fun contains(url: String): Boolean {
+        openIfNeeded()
+        return synchronized(this) { entries.containsKey(keyOf(url)) }
+    }
+
+    /**
+     * ### Remove an url content from the cache
+     *
+     * Waits for the requests of this url in progress.
+     */
+    fun remove(url: String) {
+        openIfNeeded()
+        val key = keyOf(url)
+        synchronized(keyLock(key)) {
+            synchronized(this) {
+                entries.remove(key)?.let { deleteEntry(it) }
+            }
+        }
+    }
+
+    /**
+     * ### Remove every cached file
+     *
+     * Waits for the requests in progress of each removed url.
+     */
+    fun clear() {
+        openIfNeeded()
+        val keys = synchronized(this) { entries.keys.toList() }
+        keys.forEach { key ->
+            synchronized(keyLock(key)) {
+                synchronized(this) {
+                    entries.remove(key)?.let { deleteEntry(it) }
+                }
+            }
+        }
+    }
+
+    fun resetStats() {
+        listOf(
+            hitCount, missCount, revalidationCount, notModifiedCount, evictionCount, hitBytes,
+            downloadedBytes
+        ).forEach { it.set(0) }
+    }
+
+    private fun keyLock(key: String) = keyLocks.getOrPut(key) { Any() }
+
+    /**
+     * Must be called with the entry pinned.
+     */
+    private fun hit(entry: Entry): FileInputStream {
+        val input = FileInputStream(entryFile(entry.key))
+        hitCount.incrementAndGet()
+        hitBytes.addAndGet(entry.size)
+        // Keep the LRU order across sessions.
+        entryFile(entry.key).setLastModified(System.currentTimeMillis())
+        return input
+    }
+
+    private fun revalidate(entry: Entry, requestProperties: Map<String, String>?): FileInputStream {
+        revalidationCount.incrementAndGet()
+        return download(entry.key, entry.url, requestProperties, entry)
+    }
+
+    private fun download(
+        key: String,
+        url: String,
+        requestProperties: Map<String, String>?,
+        entry: Entry?
+    ): FileInputStream {
+        val connection = connectionFactory(URL(url))
+        try {
+            requestProperties?.forEach { (name, value) ->
+                connection.addRequestProperty(name, value)
+            }
+            // Our own validation replaces any HTTP layer caching.
+            connection.useCaches = false
+            entry?.eTag?.let { connection.setRequestProperty("If-None-Match", it) }
+            entry?.lastModified?.let { connection.setRequestProperty("If-Modified-Since", it) }
+
+            val responseCode = connection.responseCode
+            if (entry != null && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                notModifiedCount.incrementAndGet()
+                entry.validatedAt = System.currentTimeMillis()
+                writeMetadata(entry)
+                return hit(entry)
+            }
+            if (responseCode !in 200..299) {
+                throw IOException("Unexpected response code $responseCode for $url")
+            }
+
+            val tempFile = File(directory, key + TEMP_EXTENSION)
+            val size = connection.inputStream.use { input ->
+                FileOutputStream(tempFile).use { output ->
+                    val copied = input.copyTo(output)
+                    output.fd.sync()
+                    copied
+                }
+            }
+            missCount.incrementAndGet()
+            downloadedBytes.addAndGet(size)
+
+            val newEntry = Entry(
+                key = key,
+                url = url,
+                size = size,
+                eTag = connection.getHeaderField("ETag"),
+                lastModified = connection.getHeaderField("Last-Modified"),
+                validatedAt = System.currentTimeMillis()
+            )
+            synchronized(this) {
+                entries.remove(key)?.let { this.size -= it.size }
+                if (!tempFile.renameTo(entryFile(key))) {
+                    tempFile.delete()
+                    throw IOException("Unable to move $tempFile to the cache")
+                }
+                writeMetadata(newEntry)
+                entries[key] = newEntry
+                this.size += size
+                trimToSize(key)
+                // Open before another request can evict it
+                return FileInputStream(entryFile(key))
+            }
+        } finally {
+            connection.disconnect()
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until the cache fits in [maxSizeBytes].
+     *
+     * @param keepKey the entry being returned is never removed, even if larger than the cache.
+     * Neither are the entries pinned by other requests.
+     */
+    private fun trimToSize(keepKey: String) {
+        val iterator = entries.values.iterator()
+        while (size > maxSizeBytes && iterator.hasNext()) {
+            val entry = iterator.next()
+            if (entry.key == keepKey || entry.pinCount > 0) continue
+            iterator.remove()
+            deleteEntry(entry)
+            evictionCount.incrementAndGet()
+        }
+    }
+
+    private fun deleteEntry(entry: Entry) {
+        size -= entry.size
+        entryFile(entry.key).delete()
+        metadataFile(entry.key).delete()
+    }
+
+    private fun writeMetadata(entry: Entry) {
+        val properties = Properties().apply {
+            setProperty(PROPERTY_URL, entry.url)
+            entry.eTag?.let { setProperty(PROPERTY_ETAG, it) }
+            entry.lastModified?.let { setProperty(PROPERTY_LAST_MODIFIED, it) }
+            setProperty(PROPERTY_VALIDATED_AT, entry.validatedAt.toString())
+        }
+        val tempFile = File(directory, entry.key + METADATA_EXTENSION + TEMP_EXTENSION)
+        FileOutputStream(tempFile).use { output ->
+            properties.store(output, null)
+            output.fd.sync()
+        }
+        if (!tempFile.renameTo(metadataFile(entry.key))) {
+            tempFile.delete()
+        }
+    }
+
+    private fun openIfNeeded() {
+        if (!isOpened) {
+            synchronized(this) {
+                if (!isOpened) {
+                    directory.mkdirs()
+                    readEntries()
+                    isOpened = true
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index from a previous session, least recently used first.
+     */
+    private fun readEntries() {
+        val files = directory.listFiles() ?: return
+        // Leftovers of interrupted writes
+        files.filter { it.name.endsWith(TEMP_EXTENSION) }.forEach { it.delete() }
+        files.filter { it.name.endsWith(DATA_EXTENSION) }
+            .sortedBy { it.lastModified() }
+            .forEach { file ->
+                val key = file.name.removeSuffix(DATA_EXTENSION)
+                val properties = try {
+                    FileInputStream(metadataFile(key)).use { input ->
+                        Properties().apply { load(input) }
+                    }
+                } catch (e: IOException) {
+                    null
+                }
+                val url = properties?.getProperty(PROPERTY_URL)
+                if (url == null || keyOf(url) != key) {
+                    file.delete()
+                    metadataFile(key).delete()
+                    return@forEach
+                }
+                entries[key] = Entry(
+                    key = key,
+                    url = url,
+                    size = file.length(),
+                    eTag = properties.getProperty(PROPERTY_ETAG),
+                    lastModified = properties.getProperty(PROPERTY_LAST_MODIFIED),
+                    validatedAt = properties.getProperty(PROPERTY_VALIDATED_AT)?.toLongOrNull()
+                        ?: 0
+                )
+                size += file.length()
+            }
+        // Orphan metadata
+        files.filter {
+            it.name.endsWith(METADATA_EXTENSION) &&
+                    !entries.containsKey(it.name.removeSuffix(METADATA_EXTENSION))
+        }.forEach { it.delete() }
+    }
+
+    private fun entryFile(key: String) = File(directory, key + DATA_EXTENSION)
+
+    private fun metadataFile(key: String) = File(directory, key + METADATA_EXTENSION)
+
+    companion object {
+        // Default cache size of 512MB.
+        const val DEFAULT_MAX_SIZE_BYTES = 512L shl 20
+
+        private const val DATA_EXTENSION = ".data"
+        private const val METADATA_EXTENSION = ".meta"
+        private const val TEMP_EXTENSION = ".tmp"
+
+        private const val PROPERTY_URL = "url"
+        private const val PROPERTY_ETAG = "etag"
+        private const val PROPERTY_LAST_MODIFIED = "lastModified"
+        private const val PROPERTY_VALIDATED_AT = "validatedAt"
+
+        private fun keyOf(url: String) = MessageDigest.getInstance("SHA-256")
+            .digest(url.toByteArray())
+            .joinToString("") { "%02x".format(it) }
+    }
+}
@@ -0,0 +1,218 @@
+package io.github.sceneview.utils
+
+import android.os.Trace
+import androidx.annotation.MainThread
+
+/**
+ * ### Records where the time goes in each rendered frame
+ *
+ * Set it on [io.github.sceneview.SceneView.frameProfiler] to measure the duration of each frame
+ * [Phase] and count the [Counter] events. The last [windowSize] frames are kept so that rolling
+ * percentiles can be read at any time.
+ *
+ * Nothing is allocated per frame: samples are stored in preallocated ring buffers and the
+ * [onFrameProfiled] listener receives the profiler itself.
+ *
+ * Each phase is also emitted as an [android.os.Trace] section when [isTraceEnabled] so it shows up
+ * in systrace/Perfetto captures.
+ *
+ * Must only be used from the main thread.
+ *
+ * @param windowSize number of frames kept for the percentiles
+ */
+@MainThread
+class FrameProfiler @JvmOverloads constructor(val windowSize: Int = DEFAULT_WINDOW_SIZE) {
+
+    enum class Phase(val traceName: String) {
+        /** The whole frame */
+        FRAME("SceneView.frame"),
+
+        /** ARCore session update and AR frame dispatch */
+        AR_UPDATE("SceneView.arUpdate"),
+
+        /** Finalization of the asynchronously loaded resources */
+        RESOURCES("SceneView.resources"),
+
+        /** Camera manipulator update */
+        CAMERA("SceneView.camera"),
+
+        /** Nodes and listeners onFrame dispatch */
+        NODES("SceneView.nodes"),
+
+        /** Local transforms transaction commit */
+        TRANSFORMS("SceneView.transforms"),
+
+        /** Filament beginFrame, render and endFrame */
+        RENDER("SceneView.render")
+    }
+
+    enum class Counter {
+        /** Nodes receiving onFrame */
+        NODES_VISITED,
+
+        /** World transforms pushed to the Filament TransformManager */
+        TRANSFORMS_PUSHED,
+
+        /** Entities added to the Filament scene */
+        ENTITIES_ADDED,
+
+        /** Entities removed from the Filament scene */
+        ENTITIES_REMOVED,
+
+        /** Frames skipped by the renderer beginFrame */
+        SKIPPED_FRAMES,
+
+        /** Idle frames not rendered in the on demand render mode */
+        IDLE_FRAMES
+    }
+
+    fun interface OnFrameProfiledListener {
+        /**
+         * Called at the end of each profiled frame.
+         *
+         * Read the last frame values with [lastDurationNanos] and [lastCount].
+         */
+        fun onFrameProfiled(profiler: FrameProfiler)
+    }
+
+    /**
+     * ### Emit each phase as an [android.os.Trace] section
+     */
+    var isTraceEnabled = true
+
+    var onFrameProfiled: OnFrameProfiledListener? = null
+
+    /**
+     * ### Number of profiled frames since the creation or the last [reset]
+     */
+    var frameCount = 0L
+        private set
+
+    private val phases = Phase.values()
+    private val counters = Counter.values()
+
+    private val phaseStarts = LongArray(phases.size)
+    private val phaseDurations = LongArray(phases.size)
+    private val counts = IntArray(counters.size)
+
+    // Ring buffers, one row per phase/counter
+    private val durationSamples = Array(phases.size) { LongArray(windowSize) }
+    private val countSamples = Array(counters.size) { IntArray(windowSize) }
+    private var sampleIndex = 0
+    private var sampleCount = 0
+
+    private val sortScratch = LongArray(windowSize)
+
+    /**
+     * ### Start a frame and its [Phase.FRAME]
+     */
+    fun beginFrame() {
+        phaseDurations.fill(0)
+        counts.fill(0)
+        current = this
+        begin(Phase.FRAME)
+    }
+
+    /**
+     * ### End the frame and record its samples
+     */
+    fun endFrame() {
+        end(Phase.FRAME)
+        current = null
+        for (phase in phaseDurations.indices) {
+            durationSamples[phase][sampleIndex] = phaseDurations[phase]
+        }
+        for (counter in counts.indices) {
+            countSamples[counter][sampleIndex] = counts[counter]
+        }
+        sampleIndex = (sampleIndex + 1) % windowSize
+        sampleCount = minOf(sampleCount + 1, windowSize)
+        frameCount++
+        onFrameProfiled?.onFrameProfiled(this)
+    }
+
+    fun begin(phase: Phase) {
+        if (isTraceEnabled) {
+            Trace.beginSection(phase.traceName)
+        }
+        phaseStarts[phase.ordinal] = System.nanoTime()
+    }
+
+    fun end(phase: Phase) {
+        // Accumulated in case a phase runs several times in a frame
+        phaseDurations[phase.ordinal] += System.nanoTime() - phaseStarts[phase.ordinal]
+        if (isTraceEnabled) {
+            Trace.endSection()
+        }
+    }
+
+    @JvmOverloads
+    fun count(counter: Counter, value: Int = 1) {
+        counts[counter.ordinal] += value
+    }
+
+    /**
+     * ### Duration of a phase in the last profiled frame
+     */
+    fun lastDurationNanos(phase: Phase) =
+        if (sampleCount == 0) 0L else durationSamples[phase.ordinal][lastIndex]
+
+    /**
+     * ### Count of a counter in the last profiled frame
+     */
+    fun lastCount(counter: Counter) =
+        if (sampleCount == 0) 0 else countSamples[counter.ordinal][lastIndex]
+
+    /**
+     * ### Duration of a phase under which [percentile] percent of the recent frames are
+     *
+     * @param percentile from 0 to 100. 50, 95 and 99 give the p50, p95 and p99.
+     */
+    fun percentileNanos(phase: Phase, percentile: Float): Long {
+        if (sampleCount == 0) return 0L
+        System.arraycopy(durationSamples[phase.ordinal], 0, sortScratch, 0, sampleCount)
+        sortScratch.sort(0, sampleCount)
+        val rank = (percentile.coerceIn(0.0f, 100.0f) / 100.0f * (sampleCount - 1)).toInt()
+        return sortScratch[rank]
+    }
+
+    fun p50Nanos(phase: Phase = Phase.FRAME) = percentileNanos(phase, 50.0f)
+    fun p95Nanos(phase: Phase = Phase.FRAME) = percentileNanos(phase, 95.0f)
+    fun p99Nanos(phase: Phase = Phase.FRAME) = percentileNanos(phase, 99.0f)
+
+    /**
+     * ### Average count of a counter over the recent frames
+     */
+    fun averageCount(counter: Counter): Float {
+        if (sampleCount == 0) return 0.0f
+        var sum = 0L
+        val samples = countSamples[counter.ordinal]
+        for (i in 0 until sampleCount) {
+            sum += samples[i]
+        }
+        return sum.toFloat() / sampleCount
+    }
+
+    fun reset() {
+        durationSamples.forEach { it.fill(0) }
+        countSamples.forEach { it.fill(0) }
+        sampleIndex = 0
+        sampleCount = 0
+        frameCount = 0
+    }
+
+    private val lastIndex get() = (sampleIndex - 1 + windowSize) % windowSize
+
+    companion object {
+        const val DEFAULT_WINDOW_SIZE = 120
+
+        /**
+         * ### The profiler of the frame being rendered
+         *
+         * Lets the scene graph count events without looking up its SceneView.
+         */
+        @JvmStatic
+        var current: FrameProfiler? = null
+            private set
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.sceneview.utils
+
+/**
+ * ### Hash map from non zero int keys to objects without any boxing
+ *
+ * Open addressing with linear probing and backward shift deletion. Made for Filament entities
+ * where `0` is the null entity.
+ *
+ * Not thread safe.
+ */
+class IntObjectMap<V : Any>(initialCapacity: Int = DEFAULT_CAPACITY) {
+
+    private var keys: IntArray
+    private var values: Array<Any?>
+    private var mask: Int
+
+    /**
+     * ### Number of key-value pairs
+     */
+    var size = 0
+        private set
+
+    init {
+        val capacity = Integer.highestOneBit(maxOf(initialCapacity, 2) * 2 - 1)
+        keys = IntArray(capacity)
+        values = arrayOfNulls(capacity)
+        mask = capacity - 1
+    }
+
+    fun isEmpty() = size == 0
+
+    @Suppress("UNCHECKED_CAST")
+    operator fun get(key: Int): V? {
+        if (key == EMPTY_KEY) return null
+        var index = indexOf(key)
+        while (true) {
+            when (keys[index]) {
+                key -> return values[index] as V
+                EMPTY_KEY -> return null
+            }
+            index = (index + 1) and mask
+        }
+    }
+
+    operator fun contains(key: Int) = get(key) != null
+
+    /**
+     * ### Associate a value to a key
+     *
+     * @return the previous value of the key
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun put(key: Int, value: V): V? {
+        require(key != EMPTY_KEY) { "The key can't be $EMPTY_KEY" }
+        var index = indexOf(key)
+        while (true) {
+            when (keys[index]) {
+                key -> return (values[index] as V).also { values[index] = value }
+                EMPTY_KEY -> {
+                    keys[index] = key
+                    values[index] = value
+                    if (++size > keys.size * MAX_LOAD_FACTOR) {
+                        resize(keys.size * 2)
+                    }
+                    return null
+                }
+            }
+            index = (index + 1) and mask
+        }
+    }
+
+    operator fun set(key: Int, value: V) {
+        put(key, value)
+    }
+
+    /**
+     * ### Remove a key
+     *
+     * @return the removed value
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun remove(key: Int): V? {
+        if (key == EMPTY_KEY) return null
+        var index = indexOf(key)
+        while (true) {
+            when (keys[index]) {
+                key -> {
+                    val value = values[index] as V
+                    shiftBack(index)
+                    size--
+                    return value
+                }
+                EMPTY_KEY -> return null
+            }
+            index = (index + 1) and mask
+        }
+    }
+
+    /**
+     * ### Remove a key only if it is associated to the given value
+     */
+    fun remove(key: Int, value: V): Boolean {
+        if (get(key) !== value) return false
+        remove(key)
+        return true
+    }
+
+    fun clear() {
+        keys.fill(EMPTY_KEY)
+        values.fill(null)
+        size = 0
+    }
+
+    /**
+     * Fill the hole left at [index] by moving back the next entries of its probe sequence so that
+     * lookups never need tombstones.
+     */
+    private fun shiftBack(index: Int) {
+        var hole = index
+        var next = (hole + 1) and mask
+        while (keys[next] != EMPTY_KEY) {
+            val ideal = indexOf(keys[next])
+            // Move the entry if its ideal slot isn't cyclically in (hole, next]
+            if (((next - ideal) and mask) >= ((next - hole) and mask)) {
+                keys[hole] = keys[next]
+                values[hole] = values[next]
+                hole = next
+            }
+            next = (next + 1) and mask
+        }
+        keys[hole] = EMPTY_KEY
+        values[hole] = null
+    }
+
+    private fun resize(capacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+        keys = IntArray(capacity)
+        values = arrayOfNulls(capacity)
+        mask = capacity - 1
+        for (i in oldKeys.indices) {
+            val key = oldKeys[i]
+            if (key != EMPTY_KEY) {
+                var index = indexOf(key)
+                while (keys[index] != EMPTY_KEY) {
+                    index = (index + 1) and mask
+                }
+                keys[index] = key
+                values[index] = oldValues[i]
+            }
+        }
+    }
+
+    // Fibonacci hashing spreads the sequential entity ids
+    private fun indexOf(key: Int): Int {
+        val hash = key * -0x61c88647
+        return (hash xor (hash ushr 16)) and mask
+    }
+
+    companion object {
+        private const val EMPTY_KEY = 0
+        private const val DEFAULT_CAPACITY = 64
+        private const val MAX_LOAD_FACTOR = 0.5f
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.sceneview.utils
+
+/**
+ * ### Decides the rendering quality level from the recent frame times and the thermal state
+ *
+ * Level 0 is the full quality and each next level is one more step down the quality ladder.
+ *
+ * Frame times are collected in windows of [windowSize] frames and each complete window is
+ * evaluated once:
+ * - The level steps down when the [percentile] frame time exceeds the [targetFrameTimeNanos] by
+ * more than [degradeRatio] or when the device [isThermalCritical].
+ * - The level steps up after [upgradeWindowCount] consecutive windows within [upgradeRatio] of the
+ * target while the device is not [isThermalWarning].
+ *
+ * The window is restarted after each level change so that the frames rendered with the previous
+ * quality are not taken into account. An upgrade quickly followed by a downgrade doubles the
+ * number of windows needed for the next upgrade, up to [maxUpgradeWindowCount], so that the level
+ * doesn't oscillate around the device limit. It is halved back each time an upgrade holds.
+ *
+ * Free of any Android dependency so that it can be driven by synthetic frame time traces.
+ * Nothing is allocated per frame.
+ *
+ * @param levelCount number of levels including the full quality one
+ * @param windowSize number of frames evaluated together
+ */
+class QualityGovernor @JvmOverloads constructor(
+    levelCount: Int,
+    val windowSize: Int = DEFAULT_WINDOW_SIZE
+) {
+
+    fun interface OnLevelChangedListener {
+        fun onLevelChanged(governor: QualityGovernor, previousLevel: Int, level: Int)
+    }
+
+    /**
+     * ### Number of levels including the full quality one
+     *
+     * Changing it restarts from the full quality.
+     */
+    var levelCount = levelCount
+        set(value) {
+            require(value > 0) { "The level count must be positive" }
+            field = value
+            reset()
+        }
+
+    /**
+     * ### The frame duration to keep up with
+     *
+     * Usually the display refresh interval.
+     */
+    var targetFrameTimeNanos = DEFAULT_TARGET_FRAME_TIME_NANOS
+
+    /**
+     * ### The frame time percentile compared to the target
+     *
+     * From 0 to 100.
+     */
+    var percentile = DEFAULT_PERCENTILE
+
+    /**
+     * ### Step down when the percentile frame time exceeds the target times this ratio
+     */
+    var degradeRatio = DEFAULT_DEGRADE_RATIO
+
+    /**
+     * ### The percentile frame time must stay under the target times this ratio to step up
+     */
+    var upgradeRatio = DEFAULT_UPGRADE_RATIO
+
+    /**
+     * ### Number of consecutive good windows needed to step up
+     */
+    var minUpgradeWindowCount = DEFAULT_MIN_UPGRADE_WINDOW_COUNT
+
+    /**
+     * ### Highest number of consecutive good windows needed to step up after failed upgrades
+     */
+    var maxUpgradeWindowCount = DEFAULT_MAX_UPGRADE_WINDOW_COUNT
+
+    /**
+     * ### The current number of consecutive good windows needed to step up
+     */
+    var upgradeWindowCount = minUpgradeWindowCount
+        private set
+
+    /**
+     * ### The device thermal status
+     *
+     * Same values as the `android.os.PowerManager.THERMAL_STATUS_*` constants.
+     */
+    var thermalStatus = THERMAL_STATUS_NONE
+
+    /**
+     * ### The device thermal headroom forecast
+     *
+     * 1.0 means that the device reaches its severe throttling. `NaN` when unknown.
+     *
+     * @see android.os.PowerManager.getThermalHeadroom
+     */
+    var thermalHeadroom = Float.NaN
+
+    /**
+     * ### The device is throttling or about to so the quality must step down
+     */
+    val isThermalCritical
+        get() = thermalStatus >= THERMAL_STATUS_SEVERE || thermalHeadroom >= CRITICAL_HEADROOM
+
+    /**
+     * ### The device is heating up so the quality must not step up
+     */
+    val isThermalWarning
+        get() = thermalStatus >= THERMAL_STATUS_MODERATE || thermalHeadroom >= WARNING_HEADROOM
+
+    /**
+     * ### The current quality level
+     *
+     * 0 is the full quality and [levelCount] - 1 the lowest one.
+     */
+    var level = 0
+        private set
+
+    var onLevelChanged: OnLevelChangedListener? = null
+
+    /**
+     * ### The frame time percentile of the last evaluated window
+     */
+    var lastPercentileNanos = 0L
+        private set
+
+    private val samples = LongArray(windowSize)
+    private var sampleCount = 0
+    private var goodWindowCount = 0
+
+    // Windows evaluated since the last upgrade, -1 if the last change was not an upgrade
+    private var windowsSinceUpgrade = -1
+
+    init {
+        require(levelCount > 0) { "The level count must be positive" }
+        require(windowSize > 0) { "The window size must be positive" }
+    }
+
+    /**
+     * ### Record a frame duration and evaluate the window when it is complete
+     *
+     * @return true if the level changed
+     */
+    fun onFrame(frameTimeNanos: Long): Boolean {
+        samples[sampleCount++] = frameTimeNanos
+        if (sampleCount < windowSize) {
+            return false
+        }
+        sampleCount = 0
+        return evaluateWindow()
+    }
+
+    /**
+     * ### Restart from the full quality
+     */
+    fun reset() {
+        sampleCount = 0
+        goodWindowCount = 0
+        windowsSinceUpgrade = -1
+        upgradeWindowCount = minUpgradeWindowCount
+        setLevel(0)
+    }
+
+    private fun evaluateWindow(): Boolean {
+        samples.sort()
+        val rank = (percentile.coerceIn(0.0f, 100.0f) / 100.0f * (windowSize - 1)).toInt()
+        lastPercentileNanos = samples[rank]
+        if (windowsSinceUpgrade >= 0 && ++windowsSinceUpgrade > upgradeWindowCount) {
+            // The last upgrade held
+            upgradeWindowCount = (upgradeWindowCount / 2).coerceAtLeast(minUpgradeWindowCount)
+            windowsSinceUpgrade = -1
+        }
+
+        val isSlow = lastPercentileNanos > targetFrameTimeNanos * degradeRatio
+        val isFast = lastPercentileNanos <= targetFrameTimeNanos * upgradeRatio
+        return when {
+            (isSlow || isThermalCritical) && level < levelCount - 1 -> {
+                // The last upgrade was too optimistic
+                if (windowsSinceUpgrade in 0..upgradeWindowCount) {
+                    upgradeWindowCount = (upgradeWindowCount * 2).coerceAtMost(maxUpgradeWindowCount)
+                }
+                windowsSinceUpgrade = -1
+                goodWindowCount = 0
+                setLevel(level + 1)
+            }
+            isFast && !isThermalWarning && level > 0 -> {
+                goodWindowCount++
+                if (goodWindowCount >= upgradeWindowCount) {
+                    windowsSinceUpgrade = 0
+                    goodWindowCount = 0
+                    setLevel(level - 1)
+                } else {
+                    false
+                }
+            }
+            else -> {
+                goodWindowCount = 0
+                false
+            }
+        }
+    }
+
+    private fun setLevel(level: Int): Boolean {
+        val previousLevel = this.level
+        if (level == previousLevel) {
+            return false
+        }
+        this.level = level
+        onLevelChanged?.onLevelChanged(this, previousLevel, level)
+        return true
+    }
+
+    companion object {
+        const val DEFAULT_WINDOW_SIZE = 60
+        const val DEFAULT_TARGET_FRAME_TIME_NANOS = 16_666_667L
+        const val DEFAULT_PERCENTILE = 90.0f
+        const val DEFAULT_DEGRADE_RATIO = 1.25f
+        const val DEFAULT_UPGRADE_RATIO = 1.05f
+        const val DEFAULT_MIN_UPGRADE_WINDOW_COUNT = 5
+        const val DEFAULT_MAX_UPGRADE_WINDOW_COUNT = 60
+
+        const val THERMAL_STATUS_NONE = 0
+        const val THERMAL_STATUS_LIGHT = 1
+        const val THERMAL_STATUS_MODERATE = 2
+        const val THERMAL_STATUS_SEVERE = 3
+
+        private const val WARNING_HEADROOM = 0.85f
+        private const val CRITICAL_HEADROOM = 0.95f
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.sceneview.utils
+
+import com.google.android.filament.LightManager
+import io.github.sceneview.Filament
+import io.github.sceneview.SceneView
+import io.github.sceneview.light.instance
+
+/**
+ * ### One step down the [AdaptiveQuality] ladder
+ *
+ * [degrade] lowers one rendering setting and [restore] puts back the value it had before.
+ *
+ * @param name readable name used for logs and debug overlays
+ */
+abstract class QualityStep(val name: String) {
+
+    abstract fun degrade(sceneView: SceneView)
+
+    abstract fun restore(sceneView: SceneView)
+
+    override fun toString() = name
+
+    companion object {
+
+        /**
+         * ### Disable the bloom, the most expensive post process effect
+         */
+        fun bloomOff(): QualityStep = object : QualityStep("Bloom off") {
+            var wasEnabled = false
+
+            override fun degrade(sceneView: SceneView) {
+                wasEnabled = sceneView.bloomOptions.enabled
+                sceneView.bloomOptions = sceneView.bloomOptions.apply { enabled = false }
+            }
+
+            override fun restore(sceneView: SceneView) {
+                sceneView.bloomOptions = sceneView.bloomOptions.apply { enabled = wasEnabled }
+            }
+        }
+
+        /**
+         * ### Disable the screen space ambient occlusion
+         */
+        fun ambientOcclusionOff(): QualityStep = object : QualityStep("Ambient occlusion off") {
+            var wasEnabled = false
+
+            override fun degrade(sceneView: SceneView) {
+                wasEnabled = sceneView.ambientOcclusionOptions.enabled
+                sceneView.ambientOcclusionOptions = sceneView.ambientOcclusionOptions.apply {
+                    enabled = false
+                }
+            }
+
+            override fun restore(sceneView: SceneView) {
+                sceneView.ambientOcclusionOptions = sceneView.ambientOcclusionOptions.apply {
+                    enabled = wasEnabled
+                }
+            }
+        }
+
+        /**
+         * ### Disable the multi sample anti aliasing
+         *
+         * FXAA is kept so edges stay acceptable.
+         */
+        fun multiSampleAntiAliasingOff(): QualityStep = object : QualityStep("MSAA off") {
+            var wasEnabled = false
+
+            override fun degrade(sceneView: SceneView) {
+                wasEnabled = sceneView.multiSampleAntiAliasingOptions.enabled
+                sceneView.multiSampleAntiAliasingOptions =
+                    sceneView.multiSampleAntiAliasingOptions.apply { enabled = false }
+            }
+
+            override fun restore(sceneView: SceneView) {
+                sceneView.multiSampleAntiAliasingOptions =
+                    sceneView.multiSampleAntiAliasingOptions.apply { enabled = wasEnabled }
+            }
+        }
+
+        /**
+         * ### Let the dynamic resolution go lower when the GPU is overloaded
+         *
+         * @param minScale the lowest render scale
+         */
+        fun dynamicResolutionFloor(minScale: Float = 0.35f): QualityStep =
+            object : QualityStep("Dynamic resolution floor $minScale") {
+                var previousMinScale = 0.0f
+
+                override fun degrade(sceneView: SceneView) {
+                    previousMinScale = sceneView.dynamicResolution.minScale
+                    sceneView.dynamicResolution = sceneView.dynamicResolution.apply {
+                        this.minScale = minOf(previousMinScale, minScale)
+                    }
+                }
+
+                override fun restore(sceneView: SceneView) {
+                    sceneView.dynamicResolution = sceneView.dynamicResolution.apply {
+                        this.minScale = previousMinScale
+                    }
+                }
+            }
+
+        /**
+         * ### Lower the main light shadow map resolution
+         *
+         * The shadow options can't be read back from Filament so the main light ones must be given
+         * when they are not the default [LightManager.ShadowOptions]. Only their map size is
+         * changed and [restore] puts it back.
+         *
+         * @param mapSize the shadow map size in texels
+         * @param shadowOptions the main light shadow options
+         */
+        fun shadowResolution(
+            mapSize: Int = 512,
+            shadowOptions: LightManager.ShadowOptions = LightManager.ShadowOptions()
+        ): QualityStep = object : QualityStep("Shadow map $mapSize") {
+            var previousMapSize = shadowOptions.mapSize
+
+            override fun degrade(sceneView: SceneView) {
+                previousMapSize = shadowOptions.mapSize
+                setShadowMapSize(sceneView, minOf(previousMapSize, mapSize))
+            }
+
+            override fun restore(sceneView: SceneView) {
+                setShadowMapSize(sceneView, previousMapSize)
+            }
+
+            private fun setShadowMapSize(sceneView: SceneView, mapSize: Int) {
+                shadowOptions.mapSize = mapSize
+                val light = sceneView.mainLight ?: return
+                Filament.lightManager.setShadowOptions(light.instance, shadowOptions)
+                sceneView.requestRender()
+            }
+        }
+
+        /**
+         * ### Render at a lower resolution than the screen one
+         *
+         * @param maxScale the highest render scale
+         */
+        fun renderScale(maxScale: Float = 0.75f): QualityStep =
+            object : QualityStep("Render scale $maxScale") {
+                var previousMaxScale = 1.0f
+
+                override fun degrade(sceneView: SceneView) {
+                    previousMaxScale = sceneView.dynamicResolution.maxScale
+                    sceneView.dynamicResolution = sceneView.dynamicResolution.apply {
+                        this.maxScale = minOf(previousMaxScale, maxScale)
+                    }
+                }
+
+                override fun restore(sceneView: SceneView) {
+                    sceneView.dynamicResolution = sceneView.dynamicResolution.apply {
+                        this.maxScale = previousMaxScale
+                    }
+                }
+            }
+
+        /**
+         * ### The default ladder, from the least to the most visible quality loss per saved time
+         */
+        fun defaultLadder() = listOf(
+            bloomOff(),
+            ambientOcclusionOff(),
+            multiSampleAntiAliasingOff(),
+            dynamicResolutionFloor(),
+            shadowResolution(),
+            renderScale()
+        )
+    }
+}
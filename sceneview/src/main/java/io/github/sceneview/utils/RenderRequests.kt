@@ -0,0 +1,92 @@
+package io.github.sceneview.utils
+
+/**
+ * ### Decides which frames must be rendered in the on demand render mode
+ *
+ * Every change that is visible on screen calls [requestRender]: node transform or visibility
+ * changes, running animations, resources loading, gestures, environment changes,...
+ * [onFrame] is then called once per display frame and tells whether the frame must be rendered.
+ *
+ * A request keeps the next [settleFrameCount] frames rendered so that the swap chain buffers and
+ * the temporal effects (TAA, dynamic resolution,...) catch up with the last change.
+ *
+ * Free of any Android or Filament dependency.
+ *
+ * @param settleFrameCount number of frames rendered after each request
+ */
+class RenderRequests(settleFrameCount: Int = DEFAULT_SETTLE_FRAME_COUNT) {
+
+    /**
+     * ### Number of frames rendered after each request
+     */
+    var settleFrameCount = settleFrameCount
+        set(value) {
+            require(value > 0) { "The settle frame count must be positive" }
+            field = value
+        }
+
+    /**
+     * ### Number of frames that still have to be rendered
+     */
+    var pendingFrameCount = settleFrameCount
+        private set
+
+    /**
+     * ### Whether the next frame will be rendered
+     */
+    val isRenderPending get() = pendingFrameCount > 0
+
+    /**
+     * ### Number of frames rendered since the creation or the last [resetCounts]
+     */
+    var renderedFrameCount = 0L
+        private set
+
+    /**
+     * ### Number of idle frames skipped since the creation or the last [resetCounts]
+     */
+    var skippedFrameCount = 0L
+        private set
+
+    init {
+        require(settleFrameCount > 0) { "The settle frame count must be positive" }
+    }
+
+    /**
+     * ### Render the next frames
+     */
+    fun requestRender() {
+        if (pendingFrameCount < settleFrameCount) {
+            pendingFrameCount = settleFrameCount
+        }
+    }
+
+    /**
+     * ### Consume the display frame
+     *
+     * @param isContinuous render the frame even if nothing was requested
+     *
+     * @return true if the frame must be rendered
+     */
+    fun onFrame(isContinuous: Boolean = false): Boolean {
+        val isRendered = isContinuous || pendingFrameCount > 0
+        if (pendingFrameCount > 0) {
+            pendingFrameCount--
+        }
+        if (isRendered) {
+            renderedFrameCount++
+        } else {
+            skippedFrameCount++
+        }
+        return isRendered
+    }
+
+    fun resetCounts() {
+        renderedFrameCount = 0
+        skippedFrameCount = 0
+    }
+
+    companion object {
+        const val DEFAULT_SETTLE_FRAME_COUNT = 2
+    }
+}
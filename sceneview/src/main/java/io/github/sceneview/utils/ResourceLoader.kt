@@ -2,12 +2,16 @@ package io.github.sceneview.utils
 
 import android.content.ContentResolver
 import android.content.Context
+import android.content.res.Resources
 import android.net.Uri
 import androidx.annotation.IdRes
+import androidx.annotation.RawRes
+import com.google.ar.sceneform.utilities.SceneformBufferUtils
 import com.github.kittinunf.fuel.core.*
 import com.github.kittinunf.fuel.coroutines.awaitByteArray
 import kotlinx.coroutines.*
 import java.io.File
+import java.io.FileNotFoundException
 import java.io.InputStream
 import java.nio.ByteBuffer
 import java.nio.ByteOrder
@@ -16,6 +20,7 @@ import java.nio.FloatBuffer
 object ResourceLoader {
 
     private const val ASSET_FILE_PATH_ROOT = "android_asset"
+    private const val DISK_CACHE_FOLDER_NAME = "sceneview_cache"
 
     /**
      * ### Pass your own [FuelManager] and change it properties for specific http/https
@@ -24,6 +29,38 @@ object ResourceLoader {
     @JvmStatic
     var fuelManager: FuelManager = FuelManager()
 
+    /**
+     * ### Persistent cache used for every http/https file
+     *
+     * Remote files are downloaded on each load when null, which is the default.
+     *
+     * @see enableDiskCache
+     */
+    @JvmStatic
+    var diskCache: DiskCache? = null
+
+    /**
+     * ### Cache the remote files in the app cache folder
+     *
+     * Caching is opt-in. The cache folder is only read by the first remote file load, on the IO
+     * dispatcher, so it can be enabled from the main thread.
+     *
+     * Does nothing if a [diskCache] is already set.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun enableDiskCache(
+        context: Context,
+        maxSizeBytes: Long = DiskCache.DEFAULT_MAX_SIZE_BYTES,
+        folderName: String = DISK_CACHE_FOLDER_NAME
+    ) {
+        synchronized(this) {
+            if (diskCache == null) {
+                diskCache = DiskCache(File(context.cacheDir, folderName), maxSizeBytes)
+            }
+        }
+    }
+
     suspend fun <R> useFileBuffer(
         context: Context,
         fileLocation: String,
@@ -50,7 +87,9 @@ object ResourceLoader {
      * - A File path *Uri.fromFile(myModelFile).path*
      * - An http or https url *https://mydomain.com/mymodel.glb*
      *
-     * @see okHttpClient
+     * Remote files go through the [diskCache] when one is set.
+     *
+     * @see fuelManager
      */
     @JvmStatic
     suspend fun fileBuffer(context: Context, fileLocation: String): ByteBuffer? {
@@ -58,7 +97,9 @@ object ResourceLoader {
         return withContext(Dispatchers.IO) {
             when (uri.scheme) {
                 "http", "https" -> {
-                    ByteBuffer.wrap(fuelManager.get(fileLocation).awaitByteArray())
+                    diskCache?.let { cache ->
+                        SceneformBufferUtils.mapFile(cache.open(fileLocation))
+                    } ?: ByteBuffer.wrap(fuelManager.get(fileLocation).awaitByteArray())
                 }
                 else -> {
                     localFileBuffer(context, fileLocation)
@@ -93,33 +134,56 @@ object ResourceLoader {
      * - A File path *Uri.fromFile(myModelFile).path*
      * - An http or https url *https://mydomain.com/mymodel.glb*
      *
-     * @see okHttpClient
+     * Files, uncompressed assets and raw resources are memory mapped as read-only direct buffers
+     * so their content reaches Filament without any Java heap copy. Other sources are read into a
+     * direct buffer with a single copy.
      */
     @JvmStatic
     fun localFileBuffer(context: Context, fileLocation: String): ByteBuffer? {
         val uri = Uri.parse(fileLocation)
         return when (uri.scheme) {
             ContentResolver.SCHEME_FILE -> if (uri.firstPathSegment == ASSET_FILE_PATH_ROOT) {
-                context.assets.open(
-                    uri.pathSegments.drop(1).joinToString("/")
-                ).toByteArray()
+                assetBuffer(context, uri.pathSegments.drop(1).joinToString("/"))
             } else {
-                File(uri.path!!).inputStream().toByteArray()
+                SceneformBufferUtils.mapFile(File(uri.path!!))
             }
             ContentResolver.SCHEME_CONTENT -> {
-                context.contentResolver.openInputStream(uri)?.toByteArray()
+                context.contentResolver.openAssetFileDescriptor(uri, "r")?.let {
+                    SceneformBufferUtils.mapFileDescriptor(it)
+                } ?: context.contentResolver.openInputStream(uri)?.directBuffer()
             }
             ContentResolver.SCHEME_ANDROID_RESOURCE -> {
                 // Expected format: android.resource://example.package.name/12345678
-                context.resources.openRawResource(uri.pathSegments.lastOrNull()?.toInt()!!)
-                    .toByteArray()
+                resourceBuffer(context, uri.pathSegments.lastOrNull()?.toInt()!!)
             }
-            else -> context.assets.open(fileLocation).toByteArray()
-        }?.let { byteArray ->
-            ByteBuffer.wrap(byteArray)
+            else -> assetBuffer(context, fileLocation)
         }
     }
 
+    /**
+     * ### Map an asset or copy it once if it is compressed in the apk
+     */
+    @JvmStatic
+    fun assetBuffer(context: Context, assetPath: String): ByteBuffer = (try {
+        SceneformBufferUtils.mapFileDescriptor(context.assets.openFd(assetPath))
+    } catch (e: FileNotFoundException) {
+        // Compressed assets can't be opened as file descriptors
+        null
+    }) ?: context.assets.open(assetPath).directBuffer()
+
+    /**
+     * ### Map a raw resource or copy it once if it is compressed in the apk
+     */
+    @JvmStatic
+    fun resourceBuffer(context: Context, @RawRes resId: Int): ByteBuffer = (try {
+        context.resources.openRawResourceFd(resId)?.let {
+            SceneformBufferUtils.mapFileDescriptor(it)
+        }
+    } catch (e: Resources.NotFoundException) {
+        // Compressed resources can't be opened as file descriptors
+        null
+    }) ?: context.resources.openRawResource(resId).directBuffer()
+
     @JvmStatic
     private val Uri.firstPathSegment: String?
         get() = pathSegments.firstOrNull()
@@ -171,6 +235,34 @@ fun InputStream.toByteArray() = use {
     }
 }
 
+/**
+ * ### Read the stream content into a direct buffer with a single copy and close it
+ */
+fun InputStream.directBuffer(): ByteBuffer = use {
+    SceneformBufferUtils.readStreamToDirectBuffer(it, it.available())
+}
+
+/**
+ * ### Read the buffer content from its position to its limit
+ *
+ * Works with any buffer, including direct and mapped ones which have no backing array.
+ */
+fun ByteBuffer.inputStream(): InputStream = object : InputStream() {
+    private val buffer = this@inputStream.slice()
+
+    override fun read() = if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+
+    override fun read(bytes: ByteArray, offset: Int, length: Int): Int {
+        if (length == 0) return 0
+        if (!buffer.hasRemaining()) return -1
+        val count = minOf(length, buffer.remaining())
+        buffer.get(bytes, offset, count)
+        return count
+    }
+
+    override fun available() = buffer.remaining()
+}
+
 fun <R> InputStream.useBuffer(block: (ByteBuffer) -> R): R = use { inputStream ->
     val bytes = ByteArray(inputStream.available())
     inputStream.read(bytes)
@@ -0,0 +1,94 @@
+package io.github.sceneview.utils
+
+import com.google.android.filament.Entity
+import com.google.android.filament.EntityInstance
+import com.google.android.filament.TransformManager
+import dev.romainguy.kotlin.math.Float4
+import io.github.sceneview.Filament
+import io.github.sceneview.math.Transform
+
+/**
+ * ### Collects the transforms changed during a frame and pushes them to the [TransformManager]
+ * together
+ *
+ * The matrices are packed column major in one reusable array so recording a transform allocates
+ * nothing. The [io.github.sceneview.SceneView] calls [flush] inside its local transform transaction.
+ *
+ * The recorded instances are looked up again at [flush] if transform components were destroyed in
+ * between since it can move the other ones. See [Filament.transformInstancesVersion].
+ */
+internal class TransformBatch(initialCapacity: Int = DEFAULT_CAPACITY) {
+
+    private var entities = IntArray(initialCapacity)
+    private var instances = IntArray(initialCapacity)
+    private var matrices = FloatArray(initialCapacity * MATRIX_SIZE)
+
+    // Filament reads a 16 floats array
+    private val matrix = FloatArray(MATRIX_SIZE)
+
+    private var instancesVersion = 0
+
+    /**
+     * ### Number of transforms waiting for the next [flush]
+     */
+    var size = 0
+        private set
+
+    fun setTransform(@Entity entity: Int, @EntityInstance instance: Int, transform: Transform) {
+        if (size == 0) {
+            instancesVersion = Filament.transformInstancesVersion
+        }
+        if (size == entities.size) {
+            grow()
+        }
+        entities[size] = entity
+        instances[size] = instance
+        val offset = size * MATRIX_SIZE
+        put(offset, transform.x)
+        put(offset + 4, transform.y)
+        put(offset + 8, transform.z)
+        put(offset + 12, transform.w)
+        size++
+    }
+
+    /**
+     * ### Push the recorded transforms
+     */
+    fun flush(transformManager: TransformManager) {
+        val isInstancesChanged = instancesVersion != Filament.transformInstancesVersion
+        var pushed = 0
+        for (i in 0 until size) {
+            val instance = if (isInstancesChanged) {
+                transformManager.getInstance(entities[i])
+            } else {
+                instances[i]
+            }
+            // The entity may have been destroyed since
+            if (instance != 0) {
+                System.arraycopy(matrices, i * MATRIX_SIZE, matrix, 0, MATRIX_SIZE)
+                transformManager.setTransform(instance, matrix)
+                pushed++
+            }
+        }
+        size = 0
+        FrameProfiler.current?.count(FrameProfiler.Counter.TRANSFORMS_PUSHED, pushed)
+    }
+
+    private fun put(offset: Int, column: Float4) {
+        matrices[offset] = column.x
+        matrices[offset + 1] = column.y
+        matrices[offset + 2] = column.z
+        matrices[offset + 3] = column.w
+    }
+
+    private fun grow() {
+        entities = entities.copyOf(entities.size * 2)
+        instances = instances.copyOf(instances.size * 2)
+        matrices = matrices.copyOf(matrices.size * 2)
+    }
+
+    companion object {
+        private const val DEFAULT_CAPACITY = 64
+        private const val MATRIX_SIZE = 16
+    }
+}
@@ -0,0 +1,134 @@
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link CollisionSystem} tree queries with the linear scan over every collider that
+ * it replaced.
+ *
+ * <p>Run with {@code ./gradlew :sceneview:jmh -Pjmh=CollisionSystemBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionSystemBenchmark {
+  private static final int QUERY_COUNT = 256;
+  private static final float SCENE_SIZE = 20.0f;
+
+  @Param({"1000", "5000"})
+  public int colliderCount;
+
+  private final CollisionSystem collisionSystem = new CollisionSystem();
+  private final ArrayList<Collider> colliders = new ArrayList<>();
+  private final Ray[] rays = new Ray[QUERY_COUNT];
+  private final Collider[] queryColliders = new Collider[QUERY_COUNT];
+  private final RayHit rayHit = new RayHit();
+  private int query;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    TransformProvider identity = new IdentityTransformProvider();
+    for (int i = 0; i < colliderCount; i++) {
+      Collider collider =
+          new Collider(identity, new Sphere(0.1f + random.nextFloat() * 0.2f, randomPoint(random)));
+      collider.setAttachedCollisionSystem(collisionSystem);
+      colliders.add(collider);
+    }
+    Vector3 eye = new Vector3(SCENE_SIZE * 0.5f, SCENE_SIZE * 0.5f, SCENE_SIZE * 2.0f);
+    for (int i = 0; i < QUERY_COUNT; i++) {
+      rays[i] = new Ray(eye, Vector3.subtract(randomPoint(random), eye));
+      queryColliders[i] = new Collider(identity, new Sphere(0.5f, randomPoint(random)));
+    }
+    // Build the tree outside of the measurements
+    collisionSystem.raycast(rays[0], rayHit, false);
+  }
+
+  @Benchmark
+  public Collider raycastTree() {
+    return collisionSystem.raycast(nextRay(), rayHit, false);
+  }
+
+  @Benchmark
+  public Collider raycastLinearScan() {
+    Ray ray = nextRay();
+    rayHit.reset();
+    RayHit tempResult = new RayHit();
+    Collider result = null;
+    for (Collider collider : colliders) {
+      CollisionShape collisionShape = collider.getTransformedShape();
+      if (collisionShape != null
+          && collisionShape.rayIntersection(ray, tempResult)
+          && tempResult.getDistance() < rayHit.getDistance()) {
+        rayHit.set(tempResult);
+        result = collider;
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  public Collider intersectsTree() {
+    return collisionSystem.intersects(nextQueryCollider());
+  }
+
+  @Benchmark
+  public Collider intersectsLinearScan() {
+    Collider collider = nextQueryCollider();
+    CollisionShape collisionShape = collider.getTransformedShape();
+    for (Collider otherCollider : colliders) {
+      CollisionShape otherCollisionShape = otherCollider.getTransformedShape();
+      if (otherCollisionShape != null && collisionShape.shapeIntersection(otherCollisionShape)) {
+        return otherCollider;
+      }
+    }
+    return null;
+  }
+
+  private Ray nextRay() {
+    query = (query + 1) % QUERY_COUNT;
+    return rays[query];
+  }
+
+  private Collider nextQueryCollider() {
+    query = (query + 1) % QUERY_COUNT;
+    return queryColliders[query];
+  }
+
+  private static Vector3 randomPoint(Random random) {
+    return new Vector3(
+        random.nextFloat() * SCENE_SIZE,
+        random.nextFloat() * SCENE_SIZE,
+        random.nextFloat() * SCENE_SIZE);
+  }
+
+  private static final class IdentityTransformProvider implements TransformProvider {
+    private final Matrix matrix = new Matrix();
+
+    @Override
+    public Matrix getTransformationMatrix() {
+      return matrix;
+    }
+  }
+}
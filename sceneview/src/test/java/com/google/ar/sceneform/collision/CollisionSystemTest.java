@@ -0,0 +1,132 @@
+package com.google.ar.sceneform.collision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.ar.sceneform.common.TransformProvider;
+import com.google.ar.sceneform.math.Matrix;
+import com.google.ar.sceneform.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CollisionSystemTest {
+  private static final float SCENE_SIZE = 10.0f;
+
+  private final TransformProvider identity = Matrix::new;
+  private final CollisionSystem collisionSystem = new CollisionSystem();
+  private final ArrayList<Collider> colliders = new ArrayList<>();
+  private final Random random = new Random(7);
+
+  @Before
+  public void setUp() {
+    for (int i = 0; i < 500; i++) {
+      Collider collider = new Collider(identity, new Sphere(0.2f, randomPoint()));
+      collider.setAttachedCollisionSystem(collisionSystem);
+      colliders.add(collider);
+    }
+  }
+
+  @Test
+  public void raycast_matchesLinearScan() {
+    for (int i = 0; i < 200; i++) {
+      assertRaycastMatchesLinearScan(randomRay());
+    }
+  }
+
+  @Test
+  public void raycast_afterMovesAndRemovals_matchesLinearScan() {
+    for (int i = 0; i < colliders.size(); i += 3) {
+      ((Sphere) colliders.get(i).getShape()).setCenter(randomPoint());
+    }
+    for (int i = colliders.size() - 1; i >= 0; i -= 5) {
+      colliders.remove(i).setAttachedCollisionSystem(null);
+    }
+    for (int i = 0; i < 200; i++) {
+      assertRaycastMatchesLinearScan(randomRay());
+    }
+  }
+
+  @Test
+  public void raycastAll_returnsEveryHitSortedByDistance() {
+    ArrayList<RayHit> hits = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Ray ray = randomRay();
+      int expectedCount = 0;
+      RayHit hit = new RayHit();
+      for (Collider collider : colliders) {
+        if (collider.getTransformedShape().rayIntersection(ray, hit)) {
+          expectedCount++;
+        }
+      }
+
+      int hitCount = collisionSystem.raycastAll(ray, hits, null, RayHit::new);
+
+      assertEquals(expectedCount, hitCount);
+      for (int j = 1; j < hitCount; j++) {
+        assertTrue(hits.get(j - 1).getDistance() <= hits.get(j).getDistance());
+      }
+    }
+  }
+
+  @Test
+  public void intersects_matchesLinearScan() {
+    for (int i = 0; i < 200; i++) {
+      Collider query = new Collider(identity, new Sphere(0.5f, randomPoint()));
+      ArrayList<Collider> expected = new ArrayList<>();
+      for (Collider collider : colliders) {
+        if (query.getTransformedShape().shapeIntersection(collider.getTransformedShape())) {
+          expected.add(collider);
+        }
+      }
+
+      ArrayList<Collider> actual = new ArrayList<>();
+      collisionSystem.intersectsAll(query, actual::add);
+      Collider first = collisionSystem.intersects(query);
+
+      assertEquals(expected.size(), actual.size());
+      assertTrue(actual.containsAll(expected));
+      if (expected.isEmpty()) {
+        assertNull(first);
+      } else {
+        assertTrue(expected.contains(first));
+      }
+    }
+  }
+
+  private void assertRaycastMatchesLinearScan(Ray ray) {
+    RayHit expectedHit = new RayHit();
+    RayHit hit = new RayHit();
+    Collider expected = null;
+    for (Collider collider : colliders) {
+      if (collider.getTransformedShape().rayIntersection(ray, hit)
+          && hit.getDistance() < expectedHit.getDistance()) {
+        expectedHit.set(hit);
+        expected = collider;
+      }
+    }
+
+    RayHit resultHit = new RayHit();
+    Collider result = collisionSystem.raycast(ray, resultHit, false);
+
+    assertSame(expected, result);
+    assertEquals(expectedHit.getDistance(), resultHit.getDistance(), 0.0f);
+  }
+
+  private Ray randomRay() {
+    Vector3 origin = new Vector3(SCENE_SIZE * 0.5f, SCENE_SIZE * 0.5f, SCENE_SIZE * 2.0f);
+    return new Ray(origin, Vector3.subtract(randomPoint(), origin));
+  }
+
+  private Vector3 randomPoint() {
+    return new Vector3(
+        random.nextFloat() * SCENE_SIZE,
+        random.nextFloat() * SCENE_SIZE,
+        random.nextFloat() * SCENE_SIZE);
+  }
+}
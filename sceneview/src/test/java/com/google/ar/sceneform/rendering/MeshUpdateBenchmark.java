@@ -0,0 +1,165 @@
+package com.google.ar.sceneform.rendering;
+
+import static org.mockito.Mockito.mock;
+
+import com.google.android.filament.MaterialInstance;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.Vertex.UvCoordinate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the per update cost of a {@link RenderableDefinition} rebuilt every frame, like the
+ * plane and face meshes, from a {@link Vertex} and {@link Integer} lists and from refilled {@link
+ * MeshArrays}.
+ *
+ * <p>Only the writes to the raw buffers are measured since the Filament upload is the same for
+ * both. Run it with the GC profiler to compare the allocated bytes per update ({@code
+ * gc.alloc.rate.norm}):
+ *
+ * <p>{@code ./gradlew :sceneview:jmh -Pjmh="MeshUpdateBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshUpdateBenchmark {
+  private static final float RADIUS = 1.0f;
+
+  /** The number of vertices on the border of the triangle fan. */
+  @Param({"64", "512"})
+  public int borderVertexCount;
+
+  private final RenderableInternalData verticesData = new RenderableInternalData();
+  private final RenderableInternalData meshData = new RenderableInternalData();
+
+  private RenderableDefinition verticesDefinition;
+  private RenderableDefinition.Submesh verticesSubmesh;
+
+  private final MeshArrays mesh = new MeshArrays();
+  private RenderableDefinition meshDefinition;
+  private float[] positions;
+  private float[] normals;
+  private float[] uvs;
+  private int[] triangleIndices;
+
+  private int update;
+
+  @Setup
+  public void setUp() {
+    int vertexCount = borderVertexCount + 1;
+    int indexCount = borderVertexCount * 3;
+
+    // The material isn't used by the raw buffers writes
+    MaterialInstance material = mock(MaterialInstance.class);
+
+    verticesSubmesh = RenderableDefinition.Submesh.builder().setMaterial(material).build();
+    verticesDefinition =
+        RenderableDefinition.builder()
+            .setVertices(new ArrayList<>())
+            .setSubmeshes(Collections.singletonList(verticesSubmesh))
+            .build(null);
+
+    positions = new float[vertexCount * MeshArrays.POSITION_SIZE];
+    normals = new float[vertexCount * MeshArrays.NORMAL_SIZE];
+    uvs = new float[vertexCount * MeshArrays.UV_SIZE];
+    triangleIndices = new int[indexCount];
+    meshDefinition =
+        RenderableDefinition.builder()
+            .setMesh(mesh)
+            .setSubmeshes(
+                Collections.singletonList(
+                    RenderableDefinition.Submesh.builder().setMaterial(material).build()))
+            .build(null);
+
+    // Allocate the reused raw buffers outside of the measurements
+    verticesListUpdate();
+    meshArraysUpdate();
+  }
+
+  /** Allocates a {@link Vertex} with its attributes per vertex and boxes every index. */
+  @Benchmark
+  public RenderableInternalData verticesListUpdate() {
+    float height = nextHeight();
+    ArrayList<Vertex> vertices = new ArrayList<>();
+    ArrayList<Integer> indices = new ArrayList<>();
+    vertices.add(
+        Vertex.builder()
+            .setPosition(new Vector3(0.0f, height, 0.0f))
+            .setNormal(Vector3.up())
+            .setUvCoordinate(new UvCoordinate(0.5f, 0.5f))
+            .build());
+    for (int i = 0; i < borderVertexCount; i++) {
+      float angle = (float) (2.0 * Math.PI * i / borderVertexCount);
+      float x = RADIUS * (float) Math.cos(angle);
+      float z = RADIUS * (float) Math.sin(angle);
+      vertices.add(
+          Vertex.builder()
+              .setPosition(new Vector3(x, height, z))
+              .setNormal(Vector3.up())
+              .setUvCoordinate(new UvCoordinate(x * 0.5f + 0.5f, z * 0.5f + 0.5f))
+              .build());
+      indices.add(0);
+      indices.add(i + 1);
+      indices.add((i + 1) % borderVertexCount + 1);
+    }
+    verticesDefinition.setVertices(vertices);
+    verticesSubmesh.setTriangleIndices(indices);
+    verticesDefinition.applyDefinitionToRawBuffers(verticesData);
+    return verticesData;
+  }
+
+  /** Refills the same primitive arrays. */
+  @Benchmark
+  public RenderableInternalData meshArraysUpdate() {
+    float height = nextHeight();
+    positions[0] = 0.0f;
+    positions[1] = height;
+    positions[2] = 0.0f;
+    normals[1] = 1.0f;
+    uvs[0] = 0.5f;
+    uvs[1] = 0.5f;
+    for (int i = 0; i < borderVertexCount; i++) {
+      float angle = (float) (2.0 * Math.PI * i / borderVertexCount);
+      float x = RADIUS * (float) Math.cos(angle);
+      float z = RADIUS * (float) Math.sin(angle);
+      int vertex = i + 1;
+      positions[vertex * MeshArrays.POSITION_SIZE] = x;
+      positions[vertex * MeshArrays.POSITION_SIZE + 1] = height;
+      positions[vertex * MeshArrays.POSITION_SIZE + 2] = z;
+      normals[vertex * MeshArrays.NORMAL_SIZE + 1] = 1.0f;
+      uvs[vertex * MeshArrays.UV_SIZE] = x * 0.5f + 0.5f;
+      uvs[vertex * MeshArrays.UV_SIZE + 1] = z * 0.5f + 0.5f;
+      triangleIndices[i * 3] = 0;
+      triangleIndices[i * 3 + 1] = vertex;
+      triangleIndices[i * 3 + 2] = vertex % borderVertexCount + 1;
+    }
+    mesh.setPositions(positions, borderVertexCount + 1)
+        .setNormals(normals)
+        .setUvs(uvs)
+        .setTriangleIndices(triangleIndices, triangleIndices.length);
+    meshDefinition.applyDefinitionToRawBuffers(meshData);
+    return meshData;
+  }
+
+  private float nextHeight() {
+    update = (update + 1) % 100;
+    return update * 0.01f;
+  }
+}
@@ -0,0 +1,143 @@
+package com.google.ar.sceneform.utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the peak Java heap used while loading a 50 MB model file: the previous read into a
+ * heap byte array, the single copy into a direct buffer used for compressed assets, and the memory
+ * mapping used for files and uncompressed assets.
+ *
+ * <p>Each load is a single shot started from a collected heap. The {@code peakHeapBytes} counter
+ * is the growth of the heap pools peak usage during the measured load. JMH sums the counters of
+ * the measured iterations so only one load is measured.
+ *
+ * <p>Run with {@code ./gradlew :sceneview:jmh -Pjmh=ModelLoadHeapBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-XX:MaxDirectMemorySize=1g"})
+public class ModelLoadHeapBenchmark {
+  private static final int MODEL_SIZE_BYTES = 50 * 1024 * 1024;
+  private static final int PAGE_SIZE = 4096;
+
+  private File modelFile;
+
+  /** Reports the heap usage of the load. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class HeapCounters {
+    public long peakHeapBytes;
+
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private long usedBeforeLoad;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+          heapPools.add(pool);
+        }
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void startLoad() {
+      System.gc();
+      usedBeforeLoad = 0;
+      for (MemoryPoolMXBean pool : heapPools) {
+        pool.resetPeakUsage();
+        usedBeforeLoad += pool.getUsage().getUsed();
+      }
+    }
+
+    void endLoad() {
+      long peak = 0;
+      for (MemoryPoolMXBean pool : heapPools) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+      peakHeapBytes = Math.max(0, peak - usedBeforeLoad);
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    modelFile = File.createTempFile("model", ".glb");
+    byte[] block = new byte[1024 * 1024];
+    new Random(42).nextBytes(block);
+    try (FileOutputStream output = new FileOutputStream(modelFile)) {
+      for (int written = 0; written < MODEL_SIZE_BYTES; written += block.length) {
+        output.write(block);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    modelFile.delete();
+  }
+
+  /** The previous loading through a {@link java.io.ByteArrayOutputStream} wrapped in a buffer. */
+  @Benchmark
+  public long heapByteArray(HeapCounters counters) throws IOException {
+    ByteBuffer buffer;
+    try (InputStream input = new FileInputStream(modelFile)) {
+      buffer = ByteBuffer.wrap(SceneformBufferUtils.inputStreamToByteArray(input));
+    }
+    return consume(buffer, counters);
+  }
+
+  /** The fallback for compressed assets that can't be mapped. */
+  @Benchmark
+  public long directBufferCopy(HeapCounters counters) throws IOException {
+    ByteBuffer buffer;
+    try (InputStream input = new FileInputStream(modelFile)) {
+      buffer = SceneformBufferUtils.readStreamToDirectBuffer(input, input.available());
+    }
+    return consume(buffer, counters);
+  }
+
+  /** Files, uncompressed assets and cached remote files. */
+  @Benchmark
+  public long mappedFile(HeapCounters counters) throws IOException {
+    return consume(SceneformBufferUtils.mapFile(modelFile), counters);
+  }
+
+  /** Touches every page like the native copy made by Filament, then records the heap peak. */
+  private static long consume(ByteBuffer buffer, HeapCounters counters) {
+    long checksum = 0;
+    for (int i = 0; i < buffer.limit(); i += PAGE_SIZE) {
+      checksum += buffer.get(i);
+    }
+    counters.endLoad();
+    return checksum;
+  }
+}
@@ -0,0 +1,187 @@
+package io.github.sceneview.animation
+
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Drives the mixer with synthetic frame intervals
+ */
+class AnimationMixerTest {
+
+    private val mixer = AnimationMixer(floatArrayOf(1.0f, 2.0f, 0.5f))
+
+    @Test
+    fun loopingClip_wrapsAround() {
+        mixer.play(0)
+
+        advance(5, 0.25f)
+
+        assertEquals(0.25f, mixer.getTime(0), EPSILON)
+        assertTrue(mixer.isPlaying(0))
+        assertTrue(mixer.isActive)
+    }
+
+    @Test
+    fun onceClip_holdsItsLastPose() {
+        mixer.play(2, loop = false)
+
+        advance(4, 0.25f)
+
+        assertEquals(0.5f, mixer.getTime(2), EPSILON)
+        assertFalse(mixer.isPlaying(2))
+        assertEquals(1, mixer.evaluatedClipCount)
+        assertEquals(0.5f, mixer.getEvaluatedTime(0), EPSILON)
+        mixer.onApplied()
+        assertFalse(mixer.isActive)
+    }
+
+    @Test
+    fun speeds_scaleTheClipTime() {
+        mixer.play(1)
+        mixer.setSpeed(1, 2.0f)
+        mixer.timeScale = 0.5f
+
+        advance(1, 0.5f)
+
+        assertEquals(0.5f, mixer.getTime(1), EPSILON)
+    }
+
+    @Test
+    fun crossFade_movesTheWeights() {
+        mixer.play(0)
+        advance(1, 0.1f)
+
+        mixer.crossFade(1, fadeDuration = 1.0f)
+        advance(2, 0.25f)
+
+        assertEquals(0.5f, mixer.getWeight(0), EPSILON)
+        assertEquals(0.5f, mixer.getWeight(1), EPSILON)
+        assertEquals(2, mixer.evaluatedClipCount)
+
+        advance(2, 0.25f)
+
+        assertEquals(0.0f, mixer.getWeight(0), EPSILON)
+        assertFalse(mixer.isPlaying(0))
+        assertEquals(1, mixer.evaluatedClipCount)
+        assertEquals(1, mixer.getEvaluatedClip(0))
+    }
+
+    @Test
+    fun evaluatedClips_areSortedAndNormalized() {
+        mixer.play(0, weight = 0.2f)
+        mixer.play(1, weight = 0.6f)
+        mixer.play(2, weight = 0.2f)
+
+        advance(1, 0.1f)
+
+        assertEquals(3, mixer.evaluatedClipCount)
+        assertEquals(1, mixer.getEvaluatedClip(0))
+        assertEquals(0.6f, mixer.getEvaluatedWeight(0), EPSILON)
+        val totalWeight = (0 until mixer.evaluatedClipCount).sumOf {
+            mixer.getEvaluatedWeight(it).toDouble()
+        }
+        assertEquals(1.0, totalWeight, EPSILON.toDouble())
+    }
+
+    @Test
+    fun maxBlendedClipCount_keepsTheMostWeightedClips() {
+        mixer.maxBlendedClipCount = 2
+        mixer.play(0, weight = 0.2f)
+        mixer.play(1, weight = 0.3f)
+        mixer.play(2, weight = 0.5f)
+
+        advance(1, 0.1f)
+
+        assertEquals(2, mixer.evaluatedClipCount)
+        assertEquals(2, mixer.getEvaluatedClip(0))
+        assertEquals(1, mixer.getEvaluatedClip(1))
+        assertEquals(0.625f, mixer.getEvaluatedWeight(0), EPSILON)
+        assertEquals(0.375f, mixer.getEvaluatedWeight(1), EPSILON)
+    }
+
+    @Test
+    fun additiveClips_onDifferentEntities_allPlayFully() {
+        // Like a model with one clip per animated node
+        val mixer = AnimationMixer(FloatArray(6) { 1.0f })
+        mixer.isAdditive = true
+        mixer.playAll()
+
+        mixer.advance(0.1f)
+
+        assertEquals(6, mixer.evaluatedClipCount)
+        for (i in 0 until 6) {
+            assertEquals(i, mixer.getEvaluatedClip(i))
+            assertEquals(1.0f, mixer.getEvaluatedWeight(i), EPSILON)
+            assertEquals(0.1f, mixer.getEvaluatedTime(i), EPSILON)
+        }
+    }
+
+    @Test
+    fun additiveClip_keepsItsOwnWeight() {
+        mixer.isAdditive = true
+        mixer.play(0)
+        mixer.play(2, weight = 0.5f)
+
+        advance(1, 0.1f)
+
+        assertEquals(2, mixer.evaluatedClipCount)
+        assertEquals(0, mixer.getEvaluatedClip(0))
+        assertEquals(1.0f, mixer.getEvaluatedWeight(0), EPSILON)
+        assertEquals(2, mixer.getEvaluatedClip(1))
+        assertEquals(0.5f, mixer.getEvaluatedWeight(1), EPSILON)
+    }
+
+    @Test
+    fun minApplyInterval_throttlesTheApplications() {
+        mixer.minApplyInterval = 0.1f
+        mixer.play(0)
+
+        val applications = (0 until 12).count {
+            val isApplyPending = mixer.advance(1.0f / 60.0f)
+            mixer.onApplied()
+            isApplyPending
+        }
+
+        // The first frame and then every 6 frames
+        assertEquals(2, applications)
+    }
+
+    @Test
+    fun stopAll_leavesNoClipToApply() {
+        mixer.playAll()
+        advance(1, 0.1f)
+
+        mixer.stopAll()
+
+        assertTrue(mixer.advance(0.1f))
+        assertEquals(0, mixer.evaluatedClipCount)
+        mixer.onApplied()
+        assertFalse(mixer.isActive)
+    }
+
+    @Test
+    fun changes_notifyTheOwner() {
+        var changeCount = 0
+        mixer.onChanged = Runnable { changeCount++ }
+
+        mixer.play(0)
+        mixer.setTime(0, 0.5f)
+        mixer.stop(0, fadeDuration = 0.5f)
+
+        assertEquals(3, changeCount)
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun unknownClip_throws() {
+        mixer.play(3)
+    }
+
+    private fun advance(frameCount: Int, deltaSeconds: Float) = repeat(frameCount) {
+        mixer.advance(deltaSeconds)
+        mixer.onApplied()
+    }
+
+    companion object {
+        private const val EPSILON = 1e-5f
+    }
+}
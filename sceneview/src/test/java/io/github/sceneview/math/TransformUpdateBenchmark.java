@@ -0,0 +1,129 @@
+package io.github.sceneview.math;
+
+import static io.github.sceneview.math.MathUtilsKt.DEFAULT_EPSILON;
+
+import dev.romainguy.kotlin.math.Float3;
+import dev.romainguy.kotlin.math.Mat4;
+import dev.romainguy.kotlin.math.MatrixKt;
+import dev.romainguy.kotlin.math.Quaternion;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares one frame of transform updates of smoothly moving nodes: the previous math allocating
+ * a new object per operation with the {@code out} parameter variants of {@code MutableMath.kt}.
+ *
+ * <p>Each node interpolates its local transform towards its target, which changes every frame,
+ * then multiplies it by its parent world transform.
+ *
+ * <p>Run it with the GC profiler to compare the allocated bytes per frame ({@code
+ * gc.alloc.rate.norm}):
+ *
+ * <p>{@code ./gradlew :sceneview:jmh -Pjmh="TransformUpdateBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformUpdateBenchmark {
+  // 60 fps with the default Node.smoothSpeed
+  private static final float LERP_FACTOR = 5.0f / 60.0f;
+
+  @Param({"1000"})
+  public int nodeCount;
+
+  private final Mat4 parentWorldTransform =
+      MathUtilsKt.Transform(
+          new Float3(0.0f, 1.0f, -2.0f),
+          Quaternion.Companion.fromAxisAngle(new Float3(0.0f, 1.0f, 0.0f), 30.0f),
+          new Float3(2.0f, 2.0f, 2.0f));
+
+  private Mat4[] targetsA;
+  private Mat4[] targetsB;
+  private Mat4[] transforms;
+  private Mat4[] worldTransforms;
+  private boolean isTargetA;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    targetsA = new Mat4[nodeCount];
+    targetsB = new Mat4[nodeCount];
+    transforms = new Mat4[nodeCount];
+    worldTransforms = new Mat4[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      targetsA[i] = randomTransform(random);
+      targetsB[i] = randomTransform(random);
+      transforms[i] = randomTransform(random);
+      worldTransforms[i] = new Mat4();
+    }
+  }
+
+  /** The previous slerp and Transform(position, quaternion, scale) with the Mat4 operators. */
+  @Benchmark
+  public Mat4[] allocatingUpdate() {
+    Mat4[] targets = nextTargets();
+    for (int i = 0; i < nodeCount; i++) {
+      Mat4 start = transforms[i];
+      Mat4 end = targets[i];
+      Float3 position =
+          MathUtilsKt.lerp(start.getPosition(), end.getPosition(), LERP_FACTOR, DEFAULT_EPSILON);
+      Quaternion quaternion =
+          MathUtilsKt.slerp(
+              MathUtilsKt.getQuaternion(start),
+              MathUtilsKt.getQuaternion(end),
+              LERP_FACTOR,
+              DEFAULT_EPSILON);
+      Float3 scale =
+          MathUtilsKt.lerp(start.getScale(), end.getScale(), LERP_FACTOR, DEFAULT_EPSILON);
+      transforms[i] =
+          MatrixKt.translation(position)
+              .times(MatrixKt.rotation(quaternion))
+              .times(MatrixKt.scale(scale));
+      worldTransforms[i] = parentWorldTransform.times(transforms[i]);
+    }
+    return worldTransforms;
+  }
+
+  /** {@code slerpInto} and {@code mul} writing into the existing matrices. */
+  @Benchmark
+  public Mat4[] mutableUpdate() {
+    Mat4[] targets = nextTargets();
+    for (int i = 0; i < nodeCount; i++) {
+      MutableMathKt.slerpInto(
+          transforms[i], targets[i], LERP_FACTOR, transforms[i], DEFAULT_EPSILON);
+      MutableMathKt.mul(parentWorldTransform, transforms[i], worldTransforms[i]);
+    }
+    return worldTransforms;
+  }
+
+  // The targets alternate so that the nodes never settle
+  private Mat4[] nextTargets() {
+    isTargetA = !isTargetA;
+    return isTargetA ? targetsA : targetsB;
+  }
+
+  private static Mat4 randomTransform(Random random) {
+    return MathUtilsKt.Transform(
+        new Float3(random.nextFloat(), random.nextFloat(), random.nextFloat()),
+        Quaternion.Companion.fromAxisAngle(
+            new Float3(0.0f, 1.0f, 0.0f), random.nextFloat() * 360.0f),
+        new Float3(
+            0.5f + random.nextFloat(), 0.5f + random.nextFloat(), 0.5f + random.nextFloat()));
+  }
+}
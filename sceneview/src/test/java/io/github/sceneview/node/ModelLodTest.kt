@@ -0,0 +1,64 @@
+package io.github.sceneview.node
+
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.math.sqrt
+
+class ModelLodTest {
+
+    private val levels = listOf(
+        LodLevel("high.glb", 0.5f),
+        LodLevel("medium.glb", 0.2f),
+        LodLevel("low.glb", 0.0f)
+    )
+
+    @Test
+    fun screenCoverage_projectsTheBoundingSphere() {
+        // The tangent length from the camera is 2 so the sphere covers half the scale
+        assertEquals(1.0f, ModelLod.screenCoverage(1.0f, sqrt(5.0f), 2.0f), 1e-5f)
+    }
+
+    @Test
+    fun screenCoverage_isInfinite_whenTheCameraIsInsideTheSphere() {
+        assertEquals(Float.POSITIVE_INFINITY, ModelLod.screenCoverage(1.0f, 1.0f, 2.0f), 0.0f)
+        assertEquals(Float.POSITIVE_INFINITY, ModelLod.screenCoverage(1.0f, 0.5f, 2.0f), 0.0f)
+    }
+
+    @Test
+    fun infiniteCoverage_selectsTheMostDetailedLevel() {
+        val coverage = ModelLod.screenCoverage(1.0f, 0.0f, 2.0f)
+        assertEquals(0, ModelLod.selectLevel(levels, coverage, currentLevel = 2))
+    }
+
+    @Test
+    fun increasingCoverage_keepsTheLevel_insideTheHysteresisBand() {
+        // Switching up to level 0 needs 0.5 * 1.15 = 0.575
+        assertEquals(1, ModelLod.selectLevel(levels, 0.55f, currentLevel = 1))
+        assertEquals(0, ModelLod.selectLevel(levels, 0.6f, currentLevel = 1))
+    }
+
+    @Test
+    fun decreasingCoverage_keepsTheLevel_insideTheHysteresisBand() {
+        // Switching down from level 0 needs less than 0.5 * 0.85 = 0.425
+        assertEquals(0, ModelLod.selectLevel(levels, 0.45f, currentLevel = 0))
+        assertEquals(1, ModelLod.selectLevel(levels, 0.4f, currentLevel = 0))
+    }
+
+    @Test
+    fun selectLevel_crossesSeveralLevels_atOnce() {
+        assertEquals(0, ModelLod.selectLevel(levels, 1.0f, currentLevel = 2))
+        assertEquals(2, ModelLod.selectLevel(levels, 0.1f, currentLevel = 0))
+    }
+
+    @Test
+    fun lastLevel_withZeroThreshold_isKept_forAnyCoverage() {
+        assertEquals(2, ModelLod.selectLevel(levels, 0.0f, currentLevel = 2))
+        assertEquals(2, ModelLod.selectLevel(levels, 0.0f, currentLevel = 0))
+    }
+
+    @Test
+    fun zeroHysteresis_switchesExactlyAtTheThreshold() {
+        assertEquals(0, ModelLod.selectLevel(levels, 0.5f, currentLevel = 1, hysteresis = 0.0f))
+        assertEquals(1, ModelLod.selectLevel(levels, 0.49f, currentLevel = 0, hysteresis = 0.0f))
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.sceneview.node;
+
+import dev.romainguy.kotlin.math.Float3;
+import dev.romainguy.kotlin.math.Quaternion;
+import io.github.sceneview.utils.FrameTime;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the per frame cost of a scene of static nodes: the {@link NodeFrameScheduler} dispatch
+ * with the previous {@link Node#onFrame} call on every attached node.
+ *
+ * <p>Run it with the GC profiler to also compare the allocated bytes per frame ({@code
+ * gc.alloc.rate.norm}):
+ *
+ * <p>{@code ./gradlew :sceneview:jmh -Pjmh="NodeFrameBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeFrameBenchmark {
+  private static final long FRAME_NANOS = 16_666_667L;
+
+  @Param({"10000"})
+  public int nodeCount;
+
+  private final ArrayList<Node> nodes = new ArrayList<>();
+  private final NodeFrameScheduler scheduler = new NodeFrameScheduler(null);
+  private FrameTime frameTime = new FrameTime(FRAME_NANOS, null);
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < nodeCount; i++) {
+      Node node =
+          new Node(
+              new Float3(i % 100, 0.0f, i / 100.0f),
+              new Quaternion(0.0f, 0.0f, 0.0f, 1.0f),
+              new Float3(1.0f, 1.0f, 1.0f));
+      nodes.add(node);
+      scheduler.attach(node);
+    }
+    // The first frame ticks the newly attached nodes
+    scheduler.dispatchFrame(nextFrameTime());
+  }
+
+  /** The previous lifecycle dispatch calling every attached node. */
+  @Benchmark
+  public FrameTime allNodes() {
+    FrameTime frameTime = nextFrameTime();
+    for (int i = 0; i < nodes.size(); i++) {
+      nodes.get(i).onFrame(frameTime);
+    }
+    return frameTime;
+  }
+
+  /** Only checks the static nodes for in place edits. */
+  @Benchmark
+  public FrameTime scheduledNodes() {
+    FrameTime frameTime = nextFrameTime();
+    scheduler.dispatchFrame(frameTime);
+    return frameTime;
+  }
+
+  private FrameTime nextFrameTime() {
+    frameTime = new FrameTime(frameTime.getNanoseconds() + FRAME_NANOS, frameTime.getNanoseconds());
+    return frameTime;
+  }
+}
@@ -0,0 +1,110 @@
+package io.github.sceneview.node
+
+import io.github.sceneview.math.Position
+import io.github.sceneview.utils.FrameTime
+import org.junit.Assert.*
+import org.junit.Test
+
+class NodeFrameSchedulerTest {
+
+    private class CountingNode : Node() {
+        var frameCount = 0
+
+        override fun onFrame(frameTime: FrameTime) {
+            super.onFrame(frameTime)
+            frameCount++
+        }
+    }
+
+    private val scheduler = NodeFrameScheduler()
+    private var frameNanos = 0L
+
+    @Test
+    fun staticNode_isTickedOnceAfterAttach() {
+        val node = CountingNode()
+        scheduler.attach(node)
+
+        repeat(3) { dispatchFrame() }
+
+        assertEquals(1, node.frameCount)
+        assertEquals(0, scheduler.scheduledCount)
+    }
+
+    @Test
+    fun transformChange_ticksTheNode() {
+        val node = CountingNode()
+        scheduler.attach(node)
+        dispatchFrame()
+
+        node.position = Position(y = 1.0f)
+        dispatchFrame()
+        dispatchFrame()
+
+        assertEquals(2, node.frameCount)
+    }
+
+    @Test
+    fun inPlaceEdit_ticksTheNodeAndItsChildren() {
+        val parent = CountingNode()
+        val child = CountingNode()
+        child.parent = parent
+        scheduler.attach(parent)
+        scheduler.attach(child)
+        dispatchFrame()
+
+        parent.position.y = 1.0f
+        dispatchFrame()
+
+        assertEquals(2, parent.frameCount)
+        assertEquals(2, child.frameCount)
+        assertEquals(1.0f, child.worldPosition.y, 0.0f)
+        dispatchFrame()
+        assertEquals(2, parent.frameCount)
+    }
+
+    @Test
+    fun onFrameListener_keepsTheNodeTicking() {
+        val node = CountingNode()
+        scheduler.attach(node)
+        dispatchFrame()
+
+        var listenerCount = 0
+        node.onFrame += { _, _ -> listenerCount++ }
+        repeat(3) { dispatchFrame() }
+
+        assertEquals(3, listenerCount)
+        assertEquals(4, node.frameCount)
+    }
+
+    @Test
+    fun detach_stopsTheTicks() {
+        val nodes = List(3) { CountingNode() }
+        nodes.forEach { scheduler.attach(it) }
+        dispatchFrame()
+
+        scheduler.detach(nodes[0])
+        nodes.forEach { it.position.x = 1.0f }
+        dispatchFrame()
+
+        assertEquals(2, scheduler.attachedCount)
+        assertEquals(listOf(1, 2, 2), nodes.map { it.frameCount })
+    }
+
+    @Test
+    fun detach_beforeTheScheduledFrame_skipsTheNode() {
+        val node = CountingNode()
+        scheduler.attach(node)
+
+        scheduler.detach(node)
+        dispatchFrame()
+
+        assertEquals(0, node.frameCount)
+        assertNull(node.frameScheduler)
+    }
+
+    private fun dispatchFrame() {
+        val lastNanos = frameNanos
+        frameNanos += 16_666_667L
+        scheduler.dispatchFrame(FrameTime(frameNanos, lastNanos))
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.sceneview.utils
+
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+/**
+ * Runs the cache against a local HTTP server
+ */
+class DiskCacheTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val server = MockWebServer()
+    private lateinit var directory: File
+
+    // Path to content. The ETag is the content itself.
+    private val files = ConcurrentHashMap<String, String>()
+    private val requestCount = AtomicInteger()
+    private val blockedPaths = ConcurrentHashMap<String, CountDownLatch>()
+
+    @Before
+    fun setUp() {
+        directory = File(temporaryFolder.root, "cache")
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                requestCount.incrementAndGet()
+                val path = request.requestUrl!!.encodedPath
+                blockedPaths[path]?.await(5, TimeUnit.SECONDS)
+                val content = files[path]
+                return when {
+                    content == null -> MockResponse().setResponseCode(404)
+                    request.getHeader("If-None-Match") == content -> {
+                        MockResponse().setResponseCode(304)
+                    }
+                    else -> MockResponse().setHeader("ETag", content).setBody(content)
+                }
+            }
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun creation_doesNotTouchTheDisk() {
+        DiskCache(directory)
+
+        assertFalse(directory.exists())
+    }
+
+    @Test
+    fun open_downloadsOnceThenHits() {
+        files["/model.glb"] = "model"
+        val cache = DiskCache(directory, maxStaleMillis = Long.MAX_VALUE)
+
+        assertEquals("model", cache.read("/model.glb"))
+        assertEquals("model", cache.read("/model.glb"))
+
+        assertEquals(1, requestCount.get())
+        val stats = cache.stats
+        assertEquals(1, stats.missCount)
+        assertEquals(1, stats.hitCount)
+        assertEquals(5, stats.downloadedBytes)
+        assertEquals(5, stats.hitBytes)
+    }
+
+    @Test
+    fun open_revalidatesWithTheETag() {
+        files["/model.glb"] = "model"
+        val cache = DiskCache(directory, maxStaleMillis = 0)
+
+        assertEquals("model", cache.read("/model.glb"))
+        assertEquals("model", cache.read("/model.glb"))
+
+        assertEquals(2, requestCount.get())
+        val stats = cache.stats
+        assertEquals(1, stats.revalidationCount)
+        assertEquals(1, stats.notModifiedCount)
+        assertEquals(5, stats.downloadedBytes)
+    }
+
+    @Test
+    fun open_downloadsTheChangedContent() {
+        files["/model.glb"] = "model"
+        val cache = DiskCache(directory, maxStaleMillis = 0)
+        cache.read("/model.glb")
+
+        files["/model.glb"] = "model v2"
+
+        assertEquals("model v2", cache.read("/model.glb"))
+        assertEquals(0, cache.stats.notModifiedCount)
+        assertEquals(2, cache.stats.missCount)
+        assertEquals(8, cache.size)
+    }
+
+    @Test
+    fun open_usesTheStaleContentWhenOffline() {
+        files["/model.glb"] = "model"
+        val cache = DiskCache(directory, maxStaleMillis = 0)
+        cache.read("/model.glb")
+
+        server.shutdown()
+
+        assertEquals("model", cache.read("/model.glb"))
+    }
+
+    @Test(expected = IOException::class)
+    fun open_throwsWhenNotFoundAndNotCached() {
+        DiskCache(directory).read("/missing.glb")
+    }
+
+    @Test
+    fun open_evictsTheLeastRecentlyUsedEntries() {
+        files["/a"] = "aaaa"
+        files["/b"] = "bbbb"
+        files["/c"] = "cccc"
+        val cache = DiskCache(directory, maxSizeBytes = 8, maxStaleMillis = Long.MAX_VALUE)
+        cache.read("/a")
+        cache.read("/b")
+        // a becomes the most recently used
+        cache.read("/a")
+
+        cache.read("/c")
+
+        assertTrue(cache.contains(url("/a")))
+        assertFalse(cache.contains(url("/b")))
+        assertTrue(cache.contains(url("/c")))
+        assertEquals(1, cache.stats.evictionCount)
+        assertEquals(8, cache.size)
+    }
+
+    @Test
+    fun open_returnedStreamSurvivesTheEviction() {
+        files["/a"] = "aaaa"
+        files["/b"] = "bbbb"
+        val cache = DiskCache(directory, maxSizeBytes = 4, maxStaleMillis = Long.MAX_VALUE)
+        val input = cache.open(url("/a"))
+
+        cache.read("/b")
+
+        assertFalse(cache.contains(url("/a")))
+        assertEquals("aaaa", input.use { String(it.readBytes()) })
+    }
+
+    @Test
+    fun entries_arePersistedAcrossInstances() {
+        files["/model.glb"] = "model"
+        DiskCache(directory, maxStaleMillis = Long.MAX_VALUE).read("/model.glb")
+
+        val cache = DiskCache(directory, maxStaleMillis = Long.MAX_VALUE)
+        server.shutdown()
+
+        assertTrue(cache.contains(url("/model.glb")))
+        assertEquals(5, cache.size)
+        assertEquals("model", cache.read("/model.glb"))
+        assertEquals(1, cache.stats.hitCount)
+    }
+
+    @Test
+    fun remove_waitsForTheDownloadInProgress() {
+        files["/model.glb"] = "model"
+        val release = CountDownLatch(1)
+        blockedPaths["/model.glb"] = release
+        val cache = DiskCache(directory, maxStaleMillis = Long.MAX_VALUE)
+        var content: String? = null
+        val download = thread { content = cache.read("/model.glb") }
+        awaitCondition { requestCount.get() == 1 }
+
+        val remove = thread { cache.remove(url("/model.glb")) }
+        remove.join(100)
+        assertTrue(remove.isAlive)
+
+        release.countDown()
+        download.join()
+        remove.join()
+
+        assertEquals("model", content)
+        assertFalse(cache.contains(url("/model.glb")))
+        assertEquals(0, cache.size)
+    }
+
+    @Test
+    fun clear_removesEveryEntry() {
+        files["/a"] = "aaaa"
+        files["/b"] = "bbbb"
+        val cache = DiskCache(directory, maxStaleMillis = Long.MAX_VALUE)
+        cache.read("/a")
+        cache.read("/b")
+
+        cache.clear()
+
+        assertFalse(cache.contains(url("/a")))
+        assertFalse(cache.contains(url("/b")))
+        assertEquals(0, cache.size)
+        assertEquals(0, directory.listFiles()!!.size)
+    }
+
+    private fun url(path: String) = server.url(path).toString()
+
+    private fun DiskCache.read(path: String) = open(url(path)).use { String(it.readBytes()) }
+
+    private fun awaitCondition(condition: () -> Boolean) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition()) {
+            if (System.nanoTime() > deadline) fail("Timed out")
+            Thread.sleep(1)
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.sceneview.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Drives the governor with synthetic frame time traces
+ */
+class QualityGovernorTest {
+
+    private val governor = QualityGovernor(levelCount = 3, windowSize = WINDOW_SIZE)
+
+    @Test
+    fun steadyFrames_keepTheFullQuality() {
+        feedWindows(10, TARGET)
+
+        assertEquals(0, governor.level)
+    }
+
+    @Test
+    fun slowFrames_stepDownOneLevelPerWindow() {
+        val levels = mutableListOf<Pair<Int, Int>>()
+        governor.onLevelChanged = QualityGovernor.OnLevelChangedListener { _, previous, level ->
+            levels += previous to level
+        }
+
+        feedWindows(4, SLOW)
+
+        assertEquals(2, governor.level)
+        assertEquals(listOf(0 to 1, 1 to 2), levels)
+    }
+
+    @Test
+    fun spikes_underThePercentile_areIgnored() {
+        // 1 frame out of 10 is over the 90th percentile
+        repeat(10) {
+            feedFrames(WINDOW_SIZE - 1, TARGET)
+            governor.onFrame(SLOW * 4)
+        }
+
+        assertEquals(0, governor.level)
+        assertEquals(TARGET, governor.lastPercentileNanos)
+    }
+
+    @Test
+    fun recovery_stepsUpAfterTheUpgradeWindows() {
+        feedWindows(1, SLOW)
+
+        feedWindows(governor.minUpgradeWindowCount - 1, TARGET)
+        assertEquals(1, governor.level)
+        feedWindows(1, TARGET)
+        assertEquals(0, governor.level)
+    }
+
+    @Test
+    fun frames_betweenTheRatios_holdTheLevel() {
+        feedWindows(1, SLOW)
+
+        // Over the upgrade ratio but under the degrade one
+        feedWindows(20, (TARGET * 1.15f).toLong())
+
+        assertEquals(1, governor.level)
+    }
+
+    @Test
+    fun failedUpgrade_doublesTheUpgradeWindows() {
+        feedWindows(1, SLOW)
+        feedWindows(governor.minUpgradeWindowCount, TARGET)
+        assertEquals(0, governor.level)
+
+        // The device can't keep up with the full quality
+        feedWindows(1, SLOW)
+        assertEquals(1, governor.level)
+        assertEquals(governor.minUpgradeWindowCount * 2, governor.upgradeWindowCount)
+
+        feedWindows(governor.minUpgradeWindowCount, TARGET)
+        assertEquals(1, governor.level)
+        feedWindows(governor.minUpgradeWindowCount, TARGET)
+        assertEquals(0, governor.level)
+    }
+
+    @Test
+    fun heldUpgrade_halvesTheUpgradeWindowsBack() {
+        feedWindows(1, SLOW)
+        feedWindows(governor.minUpgradeWindowCount, TARGET)
+        feedWindows(1, SLOW)
+        assertEquals(governor.minUpgradeWindowCount * 2, governor.upgradeWindowCount)
+
+        feedWindows(governor.upgradeWindowCount, TARGET)
+        assertEquals(0, governor.level)
+        feedWindows(governor.upgradeWindowCount + 1, TARGET)
+
+        assertEquals(governor.minUpgradeWindowCount, governor.upgradeWindowCount)
+    }
+
+    @Test
+    fun thermalCritical_stepsDownWithFastFrames() {
+        governor.thermalStatus = QualityGovernor.THERMAL_STATUS_SEVERE
+
+        feedWindows(1, TARGET)
+
+        assertEquals(1, governor.level)
+    }
+
+    @Test
+    fun thermalWarning_preventsTheUpgrades() {
+        feedWindows(1, SLOW)
+
+        governor.thermalHeadroom = 0.9f
+        feedWindows(20, TARGET)
+        assertEquals(1, governor.level)
+
+        governor.thermalHeadroom = 0.5f
+        feedWindows(governor.upgradeWindowCount, TARGET)
+        assertEquals(0, governor.level)
+    }
+
+    @Test
+    fun reset_restartsFromTheFullQuality() {
+        feedWindows(2, SLOW)
+        feedFrames(WINDOW_SIZE / 2, SLOW)
+
+        governor.reset()
+
+        assertEquals(0, governor.level)
+        // The partial window was dropped
+        feedFrames(WINDOW_SIZE / 2, SLOW)
+        assertEquals(0, governor.level)
+    }
+
+    private fun feedWindows(count: Int, frameTimeNanos: Long) =
+        feedFrames(count * WINDOW_SIZE, frameTimeNanos)
+
+    private fun feedFrames(count: Int, frameTimeNanos: Long) = repeat(count) {
+        governor.onFrame(frameTimeNanos)
+    }
+
+    companion object {
+        private const val WINDOW_SIZE = 10
+        private const val TARGET = QualityGovernor.DEFAULT_TARGET_FRAME_TIME_NANOS
+        // Every other display frame is missed
+        private const val SLOW = TARGET * 2
+    }
+}
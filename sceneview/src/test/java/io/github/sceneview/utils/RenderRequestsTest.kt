@@ -0,0 +1,73 @@
+package io.github.sceneview.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class RenderRequestsTest {
+
+    private val renderRequests = RenderRequests(settleFrameCount = 2)
+
+    @Test
+    fun creation_rendersTheFirstFrames() {
+        assertEquals(listOf(true, true, false), renderFrames(3))
+    }
+
+    @Test
+    fun request_rendersTheSettleFrames() {
+        renderFrames(2)
+
+        renderRequests.requestRender()
+
+        assertTrue(renderRequests.isRenderPending)
+        assertEquals(listOf(true, true, false, false), renderFrames(4))
+        assertFalse(renderRequests.isRenderPending)
+    }
+
+    @Test
+    fun requests_inTheSameFrame_areMerged() {
+        renderFrames(2)
+
+        repeat(3) { renderRequests.requestRender() }
+
+        assertEquals(2, renderRequests.pendingFrameCount)
+        assertEquals(listOf(true, true, false), renderFrames(3))
+    }
+
+    @Test
+    fun request_duringTheSettleFrames_restartsThem() {
+        renderFrames(2)
+        renderRequests.requestRender()
+        renderFrames(1)
+
+        renderRequests.requestRender()
+
+        assertEquals(listOf(true, true, false), renderFrames(3))
+    }
+
+    @Test
+    fun continuousFrames_areAlwaysRendered() {
+        repeat(4) { assertTrue(renderRequests.onFrame(isContinuous = true)) }
+
+        assertEquals(4, renderRequests.renderedFrameCount)
+        assertEquals(0, renderRequests.skippedFrameCount)
+    }
+
+    @Test
+    fun counts_areResetTogether() {
+        renderFrames(5)
+        assertEquals(2, renderRequests.renderedFrameCount)
+        assertEquals(3, renderRequests.skippedFrameCount)
+
+        renderRequests.resetCounts()
+
+        assertEquals(0, renderRequests.renderedFrameCount)
+        assertEquals(0, renderRequests.skippedFrameCount)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun settleFrameCount_mustBePositive() {
+        renderRequests.settleFrameCount = 0
+    }
+
+    private fun renderFrames(count: Int) = List(count) { renderRequests.onFrame() }
+}